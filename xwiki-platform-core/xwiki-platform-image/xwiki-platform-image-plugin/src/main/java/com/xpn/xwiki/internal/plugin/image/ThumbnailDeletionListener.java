@@ -0,0 +1,82 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.plugin.image;
+
+import java.util.Arrays;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.event.AbstractAttachmentEvent;
+import com.xpn.xwiki.internal.event.AttachmentDeletedEvent;
+import com.xpn.xwiki.internal.event.AttachmentUpdatedEvent;
+import com.xpn.xwiki.plugin.XWikiPluginInterface;
+import com.xpn.xwiki.plugin.image.ImagePlugin;
+
+/**
+ * Deletes the thumbnails stored on disk by the {@link ImagePlugin} when an image is updated or deleted, so that the
+ * thumbnails of the previous versions don't accumulate in the thumbnail directory.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component
+@Named(ThumbnailDeletionListener.NAME)
+@Singleton
+public class ThumbnailDeletionListener extends AbstractEventListener
+{
+    /**
+     * The name of the listener.
+     */
+    public static final String NAME = "com.xpn.xwiki.internal.plugin.image.ThumbnailDeletionListener";
+
+    /**
+     * Default constructor.
+     */
+    public ThumbnailDeletionListener()
+    {
+        super(NAME, Arrays.asList(new AttachmentUpdatedEvent(), new AttachmentDeletedEvent()));
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        XWikiContext xcontext = (XWikiContext) data;
+        XWikiPluginInterface imagePlugin = xcontext.getWiki().getPlugin("image", xcontext);
+        if (!(imagePlugin instanceof ImagePlugin)) {
+            return;
+        }
+
+        // The thumbnails have been generated from the previous version of the attachment.
+        XWikiDocument originalDocument = ((XWikiDocument) source).getOriginalDocument();
+        XWikiAttachment attachment = originalDocument != null
+            ? originalDocument.getAttachment(((AbstractAttachmentEvent) event).getName()) : null;
+        if (attachment != null) {
+            ((ImagePlugin) imagePlugin).deleteThumbnails(attachment);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.plugin.image;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.context.concurrent.ExecutionContextRunnable;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.event.AbstractAttachmentEvent;
+import com.xpn.xwiki.internal.event.AttachmentAddedEvent;
+import com.xpn.xwiki.internal.event.AttachmentUpdatedEvent;
+import com.xpn.xwiki.plugin.XWikiPluginInterface;
+import com.xpn.xwiki.plugin.image.ImagePlugin;
+
+/**
+ * Generates in the background the thumbnails of the images that are attached or updated, for the widths configured
+ * with {@code xwiki.plugin.image.pregeneratedWidths}, so that they are served by the {@link ImagePlugin} without being
+ * resized in the request.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component
+@Named(ThumbnailPregenerationListener.NAME)
+@Singleton
+public class ThumbnailPregenerationListener extends AbstractEventListener implements Initializable, Disposable
+{
+    /**
+     * The name of the listener.
+     */
+    public static final String NAME = "com.xpn.xwiki.internal.plugin.image.ThumbnailPregenerationListener";
+
+    /**
+     * The maximum number of images waiting for their thumbnails to be generated. The images attached when the queue is
+     * full get their thumbnails generated when they are requested.
+     */
+    private static final int QUEUE_CAPACITY = 1000;
+
+    @Inject
+    @Named("context")
+    private ComponentManager componentManager;
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    @Inject
+    private Logger logger;
+
+    private ExecutorService executor;
+
+    /**
+     * Default constructor.
+     */
+    public ThumbnailPregenerationListener()
+    {
+        super(NAME, Arrays.asList(new AttachmentAddedEvent(), new AttachmentUpdatedEvent()));
+    }
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        // A single thread is enough since the resizes are bounded by the image plugin anyway and we don't want the
+        // pre-generation to compete with the resizes requested by the users.
+        BasicThreadFactory factory = new BasicThreadFactory.Builder().namingPattern("XWiki thumbnail pre-generation")
+            .daemon(true).priority(Thread.MIN_PRIORITY).build();
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY), factory, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.executor.shutdownNow();
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        XWikiContext xcontext = (XWikiContext) data;
+        XWikiPluginInterface imagePlugin = xcontext.getWiki().getPlugin("image", xcontext);
+        if (!(imagePlugin instanceof ImagePlugin) || !((ImagePlugin) imagePlugin).isThumbnailPregenerationEnabled()) {
+            return;
+        }
+        ImagePlugin plugin = (ImagePlugin) imagePlugin;
+
+        XWikiDocument document = (XWikiDocument) source;
+        XWikiAttachment attachment = document.getAttachment(((AbstractAttachmentEvent) event).getName());
+        if (attachment != null) {
+            // Queue only the reference and the version of the attachment in order to not keep its content in memory
+            // while it's waiting in the queue.
+            AttachmentReference reference = attachment.getReference();
+            String version = attachment.getVersion();
+            this.executor.execute(new ExecutionContextRunnable(
+                () -> pregenerateThumbnails(plugin, reference, version), this.componentManager));
+        }
+    }
+
+    private void pregenerateThumbnails(ImagePlugin plugin, AttachmentReference reference, String version)
+    {
+        XWikiContext xcontext = this.xcontextProvider.get();
+        xcontext.setWikiReference(reference.getDocumentReference().getWikiReference());
+
+        try {
+            XWikiDocument document = xcontext.getWiki().getDocument(reference.getDocumentReference(), xcontext);
+            XWikiAttachment attachment = document.getAttachment(reference.getName());
+            // Skip the attachment if it has been deleted or updated in the mean time, in which case its new version is
+            // already queued.
+            if (attachment != null && Objects.equals(version, attachment.getVersion())) {
+                plugin.pregenerateThumbnails(attachment, xcontext);
+            }
+        } catch (Exception e) {
+            this.logger.warn("Failed to generate the thumbnails of [{}]. Root cause: [{}].", reference,
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+}
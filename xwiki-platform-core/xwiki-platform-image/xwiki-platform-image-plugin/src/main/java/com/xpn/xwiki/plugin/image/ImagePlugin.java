@@ -21,12 +21,31 @@
 
 import java.awt.Image;
 import java.awt.image.RenderedImage;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
-
-import org.apache.commons.io.IOUtils;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xwiki.cache.Cache;
@@ -34,6 +53,7 @@
 import org.xwiki.cache.CacheManager;
 import org.xwiki.cache.config.CacheConfiguration;
 import org.xwiki.cache.eviction.LRUEvictionConfiguration;
+import org.xwiki.environment.Environment;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
@@ -63,10 +83,40 @@ public class ImagePlugin extends XWikiDefaultPlugin
     private static final String PLUGIN_NAME = "image";
 
     /**
-     * Cache for already served images.
+     * The directory where the generated thumbnails are stored, relative to the permanent directory.
+     */
+    private static final String THUMBNAIL_DIRECTORY = "cache/image/thumbnails";
+
+    /**
+     * Cache for already served images. The cached thumbnails don't hold their content, which is read from the
+     * thumbnail directory when they are downloaded.
      */
     private Cache<XWikiAttachment> imageCache;
 
+    /**
+     * The directory where the generated thumbnails are stored, so that they don't need to be generated again when they
+     * are evicted from the cache or after a restart.
+     */
+    private File thumbnailDirectory;
+
+    /**
+     * The thumbnails being generated, used to make sure the same thumbnail is not generated by several requests at the
+     * same time.
+     */
+    private final Map<String, CompletableFuture<XWikiAttachment>> pendingThumbnails = new ConcurrentHashMap<>();
+
+    /**
+     * Limits the number of images resized at the same time, since each of them is decoded fully in memory. This
+     * parameter can be configured using the key {@code xwiki.plugin.image.maxConcurrentResizes}.
+     */
+    private Semaphore resizePermits;
+
+    /**
+     * The widths of the thumbnails generated in advance when an image is attached. This parameter can be configured
+     * using the key {@code xwiki.plugin.image.pregeneratedWidths}.
+     */
+    private List<Integer> pregeneratedWidths = Collections.emptyList();
+
     /**
      * The size of the cache. This parameter can be configured using the key {@code xwiki.plugin.image.cache.capacity}.
      */
@@ -116,6 +166,33 @@ public void init(XWikiContext context)
 
         initCache(context);
 
+        this.thumbnailDirectory =
+            new File(Utils.getComponent(Environment.class).getPermanentDirectory(), THUMBNAIL_DIRECTORY);
+
+        int maxConcurrentResizes = Runtime.getRuntime().availableProcessors();
+        String maxConcurrentResizesParam = context.getWiki().Param("xwiki.plugin.image.maxConcurrentResizes");
+        if (!StringUtils.isBlank(maxConcurrentResizesParam)) {
+            try {
+                maxConcurrentResizes = Math.max(1, Integer.parseInt(maxConcurrentResizesParam.trim()));
+            } catch (NumberFormatException e) {
+                LOG.warn("Failed to parse xwiki.plugin.image.maxConcurrentResizes configuration parameter. "
+                    + "Using {} as the maximum number of concurrent resizes.", maxConcurrentResizes);
+            }
+        }
+        this.resizePermits = new Semaphore(maxConcurrentResizes, true);
+
+        List<Integer> widths = new ArrayList<>();
+        for (String width : StringUtils.split(context.getWiki().Param("xwiki.plugin.image.pregeneratedWidths", ""),
+            ", ")) {
+            try {
+                widths.add(Integer.parseInt(width));
+            } catch (NumberFormatException e) {
+                LOG.warn("Ignoring invalid width [{}] in xwiki.plugin.image.pregeneratedWidths configuration "
+                    + "parameter.", width);
+            }
+        }
+        this.pregeneratedWidths = widths;
+
         String imageProcessorHint = context.getWiki().Param("xwiki.plugin.image.processorHint", "thumbnailator");
         this.imageProcessor = Utils.getComponent(ImageProcessor.class, imageProcessorHint);
 
@@ -173,6 +250,15 @@ public void flushCache()
             this.imageCache.dispose();
         }
         this.imageCache = null;
+
+        if (this.thumbnailDirectory != null) {
+            try {
+                FileUtils.deleteDirectory(this.thumbnailDirectory);
+            } catch (IOException e) {
+                LOG.warn("Failed to delete the thumbnails stored in [{}]. Root cause: [{}].", this.thumbnailDirectory,
+                    ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
     }
 
     /**
@@ -250,7 +336,8 @@ private XWikiAttachment downloadImage(XWikiAttachment image, int width, int heig
         boolean keepAspectRatio = Boolean.valueOf(context.getRequest().getParameter("keepAspectRatio"));
 
         XWikiAttachment thumbnail = (this.imageCache == null)
-            ? shrinkImage(image, width, height, keepAspectRatio, quality, context)
+            ? getThumbnail(image, getThumbnailKey(image, width, height, keepAspectRatio, quality), width, height,
+                keepAspectRatio, quality, context)
             : downloadImageFromCache(image, width, height, keepAspectRatio, quality, context);
 
         // If the image has been transformed, update the file name extension to match the image format.
@@ -280,20 +367,163 @@ private XWikiAttachment downloadImage(XWikiAttachment image, int width, int heig
     private XWikiAttachment downloadImageFromCache(XWikiAttachment image, int width, int height,
         boolean keepAspectRatio, float quality, XWikiContext context) throws Exception
     {
-        String key = String.format("%s;%s;%s;%s;%s;%s;%s", image.getId(), image.getVersion(), image.getDate().getTime(),
-            width, height, keepAspectRatio, quality);
+        String key = getThumbnailKey(image, width, height, keepAspectRatio, quality);
 
         XWikiAttachment thumbnail = this.imageCache.get(key);
+        if (thumbnail != null && thumbnail.getAttachment_content() instanceof ThumbnailContent
+            && !((ThumbnailContent) thumbnail.getAttachment_content()).exists()) {
+            // The thumbnail file has been deleted (e.g. because the image has been updated) so we generate it again.
+            this.imageCache.remove(key);
+            thumbnail = null;
+        }
         if (thumbnail == null) {
-            thumbnail = shrinkImage(image, width, height, keepAspectRatio, quality, context);
-            this.imageCache.set(key, thumbnail);
+            CompletableFuture<XWikiAttachment> generation = new CompletableFuture<>();
+            CompletableFuture<XWikiAttachment> pendingGeneration = this.pendingThumbnails.putIfAbsent(key, generation);
+            if (pendingGeneration != null) {
+                // The same thumbnail is being generated by another request so we wait for it.
+                return pendingGeneration.get();
+            }
+
+            try {
+                thumbnail = getThumbnail(image, key, width, height, keepAspectRatio, quality, context);
+                this.imageCache.set(key, thumbnail);
+                generation.complete(thumbnail);
+            } catch (Exception e) {
+                generation.completeExceptionally(e);
+                throw e;
+            } finally {
+                this.pendingThumbnails.remove(key);
+            }
+        }
+        return thumbnail;
+    }
+
+    /**
+     * @return the key identifying the thumbnail generated for the specified image version and transformation
+     */
+    private String getThumbnailKey(XWikiAttachment image, int width, int height, boolean keepAspectRatio,
+        float quality)
+    {
+        return String.format("%s;%s;%s;%s;%s;%s;%s", image.getId(), image.getVersion(), image.getDate().getTime(),
+            width, height, keepAspectRatio, quality);
+    }
+
+    /**
+     * Gets the thumbnail from the thumbnail directory, generating it if it's not there yet.
+     *
+     * @param image the image to be downloaded
+     * @param key the key identifying the thumbnail, see
+     *            {@link #getThumbnailKey(XWikiAttachment, int, int, boolean, float)}
+     * @param width the desired image width
+     * @param height the desired image height
+     * @param keepAspectRatio {@code true} to preserve aspect ratio when resizing the image, {@code false} otherwise
+     * @param quality the desired compression quality
+     * @param context the XWiki context
+     * @return the thumbnail, or the given image if it doesn't need to be transformed
+     * @throws Exception if transforming the image fails
+     */
+    private XWikiAttachment getThumbnail(XWikiAttachment image, String key, int width, int height,
+        boolean keepAspectRatio, float quality, XWikiContext context) throws Exception
+    {
+        File file = getThumbnailFile(image, key);
+        if (!file.exists() && !shrinkImage(image, file, width, height, keepAspectRatio, quality, context)) {
+            return image;
         }
+
+        XWikiAttachment thumbnail = (XWikiAttachment) image.clone();
+        thumbnail.setAttachment_content(new ThumbnailContent(file, image));
+        thumbnail.setLongSize(file.length());
         return thumbnail;
     }
 
+    private File getThumbnailFile(XWikiAttachment image, String key)
+    {
+        // The key contains the version and the date of the image so a modified image gets a new thumbnail file.
+        return new File(getThumbnailDirectory(image), DigestUtils.sha256Hex(key));
+    }
+
+    /**
+     * @return the directory where the thumbnails of all the versions of the given image are stored, so that they can be
+     *         deleted together when the image is updated or deleted
+     */
+    private File getThumbnailDirectory(XWikiAttachment image)
+    {
+        return new File(this.thumbnailDirectory, String.valueOf(image.getId()));
+    }
+
+    /**
+     * Deletes the thumbnails stored on disk for all the versions of the specified image. This is called when the image
+     * is updated or deleted so that the thumbnails of the previous versions don't accumulate in the thumbnail
+     * directory. The thumbnails still in the memory cache are generated again when they are requested.
+     *
+     * @param attachment an image attachment
+     * @since 13.3RC1
+     */
+    public void deleteThumbnails(XWikiAttachment attachment)
+    {
+        File directory = getThumbnailDirectory(attachment);
+        if (directory.exists()) {
+            try {
+                FileUtils.deleteDirectory(directory);
+            } catch (IOException e) {
+                LOG.warn("Failed to delete the thumbnails stored in [{}]. Root cause: [{}].", directory,
+                    ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if thumbnails are generated in advance when an image is attached, {@code false} otherwise
+     * @since 13.3RC1
+     */
+    public boolean isThumbnailPregenerationEnabled()
+    {
+        return !this.pregeneratedWidths.isEmpty();
+    }
+
+    /**
+     * Generates in advance the thumbnails of the specified image for the widths configured with
+     * {@code xwiki.plugin.image.pregeneratedWidths}, so that downloading them with the {@code width} request parameter
+     * doesn't resize the image in the request. The image is decoded only once for all the widths.
+     *
+     * @param attachment an image attachment
+     * @param context the XWiki context
+     * @throws Exception if transforming the image fails
+     * @since 13.3RC1
+     */
+    public void pregenerateThumbnails(XWikiAttachment attachment, XWikiContext context) throws Exception
+    {
+        if (!isThumbnailPregenerationEnabled()
+            || !this.imageProcessor.isMimeTypeSupported(attachment.getMimeType(context))) {
+            return;
+        }
+
+        List<File> files = new ArrayList<>();
+        for (int width : this.pregeneratedWidths) {
+            files.add(getThumbnailFile(attachment, getThumbnailKey(attachment, width, -1, false, -1)));
+        }
+        if (files.stream().allMatch(File::exists)) {
+            return;
+        }
+
+        this.resizePermits.acquire();
+        try {
+            Image image = this.imageProcessor.readImage(attachment.getContentInputStream(context));
+            for (int i = 0; i < files.size(); i++) {
+                if (!files.get(i).exists()) {
+                    writeThumbnail(attachment, image, files.get(i), this.pregeneratedWidths.get(i), -1, false, -1,
+                        context);
+                }
+            }
+        } finally {
+            this.resizePermits.release();
+        }
+    }
+
     /**
      * Reduces the size (i.e. the number of bytes) of an image by scaling its width and height and by reducing its
-     * compression quality. This helps decreasing the time needed to download the image attachment.
+     * compression quality. This helps decreasing the time needed to download the image attachment. The number of images
+     * shrunk at the same time is limited since the image is decoded fully in memory.
      *
      * @param attachment the image to be shrunk
      * @param requestedWidth the desired image width; this value is taken into account only if it is greater than zero
@@ -304,15 +534,35 @@ private XWikiAttachment downloadImageFromCache(XWikiAttachment image, int width,
      *            properly specified (in this case the image will be resized to best fit the rectangle with the
      *            requested width and height), {@code false} otherwise
      * @param requestedQuality the desired compression quality
+     * @param file the file where to write the shrunk image
      * @param context the XWiki context
-     * @return the modified image attachment
+     * @return {@code true} if the shrunk image has been written, {@code false} if the image doesn't need to be modified
      * @throws Exception if shrinking the image fails
      */
-    private XWikiAttachment shrinkImage(XWikiAttachment attachment, int requestedWidth, int requestedHeight,
+    private boolean shrinkImage(XWikiAttachment attachment, File file, int requestedWidth, int requestedHeight,
+        boolean keepAspectRatio, float requestedQuality, XWikiContext context) throws Exception
+    {
+        this.resizePermits.acquire();
+        try {
+            return writeShrunkImage(attachment, file, requestedWidth, requestedHeight, keepAspectRatio,
+                requestedQuality, context);
+        } finally {
+            this.resizePermits.release();
+        }
+    }
+
+    private boolean writeShrunkImage(XWikiAttachment attachment, File file, int requestedWidth, int requestedHeight,
         boolean keepAspectRatio, float requestedQuality, XWikiContext context) throws Exception
     {
         Image image = this.imageProcessor.readImage(attachment.getContentInputStream(context));
 
+        return writeThumbnail(attachment, image, file, requestedWidth, requestedHeight, keepAspectRatio,
+            requestedQuality, context);
+    }
+
+    private boolean writeThumbnail(XWikiAttachment attachment, Image image, File file, int requestedWidth,
+        int requestedHeight, boolean keepAspectRatio, float requestedQuality, XWikiContext context) throws Exception
+    {
         // Compute the new image dimension.
         int currentWidth = image.getWidth(null);
         int currentHeight = image.getHeight(null);
@@ -323,7 +573,7 @@ private XWikiAttachment shrinkImage(XWikiAttachment attachment, int requestedWid
         if (quality < 0) {
             // If no scaling is needed and the quality parameter is not specified, return the original image.
             if (dimensions[0] == currentWidth && dimensions[1] == currentHeight) {
-                return attachment;
+                return false;
             }
             quality = this.defaultQuality;
         }
@@ -331,19 +581,20 @@ private XWikiAttachment shrinkImage(XWikiAttachment attachment, int requestedWid
         // Scale the image to the new dimensions.
         RenderedImage shrunkImage = this.imageProcessor.scaleImage(image, dimensions[0], dimensions[1]);
 
-        // Create an image attachment for the shrunk image.
-        XWikiAttachment thumbnail = (XWikiAttachment) attachment.clone();
-        thumbnail.loadAttachmentContent(context);
-
-        OutputStream acos = thumbnail.getAttachment_content().getContentOutputStream();
-        this.imageProcessor.writeImage(shrunkImage,
-            attachment.getMimeType(context),
-            quality,
-            acos);
-
-        IOUtils.closeQuietly(acos);
+        // Write the shrunk image to a temporary file first so that a partially written thumbnail is never served.
+        file.getParentFile().mkdirs();
+        File temporaryFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+        try {
+            try (OutputStream out = new FileOutputStream(temporaryFile)) {
+                this.imageProcessor.writeImage(shrunkImage, attachment.getMimeType(context), quality, out);
+            }
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile.toPath());
+        }
 
-        return thumbnail;
+        return true;
     }
 
     /**
@@ -410,7 +661,7 @@ private int[] reduceImageDimensions(int currentWidth, int currentHeight, int req
      */
     public int getWidth(XWikiAttachment attachment, XWikiContext context) throws IOException, XWikiException
     {
-        return this.imageProcessor.readImage(attachment.getContentInputStream(context)).getWidth(null);
+        return getDimensions(attachment, context)[0];
     }
 
     /**
@@ -422,6 +673,37 @@ public int getWidth(XWikiAttachment attachment, XWikiContext context) throws IOE
      */
     public int getHeight(XWikiAttachment attachment, XWikiContext context) throws IOException, XWikiException
     {
-        return this.imageProcessor.readImage(attachment.getContentInputStream(context)).getHeight(null);
+        return getDimensions(attachment, context)[1];
+    }
+
+    /**
+     * Reads the dimensions of the specified image from its header when possible, in order to avoid decoding the whole
+     * image.
+     *
+     * @param attachment an image attachment
+     * @param context the XWiki context
+     * @return the width and height of the specified image
+     * @throws IOException if reading the image from the attachment content fails
+     * @throws XWikiException if reading the attachment content fails
+     */
+    private int[] getDimensions(XWikiAttachment attachment, XWikiContext context) throws IOException, XWikiException
+    {
+        try (InputStream content = attachment.getContentInputStream(context);
+            ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers != null && readers.hasNext()) {
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(input, true, true);
+                    return new int[] { reader.getWidth(0), reader.getHeight(0) };
+                } finally {
+                    reader.dispose();
+                }
+            }
+        }
+
+        // Fall back on decoding the whole image.
+        Image image = this.imageProcessor.readImage(attachment.getContentInputStream(context));
+        return new int[] { image.getWidth(null), image.getHeight(null) };
     }
 }
@@ -0,0 +1,115 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.plugin.image;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.AutoCloseInputStream;
+
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiAttachmentContent;
+import com.xpn.xwiki.web.Utils;
+
+/**
+ * The content of a thumbnail generated by the {@link ImagePlugin}, read from the file where it has been stored. This
+ * way the thumbnails kept in the memory cache don't hold their content and are streamed from the disk when they are
+ * downloaded. If the file has been deleted in the mean time (e.g. because the image has been updated) the content of
+ * the original image is served instead.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+class ThumbnailContent extends XWikiAttachmentContent
+{
+    private final File file;
+
+    private final XWikiAttachment image;
+
+    /**
+     * @param file the file where the thumbnail is stored
+     * @param image the image the thumbnail has been generated from, used when the file is missing
+     */
+    ThumbnailContent(File file, XWikiAttachment image)
+    {
+        this.file = file;
+        this.image = image;
+    }
+
+    /**
+     * @return {@code true} if the file where the thumbnail is stored exists, {@code false} otherwise
+     */
+    boolean exists()
+    {
+        return this.file.exists();
+    }
+
+    @Override
+    public Object clone()
+    {
+        ThumbnailContent clone = new ThumbnailContent(this.file, this.image);
+        clone.setAttachment(getAttachment());
+        return clone;
+    }
+
+    @Override
+    @Deprecated
+    public byte[] getContent()
+    {
+        try (InputStream content = getContentInputStream()) {
+            return IOUtils.toByteArray(content);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read the thumbnail content", e);
+        }
+    }
+
+    @Override
+    public InputStream getContentInputStream()
+    {
+        try {
+            return new AutoCloseInputStream(new FileInputStream(this.file));
+        } catch (FileNotFoundException e) {
+            try {
+                return this.image.getContentInputStream(Utils.getContext());
+            } catch (XWikiException xe) {
+                throw new RuntimeException("Failed to get InputStream", xe);
+            }
+        }
+    }
+
+    @Override
+    public long getLongSize()
+    {
+        if (exists()) {
+            return this.file.length();
+        }
+
+        try {
+            return this.image.getContentLongSize(Utils.getContext());
+        } catch (XWikiException e) {
+            throw new RuntimeException("Failed to get the image size", e);
+        }
+    }
+}
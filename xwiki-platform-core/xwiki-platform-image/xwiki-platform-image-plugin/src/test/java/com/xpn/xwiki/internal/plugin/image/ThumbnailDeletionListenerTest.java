@@ -0,0 +1,108 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.plugin.image;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.event.AttachmentDeletedEvent;
+import com.xpn.xwiki.internal.event.AttachmentUpdatedEvent;
+import com.xpn.xwiki.plugin.image.ImagePlugin;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ThumbnailDeletionListener}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class ThumbnailDeletionListenerTest
+{
+    private static final String DOCUMENT_NAME = "wiki:Space.Page";
+
+    @InjectMockComponents
+    private ThumbnailDeletionListener listener;
+
+    private XWikiContext xcontext;
+
+    private ImagePlugin imagePlugin;
+
+    private XWikiDocument document;
+
+    private XWikiDocument originalDocument;
+
+    @BeforeEach
+    void configure()
+    {
+        this.xcontext = mock(XWikiContext.class);
+        XWiki xwiki = mock(XWiki.class);
+        when(this.xcontext.getWiki()).thenReturn(xwiki);
+        this.imagePlugin = mock(ImagePlugin.class);
+        when(xwiki.getPlugin("image", this.xcontext)).thenReturn(this.imagePlugin);
+
+        this.document = mock(XWikiDocument.class);
+        this.originalDocument = mock(XWikiDocument.class);
+        when(this.document.getOriginalDocument()).thenReturn(this.originalDocument);
+    }
+
+    @Test
+    void onAttachmentUpdated()
+    {
+        XWikiAttachment attachment = mock(XWikiAttachment.class);
+        when(this.originalDocument.getAttachment("image.png")).thenReturn(attachment);
+
+        this.listener.onEvent(new AttachmentUpdatedEvent(DOCUMENT_NAME, "image.png"), this.document,
+            this.xcontext);
+
+        verify(this.imagePlugin).deleteThumbnails(attachment);
+    }
+
+    @Test
+    void onAttachmentDeleted()
+    {
+        XWikiAttachment attachment = mock(XWikiAttachment.class);
+        when(this.originalDocument.getAttachment("image.png")).thenReturn(attachment);
+
+        this.listener.onEvent(new AttachmentDeletedEvent(DOCUMENT_NAME, "image.png"), this.document,
+            this.xcontext);
+
+        verify(this.imagePlugin).deleteThumbnails(attachment);
+    }
+
+    @Test
+    void onAttachmentMissingFromOriginalDocument()
+    {
+        this.listener.onEvent(new AttachmentDeletedEvent(DOCUMENT_NAME, "image.png"), this.document,
+            this.xcontext);
+
+        verify(this.imagePlugin, never()).deleteThumbnails(any());
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.plugin.image;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.test.junit5.mockito.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.event.AttachmentAddedEvent;
+import com.xpn.xwiki.internal.event.AttachmentUpdatedEvent;
+import com.xpn.xwiki.plugin.image.ImagePlugin;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ThumbnailPregenerationListener}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class ThumbnailPregenerationListenerTest
+{
+    private static final DocumentReference DOCUMENT_REFERENCE = new DocumentReference("wiki", "Space", "Page");
+
+    @InjectMockComponents
+    private ThumbnailPregenerationListener listener;
+
+    @MockComponent
+    @Named("context")
+    private ComponentManager componentManager;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    private XWikiContext xcontext;
+
+    private XWiki xwiki;
+
+    private ImagePlugin imagePlugin;
+
+    @BeforeComponent
+    void beforeComponent() throws ComponentLookupException
+    {
+        ExecutionContextManager executionContextManager = mock(ExecutionContextManager.class);
+        when(this.componentManager.getInstance(ExecutionContextManager.class)).thenReturn(executionContextManager);
+    }
+
+    @BeforeEach
+    void configure()
+    {
+        this.xcontext = mock(XWikiContext.class);
+        when(this.xcontextProvider.get()).thenReturn(this.xcontext);
+        this.xwiki = mock(XWiki.class);
+        when(this.xcontext.getWiki()).thenReturn(this.xwiki);
+        this.imagePlugin = mock(ImagePlugin.class);
+        when(this.xwiki.getPlugin("image", this.xcontext)).thenReturn(this.imagePlugin);
+        when(this.imagePlugin.isThumbnailPregenerationEnabled()).thenReturn(true);
+    }
+
+    private XWikiDocument mockDocument(String fileName, String version)
+    {
+        XWikiAttachment attachment = mock(XWikiAttachment.class);
+        when(attachment.getReference()).thenReturn(new AttachmentReference(fileName, DOCUMENT_REFERENCE));
+        when(attachment.getVersion()).thenReturn(version);
+
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getAttachment(fileName)).thenReturn(attachment);
+        return document;
+    }
+
+    @Test
+    void onAttachmentAdded() throws Exception
+    {
+        XWikiDocument document = mockDocument("image.png", "1.1");
+        // The attachment is reloaded when its thumbnails are generated.
+        XWikiDocument storedDocument = mockDocument("image.png", "1.1");
+        XWikiAttachment storedAttachment = storedDocument.getAttachment("image.png");
+        when(this.xwiki.getDocument(DOCUMENT_REFERENCE, this.xcontext)).thenReturn(storedDocument);
+
+        this.listener.onEvent(new AttachmentAddedEvent("wiki:Space.Page", "image.png"), document, this.xcontext);
+
+        verify(this.imagePlugin, timeout(5000)).pregenerateThumbnails(storedAttachment, this.xcontext);
+    }
+
+    @Test
+    void onAttachmentUpdatedInTheMeanTime() throws Exception
+    {
+        XWikiDocument document = mockDocument("image.png", "1.1");
+        XWikiDocument otherDocument = mockDocument("other.png", "1.1");
+        XWikiDocument storedDocument = mockDocument("image.png", "1.2");
+        XWikiAttachment storedAttachment = storedDocument.getAttachment("image.png");
+        XWikiAttachment otherAttachment = mock(XWikiAttachment.class);
+        when(otherAttachment.getVersion()).thenReturn("1.1");
+        when(storedDocument.getAttachment("other.png")).thenReturn(otherAttachment);
+        when(this.xwiki.getDocument(DOCUMENT_REFERENCE, this.xcontext)).thenReturn(storedDocument);
+
+        this.listener.onEvent(new AttachmentUpdatedEvent("wiki:Space.Page", "image.png"), document, this.xcontext);
+        this.listener.onEvent(new AttachmentAddedEvent("wiki:Space.Page", "other.png"), otherDocument,
+            this.xcontext);
+
+        // The queued images are processed in order so the first one has been skipped once the second one is processed.
+        verify(this.imagePlugin, timeout(5000)).pregenerateThumbnails(otherAttachment, this.xcontext);
+        verify(this.imagePlugin, never()).pregenerateThumbnails(storedAttachment, this.xcontext);
+    }
+
+    @Test
+    void onAttachmentAddedWithPregenerationDisabled() throws Exception
+    {
+        when(this.imagePlugin.isThumbnailPregenerationEnabled()).thenReturn(false);
+
+        this.listener.onEvent(new AttachmentAddedEvent("wiki:Space.Page", "image.png"),
+            mockDocument("image.png", "1.1"), this.xcontext);
+
+        verify(this.xwiki, never()).getDocument(any(DocumentReference.class), any(XWikiContext.class));
+        verify(this.imagePlugin, never()).pregenerateThumbnails(any(), any());
+    }
+}
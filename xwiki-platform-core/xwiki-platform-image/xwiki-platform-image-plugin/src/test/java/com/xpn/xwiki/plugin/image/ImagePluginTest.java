@@ -29,6 +29,7 @@
 import org.apache.commons.codec.binary.Base64;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.xwiki.cache.Cache;
 import org.xwiki.cache.CacheManager;
@@ -36,15 +37,20 @@
 import com.xpn.xwiki.XWiki;
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.doc.XWikiAttachment;
-import com.xpn.xwiki.doc.XWikiAttachmentContent;
 import com.xpn.xwiki.test.MockitoOldcore;
 import com.xpn.xwiki.test.junit5.mockito.InjectMockitoOldcore;
 import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
 import com.xpn.xwiki.web.XWikiServletRequest;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -110,6 +116,7 @@ public void configure() throws Exception
             ArgumentMatchers.anyString());
 
         this.oldCore.getMocker().registerMockComponent(CacheManager.class);
+        this.oldCore.registerMockEnvironment();
 
         this.imageProcessor = this.oldCore.getMocker().registerMockComponent(ImageProcessor.class, "test");
         when(this.imageProcessor.isMimeTypeSupported("image/png")).thenReturn(true);
@@ -140,12 +147,6 @@ public void testCacheOfScaledAttachment() throws Exception
         when(attachment.clone()).thenReturn(attachment);
         when(attachment.getDate()).thenReturn(date);
 
-        XWikiAttachmentContent attachmentContent = mock(XWikiAttachmentContent.class);
-        when(attachment.getAttachment_content()).thenReturn(attachmentContent);
-        when(attachmentContent.getContentInputStream()).thenReturn(attachmentInputStream);
-        OutputStream attachmentOutputStream = mock(OutputStream.class);
-        when(attachmentContent.getContentOutputStream()).thenReturn(attachmentOutputStream);
-
         CacheManager cacheManager = this.oldCore.getMocker().getInstance(CacheManager.class);
         Cache<Object> imageCache = mock(Cache.class);
         when(cacheManager.createNewLocalCache(ArgumentMatchers.any())).thenReturn(imageCache);
@@ -170,7 +171,157 @@ public void testCacheOfScaledAttachment() throws Exception
         // Load again, this time from cache.
         assertSame(scaled, plugin.downloadAttachment(attachment, xcontext));
 
-        verify(imageProcessor, times(1)).writeImage(renderedImage, "image/png", .5F, attachmentOutputStream);
+        verify(imageProcessor, times(1)).writeImage(eq(renderedImage), eq("image/png"), eq(.5F),
+            any(OutputStream.class));
         verify(imageCache, times(1)).set(cacheKey, attachment);
+        verify(attachment).setAttachment_content(any(ThumbnailContent.class));
+    }
+
+    @Test
+    public void testThumbnailStoredOnDisk() throws Exception
+    {
+        XWikiContext xcontext = this.oldCore.getXWikiContext();
+
+        XWikiAttachment attachment = mock(XWikiAttachment.class);
+        when(attachment.getMimeType(xcontext)).thenReturn("image/png");
+        InputStream attachmentInputStream = new ByteArrayInputStream(IMAGE_CONTENT);
+        when(attachment.getContentInputStream(xcontext)).thenReturn(attachmentInputStream);
+        when(attachment.clone()).thenReturn(attachment);
+        when(attachment.getDate()).thenReturn(new Date(0));
+
+        // The thumbnail is evicted from the memory cache.
+        CacheManager cacheManager = this.oldCore.getMocker().getInstance(CacheManager.class);
+        when(cacheManager.createNewLocalCache(ArgumentMatchers.any())).thenReturn(mock(Cache.class));
+
+        XWikiServletRequest request = mock(XWikiServletRequest.class);
+        when(request.getParameter("width")).thenReturn("30");
+        xcontext.setRequest(request);
+
+        Image image = mock(Image.class);
+        when(image.getWidth(null)).thenReturn(400);
+        when(image.getHeight(null)).thenReturn(300);
+        when(imageProcessor.readImage(attachmentInputStream)).thenReturn(image);
+        RenderedImage renderedImage = mock(RenderedImage.class);
+        when(imageProcessor.scaleImage(image, 30, 22)).thenReturn(renderedImage);
+
+        plugin.downloadAttachment(attachment, xcontext);
+        plugin.downloadAttachment(attachment, xcontext);
+
+        // The image is resized only once because the thumbnail is read from the disk the second time.
+        verify(imageProcessor, times(1)).readImage(attachmentInputStream);
+        verify(imageProcessor, times(1)).writeImage(eq(renderedImage), eq("image/png"), eq(.5F),
+            any(OutputStream.class));
+        verify(attachment, times(2)).setAttachment_content(any(ThumbnailContent.class));
+    }
+
+    @Test
+    public void testDeleteThumbnails() throws Exception
+    {
+        XWikiContext xcontext = this.oldCore.getXWikiContext();
+
+        XWikiAttachment attachment = mock(XWikiAttachment.class);
+        when(attachment.getMimeType(xcontext)).thenReturn("image/png");
+        InputStream attachmentInputStream = new ByteArrayInputStream(IMAGE_CONTENT);
+        when(attachment.getContentInputStream(xcontext)).thenReturn(attachmentInputStream);
+        when(attachment.getContentLongSize(xcontext)).thenReturn((long) IMAGE_CONTENT.length);
+        when(attachment.clone()).thenReturn(attachment);
+        when(attachment.getDate()).thenReturn(new Date(0));
+
+        CacheManager cacheManager = this.oldCore.getMocker().getInstance(CacheManager.class);
+        Cache<XWikiAttachment> imageCache = mock(Cache.class);
+        when(cacheManager.<XWikiAttachment>createNewLocalCache(ArgumentMatchers.any())).thenReturn(imageCache);
+
+        XWikiServletRequest request = mock(XWikiServletRequest.class);
+        when(request.getParameter("width")).thenReturn("30");
+        xcontext.setRequest(request);
+
+        Image image = mock(Image.class);
+        when(image.getWidth(null)).thenReturn(400);
+        when(image.getHeight(null)).thenReturn(300);
+        when(imageProcessor.readImage(attachmentInputStream)).thenReturn(image);
+        RenderedImage renderedImage = mock(RenderedImage.class);
+        when(imageProcessor.scaleImage(image, 30, 22)).thenReturn(renderedImage);
+
+        plugin.downloadAttachment(attachment, xcontext);
+
+        ArgumentCaptor<ThumbnailContent> contentCaptor = ArgumentCaptor.forClass(ThumbnailContent.class);
+        verify(attachment).setAttachment_content(contentCaptor.capture());
+        ThumbnailContent content = contentCaptor.getValue();
+        assertTrue(content.exists());
+
+        // The image is updated.
+        plugin.deleteThumbnails(attachment);
+
+        // The cached thumbnail falls back on the original image content.
+        assertFalse(content.exists());
+        assertSame(attachmentInputStream, content.getContentInputStream());
+        assertEquals(IMAGE_CONTENT.length, content.getLongSize());
+
+        // The thumbnail is generated again when it's requested from the cache.
+        String cacheKey = "0;null;0;30;-1;false;-1.0";
+        when(imageCache.get(cacheKey)).thenReturn(attachment);
+        when(attachment.getAttachment_content()).thenReturn(content);
+
+        plugin.downloadAttachment(attachment, xcontext);
+
+        verify(imageCache).remove(cacheKey);
+        verify(imageProcessor, times(2)).readImage(attachmentInputStream);
+        verify(imageProcessor, times(2)).writeImage(eq(renderedImage), eq("image/png"), eq(.5F),
+            any(OutputStream.class));
+    }
+
+    @Test
+    public void testGetDimensionsFromHeader() throws Exception
+    {
+        XWikiContext xcontext = this.oldCore.getXWikiContext();
+
+        XWikiAttachment attachment = mock(XWikiAttachment.class);
+        when(attachment.getContentInputStream(xcontext)).then(invocation -> new ByteArrayInputStream(IMAGE_CONTENT));
+
+        assertEquals(150, plugin.getWidth(attachment, xcontext));
+        assertEquals(60, plugin.getHeight(attachment, xcontext));
+
+        // The image is not decoded.
+        verify(imageProcessor, never()).readImage(any());
+    }
+
+    @Test
+    public void testPregenerateThumbnails() throws Exception
+    {
+        XWikiContext xcontext = this.oldCore.getXWikiContext();
+        doReturn("30, 200").when(this.oldCore.getSpyXWiki()).Param("xwiki.plugin.image.pregeneratedWidths", "");
+        ImagePlugin imagePlugin = new ImagePlugin("image", ImagePlugin.class.getName(), xcontext);
+
+        XWikiAttachment attachment = mock(XWikiAttachment.class);
+        when(attachment.getMimeType(xcontext)).thenReturn("image/png");
+        InputStream attachmentInputStream = new ByteArrayInputStream(IMAGE_CONTENT);
+        when(attachment.getContentInputStream(xcontext)).thenReturn(attachmentInputStream);
+        when(attachment.clone()).thenReturn(attachment);
+        when(attachment.getDate()).thenReturn(new Date(0));
+
+        Image image = mock(Image.class);
+        when(image.getWidth(null)).thenReturn(400);
+        when(image.getHeight(null)).thenReturn(300);
+        when(imageProcessor.readImage(attachmentInputStream)).thenReturn(image);
+        RenderedImage smallImage = mock(RenderedImage.class);
+        when(imageProcessor.scaleImage(image, 30, 22)).thenReturn(smallImage);
+        RenderedImage largeImage = mock(RenderedImage.class);
+        when(imageProcessor.scaleImage(image, 200, 150)).thenReturn(largeImage);
+
+        imagePlugin.pregenerateThumbnails(attachment, xcontext);
+
+        // The image is decoded once for all the widths.
+        verify(imageProcessor, times(1)).readImage(attachmentInputStream);
+        verify(imageProcessor).writeImage(eq(smallImage), eq("image/png"), eq(.5F), any(OutputStream.class));
+        verify(imageProcessor).writeImage(eq(largeImage), eq("image/png"), eq(.5F), any(OutputStream.class));
+
+        // The pre-generated thumbnail is served without resizing the image.
+        XWikiServletRequest request = mock(XWikiServletRequest.class);
+        when(request.getParameter("width")).thenReturn("200");
+        xcontext.setRequest(request);
+        imagePlugin.downloadAttachment(attachment, xcontext);
+
+        verify(imageProcessor, times(1)).readImage(attachmentInputStream);
+        verify(attachment).setAttachment_content(any(ThumbnailContent.class));
     }
 }
@@ -26,6 +26,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -69,6 +70,8 @@ public class DocumentTreeNode extends AbstractDocumentTreeNode implements Initia
 
     private static final String PARAMETER_EXCLUDED_DOCUMENTS = "excludedDocuments";
 
+    private static final String PROPERTY_FILTER_HIDDEN_DOCUMENTS = "filterHiddenDocuments";
+
     @Inject
     @Named("count")
     protected QueryFilter countQueryFilter;
@@ -103,6 +106,9 @@ public class DocumentTreeNode extends AbstractDocumentTreeNode implements Initia
     @Named("documentReferenceResolver/nestedPages")
     private QueryFilter documentReferenceResolverFilter;
 
+    @Inject
+    private NestedPagesCache nestedPagesCache;
+
     /**
      * We use a {@link LinkedHashMap} because the order of the key is important.
      */
@@ -183,6 +189,22 @@ protected List<DocumentReference> getChildDocuments(DocumentReference documentRe
             return Collections.emptyList();
         }
 
+        // The child pages depend on the current locale (when sorted by title), the current user (whether hidden pages
+        // are displayed) and the tree configuration.
+        String orderBy = getOrderBy();
+        boolean terminalDocumentsShown = areTerminalDocumentsShown();
+        String variant = String.format("children/%s/%s/%s/%s/%s/%s/%s/%s", orderBy,
+            FIELD_TITLE.equals(orderBy) ? this.localizationContext.getCurrentLocale() : "", terminalDocumentsShown,
+            areHiddenEntitiesShown(),
+            terminalDocumentsShown ? new TreeSet<>(getExcludedDocuments(documentReference.getParent())) : "",
+            new TreeSet<>(getExcludedSpaces(documentReference.getParent())), offset, limit);
+        return this.nestedPagesCache.get(documentReference.getParent(), variant,
+            () -> Collections.unmodifiableList(queryChildDocuments(documentReference, offset, limit)));
+    }
+
+    private List<DocumentReference> queryChildDocuments(DocumentReference documentReference, int offset, int limit)
+        throws QueryException
+    {
         String orderBy = getOrderBy();
         Query query;
         if (areTerminalDocumentsShown()) {
@@ -256,11 +278,18 @@ protected int getChildDocumentsCount(DocumentReference documentReference) throws
             return 0;
         }
 
-        int count = getChildSpacesCount(documentReference);
-        if (areTerminalDocumentsShown()) {
-            count += getChildTerminalPagesCount(documentReference);
-        }
-        return count;
+        boolean terminalDocumentsShown = areTerminalDocumentsShown();
+        String variant = String.format("count/%s/%s/%s/%s/%s", terminalDocumentsShown, areHiddenEntitiesShown(),
+            getProperties().get(PROPERTY_FILTER_HIDDEN_DOCUMENTS),
+            new TreeSet<>(getExcludedSpaces(documentReference.getParent())),
+            terminalDocumentsShown ? new TreeSet<>(getExcludedDocuments(documentReference.getParent())) : "");
+        return this.nestedPagesCache.get(documentReference.getParent(), variant, () -> {
+            int count = getChildSpacesCount(documentReference);
+            if (terminalDocumentsShown) {
+                count += getChildTerminalPagesCount(documentReference);
+            }
+            return count;
+        });
     }
 
     private int getChildTerminalPagesCount(DocumentReference documentReference) throws QueryException
@@ -293,7 +322,7 @@ private int getChildTerminalPagesCount(DocumentReference documentReference) thro
         }
 
         query.addFilter(this.countQueryFilter);
-        if (Boolean.TRUE.equals(getProperties().get("filterHiddenDocuments"))) {
+        if (Boolean.TRUE.equals(getProperties().get(PROPERTY_FILTER_HIDDEN_DOCUMENTS))) {
             query.addFilter(this.hiddenDocumentQueryFilterProvider.get());
         }
 
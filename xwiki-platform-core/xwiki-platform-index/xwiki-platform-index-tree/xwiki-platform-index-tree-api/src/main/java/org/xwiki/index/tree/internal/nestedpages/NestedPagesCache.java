@@ -0,0 +1,184 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.index.tree.internal.nestedpages;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.query.QueryException;
+
+/**
+ * Caches the child pages (and their count) of the nested page hierarchy, so that expanding a tree node doesn't query
+ * the database each time. The cached values are grouped by parent (wiki or space) and are invalidated by
+ * {@link NestedPagesCacheListener} when a page is created, deleted or when its title or hidden flag is modified.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component(roles = NestedPagesCache.class)
+@Singleton
+public class NestedPagesCache implements Initializable, Disposable
+{
+    /**
+     * Computes a value when it's not found in the cache.
+     *
+     * @param <T> the type of value
+     * @version $Id$
+     */
+    @FunctionalInterface
+    public interface Loader<T>
+    {
+        /**
+         * @return the value to cache
+         * @throws QueryException if computing the value fails
+         */
+        T load() throws QueryException;
+    }
+
+    private static final int DEFAULT_CAPACITY = 10000;
+
+    @Inject
+    private CacheManager cacheManager;
+
+    @Inject
+    @Named("local")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
+    /**
+     * The cached values, grouped by parent: each entry maps the variant of a value (e.g. the page of children for a
+     * given offset, limit and sort) to the value itself.
+     */
+    private Cache<Map<String, Object>> cache;
+
+    /**
+     * Incremented each time the cache is invalidated, in order to not cache a value that has been computed before the
+     * invalidation.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            this.cache = this.cacheManager
+                .createNewCache(new LRUCacheConfiguration("index.tree.nestedPages", DEFAULT_CAPACITY));
+        } catch (CacheException e) {
+            throw new InitializationException("Failed to create the nested pages cache.", e);
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.cache.dispose();
+    }
+
+    /**
+     * @param <T> the type of value
+     * @param parentReference the parent (wiki or space) whose children are cached
+     * @param variant identifies the value among the values cached for the specified parent (e.g. the child count or a
+     *            page of children), including all the parameters the value depends on
+     * @param loader used to compute the value if it's not found in the cache
+     * @return the cached value
+     * @throws QueryException if computing the value fails
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(EntityReference parentReference, String variant, Loader<T> loader) throws QueryException
+    {
+        String key = getKey(parentReference);
+
+        Map<String, Object> values = this.cache.get(key);
+        if (values != null && values.containsKey(variant)) {
+            return (T) values.get(variant);
+        }
+
+        long loadVersion = this.version.get();
+        T value = loader.load();
+
+        synchronized (this) {
+            // Don't cache a value that may have been computed from data modified in the meantime.
+            if (loadVersion == this.version.get()) {
+                values = this.cache.get(key);
+                if (values == null) {
+                    values = new ConcurrentHashMap<>();
+                    this.cache.set(key, values);
+                }
+                values.put(variant, value);
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Remove the cached values that may depend on the specified entity, i.e. the values cached for the spaces that
+     * contain the entity and for its wiki.
+     *
+     * @param entityReference the reference of the entity that has been modified
+     */
+    public synchronized void invalidate(EntityReference entityReference)
+    {
+        this.version.incrementAndGet();
+
+        for (EntityReference reference = entityReference; reference != null; reference = reference.getParent()) {
+            if (reference.getType() == EntityType.SPACE || reference.getType() == EntityType.WIKI) {
+                this.cache.remove(getKey(reference));
+            }
+        }
+    }
+
+    /**
+     * Empty the cache.
+     */
+    public synchronized void invalidateAll()
+    {
+        this.version.incrementAndGet();
+
+        this.cache.removeAll();
+    }
+
+    private String getKey(EntityReference parentReference)
+    {
+        StringBuilder key = new StringBuilder(parentReference.extractReference(EntityType.WIKI).getName());
+        key.append(':');
+        EntityReference spaceReference = parentReference.extractReference(EntityType.SPACE);
+        if (spaceReference != null) {
+            key.append(this.localEntityReferenceSerializer.serialize(spaceReference));
+        }
+        return key.toString();
+    }
+}
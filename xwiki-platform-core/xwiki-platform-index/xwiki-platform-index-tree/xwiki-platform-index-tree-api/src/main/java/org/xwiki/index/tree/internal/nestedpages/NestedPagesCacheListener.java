@@ -0,0 +1,89 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.index.tree.internal.nestedpages;
+
+import java.util.Objects;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.bridge.event.DocumentCreatedEvent;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.bridge.event.WikiDeletedEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+
+/**
+ * Invalidates the {@link NestedPagesCache} when the nested page hierarchy is modified.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component
+@Named(NestedPagesCacheListener.NAME)
+@Singleton
+public class NestedPagesCacheListener extends AbstractEventListener
+{
+    /**
+     * The name of the listener.
+     */
+    public static final String NAME = "org.xwiki.index.tree.internal.nestedpages.NestedPagesCacheListener";
+
+    @Inject
+    private NestedPagesCache cache;
+
+    /**
+     * Default constructor.
+     */
+    public NestedPagesCacheListener()
+    {
+        super(NAME, new DocumentCreatedEvent(), new DocumentUpdatedEvent(), new DocumentDeletedEvent(),
+            new WikiDeletedEvent());
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        if (event instanceof WikiDeletedEvent) {
+            this.cache.invalidateAll();
+        } else {
+            XWikiDocument document = (XWikiDocument) source;
+
+            // Most updates don't modify the tree (only the title and the hidden flag are used to sort and filter the
+            // child pages) so we don't want to invalidate the cache each time a page is saved.
+            if (!(event instanceof DocumentUpdatedEvent) || isTreeModified(document)) {
+                this.cache.invalidate(document.getDocumentReference());
+            }
+        }
+    }
+
+    private boolean isTreeModified(XWikiDocument document)
+    {
+        XWikiDocument originalDocument = document.getOriginalDocument();
+
+        return originalDocument == null || !Objects.equals(document.isHidden(), originalDocument.isHidden())
+            || !Objects.equals(document.getTitle(), originalDocument.getTitle());
+    }
+}
@@ -22,6 +22,7 @@
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -51,6 +52,8 @@
 @InstantiationStrategy(ComponentInstantiationStrategy.PER_LOOKUP)
 public class WikiTreeNode extends AbstractEntityTreeNode
 {
+    private static final String TITLE = "title";
+
     @Inject
     private LocalizationContext localizationContext;
 
@@ -70,6 +73,9 @@ public class WikiTreeNode extends AbstractEntityTreeNode
     @Named("documentReferenceResolver/nestedPages")
     private QueryFilter documentReferenceResolverFilter;
 
+    @Inject
+    private NestedPagesCache nestedPagesCache;
+
     @Override
     public List<String> getChildren(String nodeId, int offset, int limit)
     {
@@ -87,10 +93,21 @@ public List<String> getChildren(String nodeId, int offset, int limit)
 
     protected List<? extends EntityReference> getChildren(WikiReference wikiReference, int offset, int limit)
         throws QueryException
+    {
+        String orderBy = getOrderBy();
+        String variant = String.format("children/%s/%s/%s/%s/%s/%s", orderBy,
+            TITLE.equals(orderBy) ? this.localizationContext.getCurrentLocale() : "", areHiddenEntitiesShown(),
+            new TreeSet<>(getExcludedSpaces(wikiReference)), offset, limit);
+        return this.nestedPagesCache.get(wikiReference, variant,
+            () -> Collections.unmodifiableList(queryChildren(wikiReference, offset, limit)));
+    }
+
+    private List<? extends EntityReference> queryChildren(WikiReference wikiReference, int offset, int limit)
+        throws QueryException
     {
         String orderBy = getOrderBy();
         Query query;
-        if ("title".equals(orderBy)) {
+        if (TITLE.equals(orderBy)) {
             query = this.queryManager.getNamedQuery("nonTerminalPagesOrderedByTitle");
             query.bindValue("locale", this.localizationContext.getCurrentLocale().toString());
         } else {
@@ -135,7 +152,9 @@ public int getChildCount(String nodeId)
 
     protected int getChildCount(WikiReference wikiReference) throws QueryException
     {
-        return getChildSpacesCount(wikiReference);
+        String variant = String.format("count/%s/%s", areHiddenEntitiesShown(),
+            new TreeSet<>(getExcludedSpaces(wikiReference)));
+        return this.nestedPagesCache.get(wikiReference, variant, () -> getChildSpacesCount(wikiReference));
     }
 
     @Override
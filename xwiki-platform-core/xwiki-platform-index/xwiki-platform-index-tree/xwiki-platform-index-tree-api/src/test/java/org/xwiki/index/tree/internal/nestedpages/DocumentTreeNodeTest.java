@@ -55,6 +55,7 @@
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -131,6 +132,9 @@
     @Named("test")
     private TreeFilter filter;
 
+    @MockComponent
+    private NestedPagesCache nestedPagesCache;
+
     private DocumentReference documentReference =
         new DocumentReference("wiki", Arrays.asList("Path", "To", "Page"), "WebHome");
 
@@ -145,6 +149,8 @@ public void configure(MockitoComponentManager componentManager) throws Exception
     @BeforeEach
     public void before() throws Exception
     {
+        when(this.nestedPagesCache.get(any(), anyString(), any()))
+            .thenAnswer(invocation -> invocation.<NestedPagesCache.Loader<?>>getArgument(2).load());
         when(this.defaultEntityReferenceProvider.getDefaultReference(EntityType.DOCUMENT))
             .thenReturn(new EntityReference("WebHome", EntityType.DOCUMENT));
 
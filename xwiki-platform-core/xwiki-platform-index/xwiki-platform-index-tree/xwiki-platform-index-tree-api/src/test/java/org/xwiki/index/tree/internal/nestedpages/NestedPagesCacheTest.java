@@ -0,0 +1,137 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.index.tree.internal.nestedpages;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.inject.Named;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link NestedPagesCache}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class NestedPagesCacheTest
+{
+    @InjectMockComponents
+    private NestedPagesCache nestedPagesCache;
+
+    @MockComponent
+    private CacheManager cacheManager;
+
+    @MockComponent
+    @Named("local")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
+    private Map<String, Object> entries = new HashMap<>();
+
+    private SpaceReference alice = new SpaceReference("wiki", "Alice");
+
+    private SpaceReference bob = new SpaceReference("wiki", Arrays.asList("Alice", "Bob"));
+
+    private SpaceReference carol = new SpaceReference("wiki", "Carol");
+
+    @BeforeComponent
+    void configure() throws Exception
+    {
+        Cache<Object> cache = mock(Cache.class);
+        when(cache.get(anyString())).then(invocation -> this.entries.get(invocation.getArgument(0)));
+        doAnswer(invocation -> this.entries.put(invocation.getArgument(0), invocation.getArgument(1))).when(cache)
+            .set(anyString(), any());
+        doAnswer(invocation -> this.entries.remove(invocation.getArgument(0))).when(cache).remove(anyString());
+        doAnswer(invocation -> {
+            this.entries.clear();
+            return null;
+        }).when(cache).removeAll();
+
+        when(this.cacheManager.createNewCache(any())).thenReturn(cache);
+    }
+
+    @BeforeEach
+    void before()
+    {
+        when(this.localEntityReferenceSerializer.serialize(this.alice)).thenReturn("Alice");
+        when(this.localEntityReferenceSerializer.serialize(this.bob)).thenReturn("Alice.Bob");
+        when(this.localEntityReferenceSerializer.serialize(this.carol)).thenReturn("Carol");
+    }
+
+    @Test
+    void get() throws Exception
+    {
+        assertEquals(3, (int) this.nestedPagesCache.get(this.bob, "count", () -> 3));
+        assertEquals(3, (int) this.nestedPagesCache.get(this.bob, "count", () -> fail("Value should be cached.")));
+        assertEquals(5, (int) this.nestedPagesCache.get(this.bob, "children", () -> 5));
+        assertEquals(7, (int) this.nestedPagesCache.get(new WikiReference("wiki"), "count", () -> 7));
+    }
+
+    @Test
+    void invalidate() throws Exception
+    {
+        this.nestedPagesCache.get(this.alice, "count", () -> 1);
+        this.nestedPagesCache.get(this.bob, "count", () -> 2);
+        this.nestedPagesCache.get(this.carol, "count", () -> 3);
+        this.nestedPagesCache.get(new WikiReference("wiki"), "count", () -> 4);
+
+        this.nestedPagesCache.invalidate(new DocumentReference("Page", this.bob));
+
+        // The values cached for the ancestors of the modified page are invalidated.
+        assertEquals(10, (int) this.nestedPagesCache.get(this.alice, "count", () -> 10));
+        assertEquals(20, (int) this.nestedPagesCache.get(this.bob, "count", () -> 20));
+        assertEquals(40, (int) this.nestedPagesCache.get(new WikiReference("wiki"), "count", () -> 40));
+
+        // The other values are kept.
+        assertEquals(3, (int) this.nestedPagesCache.get(this.carol, "count", () -> 30));
+    }
+
+    @Test
+    void invalidateWhileLoading() throws Exception
+    {
+        // A value computed before an invalidation may be outdated so it's not cached.
+        assertEquals(1, (int) this.nestedPagesCache.get(this.alice, "count", () -> {
+            this.nestedPagesCache.invalidate(new DocumentReference("Page", this.alice));
+            return 1;
+        }));
+        assertEquals(2, (int) this.nestedPagesCache.get(this.alice, "count", () -> 2));
+    }
+}
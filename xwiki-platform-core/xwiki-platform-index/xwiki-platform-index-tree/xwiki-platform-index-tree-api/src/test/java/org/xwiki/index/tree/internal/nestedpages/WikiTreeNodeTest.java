@@ -114,9 +114,14 @@
     @Named("test")
     private TreeFilter filter;
 
+    @MockComponent
+    private NestedPagesCache nestedPagesCache;
+
     @BeforeEach
-    public void before(MockitoComponentManager componentManager)
+    public void before(MockitoComponentManager componentManager) throws Exception
     {
+        when(this.nestedPagesCache.get(any(), anyString(), any()))
+            .thenAnswer(invocation -> invocation.<NestedPagesCache.Loader<?>>getArgument(2).load());
         when(this.defaultEntityReferenceProvider.getDefaultReference(EntityType.DOCUMENT))
             .thenReturn(new EntityReference("WebHome", EntityType.DOCUMENT));
         when(this.entityTreeNodeIdConverter.convert(EntityReference.class, "wiki:foo"))
@@ -20,8 +20,10 @@
 package org.xwiki.model.internal.reference;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.inject.Inject;
@@ -124,7 +126,8 @@ public EntityReference resolve(String entityReferenceRepresentation, EntityType
 
         StringBuilder representation = createStringBuilder(entityReferenceRepresentation);
 
-        EntityReference reference = null;
+        // The references are parsed from the last one to the root one
+        List<EntityReference> references = new ArrayList<>();
 
         Character escapeSymbol = getSymbolScheme().getEscapeSymbol();
 
@@ -184,7 +187,7 @@ public EntityReference resolve(String entityReferenceRepresentation, EntityType
                 }
             }
 
-            reference = appendNewReference(reference,
+            addNewReference(references,
                 getNewReference(i, representation, unescape, currentType, referenceParameters, parameters));
 
             if (parentType != null) {
@@ -197,7 +200,9 @@ public EntityReference resolve(String entityReferenceRepresentation, EntityType
         }
 
         // Handle last entity reference's name
-        reference = appendNewReference(reference, getNewReference(representation, true, currentType, parameters));
+        addNewReference(references, getNewReference(representation, true, currentType, parameters));
+
+        EntityReference reference = createReference(references);
 
         // Evaluate keywords when supported ("..", ".")
         reference = evaluateKeywords(reference, parameters);
@@ -375,14 +380,26 @@ private void parseParameter(StringBuilder representation, int index, Map<String,
         }
     }
 
-    private EntityReference appendNewReference(EntityReference reference, EntityReference newReference)
+    private void addNewReference(List<EntityReference> references, EntityReference newReference)
     {
         if (newReference != null) {
-            if (reference != null) {
-                return reference.appendParent(newReference);
-            } else {
-                return newReference;
-            }
+            references.add(newReference);
+        }
+    }
+
+    /**
+     * Create the reference chain starting from the root, so that each parsed reference is copied only once (appending
+     * the parents one by one to the last reference would copy the whole chain each time).
+     *
+     * @param references the parsed references, from the last one to the root one
+     * @return the resulting reference
+     */
+    private EntityReference createReference(List<EntityReference> references)
+    {
+        EntityReference reference = null;
+        for (int i = references.size() - 1; i >= 0; --i) {
+            EntityReference newReference = references.get(i);
+            reference = reference != null ? newReference.appendParent(reference) : newReference;
         }
 
         return reference;
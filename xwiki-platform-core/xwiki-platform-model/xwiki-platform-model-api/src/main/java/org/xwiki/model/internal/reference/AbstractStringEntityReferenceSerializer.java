@@ -20,6 +20,8 @@
 
 package org.xwiki.model.internal.reference;
 
+import java.util.List;
+
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.EntityReferenceSerializer;
 
@@ -38,9 +40,16 @@ public String serialize(EntityReference reference, Object... parameters)
             return null;
         }
 
-        StringBuilder representation = new StringBuilder();
+        List<EntityReference> referenceChain = reference.getReversedReferenceChain();
+
+        // Size the builder for the common case (no escaping and no parameter) so that it doesn't have to grow
+        int capacity = 0;
+        for (EntityReference currentReference : referenceChain) {
+            capacity += currentReference.getName().length() + 1;
+        }
+        StringBuilder representation = new StringBuilder(capacity);
 
-        for (EntityReference currentReference : reference.getReversedReferenceChain()) {
+        for (EntityReference currentReference : referenceChain) {
             serializeEntityReference(currentReference, representation, currentReference == reference, parameters);
         }
 
@@ -47,10 +47,17 @@ public class DefaultStringDocumentReferenceResolver implements DocumentReference
     @Inject
     private EntityReferenceResolver<String> entityReferenceResolver;
 
+    @Inject
+    private EntityReferenceFactory referenceFactory;
+
     @Override
     public DocumentReference resolve(String documentReferenceRepresentation, Object... parameters)
     {
-        return new DocumentReference(this.entityReferenceResolver.resolve(documentReferenceRepresentation,
-            EntityType.DOCUMENT, parameters));
+        DocumentReference reference = new DocumentReference(
+            this.entityReferenceResolver.resolve(documentReferenceRepresentation, EntityType.DOCUMENT, parameters));
+
+        // Share the parent spaces and wiki between the resolved references since they are usually kept in memory (e.g.
+        // by the cached documents)
+        return reference.replaceParent(this.referenceFactory.getReference(reference.getParent()));
     }
 }
@@ -47,10 +47,14 @@ public class DefaultStringSpaceReferenceResolver implements SpaceReferenceResolv
     @Inject
     private EntityReferenceResolver<String> entityReferenceResolver;
 
+    @Inject
+    private EntityReferenceFactory referenceFactory;
+
     @Override
     public SpaceReference resolve(String documentReferenceRepresentation, Object... parameters)
     {
-        return new SpaceReference(this.entityReferenceResolver.resolve(documentReferenceRepresentation,
-            EntityType.SPACE, parameters));
+        // Share the resolved spaces since they are usually kept in memory (e.g. as parent of the cached documents)
+        return this.referenceFactory.getReference(new SpaceReference(
+            this.entityReferenceResolver.resolve(documentReferenceRepresentation, EntityType.SPACE, parameters)));
     }
 }
@@ -77,6 +77,18 @@ public class EntityReference implements Serializable, Cloneable, Comparable<Enti
 
     private transient List<EntityReference> referenceList;
 
+    /**
+     * The hash code is computed from the whole parent chain so we remember it (references are immutable and often used
+     * as map keys).
+     */
+    private transient int hashCode;
+
+    /**
+     * The representation produced by {@link #TOSTRING_SERIALIZER}, remembered for the same reason (it's also used to
+     * compare references).
+     */
+    private transient String toStringSerialization;
+
     /**
      * Clone an EntityReference.
      *
@@ -212,6 +224,8 @@ protected void setName(String name)
             throw new IllegalArgumentException("An Entity Reference name cannot be null or empty");
         }
         this.name = name;
+
+        resetMemoizedValues();
     }
 
     /**
@@ -233,6 +247,8 @@ public final String getName()
     protected void setParent(EntityReference parent)
     {
         this.parent = parent;
+
+        resetMemoizedValues();
     }
 
     /**
@@ -255,6 +271,8 @@ protected void setType(EntityType type)
             throw new IllegalArgumentException("An Entity Reference type cannot be null");
         }
         this.type = type;
+
+        resetMemoizedValues();
     }
 
     /**
@@ -303,6 +321,8 @@ protected void setParameter(String name, Serializable value)
                 this.parameters = null;
             }
         }
+
+        resetMemoizedValues();
     }
 
     /**
@@ -513,13 +533,38 @@ public boolean hasParent(EntityReference expectedParent)
         return actualParent != null;
     }
 
+    /**
+     * @return the representation of the reference produced by {@link #TOSTRING_SERIALIZER}, serialized only once
+     */
+    String getToStringSerialization()
+    {
+        String result = this.toStringSerialization;
+        if (result == null) {
+            result = TOSTRING_SERIALIZER.serialize(this);
+            this.toStringSerialization = result;
+        }
+
+        return result;
+    }
+
+    private void resetMemoizedValues()
+    {
+        this.size = null;
+        this.referenceList = null;
+        this.hashCode = 0;
+        this.toStringSerialization = null;
+    }
+
     @Override
     public String toString()
     {
-        StringBuilder sb = new StringBuilder(64);
-        sb.append(StringUtils.capitalize(getType().getLowerCase()));
+        String serialization = getToStringSerialization();
+        String typeName = StringUtils.capitalize(getType().getLowerCase());
+
+        StringBuilder sb = new StringBuilder(typeName.length() + 1 + serialization.length());
+        sb.append(typeName);
         sb.append(' ');
-        sb.append(TOSTRING_SERIALIZER.serialize(this));
+        sb.append(serialization);
         return sb.toString();
     }
 
@@ -635,8 +680,14 @@ public boolean equalsNonRecursive(EntityReference otherReference)
     @Override
     public int hashCode()
     {
-        return new HashCodeBuilder(3, 17).append(getName()).append(getType()).append(getParent())
-            .append(this.parameters).toHashCode();
+        int result = this.hashCode;
+        if (result == 0) {
+            result = new HashCodeBuilder(3, 17).append(getName()).append(getType()).append(getParent())
+                .append(this.parameters).toHashCode();
+            this.hashCode = result;
+        }
+
+        return result;
     }
 
     /**
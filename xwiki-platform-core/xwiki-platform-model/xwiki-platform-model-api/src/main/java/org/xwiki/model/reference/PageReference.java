@@ -295,6 +295,6 @@ public String toString()
     {
         // Compared to EntityReference we don't print the type since the type is already indicated by the fact that
         // this is a PageReference instance.
-        return TOSTRING_SERIALIZER.serialize(this);
+        return getToStringSerialization();
     }
 }
@@ -50,6 +50,7 @@ public void setUp() throws Exception
     {
         this.resolver = new DefaultStringDocumentReferenceResolver();
         ReflectionUtils.setFieldValue(this.resolver, "entityReferenceResolver", this.mocker.getComponentUnderTest());
+        ReflectionUtils.setFieldValue(this.resolver, "referenceFactory", new EntityReferenceFactory());
     }
 
     @Test
@@ -61,4 +62,14 @@ public void resolveWithExplicitDocumentReference()
         Assert.assertEquals("space", reference.getLastSpaceReference().getName());
         Assert.assertEquals("wiki", reference.getWikiReference().getName());
     }
+
+    @Test
+    public void resolveSharesParentReferences()
+    {
+        DocumentReference reference1 = this.resolver.resolve("wiki:space.page1");
+        DocumentReference reference2 = this.resolver.resolve("wiki:space.page2");
+
+        Assert.assertSame(reference1.getLastSpaceReference(), reference2.getLastSpaceReference());
+        Assert.assertSame(reference1.getWikiReference(), reference2.getWikiReference());
+    }
 }
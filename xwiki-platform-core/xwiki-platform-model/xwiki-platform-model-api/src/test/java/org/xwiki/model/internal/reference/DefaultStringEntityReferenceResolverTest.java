@@ -608,4 +608,27 @@ public void testResolvePageReferenceParameters() throws Exception
         assertEquals(new EntityReference(pageReference, Collections.singletonMap("key=novalue", "nokey=value")),
             reference);
     }
+
+    @Test
+    public void resolveDeeplyNestedReference()
+    {
+        EntityReference reference =
+            this.resolver.resolve("wiki:space1.space2.space3.space4.page@file.txt", EntityType.ATTACHMENT);
+
+        // The chain is built in a single pass but is the same as the one built element by element
+        EntityReference expected = new EntityReference("file.txt", EntityType.ATTACHMENT,
+            new EntityReference("page", EntityType.DOCUMENT,
+                new EntityReference("space4", EntityType.SPACE,
+                    new EntityReference("space3", EntityType.SPACE,
+                        new EntityReference("space2", EntityType.SPACE,
+                            new EntityReference("space1", EntityType.SPACE,
+                                new EntityReference("wiki", EntityType.WIKI)))))));
+        assertEquals(expected, reference);
+        assertEquals(7, reference.size());
+
+        // Escaped separators are kept at the right level
+        reference = this.resolver.resolve("wiki:sp\\.ace.page", EntityType.DOCUMENT);
+
+        assertEquals(new DocumentReference("wiki", Arrays.asList("sp.ace"), "page"), reference);
+    }
 }
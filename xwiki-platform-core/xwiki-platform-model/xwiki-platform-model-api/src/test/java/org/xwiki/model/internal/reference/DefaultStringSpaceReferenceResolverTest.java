@@ -54,6 +54,7 @@ void setUp()
     {
         this.spaceResolver = new DefaultStringSpaceReferenceResolver();
         ReflectionUtils.setFieldValue(this.spaceResolver, "entityReferenceResolver", this.resolver);
+        ReflectionUtils.setFieldValue(this.spaceResolver, "referenceFactory", new EntityReferenceFactory());
     }
 
     @Test
@@ -28,6 +28,7 @@
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
 
@@ -36,6 +37,7 @@
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
@@ -590,4 +592,61 @@ public void validateToString()
         EntityReference reference5 = new EntityReference("attachment", EntityType.ATTACHMENT, reference1);
         assertEquals("Attachment wiki:space.page@attachment", reference5.toString());
     }
+
+    @Test
+    public void memoizedHashCodeAndToString() throws Exception
+    {
+        EntityReference reference = new EntityReference("page", EntityType.DOCUMENT,
+            new EntityReference("space", EntityType.SPACE, new EntityReference("wiki", EntityType.WIKI)));
+        EntityReference sameReference = new EntityReference("page", EntityType.DOCUMENT,
+            new EntityReference("space", EntityType.SPACE, new EntityReference("wiki", EntityType.WIKI)));
+
+        int hashCode = reference.hashCode();
+        assertEquals(hashCode, reference.hashCode());
+        assertEquals(sameReference.hashCode(), hashCode);
+
+        // The serialization is computed only once
+        assertSame(reference.getToStringSerialization(), reference.getToStringSerialization());
+        assertEquals("Document wiki:space.page", reference.toString());
+        assertEquals(reference.toString(), reference.toString());
+
+        // The memoized values are not serialized
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new ObjectOutputStream(baos).writeObject(reference);
+        EntityReference deserializedReference =
+            (EntityReference) new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray())).readObject();
+
+        assertEquals(hashCode, deserializedReference.hashCode());
+        assertEquals("Document wiki:space.page", deserializedReference.toString());
+    }
+
+    @Test
+    public void memoizedValuesResetWhenModified()
+    {
+        // Entity references are only modified while being constructed (e.g. a document reference with a locale)
+        DocumentReference reference = new DocumentReference("wiki", "space", "page");
+        DocumentReference referenceWithLocale = new DocumentReference(reference, Locale.FRENCH);
+
+        reference.hashCode();
+        reference.toString();
+
+        assertEquals("wiki:space.page(fr)", referenceWithLocale.toString());
+        assertEquals("wiki:space.page", reference.toString());
+        assertNotEquals(reference.hashCode(), referenceWithLocale.hashCode());
+
+        EntityReference modified = new EntityReference("page", EntityType.DOCUMENT)
+        {
+            {
+                hashCode();
+                toString();
+
+                setParameter("key", "value");
+                setName("other");
+            }
+        };
+
+        assertEquals(new EntityReference("other", EntityType.DOCUMENT, null,
+            Collections.<String, Serializable>singletonMap("key", "value")).hashCode(), modified.hashCode());
+        assertEquals("Document other", modified.toString());
+    }
 }
@@ -90,4 +90,25 @@ default int getAsyncPoolSize()
     {
         return 2;
     }
+
+    /**
+     * @return the number of threads to use for pre filtering the events (i.e. associating them with the users)
+     * @since 13.3RC1
+     */
+    @Unstable
+    default int getPrefilteringPoolSize()
+    {
+        return 2;
+    }
+
+    /**
+     * @return the maximum number of clients that can listen at the same time to the changes of their notifications
+     *         through a REST stream (each of them keeps a thread busy), 0 to disable the streams
+     * @since 13.3RC1
+     */
+    @Unstable
+    default int getRESTStreamMaxConnections()
+    {
+        return 0;
+    }
 }
@@ -84,4 +84,16 @@ public int getAsyncPoolSize()
     {
         return configurationSource.getProperty(CONFIGURATION_PREFIX + "async.poolSize", 2);
     }
+
+    @Override
+    public int getPrefilteringPoolSize()
+    {
+        return configurationSource.getProperty(CONFIGURATION_PREFIX + "prefiltering.poolSize", 2);
+    }
+
+    @Override
+    public int getRESTStreamMaxConnections()
+    {
+        return configurationSource.getProperty(CONFIGURATION_PREFIX + "rest.stream.maxConnections", 0);
+    }
 }
@@ -0,0 +1,57 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.filters.internal;
+
+import java.util.List;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.eventstream.Event;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+
+/**
+ * Index of the locations watched and of the users followed by each user, built from the stored notification filter
+ * preferences, used to quickly exclude the users who cannot be interested by an event before evaluating their
+ * notification filters one by one.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Role
+public interface NotificationSubscriptionIndex
+{
+    /**
+     * Exclude the users who would dismiss the passed event anyway because they only watch some specific locations (with
+     * inclusive scope filters), the event location is not one of them and the event is not triggered by a user they
+     * follow. The remaining users still need to be checked with their notification filters.
+     *
+     * @param event the event to dispatch
+     * @param users the users to filter
+     * @return the users who may be interested by the event
+     */
+    List<DocumentReference> getCandidateUsers(Event event, List<DocumentReference> users);
+
+    /**
+     * Reload the filter preferences of the passed entity.
+     *
+     * @param owner the owner of the filter preferences which have been modified, {@code null} to reload the whole index
+     */
+    void invalidate(EntityReference owner);
+}
@@ -0,0 +1,371 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.filters.internal;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.descriptor.ComponentDescriptor;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.eventstream.Event;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.notifications.NotificationException;
+import org.xwiki.notifications.NotificationFormat;
+import org.xwiki.notifications.filters.NotificationFilterPreference;
+import org.xwiki.notifications.filters.NotificationFilterPreferenceProvider;
+import org.xwiki.notifications.filters.NotificationFilterType;
+import org.xwiki.notifications.filters.internal.scope.ScopeNotificationFilter;
+import org.xwiki.notifications.filters.internal.scope.ScopeNotificationFilterPreference;
+import org.xwiki.notifications.filters.internal.user.EventUserFilter;
+
+/**
+ * Default implementation of {@link NotificationSubscriptionIndex}, built from the preferences stored by
+ * {@link NotificationFilterPreferenceStore}.
+ * <p>
+ * The index maps each watched location to the users watching it (through an inclusive scope filter preference) and
+ * each followed user to its followers. A user is excluded only when the {@link ScopeNotificationFilter} would dismiss
+ * the event for both the alert and email formats, i.e. when the user has inclusive scope filter preferences applying
+ * to the event type for both formats but none of them is about the event location or one of its parents, and when
+ * the user does not follow the author of the event. The inclusive preferences located under an exclusive preference
+ * are not considered as restricting the events, as in the filter. Otherwise the starting date of the preferences and
+ * the exclusive preferences are ignored since they can only filter more events.
+ * <p>
+ * The index is loaded the first time it's needed and is kept up to date by
+ * {@link NotificationSubscriptionIndexListener} and {@link DocumentMovedListener}. It's disabled when the preferences
+ * are not stored in the main wiki or when some other {@link NotificationFilterPreferenceProvider} may provide inclusive
+ * preferences which are not in the index.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component
+@Singleton
+public class DefaultNotificationSubscriptionIndex implements NotificationSubscriptionIndex
+{
+    private static final List<String> FILTER_NAMES =
+        Arrays.asList(ScopeNotificationFilter.FILTER_NAME, EventUserFilter.FILTER_NAME);
+
+    private static final List<NotificationFormat> FORMATS =
+        Arrays.asList(NotificationFormat.ALERT, NotificationFormat.EMAIL);
+
+    private static final String ALL_EVENT_TYPES = "";
+
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * The subscriptions of a given user.
+     *
+     * @version $Id$
+     */
+    private static final class Subscriptions
+    {
+        private final Set<String> locations = new HashSet<>();
+
+        private final Set<String> followedUsers = new HashSet<>();
+
+        /**
+         * The event types of the inclusive scope filter preferences, for each format.
+         */
+        private final Map<NotificationFormat, Set<String>> eventTypes = new EnumMap<>(NotificationFormat.class);
+
+        boolean isConstrained(String eventType)
+        {
+            for (NotificationFormat format : FORMATS) {
+                Set<String> types = this.eventTypes.get(format);
+                if (types == null || !(types.contains(ALL_EVENT_TYPES) || types.contains(eventType))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * The subscriptions of all the users along with the inverted indexes.
+     *
+     * @version $Id$
+     */
+    private static final class Index
+    {
+        private final Map<String, Subscriptions> subscriptions = new ConcurrentHashMap<>();
+
+        private final Map<String, Set<String>> watchers = new ConcurrentHashMap<>();
+
+        private final Map<String, Set<String>> followers = new ConcurrentHashMap<>();
+
+        void put(String owner, Subscriptions ownerSubscriptions)
+        {
+            remove(owner);
+
+            this.subscriptions.put(owner, ownerSubscriptions);
+            ownerSubscriptions.locations
+                .forEach(location -> this.watchers.computeIfAbsent(location, k -> ConcurrentHashMap.newKeySet())
+                    .add(owner));
+            ownerSubscriptions.followedUsers
+                .forEach(user -> this.followers.computeIfAbsent(user, k -> ConcurrentHashMap.newKeySet()).add(owner));
+        }
+
+        void remove(String owner)
+        {
+            Subscriptions ownerSubscriptions = this.subscriptions.remove(owner);
+            if (ownerSubscriptions != null) {
+                ownerSubscriptions.locations.forEach(location -> remove(this.watchers, location, owner));
+                ownerSubscriptions.followedUsers.forEach(user -> remove(this.followers, user, owner));
+            }
+        }
+
+        private void remove(Map<String, Set<String>> index, String key, String owner)
+        {
+            index.computeIfPresent(key, (k, owners) -> {
+                owners.remove(owner);
+                return owners.isEmpty() ? null : owners;
+            });
+        }
+    }
+
+    @Inject
+    private NotificationFilterPreferenceStore store;
+
+    @Inject
+    private NotificationFilterPreferenceConfiguration filterPreferenceConfiguration;
+
+    @Inject
+    private ComponentManager componentManager;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    @Inject
+    private EntityReferenceResolver<String> entityReferenceResolver;
+
+    @Inject
+    private Logger logger;
+
+    private volatile Index index;
+
+    /**
+     * Incremented each time the index is invalidated, in order to not use an index loaded before the invalidation.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    @Override
+    public List<DocumentReference> getCandidateUsers(Event event, List<DocumentReference> users)
+    {
+        EntityReference location = getEventLocation(event);
+        if (location == null || event.getType() == null || !isEnabled()) {
+            return users;
+        }
+
+        Index currentIndex = getIndex();
+        if (currentIndex == null) {
+            return users;
+        }
+
+        Set<String> interestedUsers = new HashSet<>();
+        for (EntityReference reference = location; reference != null; reference = reference.getParent()) {
+            interestedUsers.addAll(currentIndex.watchers.getOrDefault(getKey(reference), Collections.emptySet()));
+        }
+        if (event.getUser() != null) {
+            interestedUsers.addAll(currentIndex.followers.getOrDefault(this.serializer.serialize(event.getUser()),
+                Collections.emptySet()));
+        }
+
+        return users.stream().filter(user -> {
+            String userId = this.serializer.serialize(user);
+            Subscriptions userSubscriptions = currentIndex.subscriptions.get(userId);
+
+            return userSubscriptions == null || !userSubscriptions.isConstrained(event.getType())
+                || interestedUsers.contains(userId);
+        }).collect(Collectors.toList());
+    }
+
+    @Override
+    public synchronized void invalidate(EntityReference owner)
+    {
+        this.version.incrementAndGet();
+
+        if (owner == null || this.index == null) {
+            this.index = null;
+        } else if (owner.getType() == EntityType.DOCUMENT) {
+            DocumentReference user = new DocumentReference(owner);
+            try {
+                this.index.put(this.serializer.serialize(user), getSubscriptions(this.store.getPreferencesOfUser(user)
+                    .stream().filter(preference -> preference.isEnabled()
+                        && FILTER_NAMES.contains(preference.getFilterName()))
+                    .collect(Collectors.toList())));
+            } catch (NotificationException e) {
+                this.logger.warn("Failed to update the notification subscriptions of user [{}]: {}", user,
+                    ExceptionUtils.getRootCauseMessage(e));
+
+                this.index = null;
+            }
+        }
+    }
+
+    private boolean isEnabled()
+    {
+        if (!this.filterPreferenceConfiguration.useMainStore()) {
+            return false;
+        }
+
+        for (ComponentDescriptor<Object> descriptor : this.componentManager
+            .getComponentDescriptorList((Type) NotificationFilterPreferenceProvider.class)) {
+            if (!UserProfileNotificationFilterPreferenceProvider.HINT.equals(descriptor.getRoleHint())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private Index getIndex()
+    {
+        Index currentIndex = this.index;
+        if (currentIndex != null) {
+            return currentIndex;
+        }
+
+        long loadVersion = this.version.get();
+        try {
+            currentIndex = load();
+        } catch (NotificationException e) {
+            this.logger.warn("Failed to load the notification subscriptions index: {}",
+                ExceptionUtils.getRootCauseMessage(e));
+
+            return null;
+        }
+
+        synchronized (this) {
+            // Don't keep an index that may have been loaded from preferences modified in the meantime.
+            if (loadVersion == this.version.get()) {
+                this.index = currentIndex;
+            }
+        }
+
+        return currentIndex;
+    }
+
+    private Index load() throws NotificationException
+    {
+        Map<String, List<NotificationFilterPreference>> preferencesByOwner = new HashMap<>();
+
+        long lastInternalId = -1;
+        List<DefaultNotificationFilterPreference> preferences;
+        do {
+            preferences = this.store.getEnabledPreferences(FILTER_NAMES, lastInternalId, BATCH_SIZE);
+            for (DefaultNotificationFilterPreference preference : preferences) {
+                preferencesByOwner.computeIfAbsent(preference.getOwner(), k -> new ArrayList<>()).add(preference);
+                lastInternalId = preference.getInternalId();
+            }
+        } while (preferences.size() == BATCH_SIZE);
+
+        Index newIndex = new Index();
+        preferencesByOwner
+            .forEach((owner, ownerPreferences) -> newIndex.put(owner, getSubscriptions(ownerPreferences)));
+
+        return newIndex;
+    }
+
+    private Subscriptions getSubscriptions(Collection<? extends NotificationFilterPreference> preferences)
+    {
+        Subscriptions subscriptions = new Subscriptions();
+
+        List<ScopeNotificationFilterPreference> exclusiveScopes = preferences.stream()
+            .filter(preference -> preference.getFilterType() == NotificationFilterType.EXCLUSIVE
+                && ScopeNotificationFilter.FILTER_NAME.equals(preference.getFilterName()))
+            .map(preference -> new ScopeNotificationFilterPreference(preference, this.entityReferenceResolver))
+            .filter(preference -> preference.getScopeReference() != null).collect(Collectors.toList());
+
+        for (NotificationFilterPreference preference : preferences) {
+            if (preference.getFilterType() != NotificationFilterType.INCLUSIVE) {
+                continue;
+            }
+
+            if (ScopeNotificationFilter.FILTER_NAME.equals(preference.getFilterName())) {
+                ScopeNotificationFilterPreference scopePreference =
+                    new ScopeNotificationFilterPreference(preference, this.entityReferenceResolver);
+                EntityReference scope = scopePreference.getScopeReference();
+                if (scope != null) {
+                    subscriptions.locations.add(getKey(scope));
+
+                    // Like the ScopeNotificationFilter, an inclusive preference located under an exclusive one only
+                    // makes an exception to the exclusion: it doesn't restrict the events received elsewhere
+                    if (exclusiveScopes.stream().anyMatch(exclusive -> exclusive.isParentOf(scopePreference))) {
+                        continue;
+                    }
+
+                    for (NotificationFormat format : preference.getNotificationFormats()) {
+                        Set<String> types = subscriptions.eventTypes.computeIfAbsent(format, k -> new HashSet<>());
+                        if (preference.getEventTypes().isEmpty()) {
+                            types.add(ALL_EVENT_TYPES);
+                        } else {
+                            types.addAll(preference.getEventTypes());
+                        }
+                    }
+                }
+            } else if (EventUserFilter.FILTER_NAME.equals(preference.getFilterName())
+                && StringUtils.isNotEmpty(preference.getUser())) {
+                subscriptions.followedUsers.add(preference.getUser());
+            }
+        }
+
+        return subscriptions;
+    }
+
+    private EntityReference getEventLocation(Event event)
+    {
+        if (event.getDocument() != null) {
+            return event.getDocument();
+        }
+        if (event.getSpace() != null) {
+            return event.getSpace();
+        }
+        return event.getWiki();
+    }
+
+    private String getKey(EntityReference reference)
+    {
+        return reference.getType().getLowerCase() + ':' + this.serializer.serialize(reference);
+    }
+}
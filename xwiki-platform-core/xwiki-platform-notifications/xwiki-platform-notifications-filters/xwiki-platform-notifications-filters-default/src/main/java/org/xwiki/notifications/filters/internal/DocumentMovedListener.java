@@ -82,6 +82,9 @@ public class DocumentMovedListener extends AbstractEventListener
     @Named("cached")
     private ModelBridge cachedModelBridge;
 
+    @Inject
+    private NotificationSubscriptionIndex subscriptionIndex;
+
     /**
      * Guess what it does.
      */
@@ -115,6 +118,9 @@ public void onEvent(Event event, Object source, Object data)
                 renamedEvent.getSourceReference(), renamedEvent.getTargetReference(), e);
         } finally {
             ((CachedModelBridge) cachedModelBridge).clearCache();
+            // The preferences of many users may have been updated, and only now that the update is done can the index
+            // be rebuilt without missing it.
+            this.subscriptionIndex.invalidate(null);
         }
     }
 
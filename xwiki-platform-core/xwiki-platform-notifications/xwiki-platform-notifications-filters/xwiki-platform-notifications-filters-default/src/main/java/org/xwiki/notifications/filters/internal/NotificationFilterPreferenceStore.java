@@ -151,6 +151,43 @@ public List<DefaultNotificationFilterPreference> getPreferencesOfWiki(WikiRefere
         }
     }
 
+    /**
+     * Get a batch of the enabled notification filter preferences of all entities, using one of the passed filters. The
+     * preferences are ordered by internal id so that the next batch can be retrieved by passing the internal id of the
+     * last preference of the current batch.
+     *
+     * @param filterNames the names of the filters to take into account
+     * @param afterInternalId only the preferences with a greater internal id are returned
+     * @param limit the maximum number of preferences to return
+     * @return the filter preferences
+     * @throws NotificationException if an error happens
+     * @since 13.3RC1
+     */
+    public List<DefaultNotificationFilterPreference> getEnabledPreferences(Collection<String> filterNames,
+        long afterInternalId, int limit) throws NotificationException
+    {
+        try {
+            Query query = queryManager.createQuery("select nfp from DefaultNotificationFilterPreference nfp "
+                + "where nfp.enabled = true and nfp.filterName in (:filterNames) and nfp.id > :afterId "
+                + "order by nfp.id", Query.HQL);
+            query.bindValue("filterNames", filterNames);
+            query.bindValue("afterId", afterInternalId);
+            query.setLimit(limit);
+            if (filterPreferenceConfiguration.useMainStore()) {
+                query.setWiki(contextProvider.get().getMainXWiki());
+            }
+            List<DefaultNotificationFilterPreference> results = query.execute();
+
+            for (DefaultNotificationFilterPreference preference : results) {
+                preference.setProviderHint(UserProfileNotificationPreferenceProvider.NAME);
+            }
+
+            return results;
+        } catch (QueryException e) {
+            throw new NotificationException("Error while loading the notification filter preferences.", e);
+        }
+    }
+
     private List<DefaultNotificationFilterPreference> getPreferencesOfEntity(EntityReference entityReference,
         String providerHint) throws QueryException
     {
@@ -188,7 +225,7 @@ private List<DefaultNotificationFilterPreference> getPreferencesOfEntity(EntityR
     public void deleteFilterPreference(DocumentReference user, String filterPreferenceId) throws NotificationException
     {
         NotificationFilterPreference preference = getFilterPreference(user, filterPreferenceId);
-        this.deleteFilterPreference(preference);
+        this.deleteFilterPreference(user, preference);
     }
 
     /**
@@ -203,16 +240,18 @@ public void deleteFilterPreference(WikiReference wikiReference, String filterPre
         throws NotificationException
     {
         NotificationFilterPreference preference = getFilterPreference(wikiReference, filterPreferenceId);
-        this.deleteFilterPreference(preference);
+        this.deleteFilterPreference(wikiReference, preference);
     }
 
     /**
      * Delete a filter preference.
      *
+     * @param owner the entity concerned by the filter preference
      * @param preference the preference to delete.
      * @throws NotificationException if an error happens
      */
-    private void deleteFilterPreference(NotificationFilterPreference preference) throws NotificationException
+    private void deleteFilterPreference(EntityReference owner, NotificationFilterPreference preference)
+        throws NotificationException
     {
         if (preference == null) {
             return;
@@ -242,7 +281,7 @@ private void deleteFilterPreference(NotificationFilterPreference preference) thr
             }
         }
 
-        this.observation.notify(new NotificationFilterPreferenceDeletedEvent(), null);
+        this.observation.notify(new NotificationFilterPreferenceDeletedEvent(), owner);
     }
 
     /**
@@ -317,7 +356,7 @@ private void saveFilterPreferences(EntityReference entityReference,
             hibernateStore.endTransaction(context, true);
 
             for (int i = 0; i < filterPreferences.size(); ++i) {
-                this.observation.notify(new NotificationFilterPreferenceAddOrUpdatedEvent(), null);
+                this.observation.notify(new NotificationFilterPreferenceAddOrUpdatedEvent(), entityReference);
             }
         } catch (Exception e) {
             if (hibernateStore != null) {
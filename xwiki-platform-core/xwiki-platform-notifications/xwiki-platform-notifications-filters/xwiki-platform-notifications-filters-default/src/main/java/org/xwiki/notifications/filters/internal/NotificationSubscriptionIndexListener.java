@@ -0,0 +1,72 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.filters.internal;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.notifications.filters.internal.event.NotificationFilterPreferenceAddOrUpdatedEvent;
+import org.xwiki.notifications.filters.internal.event.NotificationFilterPreferenceDeletedEvent;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+
+/**
+ * Keep the {@link NotificationSubscriptionIndex} up to date when notification filter preferences are modified. The
+ * preferences updated when a document is renamed are handled by {@link DocumentMovedListener}, once they are updated.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component
+@Named(NotificationSubscriptionIndexListener.NAME)
+@Singleton
+public class NotificationSubscriptionIndexListener extends AbstractEventListener
+{
+    /**
+     * The name of the listener.
+     */
+    public static final String NAME = "org.xwiki.notifications.filters.internal.NotificationSubscriptionIndexListener";
+
+    @Inject
+    private NotificationSubscriptionIndex index;
+
+    /**
+     * Default constructor.
+     */
+    public NotificationSubscriptionIndexListener()
+    {
+        super(NAME, new NotificationFilterPreferenceAddOrUpdatedEvent(),
+            new NotificationFilterPreferenceDeletedEvent());
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        // The preferences of a given entity are sent as source.
+        if (source instanceof EntityReference) {
+            this.index.invalidate((EntityReference) source);
+        } else {
+            this.index.invalidate(null);
+        }
+    }
+}
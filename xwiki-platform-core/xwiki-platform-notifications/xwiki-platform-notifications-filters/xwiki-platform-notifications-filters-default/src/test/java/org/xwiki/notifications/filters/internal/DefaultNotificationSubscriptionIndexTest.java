@@ -0,0 +1,240 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.filters.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.eventstream.Event;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.notifications.NotificationFormat;
+import org.xwiki.notifications.filters.NotificationFilterPreferenceProvider;
+import org.xwiki.notifications.filters.NotificationFilterType;
+import org.xwiki.notifications.filters.internal.scope.ScopeNotificationFilter;
+import org.xwiki.notifications.filters.internal.user.EventUserFilter;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link DefaultNotificationSubscriptionIndex}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class DefaultNotificationSubscriptionIndexTest
+{
+    @InjectMockComponents
+    private DefaultNotificationSubscriptionIndex index;
+
+    @MockComponent
+    private NotificationFilterPreferenceStore store;
+
+    @MockComponent
+    private NotificationFilterPreferenceConfiguration filterPreferenceConfiguration;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    @MockComponent
+    private EntityReferenceResolver<String> entityReferenceResolver;
+
+    private WikiReference wiki = new WikiReference("wiki");
+
+    private SpaceReference space = new SpaceReference("Space", this.wiki);
+
+    private SpaceReference otherSpace = new SpaceReference("Other", this.wiki);
+
+    private DocumentReference page = new DocumentReference("Page", this.space);
+
+    private DocumentReference author = new DocumentReference("wiki", "XWiki", "Author");
+
+    private DocumentReference alice = new DocumentReference("wiki", "XWiki", "Alice");
+
+    private DocumentReference bob = new DocumentReference("wiki", "XWiki", "Bob");
+
+    private DocumentReference carol = new DocumentReference("wiki", "XWiki", "Carol");
+
+    private DocumentReference dave = new DocumentReference("wiki", "XWiki", "Dave");
+
+    private DocumentReference erin = new DocumentReference("wiki", "XWiki", "Erin");
+
+    private List<DocumentReference> users = Arrays.asList(this.alice, this.bob, this.carol, this.dave, this.erin);
+
+    private Event event;
+
+    @BeforeEach
+    void before() throws Exception
+    {
+        when(this.filterPreferenceConfiguration.useMainStore()).thenReturn(true);
+
+        for (EntityReference reference : Arrays.asList(this.wiki, this.space, this.otherSpace, this.page, this.author,
+            this.alice, this.bob, this.carol, this.dave, this.erin)) {
+            String serializedReference = reference.toString();
+            when(this.serializer.serialize(reference)).thenReturn(serializedReference);
+            when(this.entityReferenceResolver.resolve(serializedReference, reference.getType())).thenReturn(reference);
+        }
+
+        // Alice watches the space of the event.
+        // Bob watches another space.
+        // Carol watches another space but follows the author of the event.
+        // Dave has no preference so he gets everything.
+        // Erin watches another space only for alerts.
+        when(this.store.getEnabledPreferences(any(), anyLong(), anyInt())).thenReturn(Arrays.asList(
+            scope(this.alice, this.space, EnumSet.allOf(NotificationFormat.class)),
+            scope(this.bob, this.otherSpace, EnumSet.allOf(NotificationFormat.class)),
+            scope(this.carol, this.otherSpace, EnumSet.allOf(NotificationFormat.class)), follow(this.carol),
+            scope(this.erin, this.otherSpace, EnumSet.of(NotificationFormat.ALERT))));
+
+        this.event = mock(Event.class);
+        when(this.event.getDocument()).thenReturn(this.page);
+        when(this.event.getSpace()).thenReturn(this.space);
+        when(this.event.getWiki()).thenReturn(this.wiki);
+        when(this.event.getUser()).thenReturn(this.author);
+        when(this.event.getType()).thenReturn("update");
+    }
+
+    private DefaultNotificationFilterPreference preference(DocumentReference owner, String filterName)
+    {
+        DefaultNotificationFilterPreference preference = new DefaultNotificationFilterPreference();
+        preference.setOwner(owner.toString());
+        preference.setFilterName(filterName);
+        preference.setFilterType(NotificationFilterType.INCLUSIVE);
+        preference.setEnabled(true);
+        preference.setEventTypes(Collections.emptySet());
+
+        return preference;
+    }
+
+    private DefaultNotificationFilterPreference scope(DocumentReference owner, SpaceReference location,
+        EnumSet<NotificationFormat> formats)
+    {
+        DefaultNotificationFilterPreference preference = preference(owner, ScopeNotificationFilter.FILTER_NAME);
+        preference.setPage(location.toString());
+        preference.setNotificationFormats(formats);
+
+        return preference;
+    }
+
+    private DefaultNotificationFilterPreference follow(DocumentReference owner)
+    {
+        DefaultNotificationFilterPreference preference = preference(owner, EventUserFilter.FILTER_NAME);
+        preference.setUser(this.author.toString());
+        preference.setNotificationFormats(EnumSet.allOf(NotificationFormat.class));
+
+        return preference;
+    }
+
+    @Test
+    void getCandidateUsers()
+    {
+        assertEquals(Arrays.asList(this.alice, this.carol, this.dave, this.erin),
+            this.index.getCandidateUsers(this.event, this.users));
+
+        // An event about the other space.
+        when(this.event.getDocument()).thenReturn(null);
+        when(this.event.getSpace()).thenReturn(this.otherSpace);
+        assertEquals(Arrays.asList(this.bob, this.carol, this.dave, this.erin),
+            this.index.getCandidateUsers(this.event, this.users));
+
+        // The index is loaded only once.
+        verify(this.store).getEnabledPreferences(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void getCandidateUsersWithInclusivePreferenceUnderExclusivePreference()
+    {
+        // Bob unwatched the space of the event but watches one of its pages.
+        DefaultNotificationFilterPreference unwatchedSpace =
+            scope(this.bob, this.space, EnumSet.allOf(NotificationFormat.class));
+        unwatchedSpace.setFilterType(NotificationFilterType.EXCLUSIVE);
+        DefaultNotificationFilterPreference watchedPage = preference(this.bob, ScopeNotificationFilter.FILTER_NAME);
+        watchedPage.setPageOnly(this.page.toString());
+        watchedPage.setNotificationFormats(EnumSet.allOf(NotificationFormat.class));
+        when(this.store.getEnabledPreferences(any(), anyLong(), anyInt()))
+            .thenReturn(Arrays.asList(unwatchedSpace, watchedPage));
+
+        assertEquals(this.users, this.index.getCandidateUsers(this.event, this.users));
+
+        // Bob still gets the events from outside the unwatched space.
+        when(this.event.getDocument()).thenReturn(null);
+        when(this.event.getSpace()).thenReturn(this.otherSpace);
+        assertEquals(this.users, this.index.getCandidateUsers(this.event, this.users));
+    }
+
+    @Test
+    void getCandidateUsersWithoutLocation()
+    {
+        when(this.event.getDocument()).thenReturn(null);
+        when(this.event.getSpace()).thenReturn(null);
+        when(this.event.getWiki()).thenReturn(null);
+
+        assertEquals(this.users, this.index.getCandidateUsers(this.event, this.users));
+    }
+
+    @Test
+    void getCandidateUsersWithAnotherProvider(MockitoComponentManager componentManager) throws Exception
+    {
+        componentManager.registerMockComponent(NotificationFilterPreferenceProvider.class, "other");
+
+        assertEquals(this.users, this.index.getCandidateUsers(this.event, this.users));
+    }
+
+    @Test
+    void invalidate() throws Exception
+    {
+        this.index.getCandidateUsers(this.event, this.users);
+
+        // Bob now watches the space of the event.
+        when(this.store.getPreferencesOfUser(this.bob))
+            .thenReturn(Arrays.asList(scope(this.bob, this.space, EnumSet.allOf(NotificationFormat.class))));
+        this.index.invalidate(this.bob);
+
+        assertEquals(this.users, this.index.getCandidateUsers(this.event, this.users));
+        verify(this.store).getEnabledPreferences(any(), anyLong(), anyInt());
+
+        // Reload the whole index.
+        this.index.invalidate(null);
+
+        assertEquals(Arrays.asList(this.alice, this.carol, this.dave, this.erin),
+            this.index.getCandidateUsers(this.event, this.users));
+        verify(this.store, times(2)).getEnabledPreferences(any(), anyLong(), anyInt());
+    }
+}
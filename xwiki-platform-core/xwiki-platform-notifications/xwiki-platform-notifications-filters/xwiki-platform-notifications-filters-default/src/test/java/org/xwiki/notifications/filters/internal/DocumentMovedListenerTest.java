@@ -26,6 +26,7 @@
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.xwiki.component.namespace.NamespaceContextExecutor;
 import org.xwiki.model.namespace.WikiNamespace;
 import org.xwiki.model.reference.DocumentReference;
@@ -47,6 +48,7 @@
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -139,6 +141,12 @@ public void onEventWhenNonTerminalDocumentOnMainWiki() throws Exception
         verify(query2).setString("oldPage", "xwiki:PageA.WebHome");
         verify(query2).executeUpdate();
         verifyZeroInteractions(namespaceContextExecutor);
+
+        // The subscription index is invalidated after the preferences are updated.
+        NotificationSubscriptionIndex subscriptionIndex = mocker.getInstance(NotificationSubscriptionIndex.class);
+        InOrder order = inOrder(query2, subscriptionIndex);
+        order.verify(query2).executeUpdate();
+        order.verify(subscriptionIndex).invalidate(null);
     }
 
     @Test
@@ -19,7 +19,12 @@
  */
 package org.xwiki.notifications.notifiers.internal;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -36,6 +41,7 @@
 import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.notifications.CompositeEvent;
 import org.xwiki.notifications.NotificationConfiguration;
+import org.xwiki.notifications.filters.internal.status.ForUserEventFilter;
 import org.xwiki.notifications.sources.NotificationParameters;
 
 /**
@@ -43,6 +49,11 @@
  * This component handles two caches: one for the {@link CompositeEvent} instances and another for the count of events.
  * It avoids to have to reload in memory the events each time. The caches are handled with a key
  * computed with an instance of {@link NotificationParameters}.
+ * <p>
+ * The keys also contain a version of the data the result depends on, so that the cached results of a user can be
+ * invalidated without flushing the results of the other users: the version of a user changes when one of its event
+ * statuses is modified and, unless the events are prefiltered (in which case a new event is only visible to a user
+ * through its status), the version of all results changes when a new event is stored.
  *
  * Note that this component is useless if the property {@code notifications.rest.cache} is set to true.
  *
@@ -55,6 +66,11 @@ public class DefaultNotificationCacheManager implements Initializable, Disposabl
 {
     private static final String CACHE_KEY_SEPARATOR = "/";
 
+    /**
+     * The maximum number of user versions to keep, same as the number of cached counts.
+     */
+    private static final int USER_VERSIONS_SIZE = 10000;
+
     @Inject
     private NotificationConfiguration configuration;
 
@@ -76,6 +92,55 @@ public class DefaultNotificationCacheManager implements Initializable, Disposabl
      */
     private Cache<Integer> longCountCache;
 
+    /**
+     * Used to generate new versions.
+     */
+    private final AtomicLong versionCounter = new AtomicLong();
+
+    /**
+     * The version of the results of each user whose results have been recently invalidated (the least recently used
+     * versions are evicted, see {@link #evictedVersion}). Access is synchronized on the map.
+     */
+    private final Map<String, Long> userVersions = new LinkedHashMap<String, Long>(16, 0.75f, true)
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest)
+        {
+            if (size() > USER_VERSIONS_SIZE) {
+                // The results of the evicted user must not be found again with a previous version
+                evictedVersion = Math.max(evictedVersion, eldest.getValue());
+
+                return true;
+            }
+
+            return false;
+        }
+    };
+
+    /**
+     * The most recent version evicted from {@link #userVersions}, used for the users without a version. Guarded by
+     * {@link #userVersions}.
+     */
+    private long evictedVersion;
+
+    /**
+     * The version of the results of all users, changed when the whole cache is flushed.
+     */
+    private volatile long globalVersion;
+
+    /**
+     * The version of the stored events, for the results that are not based on the prefiltered event statuses.
+     */
+    private volatile long eventsVersion;
+
+    /**
+     * Called with the serialized reference of the user whose results have changed, or {@code null} when the results of
+     * all users may have changed.
+     */
+    private final List<Consumer<String>> changeListeners = new CopyOnWriteArrayList<>();
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -118,7 +183,8 @@ public String createCacheKey(NotificationParameters notificationParameters)
         addCacheKeyElement(cacheKeyBuilder, notificationParameters.format.name());
         cacheKeyBuilder.append(CACHE_KEY_SEPARATOR);
 
-        addCacheKeyElement(cacheKeyBuilder, this.entityReferenceSerializer.serialize(notificationParameters.user));
+        String user = this.entityReferenceSerializer.serialize(notificationParameters.user);
+        addCacheKeyElement(cacheKeyBuilder, user);
         cacheKeyBuilder.append(CACHE_KEY_SEPARATOR);
 
         if (notificationParameters.endDate != null) {
@@ -133,11 +199,33 @@ public String createCacheKey(NotificationParameters notificationParameters)
             .append(CACHE_KEY_SEPARATOR)
             .append(notificationParameters.onlyUnread)
             .append(CACHE_KEY_SEPARATOR)
-            .append(notificationParameters.hashCode());
+            .append(notificationParameters.hashCode())
+            .append(CACHE_KEY_SEPARATOR)
+            .append(getUserVersion(user));
+
+        if (!isPrefiltered(notificationParameters)) {
+            cacheKeyBuilder.append('.').append(this.eventsVersion);
+        }
 
         return cacheKeyBuilder.toString();
     }
 
+    private long getUserVersion(String user)
+    {
+        // Versions are generated by the same counter so the most recent one wins
+        long userVersion;
+        synchronized (this.userVersions) {
+            userVersion = user != null ? this.userVersions.getOrDefault(user, this.evictedVersion) : 0L;
+        }
+
+        return Math.max(userVersion, this.globalVersion);
+    }
+
+    private boolean isPrefiltered(NotificationParameters notificationParameters)
+    {
+        return notificationParameters.filters.stream().anyMatch(ForUserEventFilter.class::isInstance);
+    }
+
     /**
      * @param cacheKey the key where the event are stored.
      * @param count true if the value to return is a count instead of a list of events
@@ -174,11 +262,42 @@ public void setInCache(String cacheKey, List<CompositeEvent> events, boolean cou
         }
     }
 
+    /**
+     * Invalidate the cached results of the passed user.
+     *
+     * @param user the serialized reference of the user whose results have changed
+     * @since 13.3RC1
+     */
+    public void flushUserCache(String user)
+    {
+        // The previous results are not reachable anymore and will be evicted from the caches.
+        synchronized (this.userVersions) {
+            this.userVersions.put(user, this.versionCounter.incrementAndGet());
+        }
+
+        notifyChange(user);
+    }
+
+    /**
+     * Invalidate the cached results that are computed from all the stored events (i.e. not from the event statuses
+     * produced by the prefiltering).
+     *
+     * @since 13.3RC1
+     */
+    public void flushEventsCache()
+    {
+        this.eventsVersion = this.versionCounter.incrementAndGet();
+
+        notifyChange(null);
+    }
+
     /**
      * Empty the long cache.
      */
     public void flushLongCache()
     {
+        this.globalVersion = this.versionCounter.incrementAndGet();
+
         if (this.longEventCache != null) {
             this.longEventCache.removeAll();
         }
@@ -186,6 +305,33 @@ public void flushLongCache()
         if (this.longCountCache != null) {
             this.longCountCache.removeAll();
         }
+
+        notifyChange(null);
+    }
+
+    /**
+     * @param listener called with the serialized reference of the user whose results have changed, or {@code null}
+     *            when the results of all users may have changed (it should be fast since it's called by the thread
+     *            which invalidates the results)
+     * @since 13.3RC1
+     */
+    public void addChangeListener(Consumer<String> listener)
+    {
+        this.changeListeners.add(listener);
+    }
+
+    /**
+     * @param listener the listener to remove
+     * @since 13.3RC1
+     */
+    public void removeChangeListener(Consumer<String> listener)
+    {
+        this.changeListeners.remove(listener);
+    }
+
+    private void notifyChange(String user)
+    {
+        this.changeListeners.forEach(listener -> listener.accept(user));
     }
 
     @Override
@@ -34,6 +34,7 @@
 import org.xwiki.notifications.NotificationConfiguration;
 import org.xwiki.notifications.NotificationFormat;
 import org.xwiki.notifications.filters.NotificationFilter;
+import org.xwiki.notifications.filters.internal.status.ForUserEventFilter;
 import org.xwiki.notifications.sources.NotificationParameters;
 import org.xwiki.test.annotation.BeforeComponent;
 import org.xwiki.test.junit5.mockito.ComponentTest;
@@ -141,7 +142,7 @@ public void createCacheKey()
         notificationParameters.onlyUnread = true;
 
         int hashCode = notificationParameters.hashCode();
-        assertEquals("5ALERT/18xwiki:XWiki.Foobar/42/true/22/true/" + hashCode,
+        assertEquals("5ALERT/18xwiki:XWiki.Foobar/42/true/22/true/" + hashCode + "/0.0",
             this.defaultNotificationCacheManager.createCacheKey(notificationParameters));
 
         NotificationParameters notificationParameters2 = new NotificationParameters();
@@ -152,7 +153,7 @@ public void createCacheKey()
         notificationParameters2.onlyUnread = true;
 
         hashCode = notificationParameters2.hashCode();
-        assertEquals("5ALERT/18xwiki:XWiki.Foobar/42/true/22/true/" + hashCode,
+        assertEquals("5ALERT/18xwiki:XWiki.Foobar/42/true/22/true/" + hashCode + "/0.0",
             this.defaultNotificationCacheManager.createCacheKey(notificationParameters2));
 
         assertNotEquals(notificationParameters, notificationParameters2);
@@ -167,7 +168,7 @@ public void createCacheKey()
         notificationParameters.onlyUnread = false;
 
         hashCode = notificationParameters.hashCode();
-        assertEquals("5EMAIL/19xwiki:XWiki.another/84/true/444/false/" + hashCode,
+        assertEquals("5EMAIL/19xwiki:XWiki.another/84/true/444/false/" + hashCode + "/0.0",
             this.defaultNotificationCacheManager.createCacheKey(notificationParameters));
 
         notificationParameters = new NotificationParameters();
@@ -179,7 +180,7 @@ public void createCacheKey()
         notificationParameters.onlyUnread = false;
 
         hashCode = notificationParameters.hashCode();
-        assertEquals("5EMAIL/19xwiki:XWiki.another/84/false/444/false/" + hashCode,
+        assertEquals("5EMAIL/19xwiki:XWiki.another/84/false/444/false/" + hashCode + "/0.0",
             this.defaultNotificationCacheManager.createCacheKey(notificationParameters));
 
         notificationParameters = new NotificationParameters();
@@ -189,7 +190,7 @@ public void createCacheKey()
         notificationParameters.onlyUnread = false;
 
         hashCode = notificationParameters.hashCode();
-        assertEquals("5EMAIL/19xwiki:XWiki.another/444/false/" + hashCode,
+        assertEquals("5EMAIL/19xwiki:XWiki.another/444/false/" + hashCode + "/0.0",
             this.defaultNotificationCacheManager.createCacheKey(notificationParameters));
 
         notificationParameters = new NotificationParameters();
@@ -197,7 +198,82 @@ public void createCacheKey()
         notificationParameters.user = userReference2;
 
         hashCode = notificationParameters.hashCode();
-        assertEquals("5EMAIL/19xwiki:XWiki.another/0/null/" + hashCode,
+        assertEquals("5EMAIL/19xwiki:XWiki.another/0/null/" + hashCode + "/0.0",
             this.defaultNotificationCacheManager.createCacheKey(notificationParameters));
     }
+
+    @Test
+    public void createCacheKeyWithVersions()
+    {
+        DocumentReference userReference = new DocumentReference("xwiki", "XWiki", "Foobar");
+        when(this.entityReferenceSerializer.serialize(userReference)).thenReturn("xwiki:XWiki.Foobar");
+
+        NotificationParameters parameters = new NotificationParameters();
+        parameters.format = NotificationFormat.ALERT;
+        parameters.user = userReference;
+        parameters.expectedCount = 22;
+        parameters.onlyUnread = true;
+
+        NotificationParameters prefilteredParameters = new NotificationParameters();
+        prefilteredParameters.format = NotificationFormat.ALERT;
+        prefilteredParameters.user = userReference;
+        prefilteredParameters.expectedCount = 22;
+        prefilteredParameters.onlyUnread = true;
+        prefilteredParameters.filters.add(new ForUserEventFilter(NotificationFormat.ALERT, null));
+
+        String prefix = "5ALERT/18xwiki:XWiki.Foobar/22/true/";
+        assertEquals(prefix + parameters.hashCode() + "/0.0",
+            this.defaultNotificationCacheManager.createCacheKey(parameters));
+        assertEquals(prefix + prefilteredParameters.hashCode() + "/0",
+            this.defaultNotificationCacheManager.createCacheKey(prefilteredParameters));
+
+        // A new event only invalidates the results which are not based on the prefiltered statuses
+        this.defaultNotificationCacheManager.flushEventsCache();
+        assertEquals(prefix + parameters.hashCode() + "/0.1",
+            this.defaultNotificationCacheManager.createCacheKey(parameters));
+        assertEquals(prefix + prefilteredParameters.hashCode() + "/0",
+            this.defaultNotificationCacheManager.createCacheKey(prefilteredParameters));
+
+        // Only the results of the modified user are invalidated
+        this.defaultNotificationCacheManager.flushUserCache("xwiki:XWiki.Other");
+        assertEquals(prefix + prefilteredParameters.hashCode() + "/0",
+            this.defaultNotificationCacheManager.createCacheKey(prefilteredParameters));
+        this.defaultNotificationCacheManager.flushUserCache("xwiki:XWiki.Foobar");
+        assertEquals(prefix + prefilteredParameters.hashCode() + "/3",
+            this.defaultNotificationCacheManager.createCacheKey(prefilteredParameters));
+        assertEquals(prefix + parameters.hashCode() + "/3.1",
+            this.defaultNotificationCacheManager.createCacheKey(parameters));
+
+        // Flushing the whole cache invalidates the results of all users
+        this.defaultNotificationCacheManager.flushLongCache();
+        assertEquals(prefix + prefilteredParameters.hashCode() + "/4",
+            this.defaultNotificationCacheManager.createCacheKey(prefilteredParameters));
+    }
+
+    @Test
+    public void createCacheKeyWithEvictedUserVersion()
+    {
+        DocumentReference userReference = new DocumentReference("xwiki", "XWiki", "Foobar");
+        when(this.entityReferenceSerializer.serialize(userReference)).thenReturn("xwiki:XWiki.Foobar");
+
+        NotificationParameters parameters = new NotificationParameters();
+        parameters.format = NotificationFormat.ALERT;
+        parameters.user = userReference;
+        parameters.filters.add(new ForUserEventFilter(NotificationFormat.ALERT, null));
+
+        String prefix = "5ALERT/18xwiki:XWiki.Foobar/0/null/" + parameters.hashCode();
+        this.defaultNotificationCacheManager.flushUserCache("xwiki:XWiki.Foobar");
+        assertEquals(prefix + "/1", this.defaultNotificationCacheManager.createCacheKey(parameters));
+
+        // The version of the user is evicted by the versions of the other users but the previous results must not be
+        // found again
+        for (int i = 0; i < 10000; i++) {
+            this.defaultNotificationCacheManager.flushUserCache("xwiki:XWiki.User" + i);
+        }
+        assertEquals(prefix + "/1", this.defaultNotificationCacheManager.createCacheKey(parameters));
+
+        // The users without a version are invalidated when a more recent version is evicted
+        this.defaultNotificationCacheManager.flushUserCache("xwiki:XWiki.Other");
+        assertEquals(prefix + "/2", this.defaultNotificationCacheManager.createCacheKey(parameters));
+    }
 }
@@ -19,9 +19,14 @@
  */
 package org.xwiki.notifications.notifiers.internal;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -46,12 +51,15 @@
 import org.xwiki.eventstream.internal.DefaultEvent;
 import org.xwiki.eventstream.internal.DefaultEventStatus;
 import org.xwiki.eventstream.query.SimpleEventQuery;
+import org.xwiki.management.JMXBeanRegistration;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
 import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.model.reference.WikiReference;
 import org.xwiki.notifications.NotificationConfiguration;
 import org.xwiki.notifications.NotificationFormat;
+import org.xwiki.notifications.filters.internal.NotificationSubscriptionIndex;
+import org.xwiki.notifications.notifiers.internal.jmx.JMXUserEventDispatcher;
 import org.xwiki.user.UserManager;
 import org.xwiki.user.UserReference;
 import org.xwiki.user.UserReferenceResolver;
@@ -74,6 +82,10 @@ public class UserEventDispatcher implements Runnable, Disposable, Initializable
 
     private static final long LIVE_EVENT_INTERVAL = 5L * 60L * 1000L;
 
+    private static final int SECONDARY_BATCH_SIZE = 100;
+
+    private static final String MBEAN_NAME = "name=notificationsUserEventDispatcher";
+
     protected boolean disposed;
 
     protected BlockingQueue<Event> priorityQueue;
@@ -114,9 +126,25 @@ public class UserEventDispatcher implements Runnable, Disposable, Initializable
     @Inject
     private EventStore events;
 
+    @Inject
+    private NotificationSubscriptionIndex subscriptionIndex;
+
+    @Inject
+    private JMXBeanRegistration jmxRegistration;
+
     @Inject
     private Logger logger;
 
+    private int poolSize;
+
+    /**
+     * The identifiers of the events being dispatched, since the same event can be found in both queues and taken by
+     * different threads at the same time.
+     */
+    private final Set<String> dispatching = ConcurrentHashMap.newKeySet();
+
+    private JMXUserEventDispatcher mbean;
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -128,13 +156,20 @@ public void initialize() throws InitializationException
         this.priorityQueue = new LinkedBlockingQueue<>(1000);
         this.secondaryQueue = new LinkedBlockingQueue<>(100000);
 
-        // Start a background thread to filter and dispatch users events
-        // Not making it a daemon thread because we don't want to loose events
-        Thread thread = new Thread(this);
-        thread.setName("User event dispatcher thread");
-        thread.setPriority(Thread.NORM_PRIORITY - 1);
-        thread.setDaemon(true);
-        thread.start();
+        this.poolSize = Math.max(1, this.notificationConfiguration.getPrefilteringPoolSize());
+
+        this.mbean = new JMXUserEventDispatcher(this.priorityQueue::size, this.secondaryQueue::size, this.poolSize);
+        this.jmxRegistration.registerMBean(this.mbean, MBEAN_NAME);
+
+        // Start background threads to filter and dispatch users events
+        for (int i = 0; i < this.poolSize; ++i) {
+            Thread thread = new Thread(this);
+            thread.setName(this.poolSize > 1 ? "User event dispatcher thread " + (i + 1)
+                : "User event dispatcher thread");
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            thread.setDaemon(true);
+            thread.start();
+        }
     }
 
     @Override
@@ -143,8 +178,12 @@ public void dispose() throws ComponentLifecycleException
         // Mark the component as disposed
         this.disposed = true;
 
-        // Make sure to wake the thread up to stop it
-        wakeup();
+        // Make sure to wake the threads up to stop them
+        for (int i = 0; i < this.poolSize; ++i) {
+            this.priorityQueue.offer(WAKEUP_EVENT);
+        }
+
+        this.jmxRegistration.unregisterMBean(MBEAN_NAME);
     }
 
     private void wakeup()
@@ -228,28 +267,64 @@ private void runEvents(Event firstEvent)
         Event currentEvent = firstEvent;
 
         while (!this.disposed && currentEvent != null) {
-            if (currentEvent != WAKEUP_EVENT && !currentEvent.isPrefiltered()) {
-                // Dispatch event
-                dispatch(currentEvent);
-            }
+            dispatchIfNeeded(currentEvent);
 
             // Get next priority event
             currentEvent = this.priorityQueue.poll();
 
             // If there is no next event in the priority queue try the large queue
             if (currentEvent == null) {
-                String eventId = this.secondaryQueue.poll();
-                if (!this.disposed && eventId != null) {
-                    try {
-                        currentEvent = this.events.getEvent(eventId).orElse(null);
-                    } catch (EventStreamException e) {
-                        this.logger.error("Failed to load event with id [{}]", eventId, e);
+                List<String> eventIds = new ArrayList<>(SECONDARY_BATCH_SIZE);
+                this.secondaryQueue.drainTo(eventIds, SECONDARY_BATCH_SIZE);
+                if (!this.disposed && !eventIds.isEmpty()) {
+                    // Let another thread take care of the next events
+                    if (!this.secondaryQueue.isEmpty()) {
+                        wakeup();
                     }
+
+                    for (Event event : getEvents(eventIds)) {
+                        dispatchIfNeeded(event);
+                    }
+
+                    // Continue with the next events
+                    currentEvent = WAKEUP_EVENT;
                 }
             }
         }
     }
 
+    private void dispatchIfNeeded(Event event)
+    {
+        if (!this.disposed && event != WAKEUP_EVENT && !event.isPrefiltered()) {
+            String eventId = event.getId();
+            if (eventId == null) {
+                dispatch(event);
+            } else if (this.dispatching.add(eventId)) {
+                try {
+                    // Dispatch event
+                    dispatch(event);
+                } finally {
+                    this.dispatching.remove(eventId);
+                }
+            }
+            // Otherwise the event is already being dispatched by another thread.
+        }
+    }
+
+    private List<Event> getEvents(List<String> eventIds)
+    {
+        SimpleEventQuery query = new SimpleEventQuery(0, eventIds.size());
+        query.in(Event.FIELD_ID, eventIds);
+
+        try (EventSearchResult result = this.events.search(query)) {
+            return result.stream().collect(Collectors.toList());
+        } catch (Exception e) {
+            this.logger.error("Failed to load events with ids [{}]", eventIds, e);
+
+            return Collections.emptyList();
+        }
+    }
+
     /**
      * Associated an event with the users located in the event's wiki and in the main wiki or with explicitly targeted
      * users.
@@ -272,7 +347,10 @@ public void dispatch(Event event)
         }
 
         try {
-            dispatchInContext(event);
+            int fanOut = dispatchInContext(event);
+
+            this.mbean.addDispatch(
+                event.getDate() != null ? System.currentTimeMillis() - event.getDate().getTime() : -1, fanOut);
         } catch (Exception e) {
             this.logger.error("Unexpected exception has been raised while dispatching event [{}]", event.getId(), e);
         } finally {
@@ -281,25 +359,32 @@ public void dispatch(Event event)
         }
     }
 
-    private void dispatchInContext(Event event)
+    /**
+     * @return the number of users the event has been associated with
+     */
+    private int dispatchInContext(Event event)
     {
         WikiReference eventWiki = event.getWiki();
 
+        int fanOut = 0;
+
         if (CollectionUtils.isNotEmpty(event.getTarget())) {
             // The event explicitly indicate with which entities to associated it
 
             boolean mailEnabled = this.notificationConfiguration.areEmailsEnabled();
-            event.getTarget().forEach(entity -> {
+            for (String entity : event.getTarget()) {
                 DocumentReference entityReference = this.resolver.resolve(entity, event.getWiki());
                 UserReference userReference = this.documentReferenceUserReferenceResolver.resolve(entityReference);
 
                 if (this.userManager.exists(userReference)) {
-                    dispatch(event, entityReference, mailEnabled);
+                    fanOut += dispatch(event, entityReference, mailEnabled);
                 } else {
                     // Also recursively associate the members of the entity if it's a group
                     try {
-                        this.groupManager.getMembers(entityReference, true)
-                            .forEach(userDocumentReference -> dispatch(event, userDocumentReference, mailEnabled));
+                        for (DocumentReference userDocumentReference : this.groupManager.getMembers(entityReference,
+                            true)) {
+                            fanOut += dispatch(event, userDocumentReference, mailEnabled);
+                        }
                     } catch (GroupException e) {
                         this.logger.warn("Failed to get the member of the entity [{}]: {}", entity,
                             ExceptionUtils.getRootCauseMessage(e));
@@ -307,22 +392,30 @@ private void dispatchInContext(Event event)
                 }
                 // Remember we are done pre filtering this event
                 this.events.prefilterEvent(event);
-            });
+            }
         } else {
             // Try to find users listening to this event
 
             // Associated event with event's wiki users
-            dispatch(event, this.userCache.getUsers(eventWiki, true));
+            fanOut += dispatch(event, this.userCache.getUsers(eventWiki, true));
 
             // Also take into account global users (main wiki users) if the event is on a subwiki
             if (!this.wikiManager.isMainWiki(eventWiki.getName())) {
-                dispatch(event, this.userCache.getUsers(new WikiReference(this.wikiManager.getMainWikiId()), true));
+                fanOut +=
+                    dispatch(event, this.userCache.getUsers(new WikiReference(this.wikiManager.getMainWikiId()), true));
             }
         }
+
+        return fanOut;
     }
 
-    private void dispatch(Event event, DocumentReference user, boolean mailEnabled)
+    /**
+     * @return 1 if the event has been associated with the user, 0 otherwise
+     */
+    private int dispatch(Event event, DocumentReference user, boolean mailEnabled)
     {
+        int fanOut = 0;
+
         // Get the entity id
         String entityId = this.entityReferenceSerializer.serialize(user);
 
@@ -332,6 +425,8 @@ private void dispatch(Event event, DocumentReference user, boolean mailEnabled)
             && this.userEventManager.isListening(event, user, NotificationFormat.ALERT)) {
             // Associate the event with the user
             saveEventStatus(event, entityId);
+
+            fanOut = 1;
         }
 
         // Make sure the notification module is allowed to send mails
@@ -341,7 +436,11 @@ private void dispatch(Event event, DocumentReference user, boolean mailEnabled)
             && this.userEventManager.isListening(event, user, NotificationFormat.EMAIL)) {
             // Associate the event with the user
             saveMailEntityEvent(event, entityId);
+
+            fanOut = 1;
         }
+
+        return fanOut;
     }
 
     private boolean isStatusPrefiltered(Event event, String entityId)
@@ -378,16 +477,21 @@ private boolean isPrefiltered(Event event, String entityId, boolean mail)
         return result.getTotalHits() > 0;
     }
 
-    private void dispatch(Event event, List<DocumentReference> users)
+    private int dispatch(Event event, List<DocumentReference> users)
     {
         boolean mailEnabled = this.notificationConfiguration.areEmailsEnabled();
 
-        for (DocumentReference user : users) {
-            dispatch(event, user, mailEnabled);
+        int fanOut = 0;
+
+        // Only check the users who may be interested by the event
+        for (DocumentReference user : this.subscriptionIndex.getCandidateUsers(event, users)) {
+            fanOut += dispatch(event, user, mailEnabled);
         }
 
         // Remember we are done pre filtering this event
         this.events.prefilterEvent(event);
+
+        return fanOut;
     }
 
     private void saveEventStatus(Event event, String entityId)
@@ -21,6 +21,7 @@
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -94,7 +95,8 @@
     // We use a map here and not a cache since it's expected to contain all users
     // (we iterate over all users in the UserEventDispatcher)
     // Note that the memory footprint will be acceptable thanks to the dedup of references here.
-    private Map<DocumentReference, Date> userCreationDateCache = new HashMap<>();
+    // The map is synchronized since the events are dispatched by several threads (and creation dates can be null).
+    private Map<DocumentReference, Date> userCreationDateCache = Collections.synchronizedMap(new HashMap<>());
 
     /**
      * @param event the event
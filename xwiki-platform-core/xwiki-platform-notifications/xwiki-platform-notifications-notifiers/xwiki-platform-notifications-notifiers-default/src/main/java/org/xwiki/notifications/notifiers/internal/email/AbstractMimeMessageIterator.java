@@ -25,6 +25,7 @@
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -39,6 +40,7 @@
 
 import org.slf4j.Logger;
 import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.eventstream.EntityEvent;
 import org.xwiki.eventstream.EventStore;
 import org.xwiki.eventstream.internal.DefaultEntityEvent;
@@ -55,6 +57,7 @@
 import org.xwiki.notifications.CompositeEvent;
 import org.xwiki.notifications.NotificationException;
 import org.xwiki.notifications.notifiers.email.NotificationEmailRenderer;
+import org.xwiki.notifications.preferences.email.NotificationEmailUserPreferenceManager;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.api.Attachment;
@@ -89,6 +92,11 @@ public abstract class AbstractMimeMessageIterator implements Iterator<MimeMessag
 
     private static final String EMAIL_USER = "emailUser";
 
+    /**
+     * The maximum number of rendered events kept in memory while iterating the users.
+     */
+    private static final int RENDERED_EVENTS_CAPACITY = 1000;
+
     @Inject
     protected Logger logger;
 
@@ -126,6 +134,13 @@ public abstract class AbstractMimeMessageIterator implements Iterator<MimeMessag
     @Inject
     private Provider<XWikiContext> xcontextProvider;
 
+    @Inject
+    private NotificationEmailUserPreferenceManager emailUserPreferenceManager;
+
+    @Inject
+    @Named("context")
+    private Provider<ComponentManager> componentManagerProvider;
+
     private final MailListener listener = new VoidMailListener()
     {
         @Override
@@ -163,6 +178,23 @@ public void onPrepareMessageError(ExtendedMimeMessage message, Exception e, Map<
 
     private boolean hasNext;
 
+    /**
+     * The same composite events are usually sent to a lot of users: since the default templates are executed with the
+     * rights of their author, the rendered events only depend on the locale, the wiki and the diff type preferred by
+     * the user, so we render them once for all the users sharing these parameters.
+     */
+    private final Map<String, String[]> renderedEvents =
+        new LinkedHashMap<String, String[]>(16, 0.75F, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String[]> eldest)
+            {
+                return size() > RENDERED_EVENTS_CAPACITY;
+            }
+        };
+
     /**
      * Initialize the iterator. A class extending {@link AbstractMimeMessageIterator} should implement a same initialize
      * method that calls this one at the end of its execution.
@@ -266,9 +298,26 @@ private void handleEvents() throws NotificationException
         List<String> htmlEvents = new ArrayList<>();
         List<String> plainTextEvents = new ArrayList<>();
         EventsSorter eventsSorter = new EventsSorter();
+        String renderingKey = null;
         for (CompositeEvent event : this.currentEvents) {
-            String html = this.defaultNotificationEmailRenderer.renderHTML(event, this.currentUsedId);
-            String plainText = this.defaultNotificationEmailRenderer.renderPlainText(event, this.currentUsedId);
+            String[] rendered = null;
+            String eventKey = null;
+            if (!hasSpecificRenderer(event)) {
+                if (renderingKey == null) {
+                    renderingKey = getRenderingKey();
+                }
+                eventKey = renderingKey + String.join(",", event.getEventIds());
+                rendered = this.renderedEvents.get(eventKey);
+            }
+            if (rendered == null) {
+                rendered = new String[] {this.defaultNotificationEmailRenderer.renderHTML(event, this.currentUsedId),
+                    this.defaultNotificationEmailRenderer.renderPlainText(event, this.currentUsedId)};
+                if (eventKey != null) {
+                    this.renderedEvents.put(eventKey, rendered);
+                }
+            }
+            String html = rendered[0];
+            String plainText = rendered[1];
             htmlEvents.add(html);
             plainTextEvents.add(plainText);
             eventsSorter.add(event, html, plainText);
@@ -286,6 +335,20 @@ private void handleEvents() throws NotificationException
         handleAvatars();
     }
 
+    private boolean hasSpecificRenderer(CompositeEvent event)
+    {
+        // A renderer dedicated to a type of event may produce a different content for each user
+        return this.componentManagerProvider.get().hasComponent(NotificationEmailRenderer.class, event.getType());
+    }
+
+    private String getRenderingKey()
+    {
+        XWikiContext xcontext = this.xcontextProvider.get();
+
+        return String.format("%s/%s/%s/", xcontext.getLocale(), xcontext.getWikiId(),
+            this.emailUserPreferenceManager.getDiffType(this.currentUsedId));
+    }
+
     private void handleWikiLogo()
     {
         try {
@@ -0,0 +1,142 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.notifiers.internal.jmx;
+
+import java.util.function.Supplier;
+
+/**
+ * Implementation of the user event dispatcher JMX MBean.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+public class JMXUserEventDispatcher implements JMXUserEventDispatcherMBean
+{
+    private final Supplier<Integer> priorityQueueSize;
+
+    private final Supplier<Integer> secondaryQueueSize;
+
+    private final int threadNumber;
+
+    private long dispatchedEvents;
+
+    private long lastDispatchLag;
+
+    private long totalDispatchLag;
+
+    private long laggedEvents;
+
+    private int lastFanOut;
+
+    private long totalFanOut;
+
+    private int maxFanOut;
+
+    /**
+     * Default constructor.
+     * 
+     * @param priorityQueueSize the number of live events waiting to be pre filtered
+     * @param secondaryQueueSize the number of event identifiers waiting to be pre filtered
+     * @param threadNumber the number of threads dedicated to pre filtering the events
+     */
+    public JMXUserEventDispatcher(Supplier<Integer> priorityQueueSize, Supplier<Integer> secondaryQueueSize,
+        int threadNumber)
+    {
+        this.priorityQueueSize = priorityQueueSize;
+        this.secondaryQueueSize = secondaryQueueSize;
+        this.threadNumber = threadNumber;
+    }
+
+    /**
+     * Record a pre filtered event.
+     * 
+     * @param lag the time between the creation and the pre filtering of the event, in milliseconds, or a negative
+     *            value if unknown
+     * @param fanOut the number of users the event has been associated with
+     */
+    public synchronized void addDispatch(long lag, int fanOut)
+    {
+        this.dispatchedEvents++;
+
+        if (lag >= 0) {
+            this.laggedEvents++;
+            this.totalDispatchLag += lag;
+            this.lastDispatchLag = lag;
+        }
+
+        this.lastFanOut = fanOut;
+        this.totalFanOut += fanOut;
+        this.maxFanOut = Math.max(this.maxFanOut, fanOut);
+    }
+
+    @Override
+    public int getPriorityQueueSize()
+    {
+        return this.priorityQueueSize.get();
+    }
+
+    @Override
+    public int getSecondaryQueueSize()
+    {
+        return this.secondaryQueueSize.get();
+    }
+
+    @Override
+    public int getThreadNumber()
+    {
+        return this.threadNumber;
+    }
+
+    @Override
+    public synchronized long getDispatchedEvents()
+    {
+        return this.dispatchedEvents;
+    }
+
+    @Override
+    public synchronized long getLastDispatchLag()
+    {
+        return this.lastDispatchLag;
+    }
+
+    @Override
+    public synchronized long getAverageDispatchLag()
+    {
+        return this.laggedEvents > 0 ? this.totalDispatchLag / this.laggedEvents : 0;
+    }
+
+    @Override
+    public synchronized int getLastFanOut()
+    {
+        return this.lastFanOut;
+    }
+
+    @Override
+    public synchronized long getAverageFanOut()
+    {
+        return this.dispatchedEvents > 0 ? this.totalFanOut / this.dispatchedEvents : 0;
+    }
+
+    @Override
+    public synchronized int getMaxFanOut()
+    {
+        return this.maxFanOut;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.notifiers.internal.jmx;
+
+/**
+ * Interface of the user event dispatcher JMX MBean.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+public interface JMXUserEventDispatcherMBean
+{
+    /**
+     * @return the number of live events waiting to be pre filtered
+     */
+    int getPriorityQueueSize();
+
+    /**
+     * @return the number of event identifiers waiting to be pre filtered
+     */
+    int getSecondaryQueueSize();
+
+    /**
+     * @return the number of threads dedicated to pre filtering the events
+     */
+    int getThreadNumber();
+
+    /**
+     * @return the number of events pre filtered since the start
+     */
+    long getDispatchedEvents();
+
+    /**
+     * @return the time between the creation and the pre filtering of the last event, in milliseconds
+     */
+    long getLastDispatchLag();
+
+    /**
+     * @return the average time between the creation and the pre filtering of the events, in milliseconds
+     */
+    long getAverageDispatchLag();
+
+    /**
+     * @return the number of users the last event has been associated with
+     */
+    int getLastFanOut();
+
+    /**
+     * @return the average number of users the events are associated with
+     */
+    long getAverageFanOut();
+
+    /**
+     * @return the maximum number of users an event has been associated with
+     */
+    int getMaxFanOut();
+}
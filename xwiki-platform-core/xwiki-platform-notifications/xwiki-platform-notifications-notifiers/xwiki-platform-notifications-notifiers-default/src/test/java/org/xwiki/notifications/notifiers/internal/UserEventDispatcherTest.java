@@ -20,12 +20,15 @@
 package org.xwiki.notifications.notifiers.internal;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
 import javax.inject.Singleton;
 
@@ -33,14 +36,27 @@
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.manager.ComponentLifecycleException;
 import org.xwiki.eventstream.Event;
+import org.xwiki.eventstream.EventSearchResult;
 import org.xwiki.eventstream.EventStore;
 import org.xwiki.eventstream.EventStreamException;
 import org.xwiki.eventstream.internal.DefaultEvent;
+import org.xwiki.eventstream.query.SimpleEventQuery;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.notifications.NotificationFormat;
+import org.xwiki.notifications.filters.internal.NotificationSubscriptionIndex;
+import org.xwiki.user.internal.group.UsersCache;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -90,6 +106,18 @@ public void dispose() throws ComponentLifecycleException
     @MockComponent
     private EventStore store;
 
+    @MockComponent
+    private UsersCache usersCache;
+
+    @MockComponent
+    private WikiDescriptorManager wikiManager;
+
+    @MockComponent
+    private UserEventManager userEventManager;
+
+    @MockComponent
+    private NotificationSubscriptionIndex subscriptionIndex;
+
     @InjectMockComponents
     private CustomUserEventDispatcher dispatcher;
 
@@ -143,24 +171,34 @@ void addEvent() throws InterruptedException, EventStreamException
         assertEquals(0, this.dispatcher.secondaryQueue.size());
         assertEquals(1, this.dispatcher.dispatched.size());
 
-        this.dispatcher.addEvent(storeEvent("event4", nowMinus10Minutes()));
+        DefaultEvent event4 = storeEvent("event4", nowMinus10Minutes());
+        this.dispatcher.addEvent(event4);
 
         assertEquals(2, this.dispatcher.priorityQueue.size());
         assertEquals(1, this.dispatcher.secondaryQueue.size());
         assertEquals(1, this.dispatcher.dispatched.size());
 
-        this.dispatcher.addEvent(storeEvent("event5").getId(), true);
+        DefaultEvent event5 = storeEvent("event5");
+        this.dispatcher.addEvent(event5.getId(), true);
 
         assertEquals(2, this.dispatcher.priorityQueue.size());
         assertEquals(2, this.dispatcher.secondaryQueue.size());
         assertEquals(1, this.dispatcher.dispatched.size());
 
-        this.dispatcher.addEvent(storeEvent("event6").getId(), false);
+        DefaultEvent event6 = storeEvent("event6");
+        this.dispatcher.addEvent(event6.getId(), false);
 
         assertEquals(2, this.dispatcher.priorityQueue.size());
         assertEquals(3, this.dispatcher.secondaryQueue.size());
         assertEquals(1, this.dispatcher.dispatched.size());
 
+        // The events of the secondary queue are loaded in batch
+        EventSearchResult result = mock(EventSearchResult.class);
+        when(result.stream()).then(invocation -> Stream.of(event4, event5, event6));
+        when(this.store.search(
+            new SimpleEventQuery(0, 3).in(Event.FIELD_ID, Arrays.asList("event4", "event5", "event6"))))
+                .thenReturn(result);
+
         this.dispatcher.skipDispatch = true;
         this.dispatcher.count = new CountDownLatch(5);
         this.dispatcher.lock.unlock();
@@ -172,4 +210,26 @@ void addEvent() throws InterruptedException, EventStreamException
         assertEquals(0, this.dispatcher.secondaryQueue.size());
         assertEquals(6, this.dispatcher.dispatched.size());
     }
+
+    @Test
+    void dispatchToCandidateUsers() throws EventStreamException
+    {
+        DefaultEvent event = storeEvent("event");
+        WikiReference wiki = new WikiReference("wiki");
+        event.setWiki(wiki);
+
+        DocumentReference alice = new DocumentReference("wiki", "XWiki", "Alice");
+        DocumentReference bob = new DocumentReference("wiki", "XWiki", "Bob");
+        List<DocumentReference> users = Arrays.asList(alice, bob);
+        when(this.usersCache.getUsers(wiki, true)).thenReturn(users);
+        when(this.wikiManager.isMainWiki("wiki")).thenReturn(true);
+        when(this.subscriptionIndex.getCandidateUsers(event, users)).thenReturn(Collections.singletonList(alice));
+        when(this.store.search(any())).thenReturn(mock(EventSearchResult.class));
+
+        this.dispatcher.dispatch(event);
+
+        verify(this.userEventManager).isListening(event, alice, NotificationFormat.ALERT);
+        verify(this.userEventManager, never()).isListening(eq(event), eq(bob), any());
+        verify(this.store).prefilterEvent(event);
+    }
 }
@@ -43,6 +43,8 @@
 import org.xwiki.notifications.CompositeEvent;
 import org.xwiki.notifications.NotificationFormat;
 import org.xwiki.notifications.notifiers.email.NotificationEmailRenderer;
+import org.xwiki.notifications.preferences.email.NotificationEmailDiffType;
+import org.xwiki.notifications.preferences.email.NotificationEmailUserPreferenceManager;
 import org.xwiki.notifications.sources.NotificationManager;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
@@ -61,6 +63,7 @@
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -105,6 +108,9 @@
     @MockComponent
     private UserAvatarAttachmentExtractor userAvatarAttachmentExtractor;
 
+    @MockComponent
+    private NotificationEmailUserPreferenceManager emailUserPreferenceManager;
+
     @BeforeEach
     void beforeEach()
     {
@@ -199,4 +205,53 @@ void test() throws Exception
         assertEquals(this.iterator, this.iterator.iterator());
     }
 
+
+    @Test
+    void renderSharedEventsOnce() throws Exception
+    {
+        Map<String, Object> factoryParameters = new HashMap<>();
+
+        NotificationUserIterator userIterator = mock(NotificationUserIterator.class);
+        DocumentReference userA = new DocumentReference("xwiki", "XWiki", "UserA");
+        DocumentReference userB = new DocumentReference("xwiki", "XWiki", "UserB");
+        DocumentReference userC = new DocumentReference("xwiki", "XWiki", "UserC");
+        when(userIterator.hasNext()).thenReturn(true, true, true, false);
+        when(userIterator.next()).thenReturn(userA, userB, userC);
+        DocumentReference userClass = new DocumentReference("xwiki", "XWiki", "XWikiUsers");
+        when(this.documentAccessBridge.getProperty(userA, userClass, 0, "email")).thenReturn("userA@xwiki.org");
+        when(this.documentAccessBridge.getProperty(userB, userClass, 0, "email")).thenReturn("userB@xwiki.org");
+        when(this.documentAccessBridge.getProperty(userC, userClass, 0, "email")).thenReturn("userC@xwiki.org");
+        when(this.serializer.serialize(userA)).thenReturn("xwiki:XWiki.UserA");
+        when(this.serializer.serialize(userB)).thenReturn("xwiki:XWiki.UserB");
+        when(this.serializer.serialize(userC)).thenReturn("xwiki:XWiki.UserC");
+        when(this.emailUserPreferenceManager.getDiffType("xwiki:XWiki.UserA"))
+            .thenReturn(NotificationEmailDiffType.STANDARD);
+        when(this.emailUserPreferenceManager.getDiffType("xwiki:XWiki.UserB"))
+            .thenReturn(NotificationEmailDiffType.STANDARD);
+        when(this.emailUserPreferenceManager.getDiffType("xwiki:XWiki.UserC"))
+            .thenReturn(NotificationEmailDiffType.NOTHING);
+
+        CompositeEvent event = mock(CompositeEvent.class);
+        when(event.getEventIds()).thenReturn(Arrays.asList("id1", "id2"));
+        when(this.notificationManager.getEvents(anyString(), eq(NotificationFormat.EMAIL), eq(Integer.MAX_VALUE / 4),
+            eq(null), eq(new Date(0L)), eq(Collections.emptyList()))).thenReturn(Arrays.asList(event));
+
+        when(this.factory.createMessage(TEMPLATE_REFERENCE, factoryParameters)).thenReturn(mock(MimeMessage.class));
+        when(this.defaultNotificationEmailRenderer.renderHTML(eq(event), anyString())).thenReturn("eventHTML");
+        when(this.defaultNotificationEmailRenderer.renderPlainText(eq(event), anyString())).thenReturn("event");
+
+        this.iterator.initialize(userIterator, factoryParameters, new Date(0L), TEMPLATE_REFERENCE);
+        while (this.iterator.hasNext()) {
+            this.iterator.next();
+            Map<String, Object> velocityVariables = (Map<String, Object>) factoryParameters.get("velocityVariables");
+            assertEquals(Arrays.asList("eventHTML"), velocityVariables.get("htmlEvents"));
+            assertEquals(Arrays.asList("event"), velocityVariables.get("plainTextEvents"));
+        }
+
+        // The event is rendered once for the users A and B, who share the same diff type, and once for the user C.
+        verify(this.defaultNotificationEmailRenderer).renderHTML(event, "xwiki:XWiki.UserA");
+        verify(this.defaultNotificationEmailRenderer, never()).renderHTML(event, "xwiki:XWiki.UserB");
+        verify(this.defaultNotificationEmailRenderer).renderHTML(event, "xwiki:XWiki.UserC");
+        verify(this.defaultNotificationEmailRenderer, times(2)).renderPlainText(eq(event), anyString());
+    }
 }
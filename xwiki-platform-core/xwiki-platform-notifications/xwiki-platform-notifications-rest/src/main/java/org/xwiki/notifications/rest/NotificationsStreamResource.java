@@ -0,0 +1,64 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.rest;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Response;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Push the changes of the notifications of the current user, so that clients don't have to poll
+ * {@link NotificationsResource}.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Path("/notifications/stream")
+@Unstable
+public interface NotificationsStreamResource
+{
+    /**
+     * Stream the number of unread notifications of the current user as
+     * <a href="https://html.spec.whatwg.org/multipage/server-sent-events.html">Server-Sent Events</a>: a {@code count}
+     * event (with the same content as {@link NotificationsResource#getNotificationsCount}) is sent when the stream is
+     * opened and then each time this number changes. The stream is closed after a few minutes and the client is
+     * expected to reconnect. A {@code close} event is sent instead when the server cannot handle more streams, in which
+     * case the client is expected to stop listening.
+     *
+     * @param useUserPreferences true if the notifications should be filtered with the preferences of the user
+     * @param userId the user whose notifications are streamed, it has to be the current user
+     * @param count the maximum number of notifications to count
+     * @param currentWiki the wiki from which the notifications are displayed
+     * @return the stream of events, or a 503 status when the streams are disabled
+     * @throws Exception if an error occurs
+     */
+    @GET
+    @Produces("text/event-stream")
+    Response getNotificationsStream(
+            @QueryParam("useUserPreferences") String useUserPreferences,
+            @QueryParam("userId") String userId,
+            @QueryParam("count") String count,
+            @QueryParam("currentWiki") String currentWiki
+            ) throws Exception;
+}
@@ -28,10 +28,13 @@
 import javax.inject.Named;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.model.reference.DocumentReference;
@@ -65,6 +68,10 @@ public class DefaultNotificationsResource extends XWikiResource implements Notif
 {
     private static final String TRUE = "true";
 
+    private static final String IF_NONE_MATCH = "If-None-Match";
+
+    private static final String WEAK_PREFIX = "W/";
+
     @Inject
     private ParametrizedNotificationManager newNotificationManager;
 
@@ -143,11 +150,19 @@ private Object getCompositeEvents(String useUserPreferences, String userId, Stri
         String displayReadEvents, String tags, String currentWiki, String async, String asyncId, boolean onlyUnread,
         boolean count) throws Exception
     {
-        Object result = null;
         NotificationParameters notificationParameters = getNotificationParameters(useUserPreferences, userId, untilDate,
             untilDateIncluded, blackList, pages, spaces, wikis, users, maxCount, displayOwnEvents, displayMinorEvents,
             displaySystemEvents, displayReadEvents, tags, currentWiki, onlyUnread);
 
+        return getCompositeEvents(notificationParameters, this.cacheManager.createCacheKey(notificationParameters),
+            async, asyncId, count);
+    }
+
+    private Object getCompositeEvents(NotificationParameters notificationParameters, String cacheKey, String async,
+        String asyncId, boolean count) throws Exception
+    {
+        Object result = null;
+
         // 1. Check current asynchronous execution
         if (asyncId != null) {
             result = this.executor.popAsync(asyncId);
@@ -159,10 +174,7 @@ private Object getCompositeEvents(String useUserPreferences, String userId, Stri
         }
 
         if (result == null) {
-            // 2. Generate the cache key
-            String cacheKey = this.cacheManager.createCacheKey(notificationParameters);
-
-            // 3. Search events
+            // 2. Search events
             result = this.executor.submit(cacheKey,
                 () -> getCompositeEvents(notificationParameters),
                 Boolean.parseBoolean(async), count);
@@ -189,15 +201,31 @@ public Response getNotificationsCount(String useUserPreferences, String userId,
         if (xWikiUser == null) {
             response = Response.status(Status.UNAUTHORIZED);
         } else {
-            Object result = getCompositeEvents(useUserPreferences, userId, null, true, null, pages, spaces, wikis,
-                users, toMaxCount(maxCount, 21), displayOwnEvents, displayMinorEvents, displaySystemEvents,
-                displayReadEvents, tags, currentWiki, async, asyncId, true, true);
+            NotificationParameters notificationParameters = getNotificationParameters(useUserPreferences, userId, null,
+                true, null, pages, spaces, wikis, users, toMaxCount(maxCount, 21), displayOwnEvents,
+                displayMinorEvents, displaySystemEvents, displayReadEvents, tags, currentWiki, true);
+            String cacheKey = this.cacheManager.createCacheKey(notificationParameters);
 
-            if (result instanceof String) {
-                response = Response.status(Status.ACCEPTED);
-                response.entity(Collections.singletonMap("asyncId", result));
+            // The cache key changes each time the notifications of the user may have changed so it can be used to
+            // tell the client that the count it already has is still valid, without searching the events.
+            EntityTag entityTag = getEntityTag(cacheKey);
+            String ifNoneMatch = getXWikiContext().getRequest().getHeader(IF_NONE_MATCH);
+            if (asyncId == null && isNoneMatch(ifNoneMatch, entityTag)) {
+                response = Response.notModified(entityTag);
             } else {
-                response = Response.ok(Collections.singletonMap("unread", result));
+                Object result = getCompositeEvents(notificationParameters, cacheKey, async, asyncId, true);
+
+                if (result instanceof String) {
+                    response = Response.status(Status.ACCEPTED);
+                    response.entity(Collections.singletonMap("asyncId", result));
+                } else {
+                    response = Response.ok(Collections.singletonMap("unread", result));
+
+                    // The result of an asynchronous execution may have been computed before the notifications changed
+                    if (asyncId == null) {
+                        response.tag(entityTag);
+                    }
+                }
             }
 
             // Add the "cache control" header.
@@ -208,6 +236,33 @@ users, toMaxCount(maxCount, 21), displayOwnEvents, displayMinorEvents, displaySy
         return response.build();
     }
 
+    private EntityTag getEntityTag(String cacheKey)
+    {
+        // The result also depends on the rights of the current user
+        String currentUser = String.valueOf(getXWikiContext().getUserReference());
+
+        return new EntityTag(DigestUtils.sha256Hex(currentUser + '/' + cacheKey));
+    }
+
+    /**
+     * @param ifNoneMatch the value of the {@code If-None-Match} header (a list of entity tags, or {@code *})
+     * @param entityTag the current entity tag of the count
+     * @return {@code true} if the header matches the current entity tag (weak comparison, as required by RFC 7232)
+     */
+    private boolean isNoneMatch(String ifNoneMatch, EntityTag entityTag)
+    {
+        if (ifNoneMatch != null) {
+            for (String candidate : StringUtils.split(ifNoneMatch, ',')) {
+                String tag = StringUtils.removeStart(candidate.trim(), WEAK_PREFIX);
+                if ("*".equals(tag) || entityTag.getValue().equals(StringUtils.unwrap(tag, '"'))) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
     @Override
     public String getNotificationsRSS(String useUserPreferences, String userId, String untilDate, String blackList,
         String pages, String spaces, String wikis, String users, String maxCount, String displayOwnEvents,
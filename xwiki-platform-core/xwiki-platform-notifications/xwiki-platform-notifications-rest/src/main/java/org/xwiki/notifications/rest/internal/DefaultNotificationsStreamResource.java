@@ -0,0 +1,100 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.rest.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.notifications.rest.NotificationsStreamResource;
+import org.xwiki.notifications.sources.NotificationParameters;
+import org.xwiki.notifications.sources.ParametrizedNotificationManager;
+import org.xwiki.notifications.sources.internal.DefaultNotificationParametersFactory;
+import org.xwiki.notifications.sources.internal.DefaultNotificationParametersFactory.ParametersKey;
+import org.xwiki.rest.XWikiResource;
+
+import com.xpn.xwiki.user.api.XWikiUser;
+
+/**
+ * Default implementation of {@link NotificationsStreamResource}.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component
+@Named("org.xwiki.notifications.rest.internal.DefaultNotificationsStreamResource")
+public class DefaultNotificationsStreamResource extends XWikiResource implements NotificationsStreamResource
+{
+    @Inject
+    private ParametrizedNotificationManager notificationManager;
+
+    @Inject
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @Inject
+    private DefaultNotificationParametersFactory notificationParametersFactory;
+
+    @Inject
+    private NotificationStreams streams;
+
+    @Override
+    public Response getNotificationsStream(String useUserPreferences, String userId, String count,
+        String currentWiki) throws Exception
+    {
+        if (!this.streams.isEnabled()) {
+            // The client stops listening (and keeps the count it got when the page was loaded) when the stream is
+            // refused.
+            return Response.status(Status.SERVICE_UNAVAILABLE).build();
+        }
+
+        XWikiUser xWikiUser = getXWikiContext().getWiki().getAuthService().checkAuth(getXWikiContext());
+        if (xWikiUser == null || !this.documentReferenceResolver.resolve(userId).equals(xWikiUser.getUserReference())) {
+            return Response.status(Status.UNAUTHORIZED).build();
+        }
+
+        Map<ParametersKey, String> parametersMap = new HashMap<>();
+        parametersMap.put(ParametersKey.USE_USER_PREFERENCES, useUserPreferences);
+        parametersMap.put(ParametersKey.USER_ID, userId);
+        parametersMap.put(ParametersKey.MAX_COUNT, String.valueOf(NumberUtils.toInt(count, 21)));
+        parametersMap.put(ParametersKey.CURRENT_WIKI, currentWiki);
+        parametersMap.put(ParametersKey.ONLY_UNREAD, Boolean.TRUE.toString());
+        NotificationParameters parameters =
+            this.notificationParametersFactory.createNotificationParameters(parametersMap);
+
+        DocumentReference currentUserReference = getXWikiContext().getUserReference();
+        StreamingOutput output = stream -> this.streams.stream(stream, parameters,
+            () -> this.notificationManager.getEvents(parameters), currentUserReference);
+
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
+
+        return Response.ok(output, "text/event-stream").cacheControl(cacheControl).build();
+    }
+}
@@ -303,6 +303,23 @@ public void initialize() throws InitializationException
      */
     public Object submit(String cacheKey, Callable<List<CompositeEvent>> callable, boolean async, boolean count)
         throws Exception
+    {
+        return submit(cacheKey, callable, async, count, this.xcontextProvider.get().getUserReference());
+    }
+
+    /**
+     * @param cacheKey the cache key
+     * @param callable the callable to execute
+     * @param async true if the method should return immediately with the task id (or the cached value)
+     * @param count true if if the size of the list should be returned/cache instead of the list
+     * @param currentUserReference the user used to check the rights of the events, when it's not available from the
+     *            context (e.g. when the response is streamed)
+     * @return see {@link #submit(String, Callable, boolean, boolean)}
+     * @throws Exception when failing to execute the passed {@link Callable}
+     * @since 13.3RC1
+     */
+    public Object submit(String cacheKey, Callable<List<CompositeEvent>> callable, boolean async, boolean count,
+        DocumentReference currentUserReference) throws Exception
     {
         Object cached = this.notificationCacheManager.getFromCache(cacheKey, count);
 
@@ -314,14 +331,14 @@ public Object submit(String cacheKey, Callable<List<CompositeEvent>> callable, b
             if (async) {
                 String asyncId = String.valueOf(this.counter.incrementAndGet());
 
-                submit(cacheKey, callable, count, asyncId);
+                submit(cacheKey, callable, count, asyncId, currentUserReference);
 
                 return asyncId;
             } else {
                 // Even when not asynchronous we want to make sure only a configured number of threads is allowed to
                 // search for notifications
-                Future<?> future = this.executor.submit(new CallableEntry(cacheKey, callable, count,
-                    this.xcontextProvider.get().getUserReference()));
+                Future<?> future =
+                    this.executor.submit(new CallableEntry(cacheKey, callable, count, currentUserReference));
 
                 // Wait for the result
                 return future.get();
@@ -331,15 +348,15 @@ public Object submit(String cacheKey, Callable<List<CompositeEvent>> callable, b
         }
     }
 
-    private void submit(String longCacheKey, Callable<List<CompositeEvent>> callable, boolean count, String asyncId)
+    private void submit(String longCacheKey, Callable<List<CompositeEvent>> callable, boolean count, String asyncId,
+        DocumentReference currentUserReference)
     {
         synchronized (this.queue) {
             CallableEntry entry = this.queue.get(longCacheKey);
 
             // If not already in the queue, start a new one
             if (entry == null) {
-                entry = new CallableEntry(longCacheKey, callable, count, this.xcontextProvider.get().getUserReference(),
-                    asyncId);
+                entry = new CallableEntry(longCacheKey, callable, count, currentUserReference, asyncId);
                 this.queue.put(longCacheKey, entry);
 
                 this.logger.debug("Added [{}] in the queue", entry);
@@ -351,6 +368,16 @@ private void submit(String longCacheKey, Callable<List<CompositeEvent>> callable
         }
     }
 
+    /**
+     * @return {@code true} if the notifications are computed by a dedicated pool of threads, in which case they can be
+     *         computed outside of a request
+     * @since 13.3RC1
+     */
+    public boolean isPoolEnabled()
+    {
+        return this.executor != null;
+    }
+
     /**
      * Get and remove result of the asynchronous execution associated to the passed id.
      * 
@@ -26,10 +26,14 @@
 import org.xwiki.bridge.event.WikiCreatedEvent;
 import org.xwiki.bridge.event.WikiDeletedEvent;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.eventstream.EventStatus;
 import org.xwiki.eventstream.events.EventStreamAddedEvent;
 import org.xwiki.eventstream.events.EventStreamDeletedEvent;
 import org.xwiki.eventstream.internal.events.EventStatusAddOrUpdatedEvent;
 import org.xwiki.eventstream.internal.events.EventStatusDeletedEvent;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.notifications.filters.internal.event.NotificationFilterPreferenceAddOrUpdatedEvent;
 import org.xwiki.notifications.filters.internal.event.NotificationFilterPreferenceDeletedEvent;
 import org.xwiki.notifications.notifiers.internal.DefaultNotificationCacheManager;
@@ -59,6 +63,9 @@ public class NotificationEventExecutorListener extends AbstractEventListener
     @Inject
     private DefaultNotificationCacheManager cache;
 
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
     /**
      * The default constructor.
      */
@@ -74,6 +81,17 @@ public NotificationEventExecutorListener()
     @Override
     public void onEvent(Event event, Object source, Object data)
     {
-        this.cache.flushLongCache();
+        if (source instanceof EventStatus) {
+            // Only the notifications of the user associated with the status are modified (the prefiltering dispatcher
+            // saves a status for each user a new event is dispatched to)
+            this.cache.flushUserCache(((EventStatus) source).getEntityId());
+        } else if (event instanceof EventStreamAddedEvent) {
+            this.cache.flushEventsCache();
+        } else if (source instanceof EntityReference && ((EntityReference) source).getType() == EntityType.DOCUMENT) {
+            // The filter preferences of a user have been modified
+            this.cache.flushUserCache(this.serializer.serialize((EntityReference) source));
+        } else {
+            this.cache.flushLongCache();
+        }
     }
 }
@@ -0,0 +1,239 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.rest.internal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.notifications.CompositeEvent;
+import org.xwiki.notifications.NotificationConfiguration;
+import org.xwiki.notifications.notifiers.internal.DefaultNotificationCacheManager;
+import org.xwiki.notifications.sources.NotificationParameters;
+
+/**
+ * Write the Server-Sent Events of the notification streams.
+ * <p>
+ * The stream of a user sleeps until the notifications of this user may have changed: it's woken up by the
+ * notification cache when the results of the user are invalidated (e.g. when a new event is dispatched to the user by
+ * the prefiltering, or when one of the user's events is read), and only then checks if the number of unread
+ * notifications changed. Each stream still keeps a request thread busy (the REST server doesn't support asynchronous
+ * responses), which is why the streams are disabled by default and their number is limited.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component(roles = NotificationStreams.class)
+@Singleton
+public class NotificationStreams implements Initializable, Disposable
+{
+    /**
+     * The stream is closed after this duration to not keep the threads busy with clients that left (the client
+     * reconnects automatically).
+     */
+    private static final long MAX_DURATION = 5 * 60 * 1000L;
+
+    /**
+     * Write something regularly so that the proxies don't close the connection and so that we know when the client
+     * closed it.
+     */
+    private static final long HEARTBEAT_INTERVAL = 30 * 1000L;
+
+    private static final long RETRY_DELAY = 5000L;
+
+    private static final String EOL = "\n";
+
+    @Inject
+    private NotificationConfiguration configuration;
+
+    @Inject
+    private DefaultNotificationCacheManager cacheManager;
+
+    @Inject
+    private NotificationEventExecutor executor;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    @Inject
+    private Logger logger;
+
+    private Semaphore connections;
+
+    /**
+     * The signals of the open streams, indexed by user.
+     */
+    private final Map<String, Set<Semaphore>> signals = new ConcurrentHashMap<>();
+
+    private final Consumer<String> changeListener = this::onChange;
+
+    private volatile boolean disposed;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        this.connections = new Semaphore(Math.max(0, this.configuration.getRESTStreamMaxConnections()));
+
+        this.cacheManager.addChangeListener(this.changeListener);
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.disposed = true;
+
+        this.cacheManager.removeChangeListener(this.changeListener);
+
+        // Wake up the streams so that they stop.
+        onChange(null);
+    }
+
+    private void onChange(String user)
+    {
+        if (user == null) {
+            this.signals.values().forEach(userSignals -> userSignals.forEach(Semaphore::release));
+        } else {
+            Set<Semaphore> userSignals = this.signals.get(user);
+            if (userSignals != null) {
+                userSignals.forEach(Semaphore::release);
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the streams are enabled
+     */
+    public boolean isEnabled()
+    {
+        // Without a dedicated pool the notifications cannot be computed outside of the request
+        return this.configuration.getRESTStreamMaxConnections() > 0 && this.executor.isPoolEnabled();
+    }
+
+    /**
+     * Write the changes of the number of unread notifications until the client closes the connection or the maximum
+     * duration of a stream is reached. A {@code close} event is sent instead when too many streams are already open, to
+     * tell the client to stop listening.
+     *
+     * @param output where to write the events
+     * @param parameters the parameters of the notifications to count
+     * @param callable search the notifications
+     * @param currentUserReference the user used to check the rights of the events
+     * @throws IOException when failing to write in the stream (usually because the client closed the connection)
+     */
+    public void stream(OutputStream output, NotificationParameters parameters,
+        Callable<List<CompositeEvent>> callable, DocumentReference currentUserReference) throws IOException
+    {
+        Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+
+        // The connection is reserved and released here so that it's released whatever happens.
+        if (!this.connections.tryAcquire()) {
+            write(writer, "event: close" + EOL + "data: {}" + EOL);
+            return;
+        }
+
+        String user = this.serializer.serialize(parameters.user);
+        Semaphore signal = new Semaphore(0);
+        this.signals.computeIfAbsent(user, key -> ConcurrentHashMap.newKeySet()).add(signal);
+
+        try {
+            stream(writer, signal, parameters, callable, currentUserReference);
+        } finally {
+            this.signals.computeIfPresent(user, (key, userSignals) -> {
+                userSignals.remove(signal);
+                return userSignals.isEmpty() ? null : userSignals;
+            });
+            this.connections.release();
+        }
+    }
+
+    private void stream(Writer writer, Semaphore signal, NotificationParameters parameters,
+        Callable<List<CompositeEvent>> callable, DocumentReference currentUserReference) throws IOException
+    {
+        try {
+            write(writer, "retry: " + RETRY_DELAY + EOL);
+
+            long end = System.currentTimeMillis() + MAX_DURATION;
+            long lastWrite = System.currentTimeMillis();
+            String lastKey = null;
+            Object lastCount = null;
+            while (!this.disposed && System.currentTimeMillis() < end) {
+                String key = this.cacheManager.createCacheKey(parameters);
+                if (!key.equals(lastKey)) {
+                    lastKey = key;
+
+                    Object count = this.executor.submit(key, callable, false, true, currentUserReference);
+                    if (!Objects.equals(count, lastCount)) {
+                        lastCount = count;
+                        write(writer, "event: count" + EOL + "data: {\"unread\":" + count + '}' + EOL);
+                        lastWrite = System.currentTimeMillis();
+                    }
+                }
+
+                if (System.currentTimeMillis() - lastWrite >= HEARTBEAT_INTERVAL) {
+                    write(writer, ":" + EOL);
+                    lastWrite = System.currentTimeMillis();
+                }
+
+                // Sleep until the notifications of the user may have changed or a heartbeat has to be sent.
+                long timeout = Math.min(lastWrite + HEARTBEAT_INTERVAL, end) - System.currentTimeMillis();
+                signal.tryAcquire(Math.max(timeout, 0), TimeUnit.MILLISECONDS);
+                signal.drainPermits();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            this.logger.warn("Failed to count the notifications of the stream. Root cause: [{}].",
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+
+    private void write(Writer writer, String message) throws IOException
+    {
+        // An empty line ends the message
+        writer.write(message);
+        writer.write(EOL);
+        writer.flush();
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.rest.internal;
+
+import java.util.Collections;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Response;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.notifications.notifiers.internal.DefaultNotificationCacheManager;
+import org.xwiki.notifications.sources.NotificationParameters;
+import org.xwiki.notifications.sources.internal.DefaultNotificationParametersFactory;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectComponentManager;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.user.api.XWikiAuthService;
+import com.xpn.xwiki.user.api.XWikiUser;
+import com.xpn.xwiki.web.XWikiRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DefaultNotificationsResource}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class DefaultNotificationsResourceTest
+{
+    private static final String CACHE_KEY = "cacheKey";
+
+    @InjectMockComponents
+    private DefaultNotificationsResource resource;
+
+    @InjectComponentManager
+    private MockitoComponentManager componentManager;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    @MockComponent
+    private DefaultNotificationCacheManager cacheManager;
+
+    @MockComponent
+    private NotificationEventExecutor executor;
+
+    @MockComponent
+    private DefaultNotificationParametersFactory notificationParametersFactory;
+
+    @MockComponent
+    @Named("context")
+    private ComponentManager contextComponentManager;
+
+    private XWikiContext xcontext;
+
+    private XWikiRequest request;
+
+    @BeforeComponent
+    void beforeComponent() throws Exception
+    {
+        this.xcontext = mock(XWikiContext.class);
+        ExecutionContext executionContext = new ExecutionContext();
+        executionContext.setProperty("xwikicontext", this.xcontext);
+        Execution execution = mock(Execution.class);
+        when(execution.getContext()).thenReturn(executionContext);
+        when(this.contextComponentManager.getInstance(Execution.class)).thenReturn(execution);
+    }
+
+    @BeforeEach
+    void configure() throws Exception
+    {
+        when(this.xcontextProvider.get()).thenReturn(this.xcontext);
+
+        XWiki xwiki = mock(XWiki.class);
+        when(this.xcontext.getWiki()).thenReturn(xwiki);
+        XWikiAuthService authService = mock(XWikiAuthService.class);
+        when(xwiki.getAuthService()).thenReturn(authService);
+        when(authService.checkAuth(this.xcontext)).thenReturn(mock(XWikiUser.class));
+        when(this.xcontext.getUserReference()).thenReturn(new DocumentReference("xwiki", "XWiki", "UserA"));
+        this.request = mock(XWikiRequest.class);
+        when(this.xcontext.getRequest()).thenReturn(this.request);
+
+        NotificationParameters parameters = new NotificationParameters();
+        when(this.notificationParametersFactory.createNotificationParameters(any())).thenReturn(parameters);
+        when(this.cacheManager.createCacheKey(parameters)).thenReturn(CACHE_KEY);
+        when(this.executor.submit(eq(CACHE_KEY), any(), anyBoolean(), eq(true))).thenReturn(3);
+    }
+
+    private Response getNotificationsCount(String asyncId) throws Exception
+    {
+        return this.resource.getNotificationsCount(null, null, null, null, null, null, null, null, null, null, null,
+            null, null, null, null, asyncId);
+    }
+
+    private String getEntityTag(Response response)
+    {
+        EntityTag entityTag = (EntityTag) response.getMetadata().getFirst("ETag");
+        return entityTag != null ? '"' + entityTag.getValue() + '"' : null;
+    }
+
+    @Test
+    void getNotificationsCountWithEntityTag() throws Exception
+    {
+        Response response = getNotificationsCount(null);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(Collections.singletonMap("unread", 3), response.getEntity());
+        String entityTag = getEntityTag(response);
+        assertNotNull(entityTag);
+
+        // The count is not searched when the client already has it
+        when(this.request.getHeader("If-None-Match")).thenReturn("\"other\", W/" + entityTag);
+        response = getNotificationsCount(null);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(entityTag, getEntityTag(response));
+        verify(this.executor).submit(eq(CACHE_KEY), any(), anyBoolean(), eq(true));
+
+        // Any count matches the wildcard
+        when(this.request.getHeader("If-None-Match")).thenReturn("*");
+
+        assertEquals(304, getNotificationsCount(null).getStatus());
+    }
+
+    @Test
+    void getNotificationsCountWhenModified() throws Exception
+    {
+        String entityTag = getEntityTag(getNotificationsCount(null));
+
+        // The notifications of the user have changed since the client got its count
+        when(this.cacheManager.createCacheKey(any())).thenReturn("otherCacheKey");
+        when(this.executor.submit(eq("otherCacheKey"), any(), anyBoolean(), eq(true))).thenReturn(4);
+        when(this.request.getHeader("If-None-Match")).thenReturn(entityTag);
+        Response response = getNotificationsCount(null);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(Collections.singletonMap("unread", 4), response.getEntity());
+        assertNotNull(getEntityTag(response));
+        assertNotEquals(entityTag, getEntityTag(response));
+    }
+
+    @Test
+    void getNotificationsCountOfAsynchronousExecution() throws Exception
+    {
+        String entityTag = getEntityTag(getNotificationsCount(null));
+        when(this.request.getHeader("If-None-Match")).thenReturn(entityTag);
+        when(this.executor.popAsync("asyncId")).thenReturn(3);
+
+        // The result of an asynchronous execution may have been computed before the notifications changed
+        Response response = getNotificationsCount("asyncId");
+
+        assertEquals(200, response.getStatus());
+        assertEquals(Collections.singletonMap("unread", 3), response.getEntity());
+        assertNull(getEntityTag(response));
+        // Only the first request searched the events
+        verify(this.executor).submit(eq(CACHE_KEY), any(), anyBoolean(), eq(true));
+    }
+}
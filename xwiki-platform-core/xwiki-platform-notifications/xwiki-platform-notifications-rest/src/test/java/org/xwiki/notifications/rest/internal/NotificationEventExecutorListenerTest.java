@@ -0,0 +1,110 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.rest.internal;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.bridge.event.WikiDeletedEvent;
+import org.xwiki.eventstream.EventStatus;
+import org.xwiki.eventstream.events.EventStreamAddedEvent;
+import org.xwiki.eventstream.internal.events.EventStatusAddOrUpdatedEvent;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.notifications.filters.internal.event.NotificationFilterPreferenceAddOrUpdatedEvent;
+import org.xwiki.notifications.notifiers.internal.DefaultNotificationCacheManager;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link NotificationEventExecutorListener}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class NotificationEventExecutorListenerTest
+{
+    @InjectMockComponents
+    private NotificationEventExecutorListener listener;
+
+    @MockComponent
+    private DefaultNotificationCacheManager cache;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    @Test
+    void onEventStatus()
+    {
+        EventStatus status = mock(EventStatus.class);
+        when(status.getEntityId()).thenReturn("xwiki:XWiki.UserA");
+
+        this.listener.onEvent(new EventStatusAddOrUpdatedEvent(), status, null);
+
+        verify(this.cache).flushUserCache("xwiki:XWiki.UserA");
+        verify(this.cache, never()).flushLongCache();
+    }
+
+    @Test
+    void onEventStored()
+    {
+        this.listener.onEvent(new EventStreamAddedEvent(), null, null);
+
+        verify(this.cache).flushEventsCache();
+        verify(this.cache, never()).flushUserCache(any());
+        verify(this.cache, never()).flushLongCache();
+    }
+
+    @Test
+    void onUserFilterPreferencesModified()
+    {
+        DocumentReference user = new DocumentReference("xwiki", "XWiki", "UserA");
+        when(this.serializer.serialize(user)).thenReturn("xwiki:XWiki.UserA");
+
+        this.listener.onEvent(new NotificationFilterPreferenceAddOrUpdatedEvent(), user, null);
+
+        verify(this.cache).flushUserCache("xwiki:XWiki.UserA");
+        verify(this.cache, never()).flushLongCache();
+    }
+
+    @Test
+    void onWikiFilterPreferencesModified()
+    {
+        this.listener.onEvent(new NotificationFilterPreferenceAddOrUpdatedEvent(), new WikiReference("xwiki"), null);
+
+        verify(this.cache).flushLongCache();
+        verify(this.cache, never()).flushUserCache(any());
+    }
+
+    @Test
+    void onWikiDeleted()
+    {
+        this.listener.onEvent(new WikiDeletedEvent("wiki"), "wiki", null);
+
+        verify(this.cache).flushLongCache();
+        verify(this.cache, never()).flushEventsCache();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.rest.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.notifications.CompositeEvent;
+import org.xwiki.notifications.NotificationConfiguration;
+import org.xwiki.notifications.notifiers.internal.DefaultNotificationCacheManager;
+import org.xwiki.notifications.sources.NotificationParameters;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link NotificationStreams}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class NotificationStreamsTest
+{
+    private static final String USER_ID = "xwiki:XWiki.UserA";
+
+    @InjectMockComponents
+    private NotificationStreams streams;
+
+    @MockComponent
+    private NotificationConfiguration configuration;
+
+    @MockComponent
+    private DefaultNotificationCacheManager cacheManager;
+
+    @MockComponent
+    private NotificationEventExecutor executor;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    private Consumer<String> changeListener;
+
+    private DocumentReference user = new DocumentReference("xwiki", "XWiki", "UserA");
+
+    private NotificationParameters parameters = new NotificationParameters();
+
+    private Callable<List<CompositeEvent>> callable = mock(Callable.class);
+
+    @BeforeComponent
+    void configure()
+    {
+        when(this.configuration.getRESTStreamMaxConnections()).thenReturn(1);
+        doAnswer(invocation -> this.changeListener = invocation.getArgument(0)).when(this.cacheManager)
+            .addChangeListener(any());
+    }
+
+    @BeforeEach
+    void before()
+    {
+        this.parameters.user = this.user;
+        when(this.serializer.serialize(this.user)).thenReturn(USER_ID);
+        when(this.executor.isPoolEnabled()).thenReturn(true);
+    }
+
+    private String stream() throws Exception
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        this.streams.stream(output, this.parameters, this.callable, this.user);
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void isEnabled()
+    {
+        assertTrue(this.streams.isEnabled());
+
+        when(this.executor.isPoolEnabled()).thenReturn(false);
+        assertFalse(this.streams.isEnabled());
+
+        when(this.executor.isPoolEnabled()).thenReturn(true);
+        when(this.configuration.getRESTStreamMaxConnections()).thenReturn(0);
+        assertFalse(this.streams.isEnabled());
+    }
+
+    @Test
+    void streamWakesUpWhenTheNotificationsChange() throws Exception
+    {
+        when(this.cacheManager.createCacheKey(this.parameters)).thenReturn("key1", "key2");
+        when(this.executor.submit(eq("key1"), any(), eq(false), eq(true), eq(this.user))).then(invocation -> {
+            // The notifications of the user are modified while the first count is computed.
+            this.changeListener.accept(USER_ID);
+            return 1;
+        });
+        when(this.executor.submit(eq("key2"), any(), eq(false), eq(true), eq(this.user))).then(invocation -> {
+            // Stop the stream after the second count.
+            this.streams.dispose();
+            return 2;
+        });
+
+        assertEquals("retry: 5000\n\nevent: count\ndata: {\"unread\":1}\n\nevent: count\ndata: {\"unread\":2}\n\n",
+            stream());
+
+        // The connection has been released.
+        assertEquals("retry: 5000\n\n", stream());
+    }
+
+    @Test
+    void streamWhenTooManyStreams() throws Exception
+    {
+        when(this.cacheManager.createCacheKey(this.parameters)).thenReturn("key");
+        String[] refused = new String[1];
+        when(this.executor.submit(any(), any(), anyBoolean(), anyBoolean(), any())).then(invocation -> {
+            // Another stream is opened while the only connection is used.
+            refused[0] = stream();
+            this.streams.dispose();
+            return 1;
+        });
+
+        assertEquals("retry: 5000\n\nevent: count\ndata: {\"unread\":1}\n\n", stream());
+        assertEquals("event: close\ndata: {}\n\n", refused[0]);
+    }
+}
@@ -114,6 +114,17 @@ public boolean isEnabled()
         return notificationConfiguration.isEnabled();
     }
 
+    /**
+     * @return true if the clients can listen to the changes of their notifications through a REST stream
+     * @since 13.3RC1
+     */
+    @Unstable
+    public boolean isRESTStreamEnabled()
+    {
+        return notificationConfiguration.getRESTStreamMaxConnections() > 0
+            && notificationConfiguration.getRESTPoolSize() > 0;
+    }
+
     /**
      * Get the status of the module.
      *
@@ -67,6 +67,9 @@ public class DefaultParametrizedNotificationManager implements ParametrizedNotif
     @Inject
     private EventSearcher eventSearcher;
 
+    @Inject
+    private NotificationInbox inbox;
+
     @Inject
     private AuthorizationManager authorizationManager;
 
@@ -119,6 +122,13 @@ private List<CompositeEvent> getEvents(List<CompositeEvent> results, Notificatio
         int batchSize = parameters.expectedCount * 2;
         int offset = 0;
         try {
+            // The unread alerts of the user are directly available when the events are prefiltered
+            List<Event> unreadEvents = this.inbox.getUnreadEvents(parameters);
+            if (unreadEvents != null) {
+                addMatchingEventsToResults(unreadEvents, parameters, results);
+
+                return results;
+            }
 
             boolean done = false;
             while (!done) {
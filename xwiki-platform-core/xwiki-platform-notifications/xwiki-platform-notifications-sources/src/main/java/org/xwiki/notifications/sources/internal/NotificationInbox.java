@@ -0,0 +1,325 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.sources.internal;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.eventstream.Event;
+import org.xwiki.eventstream.EventSearchResult;
+import org.xwiki.eventstream.EventStatus;
+import org.xwiki.eventstream.EventStore;
+import org.xwiki.eventstream.EventStreamException;
+import org.xwiki.eventstream.internal.EventStreamConfiguration;
+import org.xwiki.eventstream.query.SimpleEventQuery;
+import org.xwiki.eventstream.query.SortableEventQuery.SortClause.Order;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.notifications.NotificationConfiguration;
+import org.xwiki.notifications.NotificationFormat;
+import org.xwiki.notifications.filters.internal.status.ForUserEventFilter;
+import org.xwiki.notifications.sources.NotificationParameters;
+import org.xwiki.user.UserPropertiesResolver;
+import org.xwiki.user.UserReferenceResolver;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+
+/**
+ * Materialized view of the unread alerts of each user, so that the notification bell (and the unread count) don't have
+ * to be computed from the user preferences at each request.
+ * <p>
+ * When the event prefiltering is enabled, the notifications of a user are the events having a status for this user.
+ * Those statuses are written by the prefiltering dispatcher when an event is stored, so the inbox of a user is loaded
+ * with a single query on the unread statuses of this user and is then kept up to date by
+ * {@link NotificationInboxListener} each time a status is saved or deleted. The inboxes modified on another member of
+ * the cluster are just forgotten (see {@link NotificationInboxInvalidatedEvent}), and the inboxes expire after a while
+ * in any case.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component(roles = NotificationInbox.class)
+@Singleton
+public class NotificationInbox implements Initializable, Disposable
+{
+    /**
+     * The unread events of a user.
+     *
+     * @version $Id$
+     */
+    private static final class UserInbox
+    {
+        private final Map<String, Event> events = new ConcurrentHashMap<>();
+
+        /**
+         * {@code true} if the user has more unread events than what the inbox can hold.
+         */
+        private final boolean overflow;
+
+        UserInbox(List<Event> events, boolean overflow)
+        {
+            events.forEach(this::add);
+            this.overflow = overflow;
+        }
+
+        void add(Event event)
+        {
+            this.events.put(event.getId(), event);
+        }
+
+        void remove(String eventId)
+        {
+            this.events.remove(eventId);
+        }
+
+        List<Event> getEvents()
+        {
+            List<Event> result = new ArrayList<>(this.events.values());
+            result.sort(Comparator.comparing(Event::getDate, Comparator.nullsLast(Comparator.reverseOrder())));
+            return result;
+        }
+    }
+
+    private static final int DEFAULT_CAPACITY = 1000;
+
+    /**
+     * The number of seconds after which a cached inbox is loaded again.
+     */
+    private static final int LIFESPAN = 3600;
+
+    /**
+     * The maximum number of unread events kept for a user.
+     */
+    private static final int MAX_EVENTS = 500;
+
+    @Inject
+    private CacheManager cacheManager;
+
+    @Inject
+    private EventStore eventStore;
+
+    @Inject
+    private EventStreamConfiguration eventStreamConfiguration;
+
+    @Inject
+    private NotificationConfiguration configuration;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    @Inject
+    private WikiDescriptorManager wikiDescriptorManager;
+
+    @Inject
+    private UserPropertiesResolver userPropertiesResolver;
+
+    @Inject
+    @Named("document")
+    private UserReferenceResolver<DocumentReference> userReferenceResolver;
+
+    private Cache<UserInbox> cache;
+
+    /**
+     * The users whose inbox is being loaded, associated with {@code true} when one of their statuses has been modified
+     * during the loading, in which case the loaded inbox may be outdated and is not cached.
+     */
+    private final Map<String, Boolean> loading = new ConcurrentHashMap<>();
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        LRUCacheConfiguration cacheConfiguration = new LRUCacheConfiguration("notifications.inbox", DEFAULT_CAPACITY);
+        cacheConfiguration.getLRUEvictionConfiguration().setLifespan(LIFESPAN);
+
+        try {
+            this.cache = this.cacheManager.createNewCache(cacheConfiguration);
+        } catch (CacheException e) {
+            throw new InitializationException("Failed to create the notification inbox cache.", e);
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.cache.dispose();
+    }
+
+    /**
+     * @param parameters the parameters of the notifications to search
+     * @return the unread events of the user, sorted by date (most recent first), or {@code null} if the inbox cannot be
+     *         used to answer the specified parameters, in which case the events have to be searched in the store
+     * @throws EventStreamException when failing to load the inbox of the user
+     */
+    public List<Event> getUnreadEvents(NotificationParameters parameters) throws EventStreamException
+    {
+        if (!canServe(parameters)) {
+            return null;
+        }
+
+        UserInbox inbox = getInbox(this.serializer.serialize(parameters.user));
+        if (inbox.overflow) {
+            return null;
+        }
+
+        return filter(inbox.getEvents(), parameters.user);
+    }
+
+    /**
+     * Update the inbox of the user associated with the passed status.
+     *
+     * @param status the status that has been saved
+     */
+    public void onStatusSaved(EventStatus status)
+    {
+        String key = status.getEntityId();
+        this.loading.computeIfPresent(key, (user, modified) -> Boolean.TRUE);
+
+        UserInbox inbox = this.cache.get(key);
+        if (inbox != null) {
+            if (inbox.overflow) {
+                if (status.isRead()) {
+                    // The user may have few enough unread events now.
+                    this.cache.remove(key);
+                }
+            } else if (status.isRead()) {
+                inbox.remove(status.getEvent().getId());
+            } else {
+                inbox.add(status.getEvent());
+            }
+        }
+    }
+
+    /**
+     * Update the inbox of the user associated with the passed status.
+     *
+     * @param status the status that has been deleted
+     */
+    public void onStatusDeleted(EventStatus status)
+    {
+        String key = status.getEntityId();
+        this.loading.computeIfPresent(key, (user, modified) -> Boolean.TRUE);
+
+        UserInbox inbox = this.cache.get(key);
+        if (inbox != null) {
+            if (inbox.overflow) {
+                this.cache.remove(key);
+            } else {
+                inbox.remove(status.getEvent().getId());
+            }
+        }
+    }
+
+    /**
+     * Forget the inbox of the specified user, which will be loaded again the next time it's needed.
+     *
+     * @param userId the serialized reference of the user
+     */
+    public void invalidate(String userId)
+    {
+        this.loading.computeIfPresent(userId, (user, modified) -> Boolean.TRUE);
+
+        this.cache.remove(userId);
+    }
+
+    /**
+     * Empty the inboxes of all users.
+     */
+    public void invalidateAll()
+    {
+        this.loading.replaceAll((user, modified) -> Boolean.TRUE);
+
+        this.cache.removeAll();
+    }
+
+    private boolean canServe(NotificationParameters parameters)
+    {
+        // The inbox only contains the unread alerts of the user, so it can only replace the query generated from the
+        // user preferences when the events are prefiltered and when no other criteria is specified.
+        return parameters.user != null && parameters.format == NotificationFormat.ALERT
+            && Boolean.TRUE.equals(parameters.onlyUnread) && parameters.fromDate == null && parameters.endDate == null
+            && (parameters.blackList == null || parameters.blackList.isEmpty())
+            && parameters.filterPreferences.isEmpty()
+            && parameters.filters.stream().anyMatch(ForUserEventFilter.class::isInstance)
+            && this.eventStreamConfiguration.isEventStoreEnabled() && this.configuration.isEventPrefilteringEnabled();
+    }
+
+    private UserInbox getInbox(String key) throws EventStreamException
+    {
+        UserInbox inbox = this.cache.get(key);
+        if (inbox != null) {
+            return inbox;
+        }
+
+        this.loading.putIfAbsent(key, Boolean.FALSE);
+
+        List<Event> events;
+        SimpleEventQuery query = new SimpleEventQuery(0, MAX_EVENTS + 1L).withStatus(key, false);
+        query.addSort(Event.FIELD_DATE, Order.DESC);
+        try (EventSearchResult result = this.eventStore.search(query)) {
+            events = result.stream().collect(Collectors.toList());
+        } catch (EventStreamException e) {
+            this.loading.remove(key);
+            throw e;
+        } catch (Exception e) {
+            this.loading.remove(key);
+            throw new EventStreamException("Failed to load the unread events of user [" + key + "]", e);
+        }
+
+        boolean overflow = events.size() > MAX_EVENTS;
+        inbox = new UserInbox(overflow ? events.subList(0, MAX_EVENTS) : events, overflow);
+
+        // Don't cache an inbox that may have been loaded before one of the statuses of the user was modified (another
+        // thread loading the same inbox removes the marker too, so that only one of them caches it).
+        if (Boolean.FALSE.equals(this.loading.remove(key))) {
+            this.cache.set(key, inbox);
+        }
+
+        return inbox;
+    }
+
+    private List<Event> filter(List<Event> events, DocumentReference user)
+    {
+        // Apply the criteria that the query generated from the user preferences adds to the prefiltered events (see
+        // QueryExpressionGenerator).
+        boolean displayHiddenDocuments =
+            this.userPropertiesResolver.resolve(this.userReferenceResolver.resolve(user)).displayHiddenDocuments();
+        boolean localUser = !user.getWikiReference().getName().equals(this.wikiDescriptorManager.getMainWikiId());
+
+        return events.stream().filter(event -> displayHiddenDocuments || !event.getHidden())
+            .filter(event -> !localUser || user.getWikiReference().equals(event.getWiki()))
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.sources.internal;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.eventstream.EventStatus;
+import org.xwiki.eventstream.events.EventStreamDeletedEvent;
+import org.xwiki.eventstream.internal.events.EventStatusAddOrUpdatedEvent;
+import org.xwiki.eventstream.internal.events.EventStatusDeletedEvent;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.event.Event;
+import org.xwiki.observation.remote.RemoteObservationManagerContext;
+
+/**
+ * Keeps the {@link NotificationInbox} up to date when the event statuses are modified. The modifications are also
+ * notified with a {@link NotificationInboxInvalidatedEvent} which only carries the user, so that the other members of
+ * the cluster forget their copy of the inbox instead of missing the modification.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component
+@Named(NotificationInboxListener.NAME)
+@Singleton
+public class NotificationInboxListener extends AbstractEventListener
+{
+    /**
+     * The name of the listener.
+     */
+    public static final String NAME = "org.xwiki.notifications.sources.internal.NotificationInboxListener";
+
+    @Inject
+    private NotificationInbox inbox;
+
+    @Inject
+    private RemoteObservationManagerContext remoteState;
+
+    // Lazily loaded to avoid a cycle since the observation manager initializes the listeners.
+    @Inject
+    private Provider<ObservationManager> observationManager;
+
+    /**
+     * Default constructor.
+     */
+    public NotificationInboxListener()
+    {
+        super(NAME, new EventStatusAddOrUpdatedEvent(), new EventStatusDeletedEvent(), new EventStreamDeletedEvent(),
+            new NotificationInboxInvalidatedEvent());
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        if (event instanceof NotificationInboxInvalidatedEvent) {
+            // The local inboxes are already up to date when the event comes from this member of the cluster.
+            if (this.remoteState.isRemoteState()) {
+                if (source instanceof String) {
+                    this.inbox.invalidate((String) source);
+                } else {
+                    this.inbox.invalidateAll();
+                }
+            }
+        } else if (!this.remoteState.isRemoteState()) {
+            String userId = null;
+            if (event instanceof EventStatusAddOrUpdatedEvent) {
+                this.inbox.onStatusSaved((EventStatus) source);
+                userId = ((EventStatus) source).getEntityId();
+            } else if (event instanceof EventStatusDeletedEvent && source instanceof EventStatus) {
+                this.inbox.onStatusDeleted((EventStatus) source);
+                userId = ((EventStatus) source).getEntityId();
+            } else {
+                // Several statuses or an event (and all its statuses) have been deleted.
+                this.inbox.invalidateAll();
+            }
+
+            this.observationManager.get().notify(new NotificationInboxInvalidatedEvent(), userId);
+        }
+    }
+}
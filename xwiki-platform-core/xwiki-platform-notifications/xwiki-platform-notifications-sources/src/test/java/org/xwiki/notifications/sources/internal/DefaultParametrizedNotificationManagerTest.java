@@ -109,6 +109,9 @@
     @MockComponent
     private GroupManager groupManager;
 
+    @MockComponent
+    private NotificationInbox inbox;
+
     private DocumentReference userReference = new DocumentReference("xwiki", "XWiki", "UserA");
 
     private Query query;
@@ -172,6 +175,42 @@ public void getEventsWith2Queries() throws Exception
         assertEquals(event5, results.get(1).getEvents().get(0));
     }
 
+    @Test
+    public void getEventsFromInbox() throws Exception
+    {
+        Event event1 = createMockedEvent();
+        Event event2 = createMockedEvent();
+        Event event3 = createMockedEvent();
+
+        DocumentReference doc1 = new DocumentReference("xwiki", "Main", "WebHome");
+        when(event1.getDocument()).thenReturn(doc1);
+        DocumentReference doc2 = new DocumentReference("xwiki", "PrivateSpace", "WebHome");
+        when(event2.getDocument()).thenReturn(doc2);
+
+        when(authorizationManager.hasAccess(Right.VIEW, userReference, doc1)).thenReturn(true);
+        when(contextualAuthorizationManager.hasAccess(Right.VIEW, doc1)).thenReturn(true);
+        when(authorizationManager.hasAccess(Right.VIEW, userReference, doc2)).thenReturn(false);
+
+        when(event1.getType()).thenReturn("type1");
+        when(event2.getType()).thenReturn("type2");
+        when(event3.getType()).thenReturn("type3");
+
+        NotificationParameters parameters = new NotificationParameters();
+        parameters.user = userReference;
+        parameters.expectedCount = 5;
+        when(this.inbox.getUnreadEvents(parameters)).thenReturn(Arrays.asList(event1, event2, event3));
+
+        List<CompositeEvent> results = this.defaultParametrizedNotificationManager.getEvents(parameters);
+
+        assertEquals(2, results.size());
+        assertEquals(event1, results.get(0).getEvents().get(0));
+        assertEquals(event3, results.get(1).getEvents().get(0));
+
+        // The events are not searched in the store.
+        verifyZeroInteractions(this.eventStream);
+        verifyZeroInteractions(this.eventStore);
+    }
+
     private Event createMockedEvent()
     {
         Event event = mock(Event.class);
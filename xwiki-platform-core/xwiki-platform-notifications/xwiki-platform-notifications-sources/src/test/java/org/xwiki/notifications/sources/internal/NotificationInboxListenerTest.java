@@ -0,0 +1,128 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.sources.internal;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.eventstream.EventStatus;
+import org.xwiki.eventstream.events.EventStreamDeletedEvent;
+import org.xwiki.eventstream.internal.events.EventStatusAddOrUpdatedEvent;
+import org.xwiki.eventstream.internal.events.EventStatusDeletedEvent;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.remote.RemoteObservationManagerContext;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link NotificationInboxListener}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class NotificationInboxListenerTest
+{
+    private static final String USER_ID = "xwiki:XWiki.UserA";
+
+    @InjectMockComponents
+    private NotificationInboxListener listener;
+
+    @MockComponent
+    private NotificationInbox inbox;
+
+    @MockComponent
+    private RemoteObservationManagerContext remoteState;
+
+    @MockComponent
+    private ObservationManager observationManager;
+
+    private EventStatus mockStatus()
+    {
+        EventStatus status = mock(EventStatus.class);
+        when(status.getEntityId()).thenReturn(USER_ID);
+        return status;
+    }
+
+    @Test
+    void onLocalStatusSaved()
+    {
+        EventStatus status = mockStatus();
+
+        this.listener.onEvent(new EventStatusAddOrUpdatedEvent(), status, null);
+
+        verify(this.inbox).onStatusSaved(status);
+        // The other members of the cluster are told to forget the inbox of the user.
+        verify(this.observationManager).notify(any(NotificationInboxInvalidatedEvent.class), eq(USER_ID));
+    }
+
+    @Test
+    void onLocalStatusDeleted()
+    {
+        EventStatus status = mockStatus();
+
+        this.listener.onEvent(new EventStatusDeletedEvent(), status, null);
+
+        verify(this.inbox).onStatusDeleted(status);
+        verify(this.observationManager).notify(any(NotificationInboxInvalidatedEvent.class), eq(USER_ID));
+    }
+
+    @Test
+    void onLocalEventDeleted()
+    {
+        this.listener.onEvent(new EventStreamDeletedEvent(), null, null);
+
+        verify(this.inbox).invalidateAll();
+        verify(this.observationManager).notify(any(NotificationInboxInvalidatedEvent.class), isNull());
+    }
+
+    @Test
+    void onRemoteInboxInvalidated()
+    {
+        when(this.remoteState.isRemoteState()).thenReturn(true);
+
+        this.listener.onEvent(new NotificationInboxInvalidatedEvent(), USER_ID, null);
+
+        verify(this.inbox).invalidate(USER_ID);
+        verify(this.inbox, never()).invalidateAll();
+
+        this.listener.onEvent(new NotificationInboxInvalidatedEvent(), null, null);
+
+        verify(this.inbox).invalidateAll();
+        verify(this.observationManager, never()).notify(any(), any());
+    }
+
+    @Test
+    void onLocalInboxInvalidated()
+    {
+        // The inboxes of the member of the cluster which sent the event are already up to date.
+        this.listener.onEvent(new NotificationInboxInvalidatedEvent(), USER_ID, null);
+
+        verify(this.inbox, never()).invalidate(anyString());
+        verify(this.inbox, never()).invalidateAll();
+    }
+}
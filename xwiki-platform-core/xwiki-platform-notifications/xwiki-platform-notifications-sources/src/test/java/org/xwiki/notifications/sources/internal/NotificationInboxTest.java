@@ -0,0 +1,265 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.sources.internal;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Named;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.eventstream.Event;
+import org.xwiki.eventstream.EventSearchResult;
+import org.xwiki.eventstream.EventStatus;
+import org.xwiki.eventstream.EventStore;
+import org.xwiki.eventstream.internal.EventStreamConfiguration;
+import org.xwiki.eventstream.query.SimpleEventQuery;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.notifications.NotificationConfiguration;
+import org.xwiki.notifications.NotificationFormat;
+import org.xwiki.notifications.filters.internal.status.ForUserEventFilter;
+import org.xwiki.notifications.sources.NotificationParameters;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.user.UserProperties;
+import org.xwiki.user.UserPropertiesResolver;
+import org.xwiki.user.UserReference;
+import org.xwiki.user.UserReferenceResolver;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link NotificationInbox}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class NotificationInboxTest
+{
+    private static final String USER_ID = "xwiki:XWiki.UserA";
+
+    @InjectMockComponents
+    private NotificationInbox inbox;
+
+    @MockComponent
+    private CacheManager cacheManager;
+
+    @MockComponent
+    private EventStore eventStore;
+
+    @MockComponent
+    private EventStreamConfiguration eventStreamConfiguration;
+
+    @MockComponent
+    private NotificationConfiguration configuration;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    @MockComponent
+    private WikiDescriptorManager wikiDescriptorManager;
+
+    @MockComponent
+    private UserPropertiesResolver userPropertiesResolver;
+
+    @MockComponent
+    @Named("document")
+    private UserReferenceResolver<DocumentReference> userReferenceResolver;
+
+    private Map<String, Object> entries = new HashMap<>();
+
+    private DocumentReference user = new DocumentReference("xwiki", "XWiki", "UserA");
+
+    private SimpleEventQuery query;
+
+    @BeforeComponent
+    void configure() throws Exception
+    {
+        Cache<Object> cache = mock(Cache.class);
+        when(cache.get(anyString())).then(invocation -> this.entries.get(invocation.getArgument(0)));
+        doAnswer(invocation -> this.entries.put(invocation.getArgument(0), invocation.getArgument(1))).when(cache)
+            .set(anyString(), any());
+        doAnswer(invocation -> this.entries.remove(invocation.getArgument(0))).when(cache).remove(anyString());
+        doAnswer(invocation -> {
+            this.entries.clear();
+            return null;
+        }).when(cache).removeAll();
+
+        when(this.cacheManager.createNewCache(any())).thenReturn(cache);
+    }
+
+    @BeforeEach
+    void before() throws Exception
+    {
+        when(this.eventStreamConfiguration.isEventStoreEnabled()).thenReturn(true);
+        when(this.configuration.isEventPrefilteringEnabled()).thenReturn(true);
+        when(this.serializer.serialize(this.user)).thenReturn(USER_ID);
+        when(this.wikiDescriptorManager.getMainWikiId()).thenReturn("xwiki");
+
+        UserReference userReference = mock(UserReference.class);
+        when(this.userReferenceResolver.resolve(this.user)).thenReturn(userReference);
+        when(this.userPropertiesResolver.resolve(userReference)).thenReturn(mock(UserProperties.class));
+
+        this.query = new SimpleEventQuery(0, 501).withStatus(USER_ID, false);
+        this.query.addSort(Event.FIELD_DATE, SimpleEventQuery.SortClause.Order.DESC);
+    }
+
+    private NotificationParameters getParameters()
+    {
+        NotificationParameters parameters = new NotificationParameters();
+        parameters.user = this.user;
+        parameters.format = NotificationFormat.ALERT;
+        parameters.onlyUnread = true;
+        parameters.filters.add(new ForUserEventFilter(NotificationFormat.ALERT, null));
+        return parameters;
+    }
+
+    private Event mockEvent(String id, long date)
+    {
+        Event event = mock(Event.class);
+        when(event.getId()).thenReturn(id);
+        when(event.getDate()).thenReturn(new Date(date));
+        when(event.getWiki()).thenReturn(new WikiReference("xwiki"));
+        return event;
+    }
+
+    private EventStatus mockStatus(Event event, boolean read)
+    {
+        EventStatus status = mock(EventStatus.class);
+        when(status.getEntityId()).thenReturn(USER_ID);
+        when(status.getEvent()).thenReturn(event);
+        when(status.isRead()).thenReturn(read);
+        return status;
+    }
+
+    private void mockSearch(Event... events) throws Exception
+    {
+        EventSearchResult result = mock(EventSearchResult.class);
+        when(result.stream()).then(invocation -> Arrays.stream(events));
+        when(this.eventStore.search(this.query)).thenReturn(result);
+    }
+
+    @Test
+    void getUnreadEvents() throws Exception
+    {
+        Event event1 = mockEvent("event1", 1);
+        Event event2 = mockEvent("event2", 2);
+        Event hiddenEvent = mockEvent("hidden", 3);
+        when(hiddenEvent.getHidden()).thenReturn(true);
+        mockSearch(event2, event1, hiddenEvent);
+
+        assertEquals(Arrays.asList(event2, event1), this.inbox.getUnreadEvents(getParameters()));
+
+        // The inbox is kept up to date when the statuses of the user are saved.
+        Event event3 = mockEvent("event3", 3);
+        this.inbox.onStatusSaved(mockStatus(event3, false));
+        this.inbox.onStatusSaved(mockStatus(event2, true));
+        this.inbox.onStatusDeleted(mockStatus(event1, false));
+
+        assertEquals(Arrays.asList(event3), this.inbox.getUnreadEvents(getParameters()));
+
+        verify(this.eventStore, times(1)).search(any());
+    }
+
+    @Test
+    void getUnreadEventsWithOtherParameters() throws Exception
+    {
+        NotificationParameters parameters = getParameters();
+        parameters.onlyUnread = false;
+        assertNull(this.inbox.getUnreadEvents(parameters));
+
+        parameters = getParameters();
+        parameters.filters.clear();
+        assertNull(this.inbox.getUnreadEvents(parameters));
+
+        parameters = getParameters();
+        parameters.endDate = new Date();
+        assertNull(this.inbox.getUnreadEvents(parameters));
+
+        when(this.configuration.isEventPrefilteringEnabled()).thenReturn(false);
+        assertNull(this.inbox.getUnreadEvents(getParameters()));
+    }
+
+    @Test
+    void getUnreadEventsWhenStatusModifiedWhileLoading() throws Exception
+    {
+        Event event1 = mockEvent("event1", 1);
+        EventSearchResult result = mock(EventSearchResult.class);
+        when(result.stream()).then(invocation -> {
+            this.inbox.onStatusSaved(mockStatus(mockEvent("event2", 2), false));
+            return Arrays.stream(new Event[] {event1});
+        });
+        when(this.eventStore.search(this.query)).thenReturn(result);
+
+        // The loaded inbox may be outdated so it's not cached.
+        assertEquals(Arrays.asList(event1), this.inbox.getUnreadEvents(getParameters()));
+        this.inbox.getUnreadEvents(getParameters());
+
+        verify(this.eventStore, times(2)).search(any());
+    }
+
+    @Test
+    void invalidateAll() throws Exception
+    {
+        mockSearch(mockEvent("event1", 1));
+
+        this.inbox.getUnreadEvents(getParameters());
+        this.inbox.invalidateAll();
+        this.inbox.getUnreadEvents(getParameters());
+
+        verify(this.eventStore, times(2)).search(any());
+    }
+
+    @Test
+    void invalidate() throws Exception
+    {
+        mockSearch(mockEvent("event1", 1));
+
+        this.inbox.getUnreadEvents(getParameters());
+        this.inbox.invalidate("xwiki:XWiki.UserB");
+        this.inbox.getUnreadEvents(getParameters());
+
+        verify(this.eventStore, times(1)).search(any());
+
+        this.inbox.invalidate(USER_ID);
+        this.inbox.getUnreadEvents(getParameters());
+
+        verify(this.eventStore, times(2)).search(any());
+    }
+}
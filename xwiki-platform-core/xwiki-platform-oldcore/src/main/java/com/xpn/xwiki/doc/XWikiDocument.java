@@ -133,7 +133,6 @@
 import org.xwiki.rendering.block.match.MacroBlockMatcher;
 import org.xwiki.rendering.listener.reference.ResourceReference;
 import org.xwiki.rendering.listener.reference.ResourceType;
-import org.xwiki.rendering.parser.ContentParser;
 import org.xwiki.rendering.parser.MissingParserException;
 import org.xwiki.rendering.parser.ParseException;
 import org.xwiki.rendering.parser.Parser;
@@ -170,6 +169,7 @@
 import com.xpn.xwiki.doc.merge.MergeConfiguration;
 import com.xpn.xwiki.doc.merge.MergeResult;
 import com.xpn.xwiki.doc.rcs.XWikiRCSNodeInfo;
+import com.xpn.xwiki.internal.cache.XDOMCache;
 import com.xpn.xwiki.internal.cache.rendering.RenderingCache;
 import com.xpn.xwiki.internal.doc.XWikiAttachmentList;
 import com.xpn.xwiki.internal.filter.XWikiDocumentFilterUtils;
@@ -1206,32 +1206,26 @@ private String display(Syntax targetSyntax, boolean executionContextIsolated, bo
             getProgress().startStep(getDocumentReference(), "document.progress.render.cache",
                 "Try to get content from the cache");
 
-            String renderedContent = getRenderingCache().getRenderedContent(tdoc.getDocumentReferenceWithLocale(),
-                translatedContent, xcontext);
-
-            if (renderedContent == null) {
-                getProgress().startStep(getDocumentReference(), "document.progress.render.execute", "Execute content");
-
-                // Configure display
-                DocumentDisplayerParameters parameters = new DocumentDisplayerParameters();
-                parameters.setExecutionContextIsolated(executionContextIsolated);
-                parameters.setTransformationContextIsolated(transformationContextIsolated);
-                parameters.setTransformationContextRestricted(transformationContextRestricted);
-                // Render the translated content (matching the current language) using this document's syntax.
-                parameters.setContentTranslated(tdoc != this);
-                parameters.setTargetSyntax(targetSyntax);
-
-                // Execute display
-                XDOM contentXDOM = getDocumentDisplayer().display(this, parameters);
-
-                // Render the result
-                renderedContent = renderXDOM(contentXDOM, targetSyntax);
-
-                getRenderingCache().setRenderedContent(getDocumentReference(), translatedContent, renderedContent,
-                    xcontext);
-            }
-
-            return renderedContent;
+            return getRenderingCache().getRenderedContent(tdoc.getDocumentReferenceWithLocale(), translatedContent,
+                () -> {
+                    getProgress().startStep(getDocumentReference(), "document.progress.render.execute",
+                        "Execute content");
+
+                    // Configure display
+                    DocumentDisplayerParameters parameters = new DocumentDisplayerParameters();
+                    parameters.setExecutionContextIsolated(executionContextIsolated);
+                    parameters.setTransformationContextIsolated(transformationContextIsolated);
+                    parameters.setTransformationContextRestricted(transformationContextRestricted);
+                    // Render the translated content (matching the current language) using this document's syntax.
+                    parameters.setContentTranslated(tdoc != this);
+                    parameters.setTargetSyntax(targetSyntax);
+
+                    // Execute display
+                    XDOM contentXDOM = getDocumentDisplayer().display(this, parameters);
+
+                    // Render the result
+                    return renderXDOM(contentXDOM, targetSyntax);
+                }, xcontext);
         } finally {
             getProgress().popLevelProgress(getDocumentReference());
             getProgress().endStep(this);
@@ -8843,7 +8837,8 @@ private XDOM parseContent(String content) throws XWikiException
      */
     private static XDOM parseContent(Syntax syntax, String content, DocumentReference source) throws XWikiException
     {
-        ContentParser parser = Utils.getComponent(ContentParser.class);
+        // Identical content (in another document, a clone or a TextArea property) is only parsed once
+        XDOMCache parser = Utils.getComponent(XDOMCache.class);
 
         try {
             return parser.parse(content, syntax, source);
@@ -21,8 +21,8 @@
 
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.inject.Inject;
 
@@ -33,6 +33,7 @@
 import org.xwiki.cache.CacheException;
 import org.xwiki.cache.CacheManager;
 import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.cache.event.CacheEntryListener;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.annotation.InstantiationStrategy;
 import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
@@ -45,9 +46,8 @@
 import com.xpn.xwiki.doc.XWikiDocument;
 
 /**
- * Specialized cache component related to documents. It automatically clean the cache when the document is related.
- * <p>
- * TODO: add support for dependencies
+ * Specialized cache component related to documents. It automatically clean the cache when the document is related, or
+ * when one of the documents the cached data depends on is modified.
  *
  * @param <C> the type of the data stored in the cache
  * @version $Id$
@@ -157,13 +157,43 @@ public void set(C data, DocumentReference documentReference, Object... extension
         String key = getKey(documentReference, extensions);
         this.cache.set(key, data);
 
+        addMapping(documentReference, key);
+    }
+
+    @Override
+    public void set(C data, Collection<DocumentReference> dependencies, DocumentReference documentReference,
+        Object... extensions)
+    {
+        String key = getKey(documentReference, extensions);
+        this.cache.set(key, data);
+
+        addMapping(documentReference, key);
+        for (DocumentReference dependency : dependencies) {
+            addMapping(dependency, key);
+        }
+    }
+
+    /**
+     * Remember that the provided entry has to be removed when the provided document is modified.
+     *
+     * @param documentReference the reference of the document
+     * @param key the key of the cache entry
+     */
+    private void addMapping(DocumentReference documentReference, String key)
+    {
         String documentReferenceString = this.serializer.serialize(documentReference);
 
         Collection<String> keys = this.mappingCache.get(documentReferenceString);
 
         if (keys == null) {
-            keys = new HashSet<String>();
-            this.mappingCache.set(documentReferenceString, keys);
+            // The mapping is shared by the threads caching values for the same document.
+            synchronized (this.mappingCache) {
+                keys = this.mappingCache.get(documentReferenceString);
+                if (keys == null) {
+                    keys = ConcurrentHashMap.newKeySet();
+                    this.mappingCache.set(documentReferenceString, keys);
+                }
+            }
         }
 
         keys.add(key);
@@ -219,6 +249,18 @@ public void remove(C data, DocumentReference documentReference, Object... extens
         }
     }
 
+    @Override
+    public void remove(String key)
+    {
+        this.cache.remove(key);
+    }
+
+    @Override
+    public void addCacheEntryListener(CacheEntryListener<C> cacheEntryListener)
+    {
+        this.cache.addCacheEntryListener(cacheEntryListener);
+    }
+
     @Override
     public void removeAll()
     {
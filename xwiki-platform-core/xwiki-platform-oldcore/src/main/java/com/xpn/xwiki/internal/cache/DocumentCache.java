@@ -19,8 +19,11 @@
  */
 package com.xpn.xwiki.internal.cache;
 
+import java.util.Collection;
+
 import org.xwiki.cache.CacheException;
 import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.cache.event.CacheEntryListener;
 import org.xwiki.component.annotation.ComponentRole;
 import org.xwiki.model.reference.DocumentReference;
 
@@ -64,6 +67,19 @@
      */
     void set(C data, DocumentReference documentReference, Object... extensions);
 
+    /**
+     * Add a new value or overwrite the existing one associated with the provided key. The value is removed from the
+     * cache when the document it's associated with or any of the provided documents is modified.
+     *
+     * @param data the data to store
+     * @param dependencies the documents used to produce the data
+     * @param documentReference the reference of the document
+     * @param extensions the extensions to the document reference
+     * @since 13.3RC1
+     */
+    void set(C data, Collection<DocumentReference> dependencies, DocumentReference documentReference,
+        Object... extensions);
+
     /**
      * Remove from the cache the value associated to the provided key elements.
      *
@@ -73,6 +89,24 @@
      */
     void remove(C data, DocumentReference documentReference, Object... extensions);
 
+    /**
+     * Remove from the cache the value associated to the provided key, as found in the {@link CacheEntryListener}
+     * events.
+     *
+     * @param key the key of the cache entry
+     * @since 13.3RC1
+     */
+    void remove(String key);
+
+    /**
+     * Register a listener notified when values are added to or removed from the cache (e.g. when they are evicted).
+     * The keys of the cache entries are the ones expected by {@link #remove(String)}.
+     *
+     * @param listener the listener to register
+     * @since 13.3RC1
+     */
+    void addCacheEntryListener(CacheEntryListener<C> listener);
+
     /**
      * Remove all the entries the cache contains.
      */
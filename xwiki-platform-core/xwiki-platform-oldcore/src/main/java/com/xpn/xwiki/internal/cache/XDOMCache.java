@@ -0,0 +1,167 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.cache;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.descriptor.ComponentDescriptor;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.listener.MetaData;
+import org.xwiki.rendering.parser.ContentParser;
+import org.xwiki.rendering.parser.MissingParserException;
+import org.xwiki.rendering.parser.ParseException;
+import org.xwiki.rendering.parser.Parser;
+import org.xwiki.rendering.syntax.Syntax;
+
+/**
+ * Keep the result of the parsing of wiki content so that identical content (whatever the document or document
+ * instance it comes from) is parsed only once.
+ * <p>
+ * The cached {@link XDOM}s are never exposed: each call returns a new copy which can be safely modified.
+ * <p>
+ * Only the content whose syntax parser is registered in the root component manager is cached since the parser of the
+ * same syntax might differ from one wiki (or user) to another.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component(roles = XDOMCache.class)
+@Singleton
+public class XDOMCache implements Initializable
+{
+    private static final String PROPNAME_SIZE = "core.xdomcache.size";
+
+    private static final int PROPVALUE_SIZE = 500;
+
+    @Inject
+    private CacheManager cacheManager;
+
+    @Inject
+    private ContentParser parser;
+
+    @Inject
+    private ComponentManager rootComponentManager;
+
+    @Inject
+    @Named("context")
+    private Provider<ComponentManager> contextComponentManagerProvider;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    @Inject
+    @Named("xwikiproperties")
+    private ConfigurationSource configuration;
+
+    private Cache<XDOM> cache;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            this.cache = this.cacheManager.createNewCache(
+                new LRUCacheConfiguration("xwiki.xdom", this.configuration.getProperty(PROPNAME_SIZE, PROPVALUE_SIZE)));
+        } catch (CacheException e) {
+            throw new InitializationException("Failed to create the XDOM cache", e);
+        }
+    }
+
+    /**
+     * Parse the passed content, or reuse the result of a previous parsing of the same content.
+     *
+     * @param content the content to parse
+     * @param syntax the syntax of the content
+     * @param source the reference to where the content comes from (eg document reference)
+     * @return the result of the parsing
+     * @throws MissingParserException when no parser where found for the given syntax
+     * @throws ParseException when failing to parse the content
+     */
+    public XDOM parse(String content, Syntax syntax, EntityReference source)
+        throws MissingParserException, ParseException
+    {
+        if (!isCacheable(syntax)) {
+            return this.parser.parse(content, syntax, source);
+        }
+
+        String key = getKey(content, syntax);
+
+        XDOM xdom = this.cache.get(key);
+
+        if (xdom == null) {
+            // The cached XDOM does not depend on where the content comes from
+            xdom = this.parser.parse(content, syntax);
+
+            this.cache.set(key, xdom);
+        }
+
+        return copy(xdom, source);
+    }
+
+    /**
+     * Remove all the entries the cache contains.
+     */
+    public void removeAll()
+    {
+        this.cache.removeAll();
+    }
+
+    private boolean isCacheable(Syntax syntax)
+    {
+        String hint = syntax.toIdString();
+        ComponentDescriptor<Parser> descriptor = this.rootComponentManager.getComponentDescriptor(Parser.class, hint);
+
+        // Make sure the parser is not overwritten in the current namespace
+        return descriptor != null
+            && descriptor == this.contextComponentManagerProvider.get().getComponentDescriptor(Parser.class, hint);
+    }
+
+    private String getKey(String content, Syntax syntax)
+    {
+        return syntax.toIdString() + ':' + DigestUtils.sha256Hex(content != null ? content : "");
+    }
+
+    private XDOM copy(XDOM cachedXDOM, EntityReference source)
+    {
+        XDOM clone = cachedXDOM.clone();
+
+        // Make sure the metadata of the cached XDOM are not shared
+        MetaData metaData = new MetaData(cachedXDOM.getMetaData().getMetaData());
+        if (source != null) {
+            metaData.addMetaData(MetaData.SOURCE, this.serializer.serialize(source));
+        }
+
+        return new XDOM(clone.getChildren(), clone.getIdGenerator(), metaData);
+    }
+}
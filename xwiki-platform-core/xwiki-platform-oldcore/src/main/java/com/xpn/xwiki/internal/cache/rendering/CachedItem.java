@@ -23,6 +23,8 @@
 import java.util.Map;
 import java.util.Set;
 
+import org.xwiki.rendering.async.internal.DefaultAsyncContext.ContextUse;
+
 /**
  * Cached item including any extensions.
  *
@@ -42,6 +44,13 @@
     public Map<RenderingCacheAware, UsedExtension> extensions = new HashMap<RenderingCacheAware,
         CachedItem.UsedExtension>();
 
+    /**
+     * The entities, components and rights used to produce the rendered content, {@code null} if unknown.
+     *
+     * @since 13.3RC1
+     */
+    public ContextUse contextUse;
+
     /**
      * Extension used in cached item.
      *
@@ -20,28 +20,57 @@
 package com.xpn.xwiki.internal.cache.rendering;
 
 import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Type;
 import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import org.xwiki.cache.CacheEntry;
 import org.xwiki.cache.CacheException;
 import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.cache.event.CacheEntryEvent;
+import org.xwiki.cache.event.CacheEntryListener;
 import org.xwiki.cache.eviction.LRUEvictionConfiguration;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.component.descriptor.ComponentRole;
+import org.xwiki.component.descriptor.DefaultComponentRole;
+import org.xwiki.component.event.ComponentDescriptorAddedEvent;
+import org.xwiki.component.event.ComponentDescriptorEvent;
+import org.xwiki.component.event.ComponentDescriptorRemovedEvent;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
+import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.DocumentReference;
-
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.event.Event;
+import org.xwiki.rendering.async.AsyncContext;
+import org.xwiki.rendering.async.internal.DefaultAsyncContext;
+import org.xwiki.rendering.async.internal.DefaultAsyncContext.ContextUse;
+import org.xwiki.rendering.async.internal.DefaultAsyncContext.RightEntry;
+import org.xwiki.security.authorization.event.RightUpdatedEvent;
+
+import com.xpn.xwiki.XWiki;
 import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.internal.cache.DocumentCache;
 import com.xpn.xwiki.internal.cache.rendering.CachedItem.UsedExtension;
+import com.xpn.xwiki.internal.mandatory.XWikiGlobalRightsDocumentInitializer;
 import com.xpn.xwiki.plugin.XWikiPluginInterface;
 import com.xpn.xwiki.plugin.XWikiPluginManager;
 
@@ -53,7 +82,7 @@
  */
 @Component
 @Singleton
-public class DefaultRenderingCache implements RenderingCache, Initializable
+public class DefaultRenderingCache implements RenderingCache, Initializable, CacheEntryListener<CachedItem>
 {
     /**
      * UTF-8 encoding key.
@@ -70,6 +99,23 @@ public class DefaultRenderingCache implements RenderingCache, Initializable
      */
     private static final String PARAMETER_REFRESH = "refresh";
 
+    /**
+     * The name of the documents holding the rights of a space.
+     */
+    private static final String SPACE_PREFERENCES = "WebPreferences";
+
+    /**
+     * The class of the objects defining the members of a group.
+     */
+    private static final LocalDocumentReference GROUP_CLASS =
+        new LocalDocumentReference(XWiki.SYSTEM_SPACE, "XWikiGroups");
+
+    /**
+     * The class of the objects defining a wiki (and its owner).
+     */
+    private static final LocalDocumentReference WIKI_DESCRIPTOR_CLASS =
+        new LocalDocumentReference(XWiki.SYSTEM_SPACE, "XWikiServerClass");
+
     /**
      * Configuration of the rendering cache.
      */
@@ -93,6 +139,60 @@ public class DefaultRenderingCache implements RenderingCache, Initializable
     @Inject
     private DocumentCache<CachedItem> cache;
 
+    /**
+     * Used to record what is used during the rendering.
+     */
+    @Inject
+    private AsyncContext asyncContext;
+
+    /**
+     * Used to register the listener removing the cached items when the components or rights they use are modified.
+     */
+    @Inject
+    private ObservationManager observationManager;
+
+    /**
+     * Used to know if a wiki is the main wiki.
+     */
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    /**
+     * The keys of the cached items using a given component role type.
+     */
+    private final Map<Type, Set<String>> roleTypeMapping = new ConcurrentHashMap<>();
+
+    /**
+     * The keys of the cached items using a given component.
+     */
+    private final Map<ComponentRole<?>, Set<String>> roleMapping = new ConcurrentHashMap<>();
+
+    /**
+     * The keys of the cached items which checked a given right.
+     */
+    private final Map<RightEntry, Set<String>> rightMapping = new ConcurrentHashMap<>();
+
+    /**
+     * Remove the cached items when the components or rights they use are modified (the cached items are removed by
+     * {@link DocumentCache} when the documents they use are modified).
+     */
+    private final EventListener listener = new AbstractEventListener(NAME + ".dependencies",
+        new ComponentDescriptorAddedEvent(), new ComponentDescriptorRemovedEvent(), new RightUpdatedEvent())
+    {
+        @Override
+        public void onEvent(Event event, Object source, Object data)
+        {
+            if (event instanceof RightUpdatedEvent) {
+                cleanRights(getModifiedRightsScope(source));
+            } else {
+                ComponentDescriptorEvent componentEvent = (ComponentDescriptorEvent) event;
+                clean(roleTypeMapping.remove(componentEvent.getRoleType()));
+                clean(roleMapping
+                    .remove(new DefaultComponentRole<>(componentEvent.getRoleType(), componentEvent.getRoleHint())));
+            }
+        }
+    };
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -109,6 +209,11 @@ public void initialize() throws InitializationException
             } catch (CacheException e) {
                 throw new InitializationException("Failed to initialize core rendering cache", e);
             }
+
+            // Keep track of the components and rights used by the cached items.
+            this.cache.addCacheEntryListener(this);
+
+            this.observationManager.addListener(this.listener);
         }
     }
 
@@ -145,6 +250,228 @@ public void setRenderedContent(DocumentReference documentReference, String sourc
         }
     }
 
+    @Override
+    public String getRenderedContent(DocumentReference documentReference, String source, Renderer renderer,
+        XWikiContext context) throws XWikiException
+    {
+        if (!this.configuration.isCached(documentReference)) {
+            return renderer.render();
+        }
+
+        String renderedContent = getRenderedContent(documentReference, source, context);
+
+        if (renderedContent == null) {
+            ContextUse contextUse = null;
+
+            // Record the entities, components and rights used during the rendering.
+            if (this.asyncContext instanceof DefaultAsyncContext) {
+                ((DefaultAsyncContext) this.asyncContext).pushContextUse();
+            }
+            try {
+                renderedContent = renderer.render();
+            } finally {
+                if (this.asyncContext instanceof DefaultAsyncContext) {
+                    contextUse = ((DefaultAsyncContext) this.asyncContext).popContextUse();
+
+                    // What includes this rendering also depends on what this rendering used.
+                    restoreContextUse(contextUse);
+                }
+            }
+
+            if (renderedContent != null) {
+                setRenderedContent(documentReference, source, renderedContent, contextUse, context);
+            }
+        }
+
+        return renderedContent;
+    }
+
+    private void setRenderedContent(DocumentReference documentReference, String source, String renderedContent,
+        ContextUse contextUse, XWikiContext context)
+    {
+        CachedItem cachedItem = buildCachedItem(context, renderedContent);
+        Object[] extensions =
+            new Object[] {source, getAction(context), context.getLanguage(), getRequestParameters(context)};
+
+        if (contextUse != null) {
+            // The components and rights used are indexed when the cache entry is added.
+            cachedItem.contextUse = contextUse;
+
+            this.cache.set(cachedItem, getDocumentReferences(contextUse), documentReference, extensions);
+        } else {
+            this.cache.set(cachedItem, documentReference, extensions);
+        }
+    }
+
+    /**
+     * @param contextUse the entities used during a rendering
+     * @return the documents used during the rendering
+     */
+    private Collection<DocumentReference> getDocumentReferences(ContextUse contextUse)
+    {
+        List<DocumentReference> documentReferences = new ArrayList<>(contextUse.getReferences().size());
+
+        for (EntityReference reference : contextUse.getReferences()) {
+            EntityReference documentReference = reference.extractReference(EntityType.DOCUMENT);
+            if (documentReference instanceof DocumentReference) {
+                documentReferences.add((DocumentReference) documentReference);
+            } else if (documentReference != null) {
+                documentReferences.add(new DocumentReference(documentReference));
+            }
+        }
+
+        return documentReferences;
+    }
+
+    /**
+     * Indicate to the current recording, if any, that the provided entities, components and rights are used.
+     *
+     * @param contextUse the entities, components and rights used
+     */
+    private void restoreContextUse(ContextUse contextUse)
+    {
+        if (contextUse != null) {
+            contextUse.getReferences().forEach(this.asyncContext::useEntity);
+            contextUse.getRoleTypes().forEach(this.asyncContext::useComponent);
+            for (ComponentRole<?> role : contextUse.getRoles()) {
+                this.asyncContext.useComponent(role.getRoleType(), role.getRoleHint());
+            }
+            for (RightEntry right : contextUse.getRights()) {
+                this.asyncContext.useRight(right.getRight(), right.getUserReference(), right.getEntityReference(),
+                    right.isAllowed());
+            }
+            for (Map.Entry<String, Collection<Object>> entry : contextUse.getUses().entrySet()) {
+                for (Object value : entry.getValue()) {
+                    this.asyncContext.use(entry.getKey(), value);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void cacheEntryAdded(CacheEntryEvent<CachedItem> event)
+    {
+        CacheEntry<CachedItem> entry = event.getEntry();
+        ContextUse contextUse = entry.getValue() != null ? entry.getValue().contextUse : null;
+        if (contextUse != null) {
+            String key = entry.getKey();
+
+            for (Type roleType : contextUse.getRoleTypes()) {
+                this.roleTypeMapping.computeIfAbsent(roleType, k -> ConcurrentHashMap.newKeySet()).add(key);
+            }
+            for (ComponentRole<?> role : contextUse.getRoles()) {
+                this.roleMapping.computeIfAbsent(role, k -> ConcurrentHashMap.newKeySet()).add(key);
+            }
+            for (RightEntry right : contextUse.getRights()) {
+                this.rightMapping.computeIfAbsent(right, k -> ConcurrentHashMap.newKeySet()).add(key);
+            }
+        }
+    }
+
+    @Override
+    public void cacheEntryRemoved(CacheEntryEvent<CachedItem> event)
+    {
+        CacheEntry<CachedItem> entry = event.getEntry();
+        ContextUse contextUse = entry.getValue() != null ? entry.getValue().contextUse : null;
+        if (contextUse != null) {
+            String key = entry.getKey();
+
+            remove(key, contextUse.getRoleTypes(), this.roleTypeMapping);
+            remove(key, contextUse.getRoles(), this.roleMapping);
+            remove(key, contextUse.getRights(), this.rightMapping);
+        }
+    }
+
+    @Override
+    public void cacheEntryModified(CacheEntryEvent<CachedItem> event)
+    {
+        cacheEntryAdded(event);
+    }
+
+    private <T> void remove(String key, Set<T> values, Map<T, Set<String>> mapping)
+    {
+        for (T value : values) {
+            Set<String> keys = mapping.get(value);
+
+            if (keys != null) {
+                keys.remove(key);
+
+                if (keys.isEmpty()) {
+                    mapping.remove(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param keys the keys of the cached items to remove
+     */
+    private void clean(Set<String> keys)
+    {
+        if (keys != null) {
+            for (String key : keys) {
+                this.cache.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Remove the cached items which checked a right on the given entity or on one of its children.
+     *
+     * @param scope the entity whose rights have been modified, {@code null} if any right may have been modified
+     */
+    private void cleanRights(EntityReference scope)
+    {
+        for (RightEntry right : this.rightMapping.keySet()) {
+            EntityReference entityReference = right.getEntityReference();
+            if (scope == null || entityReference == null || entityReference.equals(scope)
+                || entityReference.hasParent(scope)) {
+                clean(this.rightMapping.remove(right));
+            }
+        }
+    }
+
+    /**
+     * @param source the source of the {@link RightUpdatedEvent}, i.e. the modified document
+     * @return the entity whose rights may have been modified by the given document, {@code null} if any right may have
+     *         been modified
+     */
+    private EntityReference getModifiedRightsScope(Object source)
+    {
+        if (!(source instanceof XWikiDocument)) {
+            return null;
+        }
+
+        XWikiDocument document = (XWikiDocument) source;
+        XWikiDocument originalDocument = document.getOriginalDocument();
+        if (hasXObjects(document, originalDocument, GROUP_CLASS)
+            || hasXObjects(document, originalDocument, WIKI_DESCRIPTOR_CLASS)) {
+            // The group members and the wiki owner can have rights anywhere.
+            return null;
+        }
+
+        DocumentReference documentReference = document.getDocumentReference();
+        if (hasXObjects(document, originalDocument, XWikiGlobalRightsDocumentInitializer.CLASS_REFERENCE)) {
+            if (SPACE_PREFERENCES.equals(documentReference.getName())) {
+                return documentReference.getParent();
+            }
+
+            // The rights of the main wiki also apply to the other wikis.
+            return this.xcontextProvider.get().isMainWiki(documentReference.getWikiReference().getName()) ? null
+                : documentReference.getWikiReference();
+        }
+
+        // Only the rights of the document itself have been modified.
+        return documentReference;
+    }
+
+    private boolean hasXObjects(XWikiDocument document, XWikiDocument originalDocument,
+        LocalDocumentReference classReference)
+    {
+        return !document.getXObjects(classReference).isEmpty()
+            || (originalDocument != null && !originalDocument.getXObjects(classReference).isEmpty());
+    }
+
     /**
      * Create cached item with all dependencies.
      *
@@ -194,6 +521,9 @@ private String restoreCachedItem(XWikiContext context, CachedItem cachedItem)
             item.getKey().restoreCacheResources(context, item.getValue());
         }
 
+        // The rendering including the cached content also depends on what was used to produce it.
+        restoreContextUse(cachedItem.contextUse);
+
         return cachedItem.rendered;
     }
 
@@ -272,6 +602,11 @@ public void flushCache(DocumentReference documentReference)
     @Override
     public void flushWholeCache()
     {
+        // Also clears the mapping between the documents and the cached items
         this.cache.removeAll();
+
+        this.roleTypeMapping.clear();
+        this.roleMapping.clear();
+        this.rightMapping.clear();
     }
 }
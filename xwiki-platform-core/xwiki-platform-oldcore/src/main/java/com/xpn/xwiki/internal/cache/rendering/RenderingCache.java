@@ -23,6 +23,7 @@
 import org.xwiki.model.reference.DocumentReference;
 
 import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
 
 /**
  * Cache rendering result.
@@ -33,6 +34,22 @@
 @Role
 public interface RenderingCache
 {
+    /**
+     * Renders the source of a document.
+     *
+     * @version $Id$
+     * @since 13.3RC1
+     */
+    @FunctionalInterface
+    interface Renderer
+    {
+        /**
+         * @return the rendering result
+         * @throws XWikiException when failing to render the source
+         */
+        String render() throws XWikiException;
+    }
+
     /**
      * The stored result of the rendering of the provided source.
      *
@@ -54,6 +71,22 @@
     void setRenderedContent(DocumentReference documentReference, String source, String renderedContent,
         XWikiContext context);
 
+    /**
+     * Return the stored result of the rendering of the provided source, or render it and store the result if the cache
+     * is enabled for the provided document. The stored result is removed from the cache when any of the documents,
+     * components or rights used during the rendering is modified.
+     *
+     * @param documentReference the reference of the document being rendered
+     * @param source the source to render
+     * @param renderer used to render the source when the result is not cached
+     * @param context the XWiki context
+     * @return the rendering result
+     * @throws XWikiException when failing to render the source
+     * @since 13.3RC1
+     */
+    String getRenderedContent(DocumentReference documentReference, String source, Renderer renderer,
+        XWikiContext context) throws XWikiException;
+
     /**
      * Flushes rendering cache (all cached variants) for specified document.
      *
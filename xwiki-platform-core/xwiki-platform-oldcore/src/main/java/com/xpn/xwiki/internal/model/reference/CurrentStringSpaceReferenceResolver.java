@@ -25,6 +25,7 @@
 
 import org.xwiki.component.annotation.Component;
 import org.xwiki.model.EntityType;
+import org.xwiki.model.internal.reference.EntityReferenceFactory;
 import org.xwiki.model.reference.EntityReferenceResolver;
 import org.xwiki.model.reference.SpaceReference;
 import org.xwiki.model.reference.SpaceReferenceResolver;
@@ -46,10 +47,14 @@ public class CurrentStringSpaceReferenceResolver implements SpaceReferenceResolv
     @Named("current")
     private EntityReferenceResolver<String> entityReferenceResolver;
 
+    @Inject
+    private EntityReferenceFactory referenceFactory;
+
     @Override
     public SpaceReference resolve(String documentReferenceRepresentation, Object... parameters)
     {
-        return new SpaceReference(this.entityReferenceResolver.resolve(documentReferenceRepresentation,
-            EntityType.SPACE, parameters));
+        // Share the resolved spaces since they are usually kept in memory (e.g. as parent of the cached documents)
+        return this.referenceFactory.getReference(new SpaceReference(
+            this.entityReferenceResolver.resolve(documentReferenceRepresentation, EntityType.SPACE, parameters)));
     }
 }
@@ -183,33 +183,32 @@ public String content(Document document, Map<String, Object> parameters)
                 e);
             return null;
         }
-        String renderedContent =
-            this.renderingCache.getRenderedContent(document.getDocumentReference(), content, context);
-        if (renderedContent == null) {
-            Map<String, Object> actualParameters = new HashMap<String, Object>(parameters);
-            DocumentDisplayerParameters displayerParameters =
-                (DocumentDisplayerParameters) parameters.get(DISPLAYER_PARAMETERS_KEY);
-            if (displayerParameters == null) {
-                displayerParameters = new DocumentDisplayerParameters();
-                // Default content display parameters.
-                displayerParameters.setExecutionContextIsolated(true);
-                displayerParameters.setContentTranslated(true);
-            } else if (displayerParameters.isTitleDisplayed()) {
-                // Clone because we have to enforce content display.
-                displayerParameters = displayerParameters.clone();
-            }
-            // Ensure the content is displayed.
-            displayerParameters.setTitleDisplayed(false);
-            Syntax outputSyntax = getOutputSyntax(parameters);
-            displayerParameters.setTargetSyntax(outputSyntax);
-            actualParameters.put(DISPLAYER_PARAMETERS_KEY, displayerParameters);
-            renderedContent = document(document, actualParameters, outputSyntax);
-            if (renderedContent != null) {
-                this.renderingCache.setRenderedContent(document.getDocumentReference(), content, renderedContent,
-                    context);
-            }
+        try {
+            return this.renderingCache.getRenderedContent(document.getDocumentReference(), content, () -> {
+                Map<String, Object> actualParameters = new HashMap<String, Object>(parameters);
+                DocumentDisplayerParameters displayerParameters =
+                    (DocumentDisplayerParameters) parameters.get(DISPLAYER_PARAMETERS_KEY);
+                if (displayerParameters == null) {
+                    displayerParameters = new DocumentDisplayerParameters();
+                    // Default content display parameters.
+                    displayerParameters.setExecutionContextIsolated(true);
+                    displayerParameters.setContentTranslated(true);
+                } else if (displayerParameters.isTitleDisplayed()) {
+                    // Clone because we have to enforce content display.
+                    displayerParameters = displayerParameters.clone();
+                }
+                // Ensure the content is displayed.
+                displayerParameters.setTitleDisplayed(false);
+                Syntax outputSyntax = getOutputSyntax(parameters);
+                displayerParameters.setTargetSyntax(outputSyntax);
+                actualParameters.put(DISPLAYER_PARAMETERS_KEY, displayerParameters);
+                return document(document, actualParameters, outputSyntax);
+            }, context);
+        } catch (XWikiException e) {
+            // Cannot happen since displaying the document doesn't throw exceptions.
+            this.logger.error("Failed to display document [{}].", document.getPrefixedFullName(), e);
+            return null;
         }
-        return renderedContent;
     }
 
     /**
@@ -1040,6 +1040,8 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
                         if (!object.getDocumentReference().equals(doc.getDocumentReference())) {
                             continue;
                         }
+                        // Reuse the (interned) reference of the document instead of keeping in memory a copy per object
+                        object.setDocumentReference(doc.getDocumentReference());
 
                         BaseObject newobject;
                         if (classReference.equals(doc.getDocumentReference())) {
@@ -1050,7 +1052,7 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
                         if (newobject != null) {
                             newobject.setId(object.getId());
                             newobject.setXClassReference(object.getRelativeXClassReference());
-                            newobject.setDocumentReference(object.getDocumentReference());
+                            newobject.setDocumentReference(doc.getDocumentReference());
                             newobject.setNumber(object.getNumber());
                             newobject.setGuid(object.getGuid());
                             object = newobject;
@@ -0,0 +1,199 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.cache;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.inject.Named;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.component.descriptor.DefaultComponentDescriptor;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.rendering.block.WordBlock;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.listener.MetaData;
+import org.xwiki.rendering.parser.ContentParser;
+import org.xwiki.rendering.parser.Parser;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectComponentManager;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link XDOMCache}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class XDOMCacheTest
+{
+    @InjectMockComponents
+    private XDOMCache xdomCache;
+
+    @MockComponent
+    private CacheManager cacheManager;
+
+    @MockComponent
+    private ContentParser parser;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    @MockComponent
+    @Named("xwikiproperties")
+    private ConfigurationSource configuration;
+
+    @MockComponent
+    @Named("context")
+    private ComponentManager contextComponentManager;
+
+    @InjectComponentManager
+    private MockitoComponentManager componentManager;
+
+    private Map<String, Object> entries = new HashMap<>();
+
+    private DocumentReference alice = new DocumentReference("wiki", "Space", "Alice");
+
+    private DocumentReference bob = new DocumentReference("wiki", "Space", "Bob");
+
+    @BeforeComponent
+    void configure() throws Exception
+    {
+        when(this.configuration.getProperty("core.xdomcache.size", 500)).thenReturn(500);
+
+        Cache<Object> cache = mock(Cache.class);
+        when(cache.get(anyString())).then(invocation -> this.entries.get(invocation.getArgument(0)));
+        doAnswer(invocation -> this.entries.put(invocation.getArgument(0), invocation.getArgument(1))).when(cache)
+            .set(anyString(), any());
+        doAnswer(invocation -> {
+            this.entries.clear();
+            return null;
+        }).when(cache).removeAll();
+
+        when(this.cacheManager.createNewCache(any())).thenReturn(cache);
+
+        // The parser is registered in the root component manager and not overwritten in the current wiki
+        this.componentManager.registerMockComponent(Parser.class, Syntax.XWIKI_2_1.toIdString());
+        when(this.contextComponentManager.getComponentDescriptor(Parser.class, Syntax.XWIKI_2_1.toIdString()))
+            .then(invocation -> this.componentManager.getComponentDescriptor(Parser.class,
+                Syntax.XWIKI_2_1.toIdString()));
+    }
+
+    @BeforeEach
+    void before() throws Exception
+    {
+        when(this.parser.parse("content", Syntax.XWIKI_2_1))
+            .then(invocation -> new XDOM(Arrays.asList(new WordBlock("content"))));
+        when(this.serializer.serialize(this.alice)).thenReturn("wiki:Space.Alice");
+        when(this.serializer.serialize(this.bob)).thenReturn("wiki:Space.Bob");
+    }
+
+    @Test
+    void parse() throws Exception
+    {
+        XDOM aliceXDOM = this.xdomCache.parse("content", Syntax.XWIKI_2_1, this.alice);
+        XDOM bobXDOM = this.xdomCache.parse("content", Syntax.XWIKI_2_1, this.bob);
+
+        // The same content is parsed only once whatever the document it comes from
+        verify(this.parser).parse("content", Syntax.XWIKI_2_1);
+
+        assertEquals(aliceXDOM.getChildren(), bobXDOM.getChildren());
+        assertEquals("wiki:Space.Alice", aliceXDOM.getMetaData().getMetaData(MetaData.SOURCE));
+        assertEquals("wiki:Space.Bob", bobXDOM.getMetaData().getMetaData(MetaData.SOURCE));
+    }
+
+    @Test
+    void parseReturnsCopy() throws Exception
+    {
+        XDOM xdom = this.xdomCache.parse("content", Syntax.XWIKI_2_1, this.alice);
+        xdom.addChild(new WordBlock("modified"));
+
+        XDOM otherXDOM = this.xdomCache.parse("content", Syntax.XWIKI_2_1, null);
+
+        assertNotSame(xdom.getChildren().get(0), otherXDOM.getChildren().get(0));
+        assertEquals(1, otherXDOM.getChildren().size());
+        assertNull(otherXDOM.getMetaData().getMetaData(MetaData.SOURCE));
+    }
+
+    @Test
+    void parseWithParserFromWiki() throws Exception
+    {
+        when(this.parser.parse("content", Syntax.MARKDOWN_1_1, this.alice))
+            .then(invocation -> new XDOM(Arrays.asList(new WordBlock("content"))));
+        when(this.contextComponentManager.getComponentDescriptor(Parser.class, Syntax.MARKDOWN_1_1.toIdString()))
+            .thenReturn(new DefaultComponentDescriptor<>());
+
+        this.xdomCache.parse("content", Syntax.MARKDOWN_1_1, this.alice);
+        this.xdomCache.parse("content", Syntax.MARKDOWN_1_1, this.alice);
+
+        // The parser is not registered in the root component manager
+        verify(this.parser, times(2)).parse("content", Syntax.MARKDOWN_1_1, this.alice);
+        assertTrue(this.entries.isEmpty());
+    }
+
+    @Test
+    void parseWithParserOverwrittenInWiki() throws Exception
+    {
+        when(this.parser.parse("content", Syntax.XWIKI_2_1, this.alice))
+            .then(invocation -> new XDOM(Arrays.asList(new WordBlock("content"))));
+        when(this.contextComponentManager.getComponentDescriptor(Parser.class, Syntax.XWIKI_2_1.toIdString()))
+            .thenReturn(new DefaultComponentDescriptor<>());
+
+        this.xdomCache.parse("content", Syntax.XWIKI_2_1, this.alice);
+
+        verify(this.parser).parse("content", Syntax.XWIKI_2_1, this.alice);
+        assertTrue(this.entries.isEmpty());
+    }
+
+    @Test
+    void removeAll() throws Exception
+    {
+        this.xdomCache.parse("content", Syntax.XWIKI_2_1, this.alice);
+
+        this.xdomCache.removeAll();
+
+        this.xdomCache.parse("content", Syntax.XWIKI_2_1, this.alice);
+
+        verify(this.parser, times(2)).parse("content", Syntax.XWIKI_2_1);
+    }
+}
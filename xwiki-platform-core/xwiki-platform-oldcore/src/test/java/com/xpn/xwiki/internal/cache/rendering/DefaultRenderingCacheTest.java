@@ -19,18 +19,23 @@
  */
 package com.xpn.xwiki.internal.cache.rendering;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.commons.lang3.reflect.FieldUtils;
 import org.jmock.Expectations;
 import org.junit.Assert;
 import org.junit.Test;
 import org.xwiki.bridge.event.DocumentUpdatedEvent;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.observation.ObservationManager;
+import org.xwiki.rendering.async.AsyncContext;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.security.authorization.event.RightUpdatedEvent;
 import org.xwiki.test.internal.MockConfigurationSource;
 
 import com.xpn.xwiki.XWiki;
@@ -137,6 +142,92 @@ public void testGetSetRenderedContent() throws Exception
             getContext()));
     }
 
+    @Test
+    public void testGetRenderedContentWithDependencies() throws Exception
+    {
+        getConfigurationSource().setProperty("core.renderingcache.documents",
+            Collections.singletonList(this.document.getPrefixedFullName()));
+
+        XWikiDocument includedDocument = new XWikiDocument(new DocumentReference("wiki", "space", "included"));
+        includedDocument.setOriginalDocument(includedDocument.clone());
+        AsyncContext asyncContext = getComponentManager().getInstance(AsyncContext.class);
+
+        Assert.assertEquals("renderedContent",
+            this.renderingCache.getRenderedContent(this.document.getDocumentReference(), "source", () -> {
+                asyncContext.useEntity(includedDocument.getDocumentReference());
+                return "renderedContent";
+            }, getContext()));
+
+        Assert.assertEquals("renderedContent", this.renderingCache
+            .getRenderedContent(this.document.getDocumentReference(), "source", () -> "newContent", getContext()));
+
+        // Modifying the included document invalidates the cached content.
+        ObservationManager observationManager = getComponentManager().getInstance(ObservationManager.class);
+        observationManager.notify(new DocumentUpdatedEvent(includedDocument.getDocumentReference()), includedDocument,
+            getContext());
+
+        Assert.assertEquals("newContent", this.renderingCache
+            .getRenderedContent(this.document.getDocumentReference(), "source", () -> "newContent", getContext()));
+    }
+
+    @Test
+    public void testGetRenderedContentWithRights() throws Exception
+    {
+        getConfigurationSource().setProperty("core.renderingcache.documents",
+            Collections.singletonList(this.document.getPrefixedFullName()));
+
+        DocumentReference userReference = new DocumentReference("wiki", "XWiki", "user");
+        AsyncContext asyncContext = getComponentManager().getInstance(AsyncContext.class);
+
+        Assert.assertEquals("renderedContent",
+            this.renderingCache.getRenderedContent(this.document.getDocumentReference(), "source", () -> {
+                asyncContext.useRight(Right.VIEW, userReference, this.document.getDocumentReference(), true);
+                return "renderedContent";
+            }, getContext()));
+
+        // Modifying the rights of another document keeps the cached content.
+        XWikiDocument otherDocument = new XWikiDocument(new DocumentReference("wiki", "space", "other"));
+        otherDocument.setOriginalDocument(otherDocument.clone());
+        ObservationManager observationManager = getComponentManager().getInstance(ObservationManager.class);
+        observationManager.notify(new RightUpdatedEvent(), otherDocument);
+
+        Assert.assertEquals("renderedContent", this.renderingCache
+            .getRenderedContent(this.document.getDocumentReference(), "source", () -> "newContent", getContext()));
+
+        // Modifying the rights of the rendered document invalidates the cached content.
+        observationManager.notify(new RightUpdatedEvent(), this.document);
+
+        Assert.assertEquals("newContent", this.renderingCache
+            .getRenderedContent(this.document.getDocumentReference(), "source", () -> "otherContent", getContext()));
+    }
+
+    @Test
+    public void testFlushWholeCache() throws Exception
+    {
+        getConfigurationSource().setProperty("core.renderingcache.documents",
+            Collections.singletonList(this.document.getPrefixedFullName()));
+
+        DocumentReference userReference = new DocumentReference("wiki", "XWiki", "user");
+        AsyncContext asyncContext = getComponentManager().getInstance(AsyncContext.class);
+
+        Assert.assertEquals("renderedContent",
+            this.renderingCache.getRenderedContent(this.document.getDocumentReference(), "source", () -> {
+                asyncContext.useRight(Right.VIEW, userReference, this.document.getDocumentReference(), true);
+                asyncContext.useComponent(String.class, "hint");
+                return "renderedContent";
+            }, getContext()));
+
+        this.renderingCache.flushWholeCache();
+
+        // No index is left behind
+        for (String mapping : Arrays.asList("roleTypeMapping", "roleMapping", "rightMapping")) {
+            Assert.assertTrue(mapping,
+                ((Map<?, ?>) FieldUtils.readField(this.renderingCache, mapping, true)).isEmpty());
+        }
+
+        Assert.assertEquals("newContent", this.renderingCache
+            .getRenderedContent(this.document.getDocumentReference(), "source", () -> "newContent", getContext()));
+    }
 
     private static class TestRenderingCacheAware extends XWikiDefaultPlugin implements RenderingCacheAware {
         public TestRenderingCacheAware(String name, String className, XWikiContext context) {
@@ -27,6 +27,7 @@
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import org.xwiki.cache.Cache;
@@ -41,7 +42,9 @@
 import org.xwiki.component.descriptor.DefaultComponentRole;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
+import org.xwiki.configuration.ConfigurationSource;
 import org.xwiki.model.reference.EntityReference;
+import org.xwiki.observation.ObservationManager;
 import org.xwiki.rendering.async.internal.DefaultAsyncContext.RightEntry;
 import org.xwiki.security.authorization.AuthorizationManager;
 
@@ -55,12 +58,31 @@
 @Singleton
 public class AsyncRendererCache implements Initializable, CacheEntryListener<AsyncRendererJobStatus>
 {
+    /**
+     * How long (in milliseconds) the local invalidations are remembered to validate the results shared by the other
+     * members of the cluster. Older shared results are rejected.
+     */
+    private static final long INVALIDATION_RETENTION = 600000L;
+
+    /**
+     * The difference (in milliseconds) tolerated between the clocks of the members of the cluster.
+     */
+    private static final long CLOCK_TOLERANCE = 1000L;
+
     @Inject
     private AuthorizationManager authorization;
 
     @Inject
     private CacheManager cacheManager;
 
+    @Inject
+    private ConfigurationSource configuration;
+
+    @Inject
+    private Provider<ObservationManager> observationManagerProvider;
+
+    private boolean shared;
+
     private Cache<AsyncRendererJobStatus> asyncCache;
 
     private Cache<AsyncRendererJobStatus> longCache;
@@ -73,6 +95,16 @@ public class AsyncRendererCache implements Initializable, CacheEntryListener<Asy
 
     private final Map<RightEntry, Set<String>> rightMapping = new ConcurrentHashMap<>();
 
+    /**
+     * The last time each dependency (reference, wiki, component type or component) was invalidated, only maintained
+     * when the results are shared.
+     */
+    private final Map<Object, Long> invalidations = new ConcurrentHashMap<>();
+
+    private volatile long rightInvalidation;
+
+    private volatile long invalidationsPruneTime;
+
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
     /**
@@ -117,6 +149,8 @@ public void initialize() throws InitializationException
         }
 
         this.longCache.addCacheEntryListener(this);
+
+        this.shared = this.configuration.getProperty("rendering.async.cache.shared", false);
     }
 
     /**
@@ -154,10 +188,12 @@ public AsyncRendererJobStatus getAsync(String clientId)
      */
     public void put(AsyncRendererJobStatus status)
     {
+        boolean longCacheAllowed;
+
         this.lock.writeLock().lock();
 
         try {
-            boolean longCacheAllowed =
+            longCacheAllowed =
                 status.getRequest().getRenderer() != null && status.getRequest().getRenderer().isCacheAllowed();
 
             // Avoid storing useless stuff in the RAM
@@ -179,6 +215,97 @@ public void put(AsyncRendererJobStatus status)
         } finally {
             this.lock.writeLock().unlock();
         }
+
+        // Send the result to the other members of the cluster (outside of the lock since it involves the network)
+        if (longCacheAllowed && this.shared) {
+            share(status);
+        }
+    }
+
+    private void share(AsyncRendererJobStatus status)
+    {
+        SharedAsyncRendererResult sharedResult = SharedAsyncRendererResult.fromStatus(status);
+
+        // Other members of the cluster receive the result through the remote observation
+        if (sharedResult != null) {
+            this.observationManagerProvider.get().notify(new AsyncRendererCachedEvent(), sharedResult);
+        }
+    }
+
+    /**
+     * @param sharedResult the result cached by another member of the cluster
+     * @since 13.3RC1
+     */
+    public void put(SharedAsyncRendererResult sharedResult)
+    {
+        this.lock.writeLock().lock();
+
+        try {
+            String cacheKey = toCacheKey(sharedResult.getId());
+            AsyncRendererJobStatus status = sharedResult.toStatus();
+
+            // Don't replace a result produced by this instance and don't store a result whose dependencies were
+            // modified locally since the other member of the cluster started to produce it
+            if (this.longCache.get(cacheKey) == null && !isInvalidated(status, sharedResult.getStartTime())) {
+                this.longCache.set(cacheKey, status);
+
+                // The dependencies might have been invalidated before the entry was indexed
+                if (isInvalidated(status, sharedResult.getStartTime())) {
+                    this.longCache.remove(cacheKey);
+                }
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private boolean isInvalidated(AsyncRendererJobStatus status, long startTime)
+    {
+        long time = startTime - CLOCK_TOLERANCE;
+
+        // Older invalidations might have been forgotten
+        if (time < System.currentTimeMillis() - INVALIDATION_RETENTION) {
+            return true;
+        }
+
+        if (!status.getRights().isEmpty() && this.rightInvalidation >= time) {
+            return true;
+        }
+
+        for (EntityReference reference : status.getReferences()) {
+            if (isInvalidated(reference, time) || isInvalidated(reference.getRoot().getName(), time)) {
+                return true;
+            }
+        }
+
+        return status.getRoleTypes().stream().anyMatch(roleType -> isInvalidated(roleType, time))
+            || status.getRoles().stream().anyMatch(role -> isInvalidated(role, time));
+    }
+
+    private boolean isInvalidated(Object dependency, long time)
+    {
+        Long invalidationTime = this.invalidations.get(dependency);
+
+        return invalidationTime != null && invalidationTime >= time;
+    }
+
+    /**
+     * Remember when a dependency was invalidated, to validate the results shared by the other members of the cluster.
+     * Has to be called before the corresponding entries are removed.
+     */
+    private void invalidated(Object dependency)
+    {
+        if (this.shared) {
+            long now = System.currentTimeMillis();
+
+            this.invalidations.put(dependency, now);
+
+            // Forget the invalidations which are too old to matter
+            if (now - this.invalidationsPruneTime > INVALIDATION_RETENTION) {
+                this.invalidationsPruneTime = now;
+                this.invalidations.values().removeIf(time -> time < now - INVALIDATION_RETENTION);
+            }
+        }
     }
 
     /**
@@ -253,6 +380,8 @@ public void cacheEntryModified(CacheEntryEvent<AsyncRendererJobStatus> event)
     public void cleanCache(EntityReference reference)
     {
         if (reference != null) {
+            invalidated(reference);
+
             clean(this.referenceMapping.remove(reference));
 
             // Also clean entries associated to one of the reference parents
@@ -265,6 +394,8 @@ public void cleanCache(EntityReference reference)
      */
     public void cleanCache(String wiki)
     {
+        invalidated(wiki);
+
         for (Map.Entry<EntityReference, Set<String>> entry : this.referenceMapping.entrySet()) {
             EntityReference reference = entry.getKey();
 
@@ -280,8 +411,12 @@ public void cleanCache(String wiki)
      */
     public void cleanCache(Type roleType, String roleHint)
     {
+        ComponentRole<?> role = new DefaultComponentRole<>(roleType, roleHint);
+        invalidated(roleType);
+        invalidated(role);
+
         clean(this.roleTypeMapping.remove(roleType));
-        clean(this.roleMapping.remove(new DefaultComponentRole<>(roleType, roleHint)));
+        clean(this.roleMapping.remove(role));
     }
 
     /**
@@ -291,6 +426,10 @@ public void cleanCache(Type roleType, String roleHint)
      */
     public void cleanCacheForRight()
     {
+        if (this.shared) {
+            this.rightInvalidation = System.currentTimeMillis();
+        }
+
         this.rightMapping.forEach(this::checkRight);
     }
 
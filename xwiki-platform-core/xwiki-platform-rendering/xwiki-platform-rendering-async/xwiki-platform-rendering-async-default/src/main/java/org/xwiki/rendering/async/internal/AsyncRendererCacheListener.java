@@ -34,6 +34,7 @@
 import org.xwiki.model.reference.WikiReference;
 import org.xwiki.observation.AbstractEventListener;
 import org.xwiki.observation.event.Event;
+import org.xwiki.observation.remote.RemoteObservationManagerContext;
 import org.xwiki.security.authorization.event.RightUpdatedEvent;
 
 import com.xpn.xwiki.doc.XWikiDocument;
@@ -66,6 +67,9 @@ public class AsyncRendererCacheListener extends AbstractEventListener
     @Inject
     private AsyncRendererCache cache;
 
+    @Inject
+    private RemoteObservationManagerContext remoteObservation;
+
     /**
      * Default constructor.
      */
@@ -75,13 +79,18 @@ public AsyncRendererCacheListener()
             new XClassPropertyUpdatedEvent(), new XObjectAddedEvent(), new XObjectDeletedEvent(),
             new XObjectUpdatedEvent(), new DocumentCreatedEvent(), new DocumentUpdatedEvent(),
             new DocumentDeletedEvent(), new ComponentDescriptorAddedEvent(), new ComponentDescriptorRemovedEvent(),
-            new RightUpdatedEvent());
+            new RightUpdatedEvent(), new AsyncRendererCachedEvent());
     }
 
     @Override
     public void onEvent(Event event, Object source, Object data)
     {
-        if (event instanceof RightUpdatedEvent) {
+        if (event instanceof AsyncRendererCachedEvent) {
+            // Reuse the results produced by the other members of the cluster
+            if (this.remoteObservation.isRemoteState()) {
+                this.cache.put((SharedAsyncRendererResult) source);
+            }
+        } else if (event instanceof RightUpdatedEvent) {
             this.cache.cleanCacheForRight();
         } else if (event instanceof ComponentDescriptorEvent) {
             ComponentDescriptorEvent componentEvent = ((ComponentDescriptorEvent) event);
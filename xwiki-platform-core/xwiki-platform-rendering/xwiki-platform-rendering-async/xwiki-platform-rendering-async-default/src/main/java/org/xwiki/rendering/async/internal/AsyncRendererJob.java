@@ -19,6 +19,8 @@
  */
 package org.xwiki.rendering.async.internal;
 
+import java.util.Date;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 
@@ -56,6 +58,11 @@ public class AsyncRendererJob extends AbstractJob<AsyncRendererJobRequest, Async
     @Inject
     private DocumentAccessBridge documentAccessBridge;
 
+    @Inject
+    private AsyncRendererStatistics statistics;
+
+    private long submitDate;
+
     @Override
     protected AsyncRendererJobRequest castRequest(Request request)
     {
@@ -69,6 +76,15 @@ protected AsyncRendererJobRequest castRequest(Request request)
         return indexerRequest;
     }
 
+    @Override
+    public void initialize(Request request)
+    {
+        super.initialize(request);
+
+        // The job is initialized when it's submitted to the job executor
+        this.submitDate = System.currentTimeMillis();
+    }
+
     @Override
     protected AsyncRendererJobStatus createNewStatus(AsyncRendererJobRequest request)
     {
@@ -127,6 +143,13 @@ protected void jobFinished(Throwable error)
 
         // Cache the result
         this.cache.put(getStatus());
+
+        Date startDate = getStatus().getStartDate();
+        Date endDate = getStatus().getEndDate();
+        if (startDate != null && endDate != null) {
+            this.statistics.jobFinished(Math.max(0, startDate.getTime() - this.submitDate),
+                endDate.getTime() - startDate.getTime());
+        }
     }
 
     @Override
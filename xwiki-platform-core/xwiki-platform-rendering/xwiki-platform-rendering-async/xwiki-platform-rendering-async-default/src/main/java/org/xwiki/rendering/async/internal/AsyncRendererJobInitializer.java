@@ -0,0 +1,78 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.async.internal;
+
+import java.util.Collections;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.job.GroupedJobInitializer;
+import org.xwiki.job.JobGroupPath;
+
+/**
+ * {@link GroupedJobInitializer} for the asynchronous renderers which don't provide their own job group. Such jobs are
+ * executed by a dedicated bounded pool instead of starting a new thread for each block.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component
+@Named("AsyncRenderer")
+@Singleton
+public class AsyncRendererJobInitializer implements GroupedJobInitializer
+{
+    /**
+     * The job group of the asynchronous renderers which don't provide their own.
+     */
+    public static final JobGroupPath JOBGROUPPATH = new JobGroupPath(Collections.singletonList("asyncrenderer"));
+
+    private static final String POOL_SIZE_PROPERTY = "rendering.async.poolSize";
+
+    private static final int DEFAULT_POOL_SIZE = 4;
+
+    @Inject
+    private ConfigurationSource configuration;
+
+    @Override
+    public JobGroupPath getId()
+    {
+        return JOBGROUPPATH;
+    }
+
+    @Override
+    public int getPoolSize()
+    {
+        return this.configuration.getProperty(POOL_SIZE_PROPERTY, DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * @return {@link Thread#NORM_PRIORITY} since the result of those jobs is usually expected by a user currently
+     *         viewing a page
+     */
+    @Override
+    public int getDefaultPriority()
+    {
+        return Thread.NORM_PRIORITY;
+    }
+}
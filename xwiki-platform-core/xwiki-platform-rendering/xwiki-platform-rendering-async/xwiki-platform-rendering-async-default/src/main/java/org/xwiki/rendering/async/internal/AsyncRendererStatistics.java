@@ -0,0 +1,140 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.async.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+
+/**
+ * Collect statistics about the execution of the asynchronous rendering jobs.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component(roles = AsyncRendererStatistics.class)
+@Singleton
+public class AsyncRendererStatistics
+{
+    private final AtomicLong startedJobs = new AtomicLong();
+
+    private final AtomicLong coalescedRequests = new AtomicLong();
+
+    private final AtomicLong measuredJobs = new AtomicLong();
+
+    private final AtomicLong queueWaitTime = new AtomicLong();
+
+    private final AtomicLong runTime = new AtomicLong();
+
+    /**
+     * Indicate that a new asynchronous rendering job was submitted.
+     */
+    public void jobStarted()
+    {
+        this.startedJobs.incrementAndGet();
+    }
+
+    /**
+     * Indicate that an asynchronous rendering request was associated with an already running job.
+     */
+    public void requestCoalesced()
+    {
+        this.coalescedRequests.incrementAndGet();
+    }
+
+    /**
+     * Indicate that an asynchronous rendering job is finished.
+     *
+     * @param queueWait the time (in milliseconds) the job waited for a thread
+     * @param run the time (in milliseconds) the job took to execute
+     */
+    public void jobFinished(long queueWait, long run)
+    {
+        this.measuredJobs.incrementAndGet();
+        this.queueWaitTime.addAndGet(queueWait);
+        this.runTime.addAndGet(run);
+    }
+
+    /**
+     * @return the number of asynchronous rendering jobs which were submitted
+     */
+    public long getStartedJobs()
+    {
+        return this.startedJobs.get();
+    }
+
+    /**
+     * @return the number of asynchronous rendering requests which were associated with an already running job
+     */
+    public long getCoalescedRequests()
+    {
+        return this.coalescedRequests.get();
+    }
+
+    /**
+     * @return the proportion (between 0 and 1) of the asynchronous rendering requests which did not need a new job
+     */
+    public double getCoalescingHitRate()
+    {
+        long coalesced = getCoalescedRequests();
+        long total = coalesced + getStartedJobs();
+
+        return total > 0 ? (double) coalesced / total : 0;
+    }
+
+    /**
+     * @return the average time (in milliseconds) a finished job waited for a thread
+     */
+    public long getAverageQueueWaitTime()
+    {
+        long jobs = this.measuredJobs.get();
+
+        return jobs > 0 ? this.queueWaitTime.get() / jobs : 0;
+    }
+
+    /**
+     * @return the average time (in milliseconds) a finished job took to execute
+     */
+    public long getAverageRunTime()
+    {
+        long jobs = this.measuredJobs.get();
+
+        return jobs > 0 ? this.runTime.get() / jobs : 0;
+    }
+
+    /**
+     * @return all the statistics indexed by name
+     */
+    public Map<String, Number> toMap()
+    {
+        Map<String, Number> map = new LinkedHashMap<>();
+        map.put("startedJobs", getStartedJobs());
+        map.put("coalescedRequests", getCoalescedRequests());
+        map.put("coalescingHitRate", getCoalescingHitRate());
+        map.put("averageQueueWaitTime", getAverageQueueWaitTime());
+        map.put("averageRunTime", getAverageRunTime());
+
+        return map;
+    }
+}
@@ -23,6 +23,7 @@
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -90,6 +91,9 @@ public class DefaultAsyncRendererExecutor implements AsyncRendererExecutor
     @Inject
     private CacheControl cacheControl;
 
+    @Inject
+    private AsyncRendererStatistics statistics;
+
     @Inject
     private Logger logger;
 
@@ -165,20 +169,10 @@ public AsyncRendererExecutorResponse render(AsyncRenderer renderer, AsyncRendere
             this.cache.getLock().readLock().lock();
 
             try {
-                AsyncRendererJobStatus status = getCurrent(jobId);
-
-                if (status != null
-                    && (status.getEndDate() == null || this.cacheControl.isCacheReadAllowed(status.getEndDate()))) {
-                    if (status.getResult() != null && !configuration.isPlaceHolderForced()) {
-                        // Available cached result, return it
+                AsyncRendererExecutorResponse response = getExisting(jobId, asyncAllowed, configuration);
 
-                        injectUses(status);
-
-                        return new AsyncRendererExecutorResponse(status);
-                    } else if (asyncAllowed) {
-                        // Already running job, associate it with another client
-                        return new AsyncRendererExecutorResponse(status, newClientId());
-                    }
+                if (response != null) {
+                    return response;
                 }
             } finally {
                 this.cache.getLock().readLock().unlock();
@@ -192,12 +186,24 @@ public AsyncRendererExecutorResponse render(AsyncRenderer renderer, AsyncRendere
 
         AsyncRendererJobRequest request = new AsyncRendererJobRequest();
         request.setRenderer(renderer);
-        request.setJobGroupPath(renderer.getJobGroupPath());
+        // Renderers without specific job group share a dedicated bounded pool
+        request.setJobGroupPath(renderer.getJobGroupPath() != null ? renderer.getJobGroupPath()
+            : AsyncRendererJobInitializer.JOBGROUPPATH);
 
         if (asyncAllowed) {
             this.cache.getLock().writeLock().lock();
 
             try {
+                // Another request for the same renderer might have started a job since we checked so make sure to
+                // reuse it instead of running the same rendering several times in parallel
+                if (cacheAllowed) {
+                    AsyncRendererExecutorResponse existingResponse = getExisting(jobId, true, configuration);
+
+                    if (existingResponse != null) {
+                        return existingResponse;
+                    }
+                }
+
                 if (context != null) {
                     request.setContext(context);
                 }
@@ -213,6 +219,8 @@ public AsyncRendererExecutorResponse render(AsyncRenderer renderer, AsyncRendere
 
                 Job job = this.executor.execute(AsyncRendererJobStatus.JOBTYPE, request);
 
+                this.statistics.jobStarted();
+
                 AsyncRendererJobStatus status = (AsyncRendererJobStatus) job.getStatus();
 
                 response = new AsyncRendererExecutorResponse(status, asyncClientId);
@@ -229,6 +237,7 @@ public AsyncRendererExecutorResponse render(AsyncRenderer renderer, AsyncRendere
                     ((DefaultAsyncContext) this.asyncContext).pushContextUse();
                 }
 
+                Date startDate = new Date();
                 AsyncRendererResult result = syncRender(renderer, true, configuration);
 
                 // Get suff to invalidate the cache
@@ -243,6 +252,9 @@ public AsyncRendererExecutorResponse render(AsyncRenderer renderer, AsyncRendere
                     status = new AsyncRendererJobStatus(request, result, null, null, null, null, null);
                 }
 
+                // Used to validate the result when it's shared with the other members of the cluster
+                status.setStartDate(startDate);
+
                 request.setId(jobId);
 
                 this.cache.put(status);
@@ -259,6 +271,30 @@ public AsyncRendererExecutorResponse render(AsyncRenderer renderer, AsyncRendere
         return response;
     }
 
+    private AsyncRendererExecutorResponse getExisting(List<String> jobId, boolean asyncAllowed,
+        AsyncRendererConfiguration configuration)
+    {
+        AsyncRendererJobStatus status = getCurrent(jobId);
+
+        if (status != null
+            && (status.getEndDate() == null || this.cacheControl.isCacheReadAllowed(status.getEndDate()))) {
+            if (status.getResult() != null && !configuration.isPlaceHolderForced()) {
+                // Available cached result, return it
+
+                injectUses(status);
+
+                return new AsyncRendererExecutorResponse(status);
+            } else if (asyncAllowed) {
+                // Already running job, associate it with another client
+                this.statistics.requestCoalesced();
+
+                return new AsyncRendererExecutorResponse(status, newClientId());
+            }
+        }
+
+        return null;
+    }
+
     private AsyncRendererResult syncRender(AsyncRenderer renderer, boolean cached,
         AsyncRendererConfiguration configuration) throws RenderingException
     {
@@ -0,0 +1,195 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.async.internal;
+
+import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.SerializationException;
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.xwiki.component.descriptor.ComponentRole;
+import org.xwiki.component.descriptor.DefaultComponentRole;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.rendering.async.internal.DefaultAsyncContext.RightEntry;
+import org.xwiki.security.authorization.Right;
+
+/**
+ * A serializable copy of a cached asynchronous renderer result and of the elements it depends on, sent to the other
+ * members of the cluster so that they don't need to execute the same renderer again.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+public class SharedAsyncRendererResult implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> id;
+
+    private final long startTime;
+
+    private final String result;
+
+    private final Set<EntityReference> references;
+
+    private final Set<Type> roleTypes;
+
+    private final List<Pair<Type, String>> roles = new ArrayList<>();
+
+    private final List<SharedRightEntry> rights = new ArrayList<>();
+
+    private Map<String, Collection<Object>> uses;
+
+    private static final class SharedRightEntry implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final String right;
+
+        private final DocumentReference userReference;
+
+        private final EntityReference entityReference;
+
+        private final boolean allowed;
+
+        SharedRightEntry(RightEntry entry)
+        {
+            this.right = entry.getRight().getName();
+            this.userReference = entry.getUserReference();
+            this.entityReference = entry.getEntityReference();
+            this.allowed = entry.isAllowed();
+        }
+
+        RightEntry toRightEntry()
+        {
+            return new RightEntry(Right.toRight(this.right), this.userReference, this.entityReference, this.allowed);
+        }
+    }
+
+    private SharedAsyncRendererResult(AsyncRendererJobStatus status)
+    {
+        this.id = new ArrayList<>(status.getRequest().getId());
+        this.startTime = status.getStartDate().getTime();
+        this.result = status.getResult().getResult();
+        this.references = new HashSet<>(status.getReferences());
+        this.roleTypes = new HashSet<>(status.getRoleTypes());
+        for (ComponentRole<?> role : status.getRoles()) {
+            this.roles.add(new ImmutablePair<>(role.getRoleType(), role.getRoleHint()));
+        }
+        for (RightEntry right : status.getRights()) {
+            this.rights.add(new SharedRightEntry(right));
+        }
+        if (status.getUses() != null) {
+            this.uses = new HashMap<>();
+            for (Map.Entry<String, Collection<Object>> entry : status.getUses().entrySet()) {
+                this.uses.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * @param status the status of the executed renderer
+     * @return the serializable copy of the status or {@code null} if it cannot be shared
+     */
+    public static SharedAsyncRendererResult fromStatus(AsyncRendererJobStatus status)
+    {
+        // Results holding a block are only meaningful in the current instance and results without start date cannot
+        // be validated by the other members of the cluster
+        if (status.getRequest().getId() == null || status.getStartDate() == null || status.getResult() == null
+            || status.getResult().getClass() != AsyncRendererResult.class) {
+            return null;
+        }
+
+        // Make sure the component types and the context uses (the only dependencies which are not always
+        // serializable) can actually be sent
+        if (!status.getRoleTypes().stream().allMatch(Serializable.class::isInstance) || !isSerializable(status)) {
+            return null;
+        }
+
+        return new SharedAsyncRendererResult(status);
+    }
+
+    private static boolean isSerializable(AsyncRendererJobStatus status)
+    {
+        if (status.getUses() != null) {
+            for (Collection<Object> values : status.getUses().values()) {
+                try {
+                    SerializationUtils.serialize(new ArrayList<>(values));
+                } catch (SerializationException e) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the identifier of the job which produced the result
+     */
+    public List<String> getId()
+    {
+        return this.id;
+    }
+
+    /**
+     * @return the time (in milliseconds) at which the other member of the cluster started to produce the result
+     */
+    public long getStartTime()
+    {
+        return this.startTime;
+    }
+
+    /**
+     * @return a finished job status equivalent to the one which was shared
+     */
+    public AsyncRendererJobStatus toStatus()
+    {
+        AsyncRendererJobRequest request = new AsyncRendererJobRequest();
+        request.setId(this.id);
+
+        Set<ComponentRole<?>> statusRoles = new HashSet<>(this.roles.size());
+        for (Pair<Type, String> role : this.roles) {
+            statusRoles.add(new DefaultComponentRole<>(role.getLeft(), role.getRight()));
+        }
+
+        Set<RightEntry> statusRights = new HashSet<>(this.rights.size());
+        for (SharedRightEntry right : this.rights) {
+            statusRights.add(right.toRightEntry());
+        }
+
+        AsyncRendererJobStatus status = new AsyncRendererJobStatus(request, new AsyncRendererResult(this.result),
+            this.references, this.roleTypes, statusRoles, statusRights, this.uses);
+        status.setStartDate(new Date(this.startTime));
+
+        return status;
+    }
+}
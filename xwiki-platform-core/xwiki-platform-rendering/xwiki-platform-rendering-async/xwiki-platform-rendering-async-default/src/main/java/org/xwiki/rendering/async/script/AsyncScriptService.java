@@ -20,6 +20,7 @@
 package org.xwiki.rendering.async.script;
 
 import java.lang.reflect.Type;
+import java.util.Map;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -29,6 +30,7 @@
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.rendering.async.AsyncContext;
 import org.xwiki.rendering.async.internal.AsyncRendererCache;
+import org.xwiki.rendering.async.internal.AsyncRendererStatistics;
 import org.xwiki.script.service.ScriptService;
 
 /**
@@ -48,6 +50,9 @@ public class AsyncScriptService implements ScriptService
     @Inject
     private AsyncRendererCache cache;
 
+    @Inject
+    private AsyncRendererStatistics statistics;
+
     /**
      * @return true if it's allowed to render content asynchronously
      */
@@ -72,6 +77,20 @@ public void flushCache()
         this.cache.flush();
     }
 
+    /**
+     * Statistics about the asynchronous rendering jobs: the number of started jobs ({@code startedJobs}), the number
+     * of requests which reused an already running job ({@code coalescedRequests}) and the corresponding rate
+     * ({@code coalescingHitRate}), the average time in milliseconds a job waited for a thread
+     * ({@code averageQueueWaitTime}) and took to execute ({@code averageRunTime}).
+     * 
+     * @return the statistics indexed by name
+     * @since 13.3RC1
+     */
+    public Map<String, Number> getStatistics()
+    {
+        return this.statistics.toMap();
+    }
+
     /**
      * Indicate that the current execution manipulate the passed entity and the result will need to be removed from the
      * cache if it's modified in any way.
@@ -21,28 +21,38 @@
 
 import java.lang.reflect.Type;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.xwiki.cache.CacheException;
 import org.xwiki.cache.CacheManager;
 import org.xwiki.cache.internal.MapCache;
 import org.xwiki.component.descriptor.ComponentRole;
 import org.xwiki.component.descriptor.DefaultComponentRole;
+import org.xwiki.configuration.ConfigurationSource;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.ObjectReference;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.rendering.async.internal.DefaultAsyncContext.RightEntry;
+import org.xwiki.security.authorization.Right;
 import org.xwiki.test.annotation.BeforeComponent;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -56,6 +66,12 @@
     @MockComponent
     private CacheManager cacheManager;
 
+    @MockComponent
+    private ConfigurationSource configuration;
+
+    @MockComponent
+    private ObservationManager observationManager;
+
     @InjectMockComponents
     private AsyncRendererCache asyncCache;
 
@@ -67,6 +83,7 @@
     public void beforeComponent() throws CacheException
     {
         when(this.cacheManager.<AsyncRendererJobStatus>createNewCache(any())).thenReturn(new MapCache<>());
+        when(this.configuration.getProperty("rendering.async.cache.shared", false)).thenReturn(true);
     }
 
     @BeforeEach
@@ -83,6 +100,7 @@ public void beforeEach()
         AsyncRendererResult result = new AsyncRendererResult("result");
 
         this.status = new AsyncRendererJobStatus(request, result);
+        this.status.setStartDate(new Date());
     }
 
     private void setRoleTypes(Type... types)
@@ -100,6 +118,13 @@ private void setReferences(EntityReference... references)
         this.status.setReferences(new HashSet<>(Arrays.asList(references)));
     }
 
+    private SharedAsyncRendererResult share(long startTime)
+    {
+        this.status.setStartDate(new Date(startTime));
+
+        return SharedAsyncRendererResult.fromStatus(this.status);
+    }
+
     private List<String> getId()
     {
         return this.status.getRequest().getId();
@@ -225,4 +250,134 @@ public void getAsyncSeveralClients()
 
         assertNull(this.asyncCache.getAsync("2"));
     }
+
+    @Test
+    public void putShared()
+    {
+        setReferences(new DocumentReference("wiki", "Space", "Document"));
+        setRoleTypes(String.class);
+
+        this.asyncCache.put(this.status);
+
+        ArgumentCaptor<SharedAsyncRendererResult> sharedCaptor =
+            ArgumentCaptor.forClass(SharedAsyncRendererResult.class);
+        verify(this.observationManager).notify(any(AsyncRendererCachedEvent.class), sharedCaptor.capture());
+
+        // Simulate another member of the cluster
+        this.asyncCache.flush();
+        this.asyncCache.put(sharedCaptor.getValue());
+
+        AsyncRendererJobStatus sharedStatus = this.asyncCache.getSync(getId());
+        assertNotNull(sharedStatus);
+        assertEquals("result", sharedStatus.getResult().getResult());
+        assertEquals(this.status.getReferences(), sharedStatus.getReferences());
+
+        // The dependencies of the shared result are used to invalidate it
+        this.asyncCache.cleanCache(String.class, "hint");
+
+        assertNull(this.asyncCache.getSync(getId()));
+    }
+
+    @Test
+    public void putSharedDoesNotReplaceLocalResult()
+    {
+        this.asyncCache.put(this.status);
+
+        AsyncRendererJobRequest request = new AsyncRendererJobRequest();
+        request.setId(getId());
+        AsyncRendererJobStatus otherStatus = new AsyncRendererJobStatus(request, new AsyncRendererResult("other"));
+        otherStatus.setStartDate(new Date());
+        this.asyncCache.put(SharedAsyncRendererResult.fromStatus(otherStatus));
+
+        assertSame(this.status, this.asyncCache.getSync(getId()));
+    }
+
+    @Test
+    public void putSharedInvalidatedAfterStart()
+    {
+        setReferences(new DocumentReference("wiki", "Space", "Document"));
+        SharedAsyncRendererResult sharedResult = share(System.currentTimeMillis() - 5000);
+
+        // The document is modified while the other member of the cluster is producing the result
+        this.asyncCache.cleanCache(new ObjectReference("name", new DocumentReference("wiki", "Space", "Document")));
+
+        this.asyncCache.put(sharedResult);
+
+        assertNull(this.asyncCache.getSync(getId()));
+    }
+
+    @Test
+    public void putSharedInvalidatedBeforeStart()
+    {
+        setReferences(new DocumentReference("wiki", "Space", "Document"));
+
+        this.asyncCache.cleanCache(new DocumentReference("wiki", "Space", "Document"));
+
+        // Started after the invalidation (beyond the tolerated clock difference)
+        this.asyncCache.put(share(System.currentTimeMillis() + 5000));
+
+        assertNotNull(this.asyncCache.getSync(getId()));
+    }
+
+    @Test
+    public void putSharedInvalidatedOnOtherDependencies()
+    {
+        long startTime = System.currentTimeMillis() - 5000;
+
+        setReferences(new DocumentReference("wiki", "Space", "Document"));
+        SharedAsyncRendererResult sharedResult = share(startTime);
+        this.asyncCache.cleanCache("wiki");
+        this.asyncCache.put(sharedResult);
+
+        assertNull(this.asyncCache.getSync(getId()));
+
+        setReferences();
+        setRoles(new DefaultComponentRole<>(String.class, "hint"));
+        sharedResult = share(startTime);
+        this.asyncCache.cleanCache(String.class, "hint");
+        this.asyncCache.put(sharedResult);
+
+        assertNull(this.asyncCache.getSync(getId()));
+
+        setRoles();
+        this.status.setRights(Collections.singleton(new RightEntry(Right.VIEW,
+            new DocumentReference("wiki", "XWiki", "User"), new DocumentReference("wiki", "Space", "Other"), true)));
+        sharedResult = share(startTime);
+        this.asyncCache.cleanCacheForRight();
+        this.asyncCache.put(sharedResult);
+
+        assertNull(this.asyncCache.getSync(getId()));
+
+        // Without any invalidation of its dependencies the result is stored
+        this.status.setRights(Collections.emptySet());
+        setRoleTypes(Integer.class);
+        this.asyncCache.put(share(startTime));
+
+        assertNotNull(this.asyncCache.getSync(getId()));
+    }
+
+    @Test
+    public void putSharedTooOld()
+    {
+        this.asyncCache.put(share(System.currentTimeMillis() - 3600000));
+
+        assertNull(this.asyncCache.getSync(getId()));
+    }
+
+    @Test
+    public void fromStatusNotShareable()
+    {
+        this.status.setStartDate(null);
+
+        assertNull(SharedAsyncRendererResult.fromStatus(this.status));
+
+        this.status.setStartDate(new Date());
+        this.status.setUses(Collections.singletonMap("use", Collections.singletonList(new Object())));
+
+        assertNull(SharedAsyncRendererResult.fromStatus(this.status));
+
+        this.status.setUses(Collections.singletonMap("use", Collections.singletonList("value")));
+
+        assertNotNull(SharedAsyncRendererResult.fromStatus(this.status));
+    }
 }
@@ -52,6 +52,8 @@
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -82,6 +84,9 @@
     @MockComponent
     private ContextStoreManager context;
 
+    @MockComponent
+    private AsyncRendererStatistics statistics;
+
     @InjectMockComponents
     private DefaultAsyncRendererExecutor executor;
 
@@ -256,4 +261,50 @@ public void rendererAsyncAlreadyRunning() throws JobException, RenderingExceptio
         assertNotNull(response.getAsyncClientId());
         assertSame(status, response.getStatus());
     }
+
+    @Test
+    public void rendererAsyncStartedByConcurrentRequest() throws JobException, RenderingException
+    {
+        List<String> jobId = Arrays.asList("1", "2", "celement1", "value1%5c", "celement2", "value2%2f");
+
+        AsyncRendererJobRequest request = mock(AsyncRendererJobRequest.class);
+        AsyncRendererJobStatus status = mock(AsyncRendererJobStatus.class);
+        when(status.getRequest()).thenReturn(request);
+        when(this.job.getStatus()).thenReturn(status);
+        // The job is started by another request between the read and the write lock
+        when(this.jobs.getJob(jobId)).thenReturn(null, this.job);
+
+        // Enable async in the context
+        when(this.asyncContext.isEnabled()).thenReturn(true);
+
+        when(this.renderer.getId()).thenReturn(Arrays.asList("1", "2"));
+        when(this.renderer.isAsyncAllowed()).thenReturn(true);
+        when(this.renderer.isCacheAllowed()).thenReturn(true);
+
+        AsyncRendererExecutorResponse response = this.executor.render(this.renderer, this.configuration);
+
+        assertNotNull(response.getAsyncClientId());
+        assertSame(status, response.getStatus());
+        verify(this.jobs, never()).execute(same(AsyncRendererJobStatus.JOBTYPE), any(AsyncRendererJobRequest.class));
+        verify(this.statistics).requestCoalesced();
+        verify(this.statistics, never()).jobStarted();
+    }
+
+    @Test
+    public void rendererAsyncWithoutJobGroup() throws JobException, RenderingException
+    {
+        when(this.renderer.getJobGroupPath()).thenReturn(null);
+
+        // Enable async in the context
+        when(this.asyncContext.isEnabled()).thenReturn(true);
+
+        when(this.renderer.getId()).thenReturn(Arrays.asList("1", "2"));
+        when(this.renderer.isAsyncAllowed()).thenReturn(true);
+        when(this.renderer.isCacheAllowed()).thenReturn(true);
+
+        AsyncRendererExecutorResponse response = this.executor.render(this.renderer, this.configuration);
+
+        assertEquals(AsyncRendererJobInitializer.JOBGROUPPATH, response.getStatus().getRequest().getJobGroupPath());
+        verify(this.statistics).jobStarted();
+    }
 }
@@ -43,6 +43,7 @@
 import org.xwiki.model.internal.reference.DefaultStringEntityReferenceResolver;
 import org.xwiki.model.internal.reference.DefaultStringSpaceReferenceResolver;
 import org.xwiki.model.internal.reference.DefaultSymbolScheme;
+import org.xwiki.model.internal.reference.EntityReferenceFactory;
 import org.xwiki.model.internal.reference.RelativeStringEntityReferenceResolver;
 import org.xwiki.model.reference.AttachmentReference;
 import org.xwiki.model.reference.DocumentReference;
@@ -86,7 +87,8 @@
     DefaultReferenceDocumentReferenceResolver.class,
     DefaultStringSpaceReferenceResolver.class,
     ContextComponentManagerProvider.class,
-    DefaultSymbolScheme.class
+    DefaultSymbolScheme.class,
+    EntityReferenceFactory.class
 })
 // @formatter:on
 public class DefaultResourceReferenceEntityReferenceResolverTest
@@ -0,0 +1,82 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.resources.pages;
+
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+
+import org.xwiki.rest.XWikiRestException;
+import org.xwiki.rest.model.jaxb.BulkPageRequest;
+import org.xwiki.rest.model.jaxb.BulkPageResults;
+
+/**
+ * Reads or writes many pages with a single request. A result is returned for each page, with the HTTP status code
+ * that a single page request would have returned.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Path("/wikis/{wikiName}/bulk/pages")
+public interface BulkPagesResource
+{
+    /**
+     * Read the pages specified by {@link BulkPageRequest#getPageIds()}.
+     *
+     * @param wikiName the wiki used to resolve the relative page ids
+     * @param withPrettyNames whether to include the pretty names of the users
+     * @param withObjects whether to include the objects of the pages
+     * @param withClass whether to include the classes defined by the pages
+     * @param withAttachments whether to include the attachments of the pages
+     * @param request the pages to read
+     * @return the pages, in the requested order
+     * @throws XWikiRestException if the request is invalid
+     */
+    @POST
+    @Path("/read")
+    BulkPageResults readPages(
+            @PathParam("wikiName") String wikiName,
+            @QueryParam("prettyNames") @DefaultValue("false") Boolean withPrettyNames,
+            @QueryParam("objects") @DefaultValue("false") Boolean withObjects,
+            @QueryParam("class") @DefaultValue("false") Boolean withClass,
+            @QueryParam("attachments") @DefaultValue("false") Boolean withAttachments,
+            BulkPageRequest request
+    ) throws XWikiRestException;
+
+    /**
+     * Create or update the pages specified by {@link BulkPageRequest#getPages()} and the objects specified by
+     * {@link BulkPageRequest#getObjects()}. All the modifications of a page are saved at once.
+     *
+     * @param wikiName the wiki used to resolve the relative page ids
+     * @param minorRevision whether to create minor revisions
+     * @param request the pages and objects to write
+     * @return a result for each modified page, in the order the pages appear in the request
+     * @throws XWikiRestException if the request is invalid
+     */
+    @POST
+    @Path("/write")
+    BulkPageResults writePages(
+            @PathParam("wikiName") String wikiName,
+            @QueryParam("minorRevision") Boolean minorRevision,
+            BulkPageRequest request
+    ) throws XWikiRestException;
+}
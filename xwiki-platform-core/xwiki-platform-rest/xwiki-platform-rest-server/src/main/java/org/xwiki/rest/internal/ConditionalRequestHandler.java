@@ -0,0 +1,251 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Response;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.restlet.Request;
+import org.restlet.data.Conditions;
+import org.restlet.data.Method;
+import org.restlet.data.Tag;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+
+import com.xpn.xwiki.api.Attachment;
+import com.xpn.xwiki.api.Document;
+import com.xpn.xwiki.objects.BaseObject;
+
+/**
+ * Evaluates the conditional GET requests ({@code If-None-Match} and {@code If-Modified-Since} headers) and provides
+ * the validators ({@code ETag} and {@code Last-Modified} headers) of the returned representations.
+ * <p>
+ * The entity tags are weak because the same entity has several representations (XML, JSON). They are computed from
+ * the version and the date of documents and attachments, and from the content of objects. When the entity is not
+ * modified a {@link WebApplicationException} is thrown with the 304 (Not Modified) status. Otherwise the validators
+ * are stored in the request attributes and set on the returned representation by {@link XWikiSetupCleanupFilter}.
+ * <p>
+ * The {@code checkDocument} and {@code checkAttachment} methods only query the version and the date of the entity so
+ * that requests for unmodified entities don't load the document.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component(roles = ConditionalRequestHandler.class)
+@Singleton
+public class ConditionalRequestHandler
+{
+    /**
+     * The request attribute holding the entity tag of the returned representation.
+     */
+    public static final String TAG_ATTRIBUTE = "rest.entityTag";
+
+    /**
+     * The request attribute holding the modification date of the returned representation.
+     */
+    public static final String MODIFICATION_DATE_ATTRIBUTE = "rest.modificationDate";
+
+    /**
+     * The dates are stored with a precision of one second by some databases.
+     */
+    private static final long DATE_PRECISION = 1000;
+
+    private static final String FULL_NAME = "fullName";
+
+    private static final String LANGUAGE = "language";
+
+    private static final String DOCUMENT_STATEMENT =
+        "select doc.version, doc.date from XWikiDocument doc where doc.fullName = :fullName and ";
+
+    private static final String TRANSLATION_CONDITION = "doc.language = :language";
+
+    private static final String DEFAULT_LOCALE_CONDITION = "doc.translation = 0";
+
+    private static final String ATTACHMENT_STATEMENT = "select attachment.version, attachment.date "
+        + "from XWikiAttachment attachment, XWikiDocument doc where attachment.docId = doc.id "
+        + "and doc.fullName = :fullName and doc.translation = 0 and attachment.filename = :filename";
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    @Named("local")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
+    @Inject
+    private ContextualAuthorizationManager authorization;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * Evaluate the current request conditions against the version and the date of the specified document, without
+     * loading the document.
+     *
+     * @param documentReference the reference of the requested document (including the locale of a translation)
+     * @throws WebApplicationException with the 304 status if the document is not modified
+     */
+    public void checkDocument(DocumentReference documentReference)
+    {
+        if (isConditional() && this.authorization.hasAccess(Right.VIEW, documentReference)) {
+            Locale locale = documentReference.getLocale();
+            boolean isTranslation = locale != null && !Locale.ROOT.equals(locale);
+            String statement = DOCUMENT_STATEMENT + (isTranslation ? TRANSLATION_CONDITION : DEFAULT_LOCALE_CONDITION);
+            try {
+                Query query = this.queryManager.createQuery(statement, Query.HQL)
+                    .setWiki(documentReference.getWikiReference().getName())
+                    .bindValue(FULL_NAME, this.localEntityReferenceSerializer.serialize(documentReference));
+                if (isTranslation) {
+                    query.bindValue(LANGUAGE, locale.toString());
+                }
+                checkVersion(query.execute());
+            } catch (QueryException e) {
+                this.logger.warn("Failed to get the version of the document [{}]. Root cause: [{}].",
+                    documentReference, ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+    }
+
+    /**
+     * Evaluate the current request conditions against the version and the date of the specified attachment, without
+     * loading its document.
+     *
+     * @param attachmentReference the reference of the requested attachment
+     * @throws WebApplicationException with the 304 status if the attachment is not modified
+     */
+    public void checkAttachment(AttachmentReference attachmentReference)
+    {
+        DocumentReference documentReference = attachmentReference.getDocumentReference();
+        if (isConditional() && this.authorization.hasAccess(Right.VIEW, documentReference)) {
+            try {
+                checkVersion(this.queryManager.createQuery(ATTACHMENT_STATEMENT, Query.HQL)
+                    .setWiki(documentReference.getWikiReference().getName())
+                    .bindValue(FULL_NAME, this.localEntityReferenceSerializer.serialize(documentReference))
+                    .bindValue("filename", attachmentReference.getName()).execute());
+            } catch (QueryException e) {
+                this.logger.warn("Failed to get the version of the attachment [{}]. Root cause: [{}].",
+                    attachmentReference, ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+    }
+
+    /**
+     * @param document the requested document
+     * @throws WebApplicationException with the 304 status if the document is not modified
+     */
+    public void check(Document document)
+    {
+        evaluate(getTag(document.getVersion(), document.getDate()), document.getDate());
+    }
+
+    /**
+     * @param attachment the requested attachment
+     * @throws WebApplicationException with the 304 status if the attachment is not modified
+     */
+    public void check(Attachment attachment)
+    {
+        evaluate(getTag(attachment.getVersion(), attachment.getDate()), attachment.getDate());
+    }
+
+    /**
+     * @param object the requested object
+     * @throws WebApplicationException with the 304 status if the object is not modified
+     */
+    public void check(BaseObject object)
+    {
+        // Objects don't have their own version or date.
+        evaluate(DigestUtils.md5Hex(object.toXMLString(false)), null);
+    }
+
+    private void checkVersion(List<Object[]> results)
+    {
+        if (!results.isEmpty()) {
+            Date date = (Date) results.get(0)[1];
+            evaluate(getTag((String) results.get(0)[0], date), date);
+        }
+    }
+
+    private String getTag(String version, Date date)
+    {
+        return date != null ? version + '-' + date.getTime() / DATE_PRECISION : version;
+    }
+
+    private boolean isConditional()
+    {
+        Request request = Request.getCurrent();
+        return request != null && isRead(request.getMethod()) && (!request.getConditions().getNoneMatch().isEmpty()
+            || request.getConditions().getModifiedSince() != null);
+    }
+
+    private boolean isRead(Method method)
+    {
+        return Method.GET.equals(method) || Method.HEAD.equals(method);
+    }
+
+    private void evaluate(String tag, Date modificationDate)
+    {
+        Request request = Request.getCurrent();
+        if (request == null || !isRead(request.getMethod())) {
+            return;
+        }
+
+        request.getAttributes().put(TAG_ATTRIBUTE, new Tag(tag, true));
+        if (modificationDate != null) {
+            request.getAttributes().put(MODIFICATION_DATE_ATTRIBUTE, modificationDate);
+        }
+
+        if (isNotModified(request.getConditions(), tag, modificationDate)) {
+            throw new WebApplicationException(Response.notModified(new EntityTag(tag, true)).build());
+        }
+    }
+
+    private boolean isNotModified(Conditions conditions, String tag, Date modificationDate)
+    {
+        // If-Modified-Since is ignored when If-None-Match is specified (RFC 7232).
+        List<Tag> noneMatch = conditions.getNoneMatch();
+        if (!noneMatch.isEmpty()) {
+            // Weak comparison.
+            return noneMatch.stream().anyMatch(candidate -> "*".equals(candidate.getName())
+                || tag.equals(candidate.getName()));
+        }
+
+        Date modifiedSince = conditions.getModifiedSince();
+        return modifiedSince != null && modificationDate != null
+            && modificationDate.getTime() / DATE_PRECISION <= modifiedSince.getTime() / DATE_PRECISION;
+    }
+}
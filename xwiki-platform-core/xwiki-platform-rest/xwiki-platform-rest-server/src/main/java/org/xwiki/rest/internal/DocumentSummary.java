@@ -0,0 +1,345 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.xwiki.model.reference.DocumentReference;
+
+/**
+ * The information needed to build the summary of a page (see {@link ModelFactory#toRestPageSummary}), gathered either
+ * from a loaded document or, in order to list many pages without loading them, from projection queries (see
+ * {@link DocumentSummaryLoader}).
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+public class DocumentSummary
+{
+    private final DocumentReference documentReference;
+
+    private String title;
+
+    private String displayTitle;
+
+    private String url;
+
+    private String externalURL;
+
+    private String syntax;
+
+    private String version;
+
+    private String author;
+
+    private String parent;
+
+    private DocumentReference existingParentReference;
+
+    private Locale defaultLocale = Locale.ROOT;
+
+    private List<Locale> translationLocales = new ArrayList<>();
+
+    private boolean hasChildren;
+
+    private boolean hasComments;
+
+    private boolean hasAttachments;
+
+    private boolean hasObjects;
+
+    private boolean hasTags;
+
+    /**
+     * @param documentReference the reference of the document (without locale)
+     */
+    public DocumentSummary(DocumentReference documentReference)
+    {
+        this.documentReference = documentReference;
+    }
+
+    /**
+     * @return the reference of the document (without locale)
+     */
+    public DocumentReference getDocumentReference()
+    {
+        return this.documentReference;
+    }
+
+    /**
+     * @return the raw title of the document
+     */
+    public String getTitle()
+    {
+        return this.title;
+    }
+
+    /**
+     * @param title the raw title of the document
+     */
+    public void setTitle(String title)
+    {
+        this.title = title;
+    }
+
+    /**
+     * @return the rendered title of the document
+     */
+    public String getDisplayTitle()
+    {
+        return this.displayTitle;
+    }
+
+    /**
+     * @param displayTitle the rendered title of the document
+     */
+    public void setDisplayTitle(String displayTitle)
+    {
+        this.displayTitle = displayTitle;
+    }
+
+    /**
+     * @return the relative URL to view the document
+     */
+    public String getURL()
+    {
+        return this.url;
+    }
+
+    /**
+     * @param url the relative URL to view the document
+     */
+    public void setURL(String url)
+    {
+        this.url = url;
+    }
+
+    /**
+     * @return the absolute URL to view the document
+     */
+    public String getExternalURL()
+    {
+        return this.externalURL;
+    }
+
+    /**
+     * @param externalURL the absolute URL to view the document
+     */
+    public void setExternalURL(String externalURL)
+    {
+        this.externalURL = externalURL;
+    }
+
+    /**
+     * @return the identifier of the document syntax
+     */
+    public String getSyntax()
+    {
+        return this.syntax;
+    }
+
+    /**
+     * @param syntax the identifier of the document syntax
+     */
+    public void setSyntax(String syntax)
+    {
+        this.syntax = syntax;
+    }
+
+    /**
+     * @return the version of the document
+     */
+    public String getVersion()
+    {
+        return this.version;
+    }
+
+    /**
+     * @param version the version of the document
+     */
+    public void setVersion(String version)
+    {
+        this.version = version;
+    }
+
+    /**
+     * @return the last author of the document
+     */
+    public String getAuthor()
+    {
+        return this.author;
+    }
+
+    /**
+     * @param author the last author of the document
+     */
+    public void setAuthor(String author)
+    {
+        this.author = author;
+    }
+
+    /**
+     * @return the parent of the document, as specified on the document
+     */
+    public String getParent()
+    {
+        return this.parent;
+    }
+
+    /**
+     * @param parent the parent of the document, as specified on the document
+     */
+    public void setParent(String parent)
+    {
+        this.parent = parent;
+    }
+
+    /**
+     * @return the reference of the parent document, {@code null} if the document has no parent or if the parent
+     *         document doesn't exist
+     */
+    public DocumentReference getExistingParentReference()
+    {
+        return this.existingParentReference;
+    }
+
+    /**
+     * @param existingParentReference the reference of the parent document, {@code null} if the document has no parent
+     *            or if the parent document doesn't exist
+     */
+    public void setExistingParentReference(DocumentReference existingParentReference)
+    {
+        this.existingParentReference = existingParentReference;
+    }
+
+    /**
+     * @return the locale of the original document
+     */
+    public Locale getDefaultLocale()
+    {
+        return this.defaultLocale;
+    }
+
+    /**
+     * @param defaultLocale the locale of the original document
+     */
+    public void setDefaultLocale(Locale defaultLocale)
+    {
+        this.defaultLocale = defaultLocale;
+    }
+
+    /**
+     * @return the locales of the existing translations of the document
+     */
+    public List<Locale> getTranslationLocales()
+    {
+        return this.translationLocales;
+    }
+
+    /**
+     * @param translationLocales the locales of the existing translations of the document
+     */
+    public void setTranslationLocales(List<Locale> translationLocales)
+    {
+        this.translationLocales = translationLocales;
+    }
+
+    /**
+     * @return {@code true} if some documents have this document as parent
+     */
+    public boolean hasChildren()
+    {
+        return this.hasChildren;
+    }
+
+    /**
+     * @param hasChildren {@code true} if some documents have this document as parent
+     */
+    public void setHasChildren(boolean hasChildren)
+    {
+        this.hasChildren = hasChildren;
+    }
+
+    /**
+     * @return {@code true} if the document has comments
+     */
+    public boolean hasComments()
+    {
+        return this.hasComments;
+    }
+
+    /**
+     * @param hasComments {@code true} if the document has comments
+     */
+    public void setHasComments(boolean hasComments)
+    {
+        this.hasComments = hasComments;
+    }
+
+    /**
+     * @return {@code true} if the document has attachments
+     */
+    public boolean hasAttachments()
+    {
+        return this.hasAttachments;
+    }
+
+    /**
+     * @param hasAttachments {@code true} if the document has attachments
+     */
+    public void setHasAttachments(boolean hasAttachments)
+    {
+        this.hasAttachments = hasAttachments;
+    }
+
+    /**
+     * @return {@code true} if the document has objects
+     */
+    public boolean hasObjects()
+    {
+        return this.hasObjects;
+    }
+
+    /**
+     * @param hasObjects {@code true} if the document has objects
+     */
+    public void setHasObjects(boolean hasObjects)
+    {
+        this.hasObjects = hasObjects;
+    }
+
+    /**
+     * @return {@code true} if the document is tagged
+     */
+    public boolean hasTags()
+    {
+        return this.hasTags;
+    }
+
+    /**
+     * @param hasTags {@code true} if the document is tagged
+     */
+    public void setHasTags(boolean hasTags)
+    {
+        this.hasTags = hasTags;
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.collections4.ListUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.localization.LocaleUtils;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryFilter;
+import org.xwiki.query.QueryManager;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+
+/**
+ * Gathers the information needed to build the summaries of many pages (e.g. when listing the pages of a space) using a
+ * few projection queries, instead of loading each page with its objects and attachments.
+ * <p>
+ * The pages the current user is not allowed to view are filtered out before querying the database, so that the access
+ * rights are checked once for the whole list (against the security cache) instead of once per loaded page.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component(roles = DocumentSummaryLoader.class)
+@Singleton
+public class DocumentSummaryLoader
+{
+    /**
+     * The maximum number of values passed to an "in" clause, some databases don't support long lists.
+     */
+    private static final int BATCH_SIZE = 500;
+
+    private static final String NAMES = "names";
+
+    private static final String VIEW_ACTION = "view";
+
+    private static final String TAG_CLASS = "XWiki.TagClass";
+
+    private static final String COMMENTS_CLASS = "XWiki.XWikiComments";
+
+    private static final String DOCUMENTS_STATEMENT = "select doc.fullName, doc.title, doc.syntaxId, doc.version, "
+        + "doc.author, doc.parent, doc.defaultLanguage from XWikiDocument doc "
+        + "where doc.translation = 0 and doc.fullName in (:names)";
+
+    private static final String TRANSLATIONS_STATEMENT = "select doc.fullName, doc.language from XWikiDocument doc "
+        + "where doc.translation = 1 and doc.fullName in (:names)";
+
+    private static final String OBJECTS_STATEMENT =
+        "select distinct obj.name, obj.className from BaseObject obj where obj.name in (:names)";
+
+    private static final String TAGS_STATEMENT = "select obj.name from BaseObject obj, DBStringListProperty prop "
+        + "where obj.className = 'XWiki.TagClass' and obj.number = 0 and prop.id.id = obj.id "
+        + "and prop.id.name = 'tags' and obj.name in (:names)";
+
+    private static final String ATTACHMENTS_STATEMENT = "select distinct doc.fullName from XWikiDocument doc, "
+        + "XWikiAttachment attachment where attachment.docId = doc.id and doc.translation = 0 "
+        + "and doc.fullName in (:names)";
+
+    private static final String CHILDREN_STATEMENT =
+        "select distinct doc.parent, doc.space from XWikiDocument doc where doc.parent in (:names)";
+
+    private static final String EXISTING_STATEMENT =
+        "select doc.fullName from XWikiDocument doc where doc.translation = 0 and doc.fullName in (:names)";
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    @Named("hidden")
+    private QueryFilter hiddenFilter;
+
+    @Inject
+    private ContextualAuthorizationManager authorization;
+
+    @Inject
+    private EntityReferenceSerializer<String> defaultEntityReferenceSerializer;
+
+    @Inject
+    @Named("local")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
+    @Inject
+    @Named("explicit")
+    private DocumentReferenceResolver<String> explicitDocumentReferenceResolver;
+
+    @Inject
+    private DocumentTitleRenderer titleRenderer;
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    /**
+     * @param documentReferences the pages to summarize
+     * @return the summaries of the specified pages that exist and that the current user is allowed to view, in the
+     *         same order
+     * @throws QueryException if querying the database fails
+     * @throws XWikiException if computing the display title of a page fails
+     */
+    public List<DocumentSummary> load(List<DocumentReference> documentReferences)
+        throws QueryException, XWikiException
+    {
+        List<DocumentReference> viewableReferences = documentReferences.stream()
+            .filter(documentReference -> this.authorization.hasAccess(Right.VIEW, documentReference))
+            .collect(Collectors.toList());
+
+        Map<DocumentReference, DocumentSummary> summaries = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, DocumentReference>> entry : groupByWiki(viewableReferences).entrySet()) {
+            summaries.putAll(load(entry.getKey(), entry.getValue()));
+        }
+
+        List<DocumentSummary> result = new ArrayList<>();
+        for (DocumentReference documentReference : documentReferences) {
+            DocumentSummary summary = summaries.get(documentReference);
+            if (summary != null) {
+                result.add(summary);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @param documentReferences the pages to check (without locale)
+     * @return the specified pages that exist
+     * @throws QueryException if querying the database fails
+     */
+    public Set<DocumentReference> getExisting(Collection<DocumentReference> documentReferences) throws QueryException
+    {
+        Set<DocumentReference> existing = new HashSet<>();
+        for (Map.Entry<String, Map<String, DocumentReference>> entry : groupByWiki(documentReferences).entrySet()) {
+            for (String fullName : this.<String>execute(EXISTING_STATEMENT, entry.getKey(),
+                entry.getValue().keySet(), null)) {
+                existing.add(entry.getValue().get(fullName));
+            }
+        }
+
+        return existing;
+    }
+
+    private Map<DocumentReference, DocumentSummary> load(String wiki, Map<String, DocumentReference> references)
+        throws QueryException, XWikiException
+    {
+        Map<String, DocumentSummary> summaries = new LinkedHashMap<>();
+        for (Object[] row : this.<Object[]>execute(DOCUMENTS_STATEMENT, wiki, references.keySet(), null)) {
+            DocumentSummary summary = new DocumentSummary(references.get(row[0]));
+            summary.setTitle(StringUtils.defaultString((String) row[1]));
+            summary.setSyntax(StringUtils.isBlank((String) row[2]) ? Syntax.XWIKI_1_0.toIdString() : (String) row[2]);
+            summary.setVersion((String) row[3]);
+            summary.setAuthor((String) row[4]);
+            summary.setParent(StringUtils.defaultString((String) row[5]));
+            summary.setDefaultLocale(LocaleUtils.toLocale((String) row[6], Locale.ROOT));
+            summaries.put((String) row[0], summary);
+        }
+
+        if (!summaries.isEmpty()) {
+            loadTranslations(wiki, summaries);
+            Set<String> mayHaveSheet = loadObjects(wiki, summaries);
+            loadAttachments(wiki, summaries);
+            loadChildren(wiki, summaries);
+            loadParents(summaries);
+
+            XWikiContext xcontext = this.xcontextProvider.get();
+            for (Map.Entry<String, DocumentSummary> entry : summaries.entrySet()) {
+                DocumentSummary summary = entry.getValue();
+                DocumentReference documentReference = summary.getDocumentReference();
+                summary.setDisplayTitle(this.titleRenderer.getDisplayTitle(documentReference, summary.getTitle(),
+                    mayHaveSheet.contains(entry.getKey())));
+                summary.setURL(xcontext.getWiki().getURL(documentReference, VIEW_ACTION, xcontext));
+                summary.setExternalURL(
+                    xcontext.getWiki().getExternalURL(documentReference, VIEW_ACTION, null, null, xcontext));
+            }
+        }
+
+        Map<DocumentReference, DocumentSummary> result = new LinkedHashMap<>();
+        summaries.values().forEach(summary -> result.put(summary.getDocumentReference(), summary));
+        return result;
+    }
+
+    private void loadTranslations(String wiki, Map<String, DocumentSummary> summaries) throws QueryException
+    {
+        for (Object[] row : this.<Object[]>execute(TRANSLATIONS_STATEMENT, wiki, summaries.keySet(), null)) {
+            summaries.get(row[0]).getTranslationLocales().add(LocaleUtils.toLocale((String) row[1]));
+        }
+    }
+
+    /**
+     * @return the pages that have objects which may bind a sheet to them
+     */
+    private Set<String> loadObjects(String wiki, Map<String, DocumentSummary> summaries) throws QueryException
+    {
+        Set<String> mayHaveSheet = new HashSet<>();
+        for (Object[] row : this.<Object[]>execute(OBJECTS_STATEMENT, wiki, summaries.keySet(), null)) {
+            DocumentSummary summary = summaries.get(row[0]);
+            summary.setHasObjects(true);
+            if (COMMENTS_CLASS.equals(row[1])) {
+                summary.setHasComments(true);
+            } else if (!TAG_CLASS.equals(row[1])) {
+                mayHaveSheet.add((String) row[0]);
+            }
+        }
+
+        for (String fullName : this.<String>execute(TAGS_STATEMENT, wiki, summaries.keySet(), null)) {
+            summaries.get(fullName).setHasTags(true);
+        }
+
+        return mayHaveSheet;
+    }
+
+    private void loadAttachments(String wiki, Map<String, DocumentSummary> summaries) throws QueryException
+    {
+        for (String fullName : this.<String>execute(ATTACHMENTS_STATEMENT, wiki, summaries.keySet(), null)) {
+            summaries.get(fullName).setHasAttachments(true);
+        }
+    }
+
+    private void loadChildren(String wiki, Map<String, DocumentSummary> summaries) throws QueryException
+    {
+        // The parent of a child page is saved either with or without the wiki, or as a page name when the child page
+        // is in the same space (see XWikiDocument#getChildrenReferences()).
+        Set<String> parents = new HashSet<>();
+        for (DocumentSummary summary : summaries.values()) {
+            DocumentReference documentReference = summary.getDocumentReference();
+            parents.add(this.defaultEntityReferenceSerializer.serialize(documentReference));
+            parents.add(this.localEntityReferenceSerializer.serialize(documentReference));
+            parents.add(documentReference.getName());
+        }
+
+        Set<String> childParents = new HashSet<>();
+        Set<List<String>> childParentsInSpace = new HashSet<>();
+        for (Object[] row : this.<Object[]>execute(CHILDREN_STATEMENT, wiki, parents, this.hiddenFilter)) {
+            childParents.add((String) row[0]);
+            childParentsInSpace.add(Arrays.asList((String) row[0], (String) row[1]));
+        }
+
+        for (DocumentSummary summary : summaries.values()) {
+            DocumentReference documentReference = summary.getDocumentReference();
+            summary.setHasChildren(
+                childParents.contains(this.defaultEntityReferenceSerializer.serialize(documentReference))
+                    || childParents.contains(this.localEntityReferenceSerializer.serialize(documentReference))
+                    || childParentsInSpace.contains(Arrays.asList(documentReference.getName(),
+                        this.localEntityReferenceSerializer.serialize(documentReference.getLastSpaceReference()))));
+        }
+    }
+
+    private void loadParents(Map<String, DocumentSummary> summaries) throws QueryException
+    {
+        Map<DocumentSummary, DocumentReference> parentReferences = new LinkedHashMap<>();
+        for (DocumentSummary summary : summaries.values()) {
+            String parent = summary.getParent();
+            if (StringUtils.isNotEmpty(parent)) {
+                parentReferences.put(summary,
+                    this.explicitDocumentReferenceResolver.resolve(parent, summary.getDocumentReference()));
+            }
+        }
+
+        Set<DocumentReference> existingParentReferences = getExisting(parentReferences.values());
+        for (Map.Entry<DocumentSummary, DocumentReference> entry : parentReferences.entrySet()) {
+            if (existingParentReferences.contains(entry.getValue())) {
+                entry.getKey().setExistingParentReference(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return the specified pages grouped by wiki, and indexed by their local name in each wiki
+     */
+    private Map<String, Map<String, DocumentReference>> groupByWiki(Collection<DocumentReference> documentReferences)
+    {
+        Map<String, Map<String, DocumentReference>> referencesByWiki = new LinkedHashMap<>();
+        for (DocumentReference documentReference : documentReferences) {
+            referencesByWiki
+                .computeIfAbsent(documentReference.getWikiReference().getName(), key -> new LinkedHashMap<>())
+                .put(this.localEntityReferenceSerializer.serialize(documentReference), documentReference);
+        }
+        return referencesByWiki;
+    }
+
+    private <T> List<T> execute(String statement, String wiki, Collection<String> values, QueryFilter filter)
+        throws QueryException
+    {
+        List<T> results = new ArrayList<>();
+        for (List<String> batch : ListUtils.partition(new ArrayList<>(values), BATCH_SIZE)) {
+            Query query = this.queryManager.createQuery(statement, Query.HQL).setWiki(wiki).bindValue(NAMES, batch);
+            if (filter != null) {
+                query.addFilter(filter);
+            }
+            results.addAll(query.<T>execute());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal;
+
+import java.io.StringReader;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceProvider;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.parser.Parser;
+import org.xwiki.rendering.renderer.BlockRenderer;
+import org.xwiki.rendering.renderer.printer.DefaultWikiPrinter;
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.rendering.transformation.RenderingContext;
+import org.xwiki.rendering.util.ParserUtils;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+
+/**
+ * Computes the display title of a page from its raw title, without loading the page when possible.
+ * <p>
+ * The title displayer evaluates the Velocity script from the title, extracts the title from the content when the title
+ * compatibility mode is enabled and takes into account the sheets bound to the page. When none of this applies (the
+ * raw title has no script and the page can't have a sheet) the display title is simply the raw title (or the page name
+ * when the title is empty) rendered as plain text, which doesn't require the page.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component(roles = DocumentTitleRenderer.class)
+@Singleton
+public class DocumentTitleRenderer
+{
+    @Inject
+    @Named("plain/1.0")
+    private Parser plainTextParser;
+
+    @Inject
+    private RenderingContext renderingContext;
+
+    @Inject
+    @Named("context")
+    private Provider<ComponentManager> componentManagerProvider;
+
+    @Inject
+    @Named("xwikicfg")
+    private ConfigurationSource xwikicfg;
+
+    @Inject
+    private EntityReferenceProvider defaultEntityReferenceProvider;
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    @Inject
+    private Logger logger;
+
+    private final ParserUtils parserUtils = new ParserUtils();
+
+    /**
+     * @param documentReference the page whose title is displayed
+     * @param rawTitle the raw title of the page
+     * @param mayHaveSheet {@code true} if the page has objects that can bind a sheet to it
+     * @return the display title of the page
+     * @throws XWikiException if loading the page fails
+     */
+    public String getDisplayTitle(DocumentReference documentReference, String rawTitle, boolean mayHaveSheet)
+        throws XWikiException
+    {
+        String displayTitle = null;
+
+        if (!mayHaveSheet && !StringUtils.containsAny(rawTitle, '$', '#')) {
+            if (StringUtils.isNotEmpty(rawTitle)) {
+                displayTitle = render(rawTitle);
+            } else if (!"1".equals(this.xwikicfg.getProperty("xwiki.title.compatibility", "0"))) {
+                displayTitle = render(getStaticTitle(documentReference));
+            }
+        }
+
+        if (displayTitle == null) {
+            XWikiContext xcontext = this.xcontextProvider.get();
+            displayTitle = xcontext.getWiki().getDocument(documentReference, xcontext).getRenderedTitle(xcontext);
+        }
+
+        return displayTitle;
+    }
+
+    private String getStaticTitle(DocumentReference documentReference)
+    {
+        String documentName = documentReference.getName();
+        if (this.defaultEntityReferenceProvider.getDefaultReference(EntityType.DOCUMENT).getName()
+            .equals(documentName)) {
+            // This document represents a space (it is the home page of a space). Use the space name instead.
+            documentName = documentReference.getParent().getName();
+        }
+        return documentName;
+    }
+
+    private String render(String title)
+    {
+        Syntax targetSyntax = this.renderingContext.getTargetSyntax();
+        if (targetSyntax == null) {
+            return null;
+        }
+
+        try {
+            XDOM xdom = this.plainTextParser.parse(new StringReader(title));
+            this.parserUtils.removeTopLevelParagraph(xdom.getChildren());
+
+            BlockRenderer renderer =
+                this.componentManagerProvider.get().getInstance(BlockRenderer.class, targetSyntax.toIdString());
+            WikiPrinter printer = new DefaultWikiPrinter();
+            renderer.render(xdom, printer);
+
+            return printer.toString();
+        } catch (Exception e) {
+            this.logger.debug("Failed to render the title [{}] to [{}]. Root cause is [{}].", title, targetSyntax,
+                ExceptionUtils.getRootCauseMessage(e));
+
+            return null;
+        }
+    }
+}
@@ -33,6 +33,7 @@
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 import javax.xml.parsers.ParserConfigurationException;
@@ -140,6 +141,8 @@
 {
     private static final String PASSWORD_TYPE = "Password";
 
+    private static final String VIEW_ACTION = "view";
+
     private final ObjectFactory objectFactory;
 
     @Inject
@@ -160,6 +163,10 @@
     @Inject
     private EntityReferenceSerializer<String> defaultEntityReferenceSerializer;
 
+    @Inject
+    @Named("local")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
     @Inject
     private WikiDescriptorManager wikiDescriptorManager;
 
@@ -453,16 +460,33 @@ public Wiki toRestWiki(URI baseUri, String wikiName)
     }
 
     public Space toRestSpace(URI baseUri, String wikiName, List<String> spaces, Document home)
+    {
+        return toRestSpace(baseUri, wikiName, spaces, home != null ? home.getDocumentReference() : null);
+    }
+
+    /**
+     * Same as {@link #toRestSpace(URI, String, List, Document)} but without loading the space home page.
+     *
+     * @param baseUri the base URI of the REST resources
+     * @param wikiName the wiki of the space
+     * @param spaces the space names
+     * @param homeReference the reference of the space home page, {@code null} if it doesn't exist
+     * @return the REST representation of the space
+     * @since 13.3RC1
+     */
+    public Space toRestSpace(URI baseUri, String wikiName, List<String> spaces, DocumentReference homeReference)
     {
         Space space = this.objectFactory.createSpace();
         space.setId(Utils.getSpaceId(wikiName, spaces));
         space.setWiki(wikiName);
         // the name of the space is the last element of the spaces list
         space.setName(spaces.get(spaces.size() - 1));
-        if (home != null) {
-            space.setHome(home.getPrefixedFullName());
-            space.setXwikiRelativeUrl(home.getURL("view"));
-            space.setXwikiAbsoluteUrl(home.getExternalURL("view"));
+        if (homeReference != null) {
+            XWikiContext xcontext = this.xcontextProvider.get();
+            space.setHome(this.defaultEntityReferenceSerializer.serialize(homeReference));
+            space.setXwikiRelativeUrl(xcontext.getWiki().getURL(homeReference, VIEW_ACTION, xcontext));
+            space.setXwikiAbsoluteUrl(
+                xcontext.getWiki().getExternalURL(homeReference, VIEW_ACTION, null, null, xcontext));
         }
 
         String pagesUri = Utils.createURI(baseUri, PagesResource.class, wikiName, spaces).toString();
@@ -471,10 +495,9 @@ public Space toRestSpace(URI baseUri, String wikiName, List<String> spaces, Docu
         pagesLink.setRel(Relations.PAGES);
         space.getLinks().add(pagesLink);
 
-        if (home != null) {
+        if (homeReference != null) {
             String homeUri =
-                Utils.createURI(baseUri, PageResource.class, wikiName, spaces, home.getDocumentReference().getName())
-                    .toString();
+                Utils.createURI(baseUri, PageResource.class, wikiName, spaces, homeReference.getName()).toString();
             Link homeLink = this.objectFactory.createLink();
             homeLink.setHref(homeUri);
             homeLink.setRel(Relations.HOME);
@@ -491,14 +514,19 @@ public Space toRestSpace(URI baseUri, String wikiName, List<String> spaces, Docu
     }
 
     public Translations toRestTranslations(URI baseUri, Document doc) throws XWikiException
+    {
+        return toRestTranslations(baseUri, doc.getDocumentReference(), getDefaultLocale(doc),
+            doc.getTranslationLocales());
+    }
+
+    private Translations toRestTranslations(URI baseUri, DocumentReference documentReference, Locale defaultLocale,
+        List<Locale> locales)
     {
         Translations translations = this.objectFactory.createTranslations();
-        Locale defaultLocale = getDefaultLocale(doc);
         translations.setDefault(defaultLocale.toString());
 
-        List<Locale> locales = doc.getTranslationLocales();
-
-        List<String> spaces = Utils.getSpacesFromSpaceId(doc.getSpace());
+        String wikiName = documentReference.getWikiReference().getName();
+        List<String> spaces = Utils.getSpacesHierarchy(documentReference.getLastSpaceReference());
 
         // Add the default (original) page translation, if it makes sense.
         if (!locales.isEmpty() && !Locale.ROOT.equals(defaultLocale)) {
@@ -506,15 +534,15 @@ public Translations toRestTranslations(URI baseUri, Document doc) throws XWikiEx
             translation.setLanguage(translations.getDefault());
 
             String pageTranslationUri = Utils
-                .createURI(baseUri, PageResource.class, doc.getWiki(), spaces, doc.getDocumentReference().getName())
+                .createURI(baseUri, PageResource.class, wikiName, spaces, documentReference.getName())
                 .toString();
             Link pageTranslationLink = this.objectFactory.createLink();
             pageTranslationLink.setHref(pageTranslationUri);
             pageTranslationLink.setRel(Relations.PAGE);
             translation.getLinks().add(pageTranslationLink);
 
-            String historyUri = Utils.createURI(baseUri, PageHistoryResource.class, doc.getWiki(), spaces,
-                doc.getDocumentReference().getName()).toString();
+            String historyUri = Utils.createURI(baseUri, PageHistoryResource.class, wikiName, spaces,
+                documentReference.getName()).toString();
             Link historyLink = this.objectFactory.createLink();
             historyLink.setHref(historyUri);
             historyLink.setRel(Relations.HISTORY);
@@ -527,15 +555,15 @@ public Translations toRestTranslations(URI baseUri, Document doc) throws XWikiEx
             Translation translation = this.objectFactory.createTranslation();
             translation.setLanguage(locale.toString());
 
-            String pageTranslationUri = Utils.createURI(baseUri, PageTranslationResource.class, doc.getWiki(), spaces,
-                doc.getDocumentReference().getName(), locale).toString();
+            String pageTranslationUri = Utils.createURI(baseUri, PageTranslationResource.class, wikiName, spaces,
+                documentReference.getName(), locale).toString();
             Link pageTranslationLink = this.objectFactory.createLink();
             pageTranslationLink.setHref(pageTranslationUri);
             pageTranslationLink.setRel(Relations.PAGE);
             translation.getLinks().add(pageTranslationLink);
 
-            String historyUri = Utils.createURI(baseUri, PageTranslationHistoryResource.class, doc.getWiki(), spaces,
-                doc.getDocumentReference().getName(), locale).toString();
+            String historyUri = Utils.createURI(baseUri, PageTranslationHistoryResource.class, wikiName, spaces,
+                documentReference.getName(), locale).toString();
             Link historyLink = this.objectFactory.createLink();
             historyLink.setHref(historyUri);
             historyLink.setRel(Relations.HISTORY);
@@ -577,44 +605,83 @@ private Locale getDefaultLocale(Document document)
      */
     private void toRestPageSummary(PageSummary pageSummary, URI baseUri, Document doc, boolean useVersion,
         Boolean withPrettyNames) throws XWikiException
+    {
+        toRestPageSummary(pageSummary, baseUri, toDocumentSummary(doc), useVersion, withPrettyNames);
+    }
+
+    private DocumentSummary toDocumentSummary(Document doc) throws XWikiException
     {
         XWikiContext xwikiContext = this.xcontextProvider.get();
 
-        pageSummary.setWiki(doc.getWiki());
-        pageSummary.setFullName(doc.getFullName());
-        pageSummary.setId(doc.getPrefixedFullName());
-        pageSummary.setSpace(doc.getSpace());
-        pageSummary.setName(doc.getDocumentReference().getName());
-        pageSummary.setTitle(doc.getDisplayTitle());
-        pageSummary.setRawTitle(doc.getTitle());
-        pageSummary.setXwikiRelativeUrl(doc.getURL("view"));
-        pageSummary.setXwikiAbsoluteUrl(doc.getExternalURL("view"));
-        pageSummary.setTranslations(toRestTranslations(baseUri, doc));
-        pageSummary.setSyntax(doc.getSyntax().toIdString());
-        pageSummary.setVersion(doc.getVersion());
-        pageSummary.setAuthor(doc.getAuthor());
+        DocumentSummary summary = new DocumentSummary(doc.getDocumentReference());
+        summary.setTitle(doc.getTitle());
+        summary.setDisplayTitle(doc.getDisplayTitle());
+        summary.setURL(doc.getURL(VIEW_ACTION));
+        summary.setExternalURL(doc.getExternalURL(VIEW_ACTION));
+        summary.setSyntax(doc.getSyntax().toIdString());
+        summary.setVersion(doc.getVersion());
+        summary.setAuthor(doc.getAuthor());
+        summary.setParent(doc.getParent());
+        DocumentReference parentReference = doc.getParentReference();
+        if (parentReference != null && xwikiContext.getWiki().exists(parentReference, xwikiContext)) {
+            summary.setExistingParentReference(parentReference);
+        }
+        summary.setDefaultLocale(getDefaultLocale(doc));
+        summary.setTranslationLocales(doc.getTranslationLocales());
+        summary.setHasChildren(!doc.getChildren().isEmpty());
+        summary.setHasComments(!doc.getComments().isEmpty());
+        summary.setHasAttachments(!doc.getAttachmentList().isEmpty());
+        summary.setHasObjects(!doc.getxWikiObjects().keySet().isEmpty());
+        com.xpn.xwiki.api.Object tagsObject = doc.getObject("XWiki.TagClass", 0);
+        summary.setHasTags(tagsObject != null && tagsObject.getProperty("tags") != null);
+
+        return summary;
+    }
+
+    private void toRestPageSummary(PageSummary pageSummary, URI baseUri, DocumentSummary summary,
+        boolean useVersion, Boolean withPrettyNames)
+    {
+        XWikiContext xwikiContext = this.xcontextProvider.get();
+
+        DocumentReference documentReference = summary.getDocumentReference();
+        String wikiName = documentReference.getWikiReference().getName();
+        List<String> spaces = Utils.getSpacesHierarchy(documentReference.getLastSpaceReference());
+
+        pageSummary.setWiki(wikiName);
+        pageSummary.setFullName(this.localEntityReferenceSerializer.serialize(documentReference));
+        pageSummary.setId(this.defaultEntityReferenceSerializer.serialize(documentReference));
+        pageSummary.setSpace(this.localEntityReferenceSerializer.serialize(documentReference.getLastSpaceReference()));
+        pageSummary.setName(documentReference.getName());
+        pageSummary.setTitle(summary.getDisplayTitle());
+        pageSummary.setRawTitle(summary.getTitle());
+        pageSummary.setXwikiRelativeUrl(summary.getURL());
+        pageSummary.setXwikiAbsoluteUrl(summary.getExternalURL());
+        pageSummary.setTranslations(toRestTranslations(baseUri, documentReference, summary.getDefaultLocale(),
+            summary.getTranslationLocales()));
+        pageSummary.setSyntax(summary.getSyntax());
+        pageSummary.setVersion(summary.getVersion());
+        pageSummary.setAuthor(summary.getAuthor());
         if (withPrettyNames) {
-            pageSummary.setAuthorName(xwikiContext.getWiki().getUserName(doc.getAuthor(), null, false, xwikiContext));
+            pageSummary.setAuthorName(
+                xwikiContext.getWiki().getUserName(summary.getAuthor(), null, false, xwikiContext));
         }
 
-        pageSummary.setParent(doc.getParent());
-        DocumentReference parentReference = doc.getParentReference();
-        boolean parentExist = parentReference != null && xwikiContext.getWiki().exists(parentReference, xwikiContext);
+        pageSummary.setParent(summary.getParent());
+        DocumentReference parentReference = summary.getExistingParentReference();
         // parentId must not be set if the parent document does not exist.
-        if (parentExist) {
+        if (parentReference != null) {
             pageSummary.setParentId(this.serializer.serialize(parentReference));
         } else {
             pageSummary.setParentId("");
         }
 
-        List<String> spaces = Utils.getSpacesFromSpaceId(doc.getSpace());
-        String spaceUri = Utils.createURI(baseUri, SpaceResource.class, doc.getWiki(), spaces).toString();
+        String spaceUri = Utils.createURI(baseUri, SpaceResource.class, wikiName, spaces).toString();
         Link spaceLink = this.objectFactory.createLink();
         spaceLink.setHref(spaceUri);
         spaceLink.setRel(Relations.SPACE);
         pageSummary.getLinks().add(spaceLink);
 
-        if (parentExist) {
+        if (parentReference != null) {
             String parentUri = Utils.createURI(baseUri, PageResource.class,
                 parentReference.getWikiReference().getName(), spaces, parentReference.getName()).toString();
             Link parentLink = this.objectFactory.createLink();
@@ -623,30 +690,30 @@ private void toRestPageSummary(PageSummary pageSummary, URI baseUri, Document do
             pageSummary.getLinks().add(parentLink);
         }
 
-        String historyUri = Utils.createURI(baseUri, PageHistoryResource.class, doc.getWiki(),
-            Utils.getSpacesFromSpaceId(doc.getSpace()), doc.getDocumentReference().getName()).toString();
+        String historyUri = Utils.createURI(baseUri, PageHistoryResource.class, wikiName, spaces,
+            documentReference.getName()).toString();
         Link historyLink = this.objectFactory.createLink();
         historyLink.setHref(historyUri);
         historyLink.setRel(Relations.HISTORY);
         pageSummary.getLinks().add(historyLink);
 
-        if (!doc.getChildren().isEmpty()) {
-            String pageChildrenUri = Utils.createURI(baseUri, PageChildrenResource.class, doc.getWiki(), spaces,
-                doc.getDocumentReference().getName()).toString();
+        if (summary.hasChildren()) {
+            String pageChildrenUri = Utils.createURI(baseUri, PageChildrenResource.class, wikiName, spaces,
+                documentReference.getName()).toString();
             Link pageChildrenLink = this.objectFactory.createLink();
             pageChildrenLink.setHref(pageChildrenUri);
             pageChildrenLink.setRel(Relations.CHILDREN);
             pageSummary.getLinks().add(pageChildrenLink);
         }
 
-        if (!doc.getComments().isEmpty()) {
+        if (summary.hasComments()) {
             String commentsUri;
             if (useVersion) {
-                commentsUri = Utils.createURI(baseUri, CommentsVersionResource.class, doc.getWiki(), spaces,
-                    doc.getDocumentReference().getName(), doc.getVersion()).toString();
+                commentsUri = Utils.createURI(baseUri, CommentsVersionResource.class, wikiName, spaces,
+                    documentReference.getName(), summary.getVersion()).toString();
             } else {
-                commentsUri = Utils.createURI(baseUri, CommentsResource.class, doc.getWiki(), spaces,
-                    doc.getDocumentReference().getName()).toString();
+                commentsUri = Utils.createURI(baseUri, CommentsResource.class, wikiName, spaces,
+                    documentReference.getName()).toString();
             }
 
             Link commentsLink = this.objectFactory.createLink();
@@ -655,14 +722,14 @@ private void toRestPageSummary(PageSummary pageSummary, URI baseUri, Document do
             pageSummary.getLinks().add(commentsLink);
         }
 
-        if (!doc.getAttachmentList().isEmpty()) {
+        if (summary.hasAttachments()) {
             String attachmentsUri;
             if (useVersion) {
-                attachmentsUri = Utils.createURI(baseUri, AttachmentsAtPageVersionResource.class, doc.getWiki(), spaces,
-                    doc.getDocumentReference().getName(), doc.getVersion()).toString();
+                attachmentsUri = Utils.createURI(baseUri, AttachmentsAtPageVersionResource.class, wikiName, spaces,
+                    documentReference.getName(), summary.getVersion()).toString();
             } else {
-                attachmentsUri = Utils.createURI(baseUri, AttachmentsResource.class, doc.getWiki(), spaces,
-                    doc.getDocumentReference().getName()).toString();
+                attachmentsUri = Utils.createURI(baseUri, AttachmentsResource.class, wikiName, spaces,
+                    documentReference.getName()).toString();
             }
 
             Link attachmentsLink = this.objectFactory.createLink();
@@ -671,15 +738,15 @@ private void toRestPageSummary(PageSummary pageSummary, URI baseUri, Document do
             pageSummary.getLinks().add(attachmentsLink);
         }
 
-        if (!doc.getxWikiObjects().keySet().isEmpty()) {
+        if (summary.hasObjects()) {
             String objectsUri;
 
             if (useVersion) {
-                objectsUri = Utils.createURI(baseUri, ObjectsAtPageVersionResource.class, doc.getWiki(), spaces,
-                    doc.getDocumentReference().getName(), doc.getVersion()).toString();
+                objectsUri = Utils.createURI(baseUri, ObjectsAtPageVersionResource.class, wikiName, spaces,
+                    documentReference.getName(), summary.getVersion()).toString();
             } else {
-                objectsUri = Utils.createURI(baseUri, ObjectsResource.class, doc.getWiki(), spaces,
-                    doc.getDocumentReference().getName()).toString();
+                objectsUri = Utils.createURI(baseUri, ObjectsResource.class, wikiName, spaces,
+                    documentReference.getName()).toString();
             }
             Link objectsLink = this.objectFactory.createLink();
             objectsLink.setHref(objectsUri);
@@ -687,16 +754,13 @@ private void toRestPageSummary(PageSummary pageSummary, URI baseUri, Document do
             pageSummary.getLinks().add(objectsLink);
         }
 
-        com.xpn.xwiki.api.Object tagsObject = doc.getObject("XWiki.TagClass", 0);
-        if (tagsObject != null) {
-            if (tagsObject.getProperty("tags") != null) {
-                String tagsUri = Utils.createURI(baseUri, PageTagsResource.class, doc.getWiki(), spaces,
-                    doc.getDocumentReference().getName()).toString();
-                Link tagsLink = this.objectFactory.createLink();
-                tagsLink.setHref(tagsUri);
-                tagsLink.setRel(Relations.TAGS);
-                pageSummary.getLinks().add(tagsLink);
-            }
+        if (summary.hasTags()) {
+            String tagsUri = Utils.createURI(baseUri, PageTagsResource.class, wikiName, spaces,
+                documentReference.getName()).toString();
+            Link tagsLink = this.objectFactory.createLink();
+            tagsLink.setHref(tagsUri);
+            tagsLink.setRel(Relations.TAGS);
+            pageSummary.getLinks().add(tagsLink);
         }
 
         String syntaxesUri = Utils.createURI(baseUri, SyntaxesResource.class).toString();
@@ -707,12 +771,29 @@ private void toRestPageSummary(PageSummary pageSummary, URI baseUri, Document do
     }
 
     public PageSummary toRestPageSummary(URI baseUri, Document doc, Boolean withPrettyNames) throws XWikiException
+    {
+        return toRestPageSummary(baseUri, toDocumentSummary(doc), withPrettyNames);
+    }
+
+    /**
+     * Same as {@link #toRestPageSummary(URI, Document, Boolean)} but using the information gathered (e.g. by
+     * {@link DocumentSummaryLoader}) without loading the document.
+     *
+     * @param baseUri the base URI of the REST resources
+     * @param summary the information about the page
+     * @param withPrettyNames whether to include the user names or not
+     * @return the REST representation of the page summary
+     * @since 13.3RC1
+     */
+    public PageSummary toRestPageSummary(URI baseUri, DocumentSummary summary, Boolean withPrettyNames)
     {
         PageSummary pageSummary = this.objectFactory.createPageSummary();
-        toRestPageSummary(pageSummary, baseUri, doc, false, withPrettyNames);
+        toRestPageSummary(pageSummary, baseUri, summary, false, withPrettyNames);
 
-        String pageUri = Utils.createURI(baseUri, PageResource.class, doc.getWiki(),
-            Utils.getSpacesFromSpaceId(doc.getSpace()), doc.getDocumentReference().getName()).toString();
+        DocumentReference documentReference = summary.getDocumentReference();
+        String pageUri = Utils.createURI(baseUri, PageResource.class, documentReference.getWikiReference().getName(),
+            Utils.getSpacesHierarchy(documentReference.getLastSpaceReference()), documentReference.getName())
+            .toString();
         Link pageLink = this.objectFactory.createLink();
         pageLink.setHref(pageUri);
         pageLink.setRel(Relations.PAGE);
@@ -20,6 +20,7 @@
 package org.xwiki.rest.internal;
 
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.logging.Level;
 
@@ -28,6 +29,7 @@
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.MediaType;
+import org.restlet.data.Tag;
 import org.restlet.ext.servlet.ServletUtils;
 import org.restlet.representation.Representation;
 import org.restlet.routing.Filter;
@@ -92,6 +94,30 @@ protected void afterHandle(Request request, Response response)
                 response.setEntity(null);
             }
         }
+
+        setValidators(request, response);
+    }
+
+    /**
+     * Set the validators computed by {@link ConditionalRequestHandler} on the returned representation.
+     *
+     * @param request the request
+     * @param response the response
+     */
+    private void setValidators(Request request, Response response)
+    {
+        Representation entity = response.getEntity();
+        if (entity != null && response.getStatus().isSuccess()) {
+            Tag tag = (Tag) request.getAttributes().get(ConditionalRequestHandler.TAG_ATTRIBUTE);
+            if (tag != null) {
+                entity.setTag(tag);
+            }
+            Date modificationDate =
+                (Date) request.getAttributes().get(ConditionalRequestHandler.MODIFICATION_DATE_ATTRIBUTE);
+            if (modificationDate != null) {
+                entity.setModificationDate(modificationDate);
+            }
+        }
     }
 
     /**
@@ -0,0 +1,201 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.representations;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.rest.XWikiRestComponent;
+import org.xwiki.rest.model.jaxb.Link;
+import org.xwiki.rest.model.jaxb.LinkCollection;
+import org.xwiki.rest.model.jaxb.ObjectFactory;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes a collection one item at a time, so that the memory used doesn't depend on the number of items. The produced
+ * XML and JSON are the same as for the corresponding JAXB collection.
+ *
+ * @version $Id$
+ * @param <T> the type of collection
+ * @param <E> the type of items
+ * @since 13.3RC1
+ */
+public abstract class AbstractStreamingCollectionWriter<T extends LinkCollection, E>
+    implements MessageBodyWriter<T>, XWikiRestComponent, Initializable
+{
+    private static final String NAMESPACE = "http://www.xwiki.org";
+
+    private static final QName LINK = new QName(NAMESPACE, "link");
+
+    private final Class<T> collectionClass;
+
+    private final String collectionElement;
+
+    private final Class<E> itemClass;
+
+    private final QName itemElement;
+
+    private final String itemsField;
+
+    private JAXBContext jaxbContext;
+
+    private ObjectMapper objectMapper;
+
+    private XMLOutputFactory xmlOutputFactory;
+
+    /**
+     * @param collectionClass the type of collection
+     * @param collectionElement the name of the XML element of the collection
+     * @param itemClass the type of items
+     * @param itemElement the name of the XML element of an item
+     * @param itemsField the name of the JSON field holding the items
+     */
+    protected AbstractStreamingCollectionWriter(Class<T> collectionClass, String collectionElement, Class<E> itemClass,
+        String itemElement, String itemsField)
+    {
+        this.collectionClass = collectionClass;
+        this.collectionElement = collectionElement;
+        this.itemClass = itemClass;
+        this.itemElement = new QName(NAMESPACE, itemElement);
+        this.itemsField = itemsField;
+    }
+
+    /**
+     * @param collection the collection to write
+     * @return the items of the collection
+     */
+    protected abstract Iterator<E> getItems(T collection);
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            this.jaxbContext = JAXBContext.newInstance(ObjectFactory.class);
+        } catch (JAXBException e) {
+            throw new InitializationException("Failed to create the JAXB context.", e);
+        }
+
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.getFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        this.xmlOutputFactory = XMLOutputFactory.newInstance();
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return this.collectionClass.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(T collection, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        // The size is not known until all the items are written.
+        return -1;
+    }
+
+    @Override
+    public void writeTo(T collection, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+        throws IOException, WebApplicationException
+    {
+        if (mediaType.isCompatible(MediaType.APPLICATION_JSON_TYPE)) {
+            writeJSON(collection, entityStream);
+        } else {
+            try {
+                writeXML(collection, entityStream);
+            } catch (JAXBException | XMLStreamException e) {
+                throw new IOException(String.format("Failed to write the [%s].", this.collectionElement), e);
+            }
+        }
+    }
+
+    private void writeJSON(T collection, OutputStream entityStream) throws IOException
+    {
+        try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(entityStream)) {
+            generator.writeStartObject();
+
+            generator.writeArrayFieldStart("links");
+            for (Link link : collection.getLinks()) {
+                this.objectMapper.writeValue(generator, link);
+            }
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart(this.itemsField);
+            Iterator<E> iterator = getItems(collection);
+            while (iterator.hasNext()) {
+                this.objectMapper.writeValue(generator, iterator.next());
+            }
+            generator.writeEndArray();
+
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeXML(T collection, OutputStream entityStream) throws JAXBException, XMLStreamException
+    {
+        String encoding = StandardCharsets.UTF_8.name();
+        XMLStreamWriter writer = this.xmlOutputFactory.createXMLStreamWriter(entityStream, encoding);
+        // Marshallers are not thread safe.
+        Marshaller marshaller = this.jaxbContext.createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+
+        writer.writeStartDocument(encoding, "1.0");
+        writer.setDefaultNamespace(NAMESPACE);
+        writer.writeStartElement(NAMESPACE, this.collectionElement);
+        writer.writeDefaultNamespace(NAMESPACE);
+
+        for (Link link : collection.getLinks()) {
+            marshaller.marshal(new JAXBElement<>(LINK, Link.class, link), writer);
+        }
+
+        Iterator<E> iterator = getItems(collection);
+        while (iterator.hasNext()) {
+            marshaller.marshal(new JAXBElement<>(this.itemElement, this.itemClass, iterator.next()), writer);
+        }
+
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.flush();
+        // Closing the writer doesn't close the underlying stream.
+        writer.close();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.representations.objects;
+
+import java.util.Iterator;
+
+import org.xwiki.rest.model.jaxb.ObjectSummary;
+import org.xwiki.rest.model.jaxb.Objects;
+
+/**
+ * A collection of objects whose summaries are produced while the response is written (see
+ * {@link StreamingObjectsWriter}) instead of being all kept in memory. Only the links are held by the collection.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+public class StreamingObjects extends Objects
+{
+    private final Iterator<ObjectSummary> objectSummaryIterator;
+
+    /**
+     * @param objectSummaryIterator produces the object summaries, it is consumed only once, when the response is
+     *            written
+     */
+    public StreamingObjects(Iterator<ObjectSummary> objectSummaryIterator)
+    {
+        this.objectSummaryIterator = objectSummaryIterator;
+    }
+
+    /**
+     * @return the object summaries to write
+     */
+    public Iterator<ObjectSummary> getObjectSummaryIterator()
+    {
+        return this.objectSummaryIterator;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.representations.objects;
+
+import java.util.Iterator;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.Provider;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.rest.internal.representations.AbstractStreamingCollectionWriter;
+import org.xwiki.rest.model.jaxb.ObjectSummary;
+
+/**
+ * Writes a {@link StreamingObjects} collection one object summary at a time.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component
+@Named("org.xwiki.rest.internal.representations.objects.StreamingObjectsWriter")
+@Provider
+@Produces({ MediaType.APPLICATION_XML, MediaType.TEXT_XML, MediaType.APPLICATION_JSON })
+@Singleton
+public class StreamingObjectsWriter extends AbstractStreamingCollectionWriter<StreamingObjects, ObjectSummary>
+{
+    /**
+     * Default constructor.
+     */
+    public StreamingObjectsWriter()
+    {
+        super(StreamingObjects.class, "objects", ObjectSummary.class, "objectSummary", "objectSummaries");
+    }
+
+    @Override
+    protected Iterator<ObjectSummary> getItems(StreamingObjects objects)
+    {
+        return objects.getObjectSummaryIterator();
+    }
+}
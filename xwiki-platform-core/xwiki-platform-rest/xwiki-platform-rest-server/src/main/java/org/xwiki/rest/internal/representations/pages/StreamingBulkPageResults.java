@@ -0,0 +1,53 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.representations.pages;
+
+import java.util.Iterator;
+
+import org.xwiki.rest.model.jaxb.BulkPageResult;
+import org.xwiki.rest.model.jaxb.BulkPageResults;
+
+/**
+ * The results of a bulk page operation, produced while the response is written (see
+ * {@link StreamingBulkPageResultsWriter}) instead of being all kept in memory.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+public class StreamingBulkPageResults extends BulkPageResults
+{
+    private final Iterator<BulkPageResult> resultIterator;
+
+    /**
+     * @param resultIterator produces the results, it is consumed only once, when the response is written
+     */
+    public StreamingBulkPageResults(Iterator<BulkPageResult> resultIterator)
+    {
+        this.resultIterator = resultIterator;
+    }
+
+    /**
+     * @return the results to write
+     */
+    public Iterator<BulkPageResult> getResultIterator()
+    {
+        return this.resultIterator;
+    }
+}
@@ -25,8 +25,11 @@
 import javax.ws.rs.core.Response.Status;
 
 import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.rest.XWikiResource;
 import org.xwiki.rest.XWikiRestException;
+import org.xwiki.rest.internal.ConditionalRequestHandler;
 import org.xwiki.rest.internal.ModelFactory;
 import org.xwiki.rest.model.jaxb.Attachment;
 import org.xwiki.rest.resources.attachments.AttachmentMetadataResource;
@@ -45,11 +48,17 @@ public class AttachmentMetadataResourceImpl extends XWikiResource implements Att
     @Inject
     private ModelFactory modelFactory;
 
+    @Inject
+    private ConditionalRequestHandler conditionalRequests;
+
     @Override
     public Attachment getAttachment(String wikiName, String spaceName, String pageName, String attachmentName,
         Boolean withPrettyNames) throws XWikiRestException
     {
         try {
+            this.conditionalRequests.checkAttachment(new AttachmentReference(attachmentName,
+                new DocumentReference(wikiName, parseSpaceSegments(spaceName), pageName)));
+
             DocumentInfo documentInfo = getDocumentInfo(wikiName, spaceName, pageName, null, null, true, false);
             Document doc = documentInfo.getDocument();
 
@@ -57,6 +66,7 @@ public Attachment getAttachment(String wikiName, String spaceName, String pageNa
             if (xwikiAttachment == null) {
                 throw new WebApplicationException(Status.NOT_FOUND);
             }
+            this.conditionalRequests.check(xwikiAttachment);
 
             return this.modelFactory.toRestAttachment(this.uriInfo.getBaseUri(), xwikiAttachment, withPrettyNames,
                 false);
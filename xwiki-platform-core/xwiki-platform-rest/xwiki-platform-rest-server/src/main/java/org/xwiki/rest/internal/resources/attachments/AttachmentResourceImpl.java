@@ -29,7 +29,10 @@
 import javax.ws.rs.core.Response.Status;
 
 import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.rest.XWikiRestException;
+import org.xwiki.rest.internal.ConditionalRequestHandler;
 import org.xwiki.rest.internal.Utils;
 import org.xwiki.rest.internal.resources.BaseAttachmentsResource;
 import org.xwiki.rest.resources.attachments.AttachmentResource;
@@ -51,11 +54,17 @@ public class AttachmentResourceImpl extends BaseAttachmentsResource implements A
     @Inject
     private ContextualAuthorizationManager authorization;
 
+    @Inject
+    private ConditionalRequestHandler conditionalRequests;
+
     @Override
     public Response getAttachment(String wikiName, String spaceName, String pageName, String attachmentName)
         throws XWikiRestException
     {
         try {
+            this.conditionalRequests.checkAttachment(new AttachmentReference(attachmentName,
+                new DocumentReference(wikiName, parseSpaceSegments(spaceName), pageName)));
+
             DocumentInfo documentInfo = getDocumentInfo(wikiName, spaceName, pageName, null, null, true, false);
             Document doc = documentInfo.getDocument();
 
@@ -63,6 +72,7 @@ public Response getAttachment(String wikiName, String spaceName, String pageName
             if (xwikiAttachment == null) {
                 throw new WebApplicationException(Status.NOT_FOUND);
             }
+            this.conditionalRequests.check(xwikiAttachment);
 
             return Response.ok().type(xwikiAttachment.getMimeType()).entity(xwikiAttachment.getContent()).build();
         } catch (XWikiException e) {
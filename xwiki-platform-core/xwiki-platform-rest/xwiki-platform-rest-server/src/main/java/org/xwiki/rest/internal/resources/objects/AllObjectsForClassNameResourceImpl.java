@@ -19,84 +19,331 @@
  */
 package org.xwiki.rest.internal.resources.objects;
 
+import java.net.URI;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.ws.rs.WebApplicationException;
 
+import org.apache.commons.lang3.math.NumberUtils;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.rest.Relations;
 import org.xwiki.rest.XWikiResource;
 import org.xwiki.rest.XWikiRestException;
-import org.xwiki.rest.internal.DomainObjectFactory;
-import org.xwiki.rest.internal.Utils;
+import org.xwiki.rest.internal.ModelFactory;
+import org.xwiki.rest.internal.representations.objects.StreamingObjects;
+import org.xwiki.rest.model.jaxb.Link;
 import org.xwiki.rest.model.jaxb.ObjectSummary;
 import org.xwiki.rest.model.jaxb.Objects;
 import org.xwiki.rest.resources.objects.AllObjectsForClassNameResource;
 import org.xwiki.security.authorization.ContextualAuthorizationManager;
 import org.xwiki.security.authorization.Right;
 
+import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.api.Document;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.objects.BaseObject;
 
 /**
+ * Streams the objects of a class: the objects are loaded in small batches while the response is written, so that the
+ * memory used doesn't depend on the number of objects. When a limited number of objects is requested the response
+ * includes a {@link Relations#NEXT} link pointing to the following objects. By default the objects are ordered by
+ * identifier and the next link holds the identifier of the last object of the current page (keyset pagination), which
+ * stays cheap whatever the position in the result.
+ *
  * @version $Id$
  */
 @Component
 @Named("org.xwiki.rest.internal.resources.objects.AllObjectsForClassNameResourceImpl")
 public class AllObjectsForClassNameResourceImpl extends XWikiResource implements AllObjectsForClassNameResource
 {
+    /**
+     * The query string parameter holding the identifier of the object after which to continue.
+     */
+    private static final String AFTER_PARAMETER = "after";
+
+    private static final String START_PARAMETER = "start";
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final String CLASS_NAME = "className";
+
+    private static final String LAST = "last";
+
+    private static final String FROM = " from BaseObject as obj, XWikiDocument as doc "
+        + "where obj.name = doc.fullName and doc.translation = 0 and obj.className = :className";
+
+    private static final String AFTER_CONDITION = " and obj.id > :after";
+
+    private static final String LAST_CONDITION = " and obj.id <= :last";
+
+    private static final String ORDER_BY_ID = " order by obj.id";
+
+    private static final String ORDER_BY_DATE = " order by doc.date desc, obj.id";
+
     @Inject
     private ContextualAuthorizationManager authorization;
 
+    @Inject
+    private ModelFactory modelFactory;
+
     @Override
     public Objects getObjects(String wikiName, String className, Integer start, Integer number, String order,
-            Boolean withPrettyNames) throws XWikiRestException
+        Boolean withPrettyNames) throws XWikiRestException
     {
-        String database = Utils.getXWikiContext(componentManager).getWikiId();
-
         try {
-            Objects objects = new Objects();
+            URI baseUri = this.uriInfo.getBaseUri();
+            ObjectSummaryIterator iterator;
+            Link next;
+            if ("date".equals(order)) {
+                iterator = new DateObjectSummaryIterator(wikiName, className, baseUri, withPrettyNames, start, number);
+                next = getNextLinkByDate(wikiName, className, start, number);
+            } else {
+                Long after = NumberUtils.createLong(this.uriInfo.getQueryParameters().getFirst(AFTER_PARAMETER));
+                // The start offset applies only to the first page, the next pages are identified by the last object
+                // of the previous page.
+                int offset = after == null ? start : 0;
+                List<Long> bounds = getKeysetBounds(wikiName, className, after, offset, number);
+                Long last = bounds.isEmpty() ? null : bounds.get(0);
+                iterator =
+                    new KeysetObjectSummaryIterator(wikiName, className, baseUri, withPrettyNames, after, last, offset);
+                next = bounds.size() > 1 ? getNextLink(AFTER_PARAMETER, last) : null;
+            }
 
-            Utils.getXWikiContext(componentManager).setWikiId(wikiName);
+            StreamingObjects objects = new StreamingObjects(number == 0 ? Collections.emptyIterator() : iterator);
+            if (next != null) {
+                objects.getLinks().add(next);
+            }
 
-            String query = "select doc, obj from BaseObject as obj, XWikiDocument as doc "
-                + "where obj.name=doc.fullName and obj.className=:className";
-            if ("date".equals(order)) {
-                query += " order by doc.date desc";
+            return objects;
+        } catch (Exception e) {
+            throw new XWikiRestException(e);
+        }
+    }
+
+    /**
+     * @return the identifier of the last object of the requested page followed, if there are more objects, by the
+     *         identifier of the first object of the next page; an empty list if all the objects are requested
+     */
+    private List<Long> getKeysetBounds(String wikiName, String className, Long after, int offset, int number)
+        throws QueryException
+    {
+        if (number <= 0) {
+            return Collections.emptyList();
+        }
+
+        String statement = "select obj.id" + FROM + (after != null ? AFTER_CONDITION : "") + ORDER_BY_ID;
+        Query query = this.queryManager.createQuery(statement, Query.HQL).setWiki(wikiName)
+            .bindValue(CLASS_NAME, className).setOffset(offset + number - 1).setLimit(2);
+        if (after != null) {
+            query.bindValue(AFTER_PARAMETER, after);
+        }
+        return query.execute();
+    }
+
+    private Link getNextLinkByDate(String wikiName, String className, int start, int number) throws QueryException
+    {
+        if (number <= 0) {
+            return null;
+        }
+
+        List<Object> rest = this.queryManager.createQuery("select obj.id" + FROM + ORDER_BY_DATE, Query.HQL)
+            .setWiki(wikiName).bindValue(CLASS_NAME, className).setOffset(start + number).setLimit(1).execute();
+        return rest.isEmpty() ? null : getNextLink(START_PARAMETER, start + number);
+    }
+
+    private Link getNextLink(String parameter, Object value)
+    {
+        String otherParameter = AFTER_PARAMETER.equals(parameter) ? START_PARAMETER : AFTER_PARAMETER;
+        Link link = this.objectFactory.createLink();
+        link.setHref(this.uriInfo.getRequestUriBuilder().replaceQueryParam(parameter, value)
+            .replaceQueryParam(otherParameter).build().toString());
+        link.setRel(Relations.NEXT);
+        return link;
+    }
+
+    private ObjectSummary toObjectSummary(String wikiName, Object[] row, URI baseUri, Boolean withPrettyNames)
+    {
+        XWikiDocument xwikiDocument = (XWikiDocument) row[0];
+        xwikiDocument.setDatabase(wikiName);
+
+        if (this.authorization.hasAccess(Right.VIEW, xwikiDocument.getDocumentReference())) {
+            // The summaries are computed while the response is written so the context wiki has to be set here (the
+            // pretty names are resolved against the context wiki).
+            XWikiContext xcontext = this.xcontextProvider.get();
+            String currentWiki = xcontext.getWikiId();
+            try {
+                xcontext.setWikiId(wikiName);
+
+                Document doc = new Document(xwikiDocument, xcontext);
+                return this.modelFactory.toRestObjectSummary(baseUri, doc, (BaseObject) row[1], false,
+                    withPrettyNames);
+            } finally {
+                xcontext.setWikiId(currentWiki);
             }
+        }
+
+        return null;
+    }
+
+    /**
+     * Loads the objects in batches and converts them, skipping those the current user is not allowed to view.
+     * <p>
+     * Note that this is used while the response is written, i.e. after the resource has been released.
+     *
+     * @version $Id$
+     */
+    private abstract class ObjectSummaryIterator implements Iterator<ObjectSummary>
+    {
+        protected final String wikiName;
 
-            List<Object> queryResult = null;
-            queryResult =
-                    queryManager.createQuery(query, Query.XWQL).bindValue("className", className).setLimit(number)
-                            .setOffset(start).execute();
+        protected final String className;
 
-            for (Object object : queryResult) {
-                Object[] fields = (Object[]) object;
-                XWikiDocument xwikiDocument = (XWikiDocument) fields[0];
-                xwikiDocument.setDatabase(wikiName);
+        private final URI baseUri;
 
-                if (authorization.hasAccess(Right.VIEW, xwikiDocument.getDocumentReference())) {
+        private final Boolean withPrettyNames;
 
-                    Document doc = new Document(xwikiDocument, Utils.getXWikiContext(componentManager));
+        private Iterator<Object[]> rows = Collections.emptyIterator();
 
-                    BaseObject xwikiObject = (BaseObject) fields[1];
+        private boolean lastBatch;
 
-                    ObjectSummary objectSummary = DomainObjectFactory
-                        .createObjectSummary(objectFactory, uriInfo.getBaseUri(), Utils.getXWikiContext(
-                            componentManager), doc, xwikiObject, false, Utils.getXWikiApi(componentManager),
-                            withPrettyNames);
+        private ObjectSummary nextSummary;
 
-                    objects.getObjectSummaries().add(objectSummary);
+        ObjectSummaryIterator(String wikiName, String className, URI baseUri, Boolean withPrettyNames)
+        {
+            this.wikiName = wikiName;
+            this.className = className;
+            this.baseUri = baseUri;
+            this.withPrettyNames = withPrettyNames;
+        }
+
+        /**
+         * @param size the maximum number of rows to return
+         * @return the next rows (document and object)
+         * @throws QueryException if loading the rows fails
+         */
+        protected abstract List<Object[]> loadBatch(int size) throws QueryException;
+
+        @Override
+        public boolean hasNext()
+        {
+            while (this.nextSummary == null && (this.rows.hasNext() || !this.lastBatch)) {
+                if (this.rows.hasNext()) {
+                    this.nextSummary =
+                        toObjectSummary(this.wikiName, this.rows.next(), this.baseUri, this.withPrettyNames);
+                } else {
+                    try {
+                        List<Object[]> batch = loadBatch(BATCH_SIZE);
+                        this.lastBatch = batch.size() < BATCH_SIZE;
+                        this.rows = batch.iterator();
+                    } catch (QueryException e) {
+                        throw new WebApplicationException(e);
+                    }
                 }
             }
 
-            return objects;
-        } catch (Exception e) {
-            throw new XWikiRestException(e);
-        } finally {
-            Utils.getXWikiContext(componentManager).setWikiId(database);
+            return this.nextSummary != null;
+        }
+
+        @Override
+        public ObjectSummary next()
+        {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            ObjectSummary summary = this.nextSummary;
+            this.nextSummary = null;
+            return summary;
+        }
+    }
+
+    /**
+     * Iterates the objects by identifier, using the identifier of the last loaded object to load the next batch.
+     *
+     * @version $Id$
+     */
+    private final class KeysetObjectSummaryIterator extends ObjectSummaryIterator
+    {
+        private Long after;
+
+        private final Long last;
+
+        private int offset;
+
+        KeysetObjectSummaryIterator(String wikiName, String className, URI baseUri, Boolean withPrettyNames,
+            Long after, Long last, int offset)
+        {
+            super(wikiName, className, baseUri, withPrettyNames);
+
+            this.after = after;
+            this.last = last;
+            this.offset = offset;
+        }
+
+        @Override
+        protected List<Object[]> loadBatch(int size) throws QueryException
+        {
+            String statement = "select doc, obj" + FROM + (this.after != null ? AFTER_CONDITION : "")
+                + (this.last != null ? LAST_CONDITION : "") + ORDER_BY_ID;
+            Query query = queryManager.createQuery(statement, Query.HQL).setWiki(this.wikiName)
+                .bindValue(CLASS_NAME, this.className).setOffset(this.offset).setLimit(size);
+            if (this.after != null) {
+                query.bindValue(AFTER_PARAMETER, this.after);
+            }
+            if (this.last != null) {
+                query.bindValue(LAST, this.last);
+            }
+
+            List<Object[]> batch = query.execute();
+            this.offset = 0;
+            if (!batch.isEmpty()) {
+                this.after = ((BaseObject) batch.get(batch.size() - 1)[1]).getId();
+            }
+            return batch;
+        }
+    }
+
+    /**
+     * Iterates the objects from the most recently modified document.
+     *
+     * @version $Id$
+     */
+    private final class DateObjectSummaryIterator extends ObjectSummaryIterator
+    {
+        private int offset;
+
+        private int remaining;
+
+        DateObjectSummaryIterator(String wikiName, String className, URI baseUri, Boolean withPrettyNames,
+            int start, int number)
+        {
+            super(wikiName, className, baseUri, withPrettyNames);
+
+            this.offset = start;
+            this.remaining = number < 0 ? Integer.MAX_VALUE : number;
+        }
+
+        @Override
+        protected List<Object[]> loadBatch(int size) throws QueryException
+        {
+            int limit = Math.min(size, this.remaining);
+            if (limit == 0) {
+                return Collections.emptyList();
+            }
+
+            List<Object[]> batch = queryManager.createQuery("select doc, obj" + FROM + ORDER_BY_DATE, Query.HQL)
+                .setWiki(this.wikiName).bindValue(CLASS_NAME, this.className).setOffset(this.offset)
+                .setLimit(limit).execute();
+            this.offset += batch.size();
+            this.remaining -= batch.size();
+            return batch;
         }
     }
 }
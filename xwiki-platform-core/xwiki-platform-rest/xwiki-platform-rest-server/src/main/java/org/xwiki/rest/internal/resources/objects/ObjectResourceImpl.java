@@ -27,6 +27,7 @@
 
 import org.xwiki.component.annotation.Component;
 import org.xwiki.rest.XWikiRestException;
+import org.xwiki.rest.internal.ConditionalRequestHandler;
 import org.xwiki.rest.internal.ModelFactory;
 import org.xwiki.rest.model.jaxb.Object;
 import org.xwiki.rest.resources.objects.ObjectResource;
@@ -50,6 +51,9 @@ public class ObjectResourceImpl extends BaseObjectsResource implements ObjectRes
     @Inject
     private ContextualAuthorizationManager authorization;
 
+    @Inject
+    private ConditionalRequestHandler conditionalRequests;
+
     @Override
     public Object getObject(String wikiName, String spaceName, String pageName, String className, Integer objectNumber,
         Boolean withPrettyNames) throws XWikiRestException
@@ -63,6 +67,7 @@ public Object getObject(String wikiName, String spaceName, String pageName, Stri
             if (baseObject == null) {
                 throw new WebApplicationException(Status.NOT_FOUND);
             }
+            this.conditionalRequests.check(baseObject);
 
             return this.factory.toRestObject(this.uriInfo.getBaseUri(), doc, baseObject, false, withPrettyNames);
         } catch (XWikiException e) {
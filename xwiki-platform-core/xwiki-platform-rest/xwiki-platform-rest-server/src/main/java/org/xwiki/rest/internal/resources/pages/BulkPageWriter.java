@@ -0,0 +1,141 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.resources.pages;
+
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.rest.internal.ModelFactory;
+import org.xwiki.rest.model.jaxb.BulkPageResult;
+import org.xwiki.rest.model.jaxb.Page;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.api.Document;
+
+/**
+ * Applies all the modifications of a page requested by a bulk write and saves the page once.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component(roles = BulkPageWriter.class)
+@Singleton
+public class BulkPageWriter
+{
+    @Inject
+    private ModelFactory factory;
+
+    @Inject
+    private ContextualAuthorizationManager authorization;
+
+    @Inject
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    /**
+     * @param documentReference the page to modify, {@code null} if the page id was missing from the request
+     * @param changes the modifications of the page, each one is either a {@link Page} or an
+     *            {@link org.xwiki.rest.model.jaxb.Object}
+     * @param minorRevision whether to create a minor revision
+     * @return the result of the modification
+     */
+    public BulkPageResult write(DocumentReference documentReference, List<Object> changes, Boolean minorRevision)
+    {
+        BulkPageResult result = new BulkPageResult();
+
+        if (documentReference == null) {
+            result.setStatus(Status.BAD_REQUEST.getStatusCode());
+            result.setError("The page id is missing.");
+            return result;
+        }
+
+        result.setId(this.entityReferenceSerializer.serialize(documentReference));
+        if (!this.authorization.hasAccess(Right.EDIT, documentReference)) {
+            result.setStatus(Status.UNAUTHORIZED.getStatusCode());
+            return result;
+        }
+
+        try {
+            XWikiContext xcontext = this.xcontextProvider.get();
+            Document document = xcontext.getWiki().getDocument(documentReference, xcontext).newDocument(xcontext);
+            if (document.getLocked()) {
+                result.setStatus(Status.PRECONDITION_FAILED.getStatusCode());
+            } else if (document.isNew() && changes.stream().noneMatch(Page.class::isInstance)) {
+                // Objects can be added only to existing pages.
+                result.setStatus(Status.NOT_FOUND.getStatusCode());
+            } else {
+                result.setStatus(save(document, changes, minorRevision).getStatusCode());
+            }
+        } catch (XWikiException e) {
+            result.setStatus(Status.INTERNAL_SERVER_ERROR.getStatusCode());
+            result.setError(ExceptionUtils.getRootCauseMessage(e));
+        }
+
+        return result;
+    }
+
+    private Status save(Document document, List<Object> changes, Boolean minorRevision) throws XWikiException
+    {
+        boolean isNew = document.isNew();
+        boolean modified = false;
+        String comment = "";
+        for (Object change : changes) {
+            if (change instanceof Page) {
+                Page page = (Page) change;
+                modified |= this.factory.toDocument(document, page);
+                if (page.getComment() != null) {
+                    comment = page.getComment();
+                }
+            } else {
+                updateObject(document, (org.xwiki.rest.model.jaxb.Object) change);
+                modified = true;
+            }
+        }
+
+        if (modified || isNew) {
+            document.save(comment, Boolean.TRUE.equals(minorRevision));
+            return isNew ? Status.CREATED : Status.ACCEPTED;
+        } else {
+            return Status.NOT_MODIFIED;
+        }
+    }
+
+    private void updateObject(Document document, org.xwiki.rest.model.jaxb.Object restObject) throws XWikiException
+    {
+        com.xpn.xwiki.api.Object xwikiObject = document.getObject(restObject.getClassName(), restObject.getNumber());
+        if (xwikiObject == null) {
+            xwikiObject = document.newObject(restObject.getClassName());
+        }
+        this.factory.toObject(xwikiObject, restObject);
+    }
+}
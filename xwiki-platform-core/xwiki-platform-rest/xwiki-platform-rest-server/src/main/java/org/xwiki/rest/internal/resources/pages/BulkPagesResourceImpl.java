@@ -0,0 +1,180 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.resources.pages;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.QueryException;
+import org.xwiki.rest.XWikiResource;
+import org.xwiki.rest.XWikiRestException;
+import org.xwiki.rest.internal.DocumentSummaryLoader;
+import org.xwiki.rest.internal.ModelFactory;
+import org.xwiki.rest.internal.Utils;
+import org.xwiki.rest.internal.representations.pages.StreamingBulkPageResults;
+import org.xwiki.rest.model.jaxb.BulkPageRequest;
+import org.xwiki.rest.model.jaxb.BulkPageResult;
+import org.xwiki.rest.model.jaxb.BulkPageResults;
+import org.xwiki.rest.model.jaxb.Page;
+import org.xwiki.rest.resources.pages.BulkPagesResource;
+import org.xwiki.rest.resources.pages.PageResource;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+
+import com.xpn.xwiki.XWikiException;
+
+/**
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component
+@Named("org.xwiki.rest.internal.resources.pages.BulkPagesResourceImpl")
+public class BulkPagesResourceImpl extends XWikiResource implements BulkPagesResource
+{
+    @Inject
+    private ModelFactory factory;
+
+    @Inject
+    private DocumentSummaryLoader documentSummaryLoader;
+
+    @Inject
+    private BulkPageWriter writer;
+
+    @Inject
+    private ContextualAuthorizationManager authorization;
+
+    @Inject
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @Inject
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    @Override
+    public BulkPageResults readPages(String wikiName, Boolean withPrettyNames, Boolean withObjects, Boolean withClass,
+        Boolean withAttachments, BulkPageRequest request) throws XWikiRestException
+    {
+        if (request == null) {
+            throw new WebApplicationException(Status.BAD_REQUEST);
+        }
+
+        WikiReference wikiReference = new WikiReference(wikiName);
+        List<DocumentReference> references = request.getPageIds().stream()
+            .map(pageId -> resolve(pageId, wikiReference)).collect(Collectors.toList());
+
+        // Check the rights and the existence of all the pages at once, so that only the pages that can be returned
+        // are loaded.
+        Set<DocumentReference> existing;
+        try {
+            existing = this.documentSummaryLoader.getExisting(references.stream()
+                .filter(reference -> reference != null && this.authorization.hasAccess(Right.VIEW, reference))
+                .collect(Collectors.toList()));
+        } catch (QueryException e) {
+            throw new XWikiRestException(e);
+        }
+
+        URI baseUri = this.uriInfo.getBaseUri();
+        // The pages are loaded while the response is written, one at a time.
+        Iterator<BulkPageResult> results = references.stream().map(reference -> {
+            BulkPageResult result = new BulkPageResult();
+            if (reference == null) {
+                result.setStatus(Status.BAD_REQUEST.getStatusCode());
+                result.setError("The page id is missing.");
+            } else if (existing.contains(reference)) {
+                result.setId(this.entityReferenceSerializer.serialize(reference));
+                readPage(result, reference, baseUri, withPrettyNames, withObjects, withClass, withAttachments);
+            } else {
+                result.setId(this.entityReferenceSerializer.serialize(reference));
+                result.setStatus(this.authorization.hasAccess(Right.VIEW, reference)
+                    ? Status.NOT_FOUND.getStatusCode() : Status.UNAUTHORIZED.getStatusCode());
+            }
+            return result;
+        }).iterator();
+
+        return new StreamingBulkPageResults(results);
+    }
+
+    @Override
+    public BulkPageResults writePages(String wikiName, Boolean minorRevision, BulkPageRequest request)
+        throws XWikiRestException
+    {
+        if (request == null) {
+            throw new WebApplicationException(Status.BAD_REQUEST);
+        }
+
+        // Group the modifications by page so that each page is saved only once.
+        WikiReference wikiReference = new WikiReference(wikiName);
+        Map<DocumentReference, List<Object>> changes = new LinkedHashMap<>();
+        for (Page page : request.getPages()) {
+            String pageId = StringUtils.defaultIfEmpty(page.getId(), page.getFullName());
+            changes.computeIfAbsent(resolve(pageId, wikiReference), key -> new ArrayList<>()).add(page);
+        }
+        for (org.xwiki.rest.model.jaxb.Object object : request.getObjects()) {
+            changes.computeIfAbsent(resolve(object.getPageId(), wikiReference), key -> new ArrayList<>()).add(object);
+        }
+
+        // The pages are saved before the response is written so that all the requested modifications are made even if
+        // the client doesn't read the whole response.
+        List<BulkPageResult> results = new ArrayList<>(changes.size());
+        for (Map.Entry<DocumentReference, List<Object>> entry : changes.entrySet()) {
+            results.add(this.writer.write(entry.getKey(), entry.getValue(), minorRevision));
+        }
+
+        return new StreamingBulkPageResults(results.iterator());
+    }
+
+    private DocumentReference resolve(String pageId, WikiReference wikiReference)
+    {
+        return StringUtils.isEmpty(pageId) ? null : this.documentReferenceResolver.resolve(pageId, wikiReference);
+    }
+
+    private void readPage(BulkPageResult result, DocumentReference reference, URI baseUri, Boolean withPrettyNames,
+        Boolean withObjects, Boolean withClass, Boolean withAttachments)
+    {
+        try {
+            URI self = Utils.createURI(baseUri, PageResource.class, reference.getWikiReference().getName(),
+                Utils.getSpacesHierarchy(reference.getLastSpaceReference()), reference.getName());
+            result.setPage(this.factory.toRestPage(baseUri, self,
+                Utils.getXWikiApi(this.componentManager).getDocument(reference), false, withPrettyNames, withObjects,
+                withClass, withAttachments));
+            result.setStatus(Status.OK.getStatusCode());
+        } catch (XWikiException e) {
+            result.setStatus(Status.INTERNAL_SERVER_ERROR.getStatusCode());
+            result.setError(ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+}
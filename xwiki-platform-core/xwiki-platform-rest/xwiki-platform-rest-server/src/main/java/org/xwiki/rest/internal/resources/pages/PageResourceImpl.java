@@ -21,11 +21,14 @@
 
 import java.net.URI;
 
+import javax.inject.Inject;
 import javax.inject.Named;
 import javax.ws.rs.core.Response;
 
 import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.rest.XWikiRestException;
+import org.xwiki.rest.internal.ConditionalRequestHandler;
 import org.xwiki.rest.model.jaxb.Page;
 import org.xwiki.rest.resources.pages.PageResource;
 
@@ -39,14 +42,21 @@
 @Named("org.xwiki.rest.internal.resources.pages.PageResourceImpl")
 public class PageResourceImpl extends ModifiablePageResource implements PageResource
 {
+    @Inject
+    private ConditionalRequestHandler conditionalRequests;
+
     @Override
     public Page getPage(String wikiName, String spaceName, String pageName, Boolean withPrettyNames,
         Boolean withObjects, Boolean withXClass, Boolean withAttachments) throws XWikiRestException
     {
         try {
+            this.conditionalRequests
+                .checkDocument(new DocumentReference(wikiName, parseSpaceSegments(spaceName), pageName));
+
             DocumentInfo documentInfo = getDocumentInfo(wikiName, spaceName, pageName, null, null, true, false);
 
             Document doc = documentInfo.getDocument();
+            this.conditionalRequests.check(doc);
 
             URI baseUri = uriInfo.getBaseUri();
 
@@ -19,11 +19,17 @@
  */
 package org.xwiki.rest.internal.resources.pages;
 
+import java.util.Locale;
+
+import javax.inject.Inject;
 import javax.inject.Named;
 import javax.ws.rs.core.Response;
 
 import org.xwiki.component.annotation.Component;
+import org.xwiki.localization.LocaleUtils;
+import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.rest.XWikiRestException;
+import org.xwiki.rest.internal.ConditionalRequestHandler;
 import org.xwiki.rest.model.jaxb.Page;
 import org.xwiki.rest.resources.pages.PageTranslationResource;
 
@@ -37,14 +43,24 @@
 @Named("org.xwiki.rest.internal.resources.pages.PageTranslationResourceImpl")
 public class PageTranslationResourceImpl extends ModifiablePageResource implements PageTranslationResource
 {
+    @Inject
+    private ConditionalRequestHandler conditionalRequests;
+
     @Override
     public Page getPageTranslation(String wikiName, String spaceName, String pageName, String language,
         Boolean withPrettyNames) throws XWikiRestException
     {
         try {
+            Locale locale = LocaleUtils.toLocale(language, null);
+            if (locale != null) {
+                this.conditionalRequests
+                    .checkDocument(new DocumentReference(wikiName, parseSpaceSegments(spaceName), pageName, locale));
+            }
+
             DocumentInfo documentInfo = getDocumentInfo(wikiName, spaceName, pageName, language, null, true, false);
 
             Document doc = documentInfo.getDocument();
+            this.conditionalRequests.check(doc);
 
             return this.factory.toRestPage(this.uriInfo.getBaseUri(), this.uriInfo.getAbsolutePath(), doc, false,
                 withPrettyNames, false, false, false);
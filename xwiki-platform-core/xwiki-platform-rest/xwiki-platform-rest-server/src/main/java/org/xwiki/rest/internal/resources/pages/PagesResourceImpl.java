@@ -19,23 +19,28 @@
  */
 package org.xwiki.rest.internal.resources.pages;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
 
+import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.SpaceReference;
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryFilter;
 import org.xwiki.rest.XWikiResource;
 import org.xwiki.rest.XWikiRestException;
-import org.xwiki.rest.internal.DomainObjectFactory;
+import org.xwiki.rest.internal.DocumentSummary;
+import org.xwiki.rest.internal.DocumentSummaryLoader;
+import org.xwiki.rest.internal.ModelFactory;
 import org.xwiki.rest.internal.Utils;
 import org.xwiki.rest.model.jaxb.Pages;
 import org.xwiki.rest.resources.pages.PagesResource;
 
-import com.xpn.xwiki.api.Document;
-
 /**
  * @version $Id$
  */
@@ -43,6 +48,15 @@
 @Named("org.xwiki.rest.internal.resources.pages.PagesResourceImpl")
 public class PagesResourceImpl extends XWikiResource implements PagesResource
 {
+    @Inject
+    private DocumentSummaryLoader documentSummaryLoader;
+
+    @Inject
+    private ModelFactory modelFactory;
+
+    @Inject
+    private EntityReferenceSerializer<String> defaultEntityReferenceSerializer;
+
     @Override
     public Pages getPages(String wikiName, String spaceName, Integer start, Integer number,
             String parentFilterExpression, String order, Boolean withPrettyNames)
@@ -75,34 +89,28 @@ public Pages getPages(String wikiName, String spaceName, Integer start, Integer
                 }
             }
 
+            SpaceReference spaceReference = Utils.getSpaceReference(spaces, wikiName);
+            List<DocumentReference> pageReferences = new ArrayList<>();
             for (String pageName : pageNames) {
-                String pageFullName = Utils.getPageId(wikiName, spaces, pageName);
+                pageReferences.add(new DocumentReference(pageName, spaceReference));
+            }
 
-                if (!Utils.getXWikiApi(componentManager).exists(pageFullName)) {
-                    getLogger().warn("Page [{}] appears to be in space [{}] but no information is available.", pageName,
-                        spaceId);
-                } else {
-                    Document doc = Utils.getXWikiApi(componentManager).getDocument(pageFullName);
-
-                    /* We only add pages we have the right to access */
-                    if (doc != null) {
-                        boolean add = true;
-
-                        Document parent = Utils.getParentDocument(doc, Utils.getXWikiApi(componentManager));
-
-                        if (parentFilter != null) {
-                            String parentId = "";
-                            if (parent != null && !parent.isNew()) {
-                                parentId = parent.getPrefixedFullName();
-                            }
-                            add = parentFilter.matcher(parentId).matches();
-                        }
-
-                        if (add) {
-                            pages.getPageSummaries().add(DomainObjectFactory.createPageSummary(objectFactory,
-                                    uriInfo.getBaseUri(), doc, Utils.getXWikiApi(componentManager), withPrettyNames));
-                        }
+            /* Only the pages we have the right to access are summarized, without loading them */
+            for (DocumentSummary summary : this.documentSummaryLoader.load(pageReferences)) {
+                boolean add = true;
+
+                if (parentFilter != null) {
+                    String parentId = "";
+                    DocumentReference parentReference = summary.getExistingParentReference();
+                    if (parentReference != null) {
+                        parentId = this.defaultEntityReferenceSerializer.serialize(parentReference);
                     }
+                    add = parentFilter.matcher(parentId).matches();
+                }
+
+                if (add) {
+                    pages.getPageSummaries()
+                        .add(this.modelFactory.toRestPageSummary(uriInfo.getBaseUri(), summary, withPrettyNames));
                 }
             }
         } catch (Exception e) {
@@ -19,21 +19,26 @@
  */
 package org.xwiki.rest.internal.resources.spaces;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.query.QueryFilter;
 import org.xwiki.rest.XWikiResource;
 import org.xwiki.rest.XWikiRestException;
-import org.xwiki.rest.internal.DomainObjectFactory;
+import org.xwiki.rest.internal.DocumentSummaryLoader;
+import org.xwiki.rest.internal.ModelFactory;
 import org.xwiki.rest.internal.Utils;
 import org.xwiki.rest.model.jaxb.Spaces;
 import org.xwiki.rest.resources.spaces.SpacesResource;
-
-import com.xpn.xwiki.api.Document;
-import com.xpn.xwiki.api.XWiki;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
 
 /**
  * @version $Id$
@@ -42,6 +47,15 @@
 @Named("org.xwiki.rest.internal.resources.spaces.SpacesResourceImpl")
 public class SpacesResourceImpl extends XWikiResource implements SpacesResource
 {
+    @Inject
+    private ContextualAuthorizationManager authorization;
+
+    @Inject
+    private DocumentSummaryLoader documentSummaryLoader;
+
+    @Inject
+    private ModelFactory modelFactory;
+
     @Override
     public Spaces getSpaces(String wikiName, Integer start, Integer number)
             throws XWikiRestException
@@ -53,20 +67,26 @@ public Spaces getSpaces(String wikiName, Integer start, Integer number)
                     componentManager.<QueryFilter>getInstance(QueryFilter.class, "hidden")).setOffset(start)
                     .setLimit(number).setWiki(wikiName).execute();
 
+            /* Only the spaces whose home page we have the right to access are listed */
+            Map<DocumentReference, List<String>> homeReferences = new LinkedHashMap<>();
             for (String spaceName : spaceNames) {
                 List<String> spaceList = Utils.getSpacesFromSpaceId(spaceName);
-                String homeId = Utils.getPageId(wikiName, spaceList, "WebHome");
-                Document home = null;
-
-                XWiki xwikiApi = Utils.getXWikiApi(componentManager);
-                if (xwikiApi.hasAccessLevel("view", homeId)) {
-                    if (xwikiApi.exists(homeId)) {
-                        home = Utils.getXWikiApi(componentManager).getDocument(homeId);
-                    }
-                    spaces.getSpaces().add(DomainObjectFactory
-                            .createSpace(objectFactory, uriInfo.getBaseUri(), wikiName, spaceList, home));
+                DocumentReference homeReference =
+                    new DocumentReference("WebHome", Utils.getSpaceReference(spaceList, wikiName));
+                if (this.authorization.hasAccess(Right.VIEW, homeReference)) {
+                    homeReferences.put(homeReference, spaceList);
                 }
             }
+
+            /* Check the existence of all the home pages at once, without loading them */
+            Set<DocumentReference> existingHomeReferences =
+                this.documentSummaryLoader.getExisting(homeReferences.keySet());
+            for (Map.Entry<DocumentReference, List<String>> entry : homeReferences.entrySet()) {
+                DocumentReference homeReference =
+                    existingHomeReferences.contains(entry.getKey()) ? entry.getKey() : null;
+                spaces.getSpaces().add(
+                    this.modelFactory.toRestSpace(uriInfo.getBaseUri(), wikiName, entry.getValue(), homeReference));
+            }
         } catch (Exception e) {
             throw new XWikiRestException(e);
         }
@@ -22,21 +22,24 @@
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryException;
 import org.xwiki.rest.XWikiResource;
 import org.xwiki.rest.XWikiRestException;
-import org.xwiki.rest.internal.DomainObjectFactory;
+import org.xwiki.rest.internal.DocumentSummary;
+import org.xwiki.rest.internal.DocumentSummaryLoader;
+import org.xwiki.rest.internal.ModelFactory;
 import org.xwiki.rest.internal.RangeIterable;
 import org.xwiki.rest.internal.Utils;
 import org.xwiki.rest.model.jaxb.Pages;
 import org.xwiki.rest.resources.tags.PagesForTagsResource;
 
-import com.xpn.xwiki.api.Document;
-
 /**
  * @version $Id$
  */
@@ -44,6 +47,16 @@
 @Named("org.xwiki.rest.internal.resources.tags.PagesForTagsResourceImpl")
 public class PagesForTagsResourceImpl extends XWikiResource implements PagesForTagsResource
 {
+    @Inject
+    private DocumentSummaryLoader documentSummaryLoader;
+
+    @Inject
+    private ModelFactory modelFactory;
+
+    @Inject
+    @Named("current")
+    private DocumentReferenceResolver<String> currentDocumentReferenceResolver;
+
     @Override
     public Pages getTags(String wikiName, String tagNames, Integer start, Integer number, Boolean withPrettyNames)
             throws XWikiRestException
@@ -71,13 +84,14 @@ public Pages getTags(String wikiName, String tagNames, Integer start, Integer nu
 
             RangeIterable<String> ri = new RangeIterable<String>(documentNames, start, number);
 
+            List<DocumentReference> documentReferences = new ArrayList<>();
             for (String documentName : ri) {
-                Document doc = Utils.getXWikiApi(componentManager).getDocument(documentName);
-                if (doc != null) {
-                    pages.getPageSummaries().add(DomainObjectFactory
-                            .createPageSummary(objectFactory, uriInfo.getBaseUri(), doc, Utils.getXWikiApi(
-                                    componentManager), withPrettyNames));
-                }
+                documentReferences.add(this.currentDocumentReferenceResolver.resolve(documentName));
+            }
+
+            for (DocumentSummary summary : this.documentSummaryLoader.load(documentReferences)) {
+                pages.getPageSummaries()
+                    .add(this.modelFactory.toRestPageSummary(uriInfo.getBaseUri(), summary, withPrettyNames));
             }
 
             return pages;
@@ -0,0 +1,180 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import javax.inject.Named;
+import javax.ws.rs.WebApplicationException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.Method;
+import org.restlet.data.Tag;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.api.Document;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ConditionalRequestHandler}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class ConditionalRequestHandlerTest
+{
+    @InjectMockComponents
+    private ConditionalRequestHandler handler;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    @Named("local")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
+    @MockComponent
+    private ContextualAuthorizationManager authorization;
+
+    private DocumentReference documentReference = new DocumentReference("wiki", "Space", "Page");
+
+    private Date date = new Date(1600000000123L);
+
+    private Request request;
+
+    private Query query;
+
+    @BeforeEach
+    void configure() throws Exception
+    {
+        this.request = new Request(Method.GET, "http://localhost/xwiki/rest/wikis/wiki/spaces/Space/pages/Page");
+        Response.setCurrent(new Response(this.request));
+
+        when(this.localEntityReferenceSerializer.serialize(this.documentReference)).thenReturn("Space.Page");
+        when(this.authorization.hasAccess(Right.VIEW, this.documentReference)).thenReturn(true);
+
+        this.query = mock(Query.class);
+        when(this.queryManager.createQuery(anyString(), eq(Query.HQL))).thenReturn(this.query);
+        when(this.query.setWiki(any())).thenReturn(this.query);
+        when(this.query.bindValue(anyString(), any())).thenReturn(this.query);
+        when(this.query.execute()).thenReturn(Collections.singletonList(new Object[] { "2.1", this.date }));
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        Response.setCurrent(null);
+    }
+
+    @Test
+    void checkDocumentWithMatchingTag()
+    {
+        this.request.getConditions().setNoneMatch(Arrays.asList(new Tag("2.1-1600000000", true)));
+
+        WebApplicationException exception = assertThrows(WebApplicationException.class,
+            () -> this.handler.checkDocument(this.documentReference));
+        assertEquals(304, exception.getResponse().getStatus());
+    }
+
+    @Test
+    void checkDocumentWithOtherTag()
+    {
+        this.request.getConditions().setNoneMatch(Arrays.asList(new Tag("1.1-1500000000", true)));
+
+        this.handler.checkDocument(this.documentReference);
+
+        assertEquals(new Tag("2.1-1600000000", true),
+            this.request.getAttributes().get(ConditionalRequestHandler.TAG_ATTRIBUTE));
+    }
+
+    @Test
+    void checkDocumentModifiedSince()
+    {
+        this.request.getConditions().setModifiedSince(new Date(1600000000000L));
+
+        assertThrows(WebApplicationException.class, () -> this.handler.checkDocument(this.documentReference));
+
+        this.request.getConditions().setModifiedSince(new Date(1599999999000L));
+
+        this.handler.checkDocument(this.documentReference);
+    }
+
+    @Test
+    void checkDocumentWithoutConditions() throws Exception
+    {
+        this.handler.checkDocument(this.documentReference);
+
+        // The version of the document is queried only for conditional requests.
+        verify(this.query, never()).execute();
+    }
+
+    @Test
+    void checkDocumentWithoutViewRight() throws Exception
+    {
+        this.request.getConditions().setNoneMatch(Arrays.asList(new Tag("2.1-1600000000", true)));
+        when(this.authorization.hasAccess(Right.VIEW, this.documentReference)).thenReturn(false);
+
+        this.handler.checkDocument(this.documentReference);
+
+        verify(this.query, never()).execute();
+    }
+
+    @Test
+    void check()
+    {
+        Document document = mock(Document.class);
+        when(document.getVersion()).thenReturn("2.1");
+        when(document.getDate()).thenReturn(this.date);
+
+        this.handler.check(document);
+
+        assertEquals(new Tag("2.1-1600000000", true),
+            this.request.getAttributes().get(ConditionalRequestHandler.TAG_ATTRIBUTE));
+        assertEquals(this.date,
+            this.request.getAttributes().get(ConditionalRequestHandler.MODIFICATION_DATE_ATTRIBUTE));
+
+        this.request.getConditions().setNoneMatch(Arrays.asList(Tag.ALL));
+
+        assertThrows(WebApplicationException.class, () -> this.handler.check(document));
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.model.internal.reference.DefaultStringEntityReferenceSerializer;
+import org.xwiki.model.internal.reference.DefaultSymbolScheme;
+import org.xwiki.model.internal.reference.LocalStringEntityReferenceSerializer;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.test.annotation.ComponentList;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DocumentSummaryLoader}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+@ComponentList({ DefaultSymbolScheme.class, DefaultStringEntityReferenceSerializer.class,
+    LocalStringEntityReferenceSerializer.class })
+class DocumentSummaryLoaderTest
+{
+    @InjectMockComponents
+    private DocumentSummaryLoader loader;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    private ContextualAuthorizationManager authorization;
+
+    @MockComponent
+    @Named("explicit")
+    private DocumentReferenceResolver<String> explicitDocumentReferenceResolver;
+
+    @MockComponent
+    private DocumentTitleRenderer titleRenderer;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    private XWikiContext xcontext;
+
+    private XWiki xwiki;
+
+    /**
+     * The results of the executed queries, indexed by a fragment of their statement.
+     */
+    private Map<String, List<?>> results = new HashMap<>();
+
+    private DocumentReference pageReference = new DocumentReference("wiki", "Space", "Page");
+
+    private DocumentReference parentReference = new DocumentReference("wiki", "Space", "Parent");
+
+    private DocumentReference deniedReference = new DocumentReference("wiki", "Space", "Denied");
+
+    private DocumentReference missingReference = new DocumentReference("wiki", "Space", "Missing");
+
+    @BeforeEach
+    void configure() throws Exception
+    {
+        this.xcontext = mock(XWikiContext.class);
+        this.xwiki = mock(XWiki.class);
+        when(this.xcontextProvider.get()).thenReturn(this.xcontext);
+        when(this.xcontext.getWiki()).thenReturn(this.xwiki);
+
+        when(this.queryManager.createQuery(anyString(), eq(Query.HQL))).then(invocation -> {
+            String statement = invocation.getArgument(0);
+            Query query = mock(Query.class);
+            when(query.setWiki("wiki")).thenReturn(query);
+            when(query.bindValue(eq("names"), any())).thenReturn(query);
+            when(query.addFilter(any())).thenReturn(query);
+            when(query.execute()).then(execution -> this.results.entrySet().stream()
+                .filter(entry -> statement.contains(entry.getKey())).findFirst().map(Map.Entry::getValue)
+                .orElse(Collections.emptyList()));
+            return query;
+        });
+
+        when(this.authorization.hasAccess(Right.VIEW, this.pageReference)).thenReturn(true);
+        when(this.authorization.hasAccess(Right.VIEW, this.missingReference)).thenReturn(true);
+        when(this.explicitDocumentReferenceResolver.resolve("Parent", this.pageReference))
+            .thenReturn(this.parentReference);
+    }
+
+    @Test
+    void load() throws Exception
+    {
+        this.results.put("doc.title", Collections.singletonList(
+            new Object[] { "Space.Page", "Title", "xwiki/2.1", "3.1", "XWiki.Alice", "Parent", "en" }));
+        this.results.put("doc.translation = 1", Collections.singletonList(new Object[] { "Space.Page", "fr" }));
+        this.results.put("from BaseObject obj where", Arrays.asList(new Object[] { "Space.Page", "XWiki.TagClass" },
+            new Object[] { "Space.Page", "XWiki.XWikiComments" }));
+        this.results.put("DBStringListProperty", Collections.singletonList("Space.Page"));
+        this.results.put("XWikiAttachment", Collections.singletonList("Space.Page"));
+        this.results.put("doc.parent in", Collections.singletonList(new Object[] { "Page", "Space" }));
+        this.results.put("select doc.fullName from XWikiDocument doc where", Collections.singletonList("Space.Parent"));
+
+        when(this.titleRenderer.getDisplayTitle(this.pageReference, "Title", false)).thenReturn("Display Title");
+        when(this.xwiki.getURL(this.pageReference, "view", this.xcontext)).thenReturn("/view/Space/Page");
+
+        List<DocumentSummary> summaries =
+            this.loader.load(Arrays.asList(this.deniedReference, this.pageReference, this.missingReference));
+
+        // The page that can't be viewed and the page that doesn't exist are skipped.
+        assertEquals(1, summaries.size());
+        DocumentSummary summary = summaries.get(0);
+        assertEquals(this.pageReference, summary.getDocumentReference());
+        assertEquals("Title", summary.getTitle());
+        assertEquals("Display Title", summary.getDisplayTitle());
+        assertEquals("/view/Space/Page", summary.getURL());
+        assertEquals("xwiki/2.1", summary.getSyntax());
+        assertEquals("3.1", summary.getVersion());
+        assertEquals("XWiki.Alice", summary.getAuthor());
+        assertEquals("Parent", summary.getParent());
+        assertEquals(this.parentReference, summary.getExistingParentReference());
+        assertEquals(Locale.ENGLISH, summary.getDefaultLocale());
+        assertEquals(Collections.singletonList(Locale.FRENCH), summary.getTranslationLocales());
+        assertTrue(summary.hasChildren());
+        assertTrue(summary.hasComments());
+        assertTrue(summary.hasAttachments());
+        assertTrue(summary.hasObjects());
+        assertTrue(summary.hasTags());
+
+        // No page is loaded.
+        verify(this.xwiki, never()).getDocument(any(DocumentReference.class), any(XWikiContext.class));
+    }
+
+    @Test
+    void loadWithoutObjects() throws Exception
+    {
+        this.results.put("doc.title",
+            Collections.singletonList(new Object[] { "Space.Page", "", null, "1.1", "XWiki.Alice", "", "" }));
+
+        List<DocumentSummary> summaries = this.loader.load(Collections.singletonList(this.pageReference));
+
+        assertEquals(1, summaries.size());
+        DocumentSummary summary = summaries.get(0);
+        assertEquals("xwiki/1.0", summary.getSyntax());
+        assertEquals(Locale.ROOT, summary.getDefaultLocale());
+        assertEquals(null, summary.getExistingParentReference());
+        assertFalse(summary.hasChildren());
+        assertFalse(summary.hasComments());
+        assertFalse(summary.hasAttachments());
+        assertFalse(summary.hasObjects());
+        assertFalse(summary.hasTags());
+    }
+
+    @Test
+    void getExisting() throws Exception
+    {
+        this.results.put("select doc.fullName from XWikiDocument doc where", Collections.singletonList("Space.Parent"));
+
+        assertEquals(Collections.singleton(this.parentReference),
+            this.loader.getExisting(Arrays.asList(this.parentReference, this.missingReference)));
+    }
+}
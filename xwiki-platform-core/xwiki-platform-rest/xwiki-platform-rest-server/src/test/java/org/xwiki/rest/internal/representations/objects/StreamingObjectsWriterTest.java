@@ -0,0 +1,121 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.representations.objects;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.ws.rs.core.MediaType;
+import javax.xml.bind.JAXBContext;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.rest.Relations;
+import org.xwiki.rest.model.jaxb.Link;
+import org.xwiki.rest.model.jaxb.ObjectFactory;
+import org.xwiki.rest.model.jaxb.ObjectSummary;
+import org.xwiki.rest.model.jaxb.Objects;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link StreamingObjectsWriter}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class StreamingObjectsWriterTest
+{
+    @InjectMockComponents
+    private StreamingObjectsWriter writer;
+
+    private StreamingObjects objects;
+
+    @BeforeEach
+    void before()
+    {
+        ObjectSummary alice = new ObjectSummary();
+        alice.setClassName("XWiki.XWikiUsers");
+        alice.setPageName("Alice");
+        alice.setNumber(0);
+
+        ObjectSummary bob = new ObjectSummary();
+        bob.setClassName("XWiki.XWikiUsers");
+        bob.setPageName("Bob");
+        bob.setNumber(1);
+
+        this.objects = new StreamingObjects(Arrays.asList(alice, bob).iterator());
+
+        Link next = new Link();
+        next.setHref("http://localhost/rest/wikis/xwiki/classes/XWiki.XWikiUsers/objects?number=2&after=7");
+        next.setRel(Relations.NEXT);
+        this.objects.getLinks().add(next);
+    }
+
+    @Test
+    void isWriteable()
+    {
+        assertTrue(this.writer.isWriteable(StreamingObjects.class, null, null, MediaType.APPLICATION_XML_TYPE));
+        assertFalse(this.writer.isWriteable(Objects.class, null, null, MediaType.APPLICATION_XML_TYPE));
+    }
+
+    @Test
+    void writeXML() throws Exception
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        this.writer.writeTo(this.objects, StreamingObjects.class, null, null, MediaType.APPLICATION_XML_TYPE, null,
+            output);
+
+        // The output can be read as a regular collection of objects.
+        Objects result = (Objects) JAXBContext.newInstance(ObjectFactory.class).createUnmarshaller()
+            .unmarshal(new StringReader(output.toString(StandardCharsets.UTF_8.name())));
+
+        assertEquals(1, result.getLinks().size());
+        assertEquals(Relations.NEXT, result.getLinks().get(0).getRel());
+        assertEquals(2, result.getObjectSummaries().size());
+        assertEquals("Alice", result.getObjectSummaries().get(0).getPageName());
+        assertEquals("Bob", result.getObjectSummaries().get(1).getPageName());
+        assertEquals(1, result.getObjectSummaries().get(1).getNumber());
+    }
+
+    @Test
+    void writeJSON() throws Exception
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        this.writer.writeTo(this.objects, StreamingObjects.class, null, null, MediaType.APPLICATION_JSON_TYPE, null,
+            output);
+
+        JsonNode result = new ObjectMapper().readTree(output.toByteArray());
+
+        assertEquals(Relations.NEXT, result.get("links").get(0).get("rel").asText());
+        assertEquals(2, result.get("objectSummaries").size());
+        assertEquals("Alice", result.get("objectSummaries").get(0).get("pageName").asText());
+        assertEquals("XWiki.XWikiUsers", result.get("objectSummaries").get(1).get("className").asText());
+    }
+}
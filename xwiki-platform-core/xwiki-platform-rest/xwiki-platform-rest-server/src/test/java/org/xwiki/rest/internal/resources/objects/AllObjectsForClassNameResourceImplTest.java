@@ -0,0 +1,354 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.resources.objects;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriBuilder;
+import javax.ws.rs.core.UriInfo;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.rest.Relations;
+import org.xwiki.rest.internal.ModelFactory;
+import org.xwiki.rest.internal.representations.objects.StreamingObjects;
+import org.xwiki.rest.model.jaxb.Link;
+import org.xwiki.rest.model.jaxb.ObjectSummary;
+import org.xwiki.rest.model.jaxb.Objects;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.test.MockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.InjectMockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link AllObjectsForClassNameResourceImpl}.
+ *
+ * @version $Id$
+ */
+@OldcoreTest
+class AllObjectsForClassNameResourceImplTest
+{
+    private static final String WIKI = "wiki";
+
+    private static final String CLASS_NAME = "Space.Class";
+
+    private static final String REQUEST_URI = "/xwiki/rest/wikis/wiki/classes/Space.Class/objects";
+
+    @InjectMockComponents
+    private AllObjectsForClassNameResourceImpl resource;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    private ModelFactory modelFactory;
+
+    @MockComponent
+    private ContextualAuthorizationManager authorization;
+
+    @InjectMockitoOldcore
+    private MockitoOldcore oldCore;
+
+    @Mock
+    private UriInfo uriInfo;
+
+    @Mock
+    private MultivaluedMap<String, String> queryParameters;
+
+    /**
+     * The (document, object) rows of the class, in no particular order. The objects are modified at these days:
+     * 10 on day 3, 20 on day 5, 30 on day 1, 40 on day 4 and 50 on day 2.
+     */
+    private final List<Object[]> rows = new ArrayList<>();
+
+    @BeforeEach
+    void configure() throws Exception
+    {
+        when(this.uriInfo.getBaseUri()).thenReturn(new URI("/xwiki/rest"));
+        when(this.uriInfo.getQueryParameters()).thenReturn(this.queryParameters);
+        when(this.uriInfo.getRequestUriBuilder()).then(invocation -> mockUriBuilder());
+        FieldUtils.writeField(this.resource, "uriInfo", this.uriInfo, true);
+
+        when(this.authorization.hasAccess(eq(Right.VIEW), any())).thenReturn(true);
+        when(this.modelFactory.toRestObjectSummary(any(), any(), any(), anyBoolean(), any())).then(invocation -> {
+            ObjectSummary summary = new ObjectSummary();
+            summary.setId(String.valueOf(invocation.<BaseObject>getArgument(2).getId()));
+            return summary;
+        });
+        when(this.queryManager.createQuery(anyString(), eq(Query.HQL)))
+            .then(invocation -> mockQuery(invocation.getArgument(0)));
+
+        addRow(50, 2);
+        addRow(10, 3);
+        addRow(30, 1);
+        addRow(20, 5);
+        addRow(40, 4);
+    }
+
+    private void addRow(long id, int day)
+    {
+        XWikiDocument document = new XWikiDocument(new DocumentReference(WIKI, "Space", "Page" + id));
+        document.setDate(new Date(day * 86400000L));
+        BaseObject object = mock(BaseObject.class);
+        when(object.getId()).thenReturn(id);
+        this.rows.add(new Object[] { document, object });
+    }
+
+    /**
+     * Evaluates the (few) queries of the resource against {@link #rows}.
+     */
+    private Query mockQuery(String statement)
+    {
+        Map<String, Object> values = new HashMap<>();
+        int[] range = { 0, -1 };
+        return mock(Query.class, (InvocationOnMock invocation) -> {
+            switch (invocation.getMethod().getName()) {
+                case "bindValue":
+                    if (invocation.getArguments().length == 2) {
+                        values.put(invocation.getArgument(0), invocation.getArgument(1));
+                    }
+                    break;
+                case "setOffset":
+                    range[0] = invocation.getArgument(0);
+                    break;
+                case "setLimit":
+                    range[1] = invocation.getArgument(0);
+                    break;
+                case "execute":
+                    return execute(statement, values, range[0], range[1]);
+                default:
+                    break;
+            }
+
+            if (invocation.getMethod().getReturnType() == Query.class) {
+                return invocation.getMock();
+            }
+            return RETURNS_DEFAULTS.answer(invocation);
+        });
+    }
+
+    private List<Object> execute(String statement, Map<String, Object> values, int offset, int limit)
+    {
+        assertEquals(CLASS_NAME, values.get("className"));
+
+        Stream<Object[]> result = this.rows.stream();
+        if (statement.contains("obj.id > :after")) {
+            result = result.filter(row -> getId(row) > (Long) values.get("after"));
+        }
+        if (statement.contains("obj.id <= :last")) {
+            result = result.filter(row -> getId(row) <= (Long) values.get("last"));
+        }
+        Comparator<Object[]> byId = Comparator.comparing(this::getId);
+        if (statement.contains("order by doc.date desc")) {
+            Comparator<Object[]> byDate = Comparator.comparing(row -> ((XWikiDocument) row[0]).getDate());
+            result = result.sorted(byDate.reversed().thenComparing(byId));
+        } else {
+            result = result.sorted(byId);
+        }
+        result = result.skip(offset);
+        if (limit > 0) {
+            result = result.limit(limit);
+        }
+
+        if (statement.startsWith("select obj.id ")) {
+            return result.map(this::getId).collect(Collectors.toList());
+        }
+        return result.collect(Collectors.toList());
+    }
+
+    private Long getId(Object[] row)
+    {
+        return ((BaseObject) row[1]).getId();
+    }
+
+    /**
+     * @return a builder of the request URI which only supports replacing the query string parameters
+     */
+    private UriBuilder mockUriBuilder()
+    {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        return mock(UriBuilder.class, (InvocationOnMock invocation) -> {
+            switch (invocation.getMethod().getName()) {
+                case "replaceQueryParam":
+                    // The values (varargs) are expanded in the arguments.
+                    if (invocation.getArguments().length > 1) {
+                        parameters.put(invocation.getArgument(0), invocation.getArgument(1));
+                    } else {
+                        parameters.remove(invocation.getArgument(0));
+                    }
+                    return invocation.getMock();
+                case "build":
+                    return new URI(REQUEST_URI + parameters.entrySet().stream()
+                        .map(entry -> entry.getKey() + "=" + entry.getValue())
+                        .collect(Collectors.joining("&", "?", "")));
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+
+    private List<String> getObjectIds(Objects objects)
+    {
+        List<String> ids = new ArrayList<>();
+        ((StreamingObjects) objects).getObjectSummaryIterator().forEachRemaining(summary -> ids.add(summary.getId()));
+        return ids;
+    }
+
+    private void assertNextLink(String expectedQueryString, Objects objects)
+    {
+        assertEquals(1, objects.getLinks().size());
+        Link next = objects.getLinks().get(0);
+        assertEquals(Relations.NEXT, next.getRel());
+        assertEquals(REQUEST_URI + "?" + expectedQueryString, next.getHref());
+    }
+
+    @Test
+    void getAllObjects() throws Exception
+    {
+        Objects objects = this.resource.getObjects(WIKI, CLASS_NAME, 0, -1, null, false);
+
+        assertTrue(objects.getLinks().isEmpty());
+        assertEquals(Arrays.asList("10", "20", "30", "40", "50"), getObjectIds(objects));
+    }
+
+    @Test
+    void getFirstPage() throws Exception
+    {
+        Objects objects = this.resource.getObjects(WIKI, CLASS_NAME, 0, 2, null, false);
+
+        assertNextLink("after=20", objects);
+        assertEquals(Arrays.asList("10", "20"), getObjectIds(objects));
+    }
+
+    @Test
+    void getFirstPageWithStart() throws Exception
+    {
+        Objects objects = this.resource.getObjects(WIKI, CLASS_NAME, 1, 2, null, false);
+
+        assertNextLink("after=30", objects);
+        assertEquals(Arrays.asList("20", "30"), getObjectIds(objects));
+    }
+
+    @Test
+    void getFollowingPage() throws Exception
+    {
+        when(this.queryParameters.getFirst("after")).thenReturn("20");
+
+        // The start offset applies only to the first page.
+        Objects objects = this.resource.getObjects(WIKI, CLASS_NAME, 1, 2, null, false);
+
+        assertNextLink("after=40", objects);
+        assertEquals(Arrays.asList("30", "40"), getObjectIds(objects));
+    }
+
+    @Test
+    void getLastPage() throws Exception
+    {
+        when(this.queryParameters.getFirst("after")).thenReturn("30");
+
+        Objects objects = this.resource.getObjects(WIKI, CLASS_NAME, 0, 2, null, false);
+
+        assertTrue(objects.getLinks().isEmpty());
+        assertEquals(Arrays.asList("40", "50"), getObjectIds(objects));
+    }
+
+    @Test
+    void getPageSkipsObjectsNotViewable() throws Exception
+    {
+        when(this.authorization.hasAccess(Right.VIEW, new DocumentReference(WIKI, "Space", "Page20")))
+            .thenReturn(false);
+
+        Objects objects = this.resource.getObjects(WIKI, CLASS_NAME, 0, 2, null, false);
+
+        // The next page still starts after the last object of the page, even if it's not viewable.
+        assertNextLink("after=20", objects);
+        assertEquals(Arrays.asList("10"), getObjectIds(objects));
+    }
+
+    @Test
+    void getPagesOrderedByDate() throws Exception
+    {
+        Objects objects = this.resource.getObjects(WIKI, CLASS_NAME, 0, 2, "date", false);
+
+        assertNextLink("start=2", objects);
+        assertEquals(Arrays.asList("20", "40"), getObjectIds(objects));
+
+        objects = this.resource.getObjects(WIKI, CLASS_NAME, 2, 2, "date", false);
+
+        assertNextLink("start=4", objects);
+        assertEquals(Arrays.asList("10", "50"), getObjectIds(objects));
+
+        objects = this.resource.getObjects(WIKI, CLASS_NAME, 4, 2, "date", false);
+
+        assertTrue(objects.getLinks().isEmpty());
+        assertEquals(Arrays.asList("30"), getObjectIds(objects));
+    }
+
+    @Test
+    void getObjectsInRequestedWiki() throws Exception
+    {
+        this.oldCore.getXWikiContext().setWikiId("currentwiki");
+        List<String> wikis = new ArrayList<>();
+        when(this.modelFactory.toRestObjectSummary(any(), any(), any(), anyBoolean(), any())).then(invocation -> {
+            wikis.add(this.oldCore.getXWikiContext().getWikiId());
+            return new ObjectSummary();
+        });
+
+        Objects objects = this.resource.getObjects(WIKI, CLASS_NAME, 0, 2, null, true);
+        getObjectIds(objects);
+
+        // The summaries are computed in the requested wiki while the response is written.
+        assertEquals(Arrays.asList(WIKI, WIKI), wikis);
+        assertEquals("currentwiki", this.oldCore.getXWikiContext().getWikiId());
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.resources.pages;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.rest.internal.ModelFactory;
+import org.xwiki.rest.model.jaxb.BulkPageResult;
+import org.xwiki.rest.model.jaxb.Page;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.api.Document;
+import com.xpn.xwiki.doc.XWikiDocument;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link BulkPageWriter}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class BulkPageWriterTest
+{
+    @InjectMockComponents
+    private BulkPageWriter writer;
+
+    @MockComponent
+    private ModelFactory factory;
+
+    @MockComponent
+    private ContextualAuthorizationManager authorization;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    private DocumentReference documentReference = new DocumentReference("wiki", "Space", "Page");
+
+    private Document document;
+
+    @BeforeEach
+    void configure() throws Exception
+    {
+        XWikiContext xcontext = mock(XWikiContext.class);
+        XWiki xwiki = mock(XWiki.class);
+        XWikiDocument xwikiDocument = mock(XWikiDocument.class);
+        this.document = mock(Document.class);
+        when(this.xcontextProvider.get()).thenReturn(xcontext);
+        when(xcontext.getWiki()).thenReturn(xwiki);
+        when(xwiki.getDocument(this.documentReference, xcontext)).thenReturn(xwikiDocument);
+        when(xwikiDocument.newDocument(xcontext)).thenReturn(this.document);
+
+        when(this.entityReferenceSerializer.serialize(this.documentReference)).thenReturn("wiki:Space.Page");
+        when(this.authorization.hasAccess(Right.EDIT, this.documentReference)).thenReturn(true);
+    }
+
+    @Test
+    void writePageAndObjects() throws Exception
+    {
+        Page page = new Page();
+        page.setComment("Bulk update");
+        when(this.factory.toDocument(this.document, page)).thenReturn(true);
+
+        org.xwiki.rest.model.jaxb.Object first = new org.xwiki.rest.model.jaxb.Object();
+        first.setClassName("XWiki.TagClass");
+        first.setNumber(0);
+        com.xpn.xwiki.api.Object existingObject = mock(com.xpn.xwiki.api.Object.class);
+        when(this.document.getObject("XWiki.TagClass", 0)).thenReturn(existingObject);
+
+        org.xwiki.rest.model.jaxb.Object second = new org.xwiki.rest.model.jaxb.Object();
+        second.setClassName("XWiki.TagClass");
+        second.setNumber(1);
+        com.xpn.xwiki.api.Object newObject = mock(com.xpn.xwiki.api.Object.class);
+        when(this.document.newObject("XWiki.TagClass")).thenReturn(newObject);
+
+        BulkPageResult result = this.writer.write(this.documentReference, Arrays.asList(page, first, second), true);
+
+        assertEquals("wiki:Space.Page", result.getId());
+        assertEquals(202, (int) result.getStatus());
+        verify(this.factory).toObject(existingObject, first);
+        verify(this.factory).toObject(newObject, second);
+        // All the modifications are saved at once.
+        verify(this.document, times(1)).save("Bulk update", true);
+    }
+
+    @Test
+    void writeNewPage() throws Exception
+    {
+        when(this.document.isNew()).thenReturn(true);
+
+        BulkPageResult result = this.writer.write(this.documentReference, Collections.singletonList(new Page()), null);
+
+        assertEquals(201, (int) result.getStatus());
+        verify(this.document).save("", false);
+    }
+
+    @Test
+    void writeUnmodifiedPage() throws Exception
+    {
+        BulkPageResult result = this.writer.write(this.documentReference, Collections.singletonList(new Page()), null);
+
+        assertEquals(304, (int) result.getStatus());
+        verify(this.document, never()).save(anyString(), anyBoolean());
+    }
+
+    @Test
+    void writeObjectOnMissingPage() throws Exception
+    {
+        when(this.document.isNew()).thenReturn(true);
+
+        BulkPageResult result = this.writer.write(this.documentReference,
+            Collections.singletonList(new org.xwiki.rest.model.jaxb.Object()), null);
+
+        assertEquals(404, (int) result.getStatus());
+        verify(this.document, never()).save(anyString(), anyBoolean());
+    }
+
+    @Test
+    void writeWithoutEditRight()
+    {
+        when(this.authorization.hasAccess(Right.EDIT, this.documentReference)).thenReturn(false);
+
+        BulkPageResult result = this.writer.write(this.documentReference, Collections.singletonList(new Page()), null);
+
+        assertEquals(401, (int) result.getStatus());
+    }
+
+    @Test
+    void writeWithoutPageId()
+    {
+        BulkPageResult result = this.writer.write(null, Collections.singletonList(new Page()), null);
+
+        assertNull(result.getId());
+        assertEquals(400, (int) result.getStatus());
+    }
+
+    @Test
+    void writeWithSaveFailure() throws Exception
+    {
+        when(this.document.isNew()).thenReturn(true);
+        doThrow(new XWikiException(0, 0, "Database unavailable")).when(this.document).save("", false);
+
+        BulkPageResult result = this.writer.write(this.documentReference, Collections.singletonList(new Page()), null);
+
+        assertEquals(500, (int) result.getStatus());
+        assertTrue(result.getError().contains("Database unavailable"));
+    }
+}
@@ -108,6 +108,15 @@ public void commit() throws SolrServerException, IOException
         this.server.commit();
     }
 
+    @Override
+    public void commit(boolean softCommit) throws SolrServerException, IOException
+    {
+        this.logger.debug("Commit changes to Solr (soft: [{}])", softCommit);
+
+        // Wait for the new searcher to be registered so that the measured commit time includes its warm-up.
+        this.server.commit(true, true, softCommit);
+    }
+
     @Override
     public void rollback() throws SolrServerException, IOException
     {
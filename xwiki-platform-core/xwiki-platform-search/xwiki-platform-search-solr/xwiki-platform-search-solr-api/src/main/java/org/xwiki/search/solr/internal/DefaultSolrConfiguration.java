@@ -124,6 +124,78 @@ public class DefaultSolrConfiguration implements SolrConfiguration
      */
     public static final int SOLR_INDEXER_QUEUE_CAPACITY_DEFAULT = 100000;
 
+    /**
+     * The name of the configuration property containing the minimum delay between two soft commits.
+     * 
+     * @since 13.3RC1
+     */
+    public static final String SOLR_INDEXER_COMMIT_SOFTINTERVAL_PROPERTY = "solr.indexer.commit.softInterval";
+
+    /**
+     * The default minimum delay (in milliseconds) between two soft commits.
+     * 
+     * @since 13.3RC1
+     */
+    public static final long SOLR_INDEXER_COMMIT_SOFTINTERVAL_DEFAULT = 1000L;
+
+    /**
+     * The name of the configuration property containing the maximum delay between two hard commits.
+     * 
+     * @since 13.3RC1
+     */
+    public static final String SOLR_INDEXER_COMMIT_HARDINTERVAL_PROPERTY = "solr.indexer.commit.hardInterval";
+
+    /**
+     * The default maximum delay (in milliseconds) between two hard commits.
+     * 
+     * @since 13.3RC1
+     */
+    public static final long SOLR_INDEXER_COMMIT_HARDINTERVAL_DEFAULT = 60000L;
+
+    /**
+     * The name of the configuration property containing the maximum number of changes between two hard commits.
+     * 
+     * @since 13.3RC1
+     */
+    public static final String SOLR_INDEXER_COMMIT_HARDMAXDOCS_PROPERTY = "solr.indexer.commit.hardMaxDocs";
+
+    /**
+     * The default maximum number of changes between two hard commits.
+     * 
+     * @since 13.3RC1
+     */
+    public static final int SOLR_INDEXER_COMMIT_HARDMAXDOCS_DEFAULT = 10000;
+
+    /**
+     * The name of the configuration property containing the maximum time to extract the text of an attachment.
+     * 
+     * @since 13.3RC1
+     */
+    public static final String SOLR_INDEXER_ATTACHMENT_PARSETIMEOUT_PROPERTY = "solr.indexer.attachment.parseTimeout";
+
+    /**
+     * The default maximum time (in milliseconds) to extract the text of an attachment.
+     * 
+     * @since 13.3RC1
+     */
+    public static final long SOLR_INDEXER_ATTACHMENT_PARSETIMEOUT_DEFAULT = 60000L;
+
+    /**
+     * The name of the configuration property containing the maximum size (in megabytes) of the disk cache of the text
+     * extracted from the attachments.
+     * 
+     * @since 13.3RC1
+     */
+    public static final String SOLR_INDEXER_ATTACHMENT_TEXTCACHEMAXSIZE_PROPERTY =
+        "solr.indexer.attachment.textCacheMaxSize";
+
+    /**
+     * The default maximum size (in megabytes) of the disk cache of the text extracted from the attachments.
+     * 
+     * @since 13.3RC1
+     */
+    public static final long SOLR_INDEXER_ATTACHMENT_TEXTCACHEMAXSIZE_DEFAULT = 1024L;
+
     /**
      * The name of the configuration property indicating if a synchronization should be run at startup.
      */
@@ -200,6 +272,41 @@ public int getIndexerQueueCapacity()
             SOLR_INDEXER_QUEUE_CAPACITY_DEFAULT);
     }
 
+    @Override
+    public long getIndexerSoftCommitInterval()
+    {
+        return this.configuration.getProperty(SOLR_INDEXER_COMMIT_SOFTINTERVAL_PROPERTY,
+            SOLR_INDEXER_COMMIT_SOFTINTERVAL_DEFAULT);
+    }
+
+    @Override
+    public long getIndexerHardCommitInterval()
+    {
+        return this.configuration.getProperty(SOLR_INDEXER_COMMIT_HARDINTERVAL_PROPERTY,
+            SOLR_INDEXER_COMMIT_HARDINTERVAL_DEFAULT);
+    }
+
+    @Override
+    public int getIndexerHardCommitMaxDocs()
+    {
+        return this.configuration.getProperty(SOLR_INDEXER_COMMIT_HARDMAXDOCS_PROPERTY,
+            SOLR_INDEXER_COMMIT_HARDMAXDOCS_DEFAULT);
+    }
+
+    @Override
+    public long getIndexerAttachmentParseTimeout()
+    {
+        return this.configuration.getProperty(SOLR_INDEXER_ATTACHMENT_PARSETIMEOUT_PROPERTY,
+            SOLR_INDEXER_ATTACHMENT_PARSETIMEOUT_DEFAULT);
+    }
+
+    @Override
+    public long getIndexerAttachmentTextCacheMaxSize()
+    {
+        return this.configuration.getProperty(SOLR_INDEXER_ATTACHMENT_TEXTCACHEMAXSIZE_PROPERTY,
+            SOLR_INDEXER_ATTACHMENT_TEXTCACHEMAXSIZE_DEFAULT) * 1024 * 1024;
+    }
+
     @Override
     public boolean synchronizeAtStartup()
     {
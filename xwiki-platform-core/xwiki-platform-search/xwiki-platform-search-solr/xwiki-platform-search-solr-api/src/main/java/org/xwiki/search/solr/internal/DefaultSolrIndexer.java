@@ -19,9 +19,12 @@
  */
 package org.xwiki.search.solr.internal;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -42,6 +45,7 @@
 import org.xwiki.context.ExecutionContextManager;
 import org.xwiki.job.JobException;
 import org.xwiki.job.JobExecutor;
+import org.xwiki.management.JMXBeanRegistration;
 import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.search.solr.internal.api.SolrConfiguration;
@@ -50,6 +54,7 @@
 import org.xwiki.search.solr.internal.api.SolrInstance;
 import org.xwiki.search.solr.internal.job.IndexerJob;
 import org.xwiki.search.solr.internal.job.IndexerRequest;
+import org.xwiki.search.solr.internal.jmx.JMXSolrIndexer;
 import org.xwiki.search.solr.internal.metadata.LengthSolrInputDocument;
 import org.xwiki.search.solr.internal.metadata.SolrMetadataExtractor;
 import org.xwiki.search.solr.internal.reference.SolrReferenceResolver;
@@ -62,6 +67,11 @@
  * This implementation does not directly process the given leaf-references, but adds them to a processing queue, in the
  * order they were received. The {@link Runnable} part of this implementation is the one that sequentially reads and
  * processes the queue.
+ * <p>
+ * The index changes are made visible to queries with soft commits, which are coalesced so that at most one is performed
+ * per configured interval, and are flushed to the stable storage with hard commits, which are only performed when the
+ * configured maximum delay or number of changes is reached. The soft committed changes which are not yet hard committed
+ * are preserved by the Solr update log. The pending changes are hard committed when the indexer is stopped.
  * 
  * @version $Id$
  * @since 5.1M2
@@ -96,6 +106,11 @@ public class DefaultSolrIndexer implements SolrIndexer, Initializable, Disposabl
          */
         public IndexOperation operation;
 
+        /**
+         * The callback to execute once the previous entries are committed.
+         */
+        public Runnable callback;
+
         /**
          * @param indexReference the reference of the entity to index.
          * @param operation the indexing operation to perform.
@@ -116,6 +131,15 @@ public IndexQueueEntry(String deleteQuery, IndexOperation operation)
             this.operation = operation;
         }
 
+        /**
+         * @param callback the callback to execute once the previous entries are committed
+         */
+        public IndexQueueEntry(Runnable callback)
+        {
+            this.callback = callback;
+            this.operation = IndexOperation.CALLBACK;
+        }
+
         @Override
         public String toString()
         {
@@ -128,6 +152,9 @@ public String toString()
                 case DELETE:
                     str = "DELETE " + this.deleteQuery;
                     break;
+                case CALLBACK:
+                    str = "CALLBACK " + this.callback;
+                    break;
                 case STOP:
                     str = "STOP";
                     break;
@@ -162,6 +189,11 @@ public String toString()
          */
         public IndexOperation operation;
 
+        /**
+         * The callback to execute once the previous entries are committed.
+         */
+        public Runnable callback;
+
         /**
          * @param reference the reference of the entity to index.
          * @param recurse also apply operation to reference children.
@@ -173,6 +205,15 @@ public ResolveQueueEntry(EntityReference reference, boolean recurse, IndexOperat
             this.recurse = recurse;
             this.operation = operation;
         }
+
+        /**
+         * @param callback the callback to execute once the previous entries are committed
+         */
+        public ResolveQueueEntry(Runnable callback)
+        {
+            this.callback = callback;
+            this.operation = IndexOperation.CALLBACK;
+        }
     }
 
     /**
@@ -215,6 +256,8 @@ public void runInternal()
                         for (EntityReference reference : references) {
                             indexQueue.put(new IndexQueueEntry(reference, queueEntry.operation));
                         }
+                    } else if (queueEntry.operation == IndexOperation.CALLBACK) {
+                        indexQueue.put(new IndexQueueEntry(queueEntry.callback));
                     } else {
                         if (queueEntry.recurse) {
                             indexQueue.put(new IndexQueueEntry(solrRefereceResolver.getQuery(queueEntry.reference),
@@ -245,6 +288,8 @@ public void runInternal()
     private static final IndexQueueEntry INDEX_QUEUE_ENTRY_STOP =
         new IndexQueueEntry((String) null, IndexOperation.STOP);
 
+    private static final String MBEAN_NAME = "name=solrIndexer";
+
     /**
      * Logging framework.
      */
@@ -284,6 +329,9 @@ public void runInternal()
     @Inject
     private JobExecutor jobs;
 
+    @Inject
+    private JMXBeanRegistration jmxRegistration;
+
     /**
      * The queue of index operation to perform.
      */
@@ -314,6 +362,31 @@ public void runInternal()
      */
     private volatile int batchSize;
 
+    /**
+     * The number of changes that are not yet hard committed.
+     */
+    private int hardBatchSize;
+
+    /**
+     * The date of the last soft (or hard) commit.
+     */
+    private long lastSoftCommitDate;
+
+    /**
+     * The date of the last hard commit.
+     */
+    private long lastHardCommitDate;
+
+    /**
+     * The callbacks to execute after the next successful hard commit.
+     */
+    private final List<Runnable> pendingCallbacks = new ArrayList<>();
+
+    /**
+     * Expose the queue size and the commit statistics through JMX.
+     */
+    private JMXSolrIndexer mbean;
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -321,6 +394,12 @@ public void initialize() throws InitializationException
         this.resolveQueue = new LinkedBlockingQueue<>();
         this.indexQueue = new LinkedBlockingQueue<>(this.configuration.getIndexerQueueCapacity());
 
+        this.lastSoftCommitDate = System.currentTimeMillis();
+        this.lastHardCommitDate = this.lastSoftCommitDate;
+
+        this.mbean = new JMXSolrIndexer(this::getQueueSize);
+        this.jmxRegistration.registerMBean(this.mbean, MBEAN_NAME);
+
         // Launch the resolve thread
         this.resolveThread = new Thread(new Resolver());
         this.resolveThread.setName("XWiki Solr resolve thread");
@@ -342,6 +421,8 @@ public void dispose() throws ComponentLifecycleException
         // Mark the component as disposed
         this.disposed = true;
 
+        this.jmxRegistration.unregisterMBean(MBEAN_NAME);
+
         // Stop the resolve thread. Clear the queue and send the stop signal without blocking. We know that the resolve
         // queue will remain empty after the clear call because we set the disposed flag above.
         this.resolveQueue.clear();
@@ -361,19 +442,26 @@ public void run()
         this.logger.debug("Start SOLR indexer thread");
 
         while (!Thread.interrupted()) {
-            // Block until there is at least one entry in the queue
+            // Block until there is at least one entry in the queue or some pending changes have to be committed
             IndexQueueEntry queueEntry = null;
             try {
-                queueEntry = this.indexQueue.take();
+                if (this.hardBatchSize > 0) {
+                    queueEntry = this.indexQueue.poll(getNextCommitDelay(), TimeUnit.MILLISECONDS);
+                } else {
+                    queueEntry = this.indexQueue.take();
+                }
             } catch (InterruptedException e) {
                 this.logger.warn("The SOLR index thread has been interrupted", e);
 
                 queueEntry = INDEX_QUEUE_ENTRY_STOP;
             }
 
-            // Add to the batch until either the batch size is achieved, the queue gets emptied or the
-            // INDEX_QUEUE_ENTRY_STOP is retrieved from the queue.
-            if (!processBatch(queueEntry)) {
+            if (queueEntry == null) {
+                // Nothing new to index in the meantime: commit the pending changes.
+                commit();
+            } else if (!processBatch(queueEntry)) {
+                // Add to the batch until either the batch size is achieved, the queue gets emptied or the
+                // INDEX_QUEUE_ENTRY_STOP is retrieved from the queue.
                 break;
             }
         }
@@ -383,7 +471,7 @@ public void run()
 
     /**
      * Process a batch of operations that were just read from the index operations queue. This method also commits the
-     * batch when it finishes to process it.
+     * batch when it finishes to process it, as long as the configured commit intervals allow it.
      * 
      * @param queueEntry the batch to process
      * @return {@code true} to wait for another batch, {@code false} to stop the indexing thread
@@ -394,7 +482,11 @@ private boolean processBatch(IndexQueueEntry queueEntry)
 
         for (IndexQueueEntry batchEntry = queueEntry; batchEntry != null; batchEntry = this.indexQueue.poll()) {
             if (batchEntry == INDEX_QUEUE_ENTRY_STOP) {
-                // Discard the current batch and stop the indexing thread.
+                // Flush the changes that are not yet in the stable storage and stop the indexing thread.
+                if (this.hardBatchSize > 0) {
+                    commit(false);
+                }
+
                 return false;
             }
 
@@ -410,6 +502,7 @@ private boolean processBatch(IndexQueueEntry queueEntry)
                         solrInstance.add(solrDocument);
                         length += solrDocument.getLength();
                         ++this.batchSize;
+                        ++this.hardBatchSize;
                     }
                 } else if (IndexOperation.DELETE.equals(operation)) {
                     if (batchEntry.reference == null) {
@@ -419,6 +512,14 @@ private boolean processBatch(IndexQueueEntry queueEntry)
                     }
 
                     ++this.batchSize;
+                    ++this.hardBatchSize;
+                } else if (IndexOperation.CALLBACK.equals(operation)) {
+                    if (this.hardBatchSize > 0) {
+                        // Wait for the changes queued before the callback to be hard committed.
+                        this.pendingCallbacks.add(batchEntry.callback);
+                    } else {
+                        runCallback(batchEntry.callback);
+                    }
                 }
             } catch (Throwable e) {
                 this.logger.error("Failed to process entry [{}]", batchEntry, e);
@@ -428,15 +529,36 @@ private boolean processBatch(IndexQueueEntry queueEntry)
 
             // Commit the index changes so that they become available to queries. This is a costly operation and that is
             // the reason why we perform it at the end of the batch.
-            if (shouldCommit(length, this.batchSize)) {
-                commit();
+            if (shouldCommit(length, this.batchSize) && commit()) {
                 length = 0;
             }
         }
 
-        // Commit what's left
-        if (this.batchSize > 0) {
-            commit();
+        // Commit what's left (if the commit intervals allow it, otherwise the commit is delayed)
+        commit();
+
+        return true;
+    }
+
+    /**
+     * Commit the pending changes, if the configured intervals and thresholds allow it. A hard commit is performed when
+     * the maximum delay or number of changes since the last hard commit is reached, otherwise a soft commit is
+     * performed if the minimum delay since the last soft commit is reached.
+     * 
+     * @return {@code true} if the pending changes have been committed, {@code false} if the commit was delayed
+     */
+    private boolean commit()
+    {
+        long now = System.currentTimeMillis();
+
+        if (this.hardBatchSize > 0 && (this.hardBatchSize >= this.configuration.getIndexerHardCommitMaxDocs()
+            || now - this.lastHardCommitDate >= this.configuration.getIndexerHardCommitInterval())) {
+            commit(false);
+        } else if (this.batchSize > 0
+            && now - this.lastSoftCommitDate >= this.configuration.getIndexerSoftCommitInterval()) {
+            commit(true);
+        } else {
+            return false;
         }
 
         return true;
@@ -444,23 +566,75 @@ private boolean processBatch(IndexQueueEntry queueEntry)
 
     /**
      * Commit.
+     * 
+     * @param softCommit {@code true} to only make the changes visible, {@code false} to also flush them to the stable
+     *            storage
      */
-    private void commit()
+    private void commit(boolean softCommit)
     {
+        long start = System.currentTimeMillis();
+
         try {
-            solrInstance.commit();
+            solrInstance.commit(softCommit);
+
+            if (!softCommit) {
+                // The changes queued before the pending callbacks are now in the stable storage.
+                this.pendingCallbacks.forEach(this::runCallback);
+            }
+
+            long duration = System.currentTimeMillis() - start;
+            this.mbean.addCommit(softCommit, duration);
+            this.logger.debug("{} commit of [{}] changes took [{}] ms", softCommit ? "Soft" : "Hard", this.batchSize,
+                duration);
         } catch (Exception e) {
-            this.logger.error("Failed to commit index changes to the Solr server. Rolling back.", e);
+            if (softCommit) {
+                // Don't rollback: it would also discard the previously soft committed changes. The failed changes will
+                // be part of the next hard commit.
+                this.logger.error("Failed to soft commit index changes to the Solr server.", e);
+            } else {
+                this.logger.error("Failed to commit index changes to the Solr server. Rolling back.", e);
 
-            try {
-                solrInstance.rollback();
-            } catch (Exception ex) {
-                // Just log the failure.
-                this.logger.error("Failed to rollback index changes.", ex);
+                try {
+                    solrInstance.rollback();
+                } catch (Exception ex) {
+                    // Just log the failure.
+                    this.logger.error("Failed to rollback index changes.", ex);
+                }
             }
         }
 
         this.batchSize = 0;
+        this.lastSoftCommitDate = System.currentTimeMillis();
+        if (!softCommit) {
+            // Forget the callbacks of the changes that have been rolled back, if the commit failed.
+            this.pendingCallbacks.clear();
+            this.hardBatchSize = 0;
+            this.lastHardCommitDate = this.lastSoftCommitDate;
+        }
+    }
+
+    private void runCallback(Runnable callback)
+    {
+        try {
+            callback.run();
+        } catch (Exception e) {
+            this.logger.error("Failed to execute the commit callback [{}]", callback, e);
+        }
+    }
+
+    /**
+     * @return the number of milliseconds to wait before the pending changes have to be committed
+     */
+    private long getNextCommitDelay()
+    {
+        long now = System.currentTimeMillis();
+
+        long delay = this.lastHardCommitDate + this.configuration.getIndexerHardCommitInterval() - now;
+        if (this.batchSize > 0) {
+            delay = Math.min(delay, this.lastSoftCommitDate + this.configuration.getIndexerSoftCommitInterval() - now);
+        }
+
+        return Math.max(delay, 0);
     }
 
     /**
@@ -530,6 +704,18 @@ public void delete(EntityReference reference, boolean recurse)
         addToQueue(reference, recurse, IndexOperation.DELETE);
     }
 
+    @Override
+    public void whenCommitted(Runnable callback)
+    {
+        if (!this.disposed) {
+            try {
+                this.resolveQueue.put(new ResolveQueueEntry(callback));
+            } catch (InterruptedException e) {
+                this.logger.error("Failed to add callback [{}] to Solr indexing queue", callback, e);
+            }
+        }
+    }
+
     /**
      * Add a list of references to the index queue, all having the same operation.
      * 
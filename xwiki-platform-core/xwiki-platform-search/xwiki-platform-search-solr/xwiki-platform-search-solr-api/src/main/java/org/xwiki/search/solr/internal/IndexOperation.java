@@ -39,6 +39,13 @@
 
     // General operations
 
+    /**
+     * Run a callback once the previous entries have been committed to the stable storage.
+     * 
+     * @since 13.3RC1
+     */
+    CALLBACK,
+
     /**
      * Stop indexing thread.
      */
@@ -22,6 +22,8 @@
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -109,9 +111,9 @@ public void onEvent(Event event, Object source, Object data)
         try {
             if (event instanceof DocumentUpdatedEvent) {
                 XWikiDocument document = (XWikiDocument) source;
-                if (Locale.ROOT.equals(document.getLocale())) {
-                    // Index all the translations of a document when its default translation has been updated because
-                    // the default translation holds meta data shared by all translations (attachments, objects).
+                if (Locale.ROOT.equals(document.getLocale()) && isSharedMetadataModified(document)) {
+                    // Index all the translations of a document when the meta data shared by all translations
+                    // (attachments, objects), which is held by the default translation, has been updated.
                     indexTranslations(document, (XWikiContext) data);
                 } else {
                     // Index only the updated translation.
@@ -181,6 +183,26 @@ public void onEvent(Event event, Object source, Object data)
         }
     }
 
+    /**
+     * @param document the updated default translation of a document
+     * @return {@code true} if the objects or the attachments of the document have been modified, in which case the
+     *         other translations (which include them) need to be indexed again
+     */
+    private boolean isSharedMetadataModified(XWikiDocument document)
+    {
+        XWikiDocument originalDocument = document.getOriginalDocument();
+
+        return originalDocument == null
+            || !Objects.equals(document.getXObjects(), originalDocument.getXObjects())
+            || !Objects.equals(getAttachmentVersions(document), getAttachmentVersions(originalDocument));
+    }
+
+    private List<String> getAttachmentVersions(XWikiDocument document)
+    {
+        return document.getAttachmentList().stream()
+            .map(attachment -> attachment.getFilename() + '/' + attachment.getVersion()).collect(Collectors.toList());
+    }
+
     /**
      * Helper method to index all the translations of a document. We don't rely on the {@code recurse} parameter of the
      * {@link SolrIndexer#index(org.xwiki.model.reference.EntityReference, boolean)} because we want to update only the
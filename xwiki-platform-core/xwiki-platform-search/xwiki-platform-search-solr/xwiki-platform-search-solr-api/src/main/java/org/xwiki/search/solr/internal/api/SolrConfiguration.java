@@ -98,6 +98,41 @@
      */
     int getIndexerQueueCapacity();
 
+    /**
+     * @return the minimum number of milliseconds between two soft commits of the indexed changes, i.e. the maximum
+     *         delay before the indexed changes become visible to queries when the indexer is busy
+     * @since 13.3RC1
+     */
+    long getIndexerSoftCommitInterval();
+
+    /**
+     * @return the maximum number of milliseconds between two hard commits of the indexed changes, i.e. the maximum
+     *         delay before the indexed changes are flushed to the stable storage
+     * @since 13.3RC1
+     */
+    long getIndexerHardCommitInterval();
+
+    /**
+     * @return the maximum number of indexed changes that can be accumulated before they are flushed to the stable
+     *         storage with a hard commit
+     * @since 13.3RC1
+     */
+    int getIndexerHardCommitMaxDocs();
+
+    /**
+     * @return the maximum number of milliseconds to wait for the text of an attachment to be extracted, 0 to wait
+     *         indefinitely
+     * @since 13.3RC1
+     */
+    long getIndexerAttachmentParseTimeout();
+
+    /**
+     * @return the maximum size (in bytes) of the disk cache containing the text extracted from the attachments, 0 to
+     *         disable this cache
+     * @since 13.3RC1
+     */
+    long getIndexerAttachmentTextCacheMaxSize();
+
     /**
      * @return true if a full synchronization job between the database and SOLR index should be run when XWiki starts
      * @since 6.1M2
@@ -55,6 +55,21 @@
      */
     void delete(EntityReference reference, boolean recurse);
 
+    /**
+     * Add a callback to the queue, to be executed once all the index and delete operations queued before it have been
+     * committed to the stable storage.
+     * <p>
+     * The callback is executed by the indexing thread so it should be fast. It's never executed if the index changes
+     * fail to be committed or if the indexer is stopped before.
+     * 
+     * @param callback the callback to execute
+     * @since 13.3RC1
+     */
+    default void whenCommitted(Runnable callback)
+    {
+        callback.run();
+    }
+
     /**
      * @return the number of element in the index/delete queue
      */
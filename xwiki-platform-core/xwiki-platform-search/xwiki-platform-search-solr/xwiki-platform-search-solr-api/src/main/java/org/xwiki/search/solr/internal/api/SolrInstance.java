@@ -118,6 +118,23 @@ public interface SolrInstance extends Initializable
      */
     void commit() throws SolrServerException, IOException;
 
+    /**
+     * Commit the recent (uncommitted) changes to the Solr server.
+     * <p>
+     * A soft commit only makes the changes visible to queries (by opening a new searcher), while a hard commit also
+     * flushes them to the stable storage. Soft commits are much cheaper but the soft committed changes are only
+     * durable thanks to the update log until the next hard commit.
+     * 
+     * @param softCommit {@code true} to perform a soft commit, {@code false} to perform a hard commit
+     * @throws SolrServerException if problems occur.
+     * @throws IOException if problems occur.
+     * @since 13.3RC1
+     */
+    default void commit(boolean softCommit) throws SolrServerException, IOException
+    {
+        commit();
+    }
+
     /**
      * Cancel the local uncommitted changes that were not yet pushed to the Solr server.
      * 
@@ -0,0 +1,116 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.jmx;
+
+import java.util.function.Supplier;
+
+/**
+ * Implementation of the Solr indexer JMX MBean.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+public class JMXSolrIndexer implements JMXSolrIndexerMBean
+{
+    private final Supplier<Integer> queueSize;
+
+    private long softCommitCount;
+
+    private long softCommitTotalTime;
+
+    private long lastSoftCommitTime;
+
+    private long hardCommitCount;
+
+    private long hardCommitTotalTime;
+
+    private long lastHardCommitTime;
+
+    /**
+     * Default constructor.
+     * 
+     * @param queueSize the number of index operations waiting to be processed or committed
+     */
+    public JMXSolrIndexer(Supplier<Integer> queueSize)
+    {
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * Record a commit.
+     * 
+     * @param softCommit {@code true} for a soft commit, {@code false} for a hard commit
+     * @param duration the duration of the commit, in milliseconds
+     */
+    public synchronized void addCommit(boolean softCommit, long duration)
+    {
+        if (softCommit) {
+            this.softCommitCount++;
+            this.softCommitTotalTime += duration;
+            this.lastSoftCommitTime = duration;
+        } else {
+            this.hardCommitCount++;
+            this.hardCommitTotalTime += duration;
+            this.lastHardCommitTime = duration;
+        }
+    }
+
+    @Override
+    public int getQueueSize()
+    {
+        return this.queueSize.get();
+    }
+
+    @Override
+    public synchronized long getSoftCommitCount()
+    {
+        return this.softCommitCount;
+    }
+
+    @Override
+    public synchronized long getHardCommitCount()
+    {
+        return this.hardCommitCount;
+    }
+
+    @Override
+    public synchronized long getLastSoftCommitTime()
+    {
+        return this.lastSoftCommitTime;
+    }
+
+    @Override
+    public synchronized long getLastHardCommitTime()
+    {
+        return this.lastHardCommitTime;
+    }
+
+    @Override
+    public synchronized long getAverageSoftCommitTime()
+    {
+        return this.softCommitCount > 0 ? this.softCommitTotalTime / this.softCommitCount : 0;
+    }
+
+    @Override
+    public synchronized long getAverageHardCommitTime()
+    {
+        return this.hardCommitCount > 0 ? this.hardCommitTotalTime / this.hardCommitCount : 0;
+    }
+}
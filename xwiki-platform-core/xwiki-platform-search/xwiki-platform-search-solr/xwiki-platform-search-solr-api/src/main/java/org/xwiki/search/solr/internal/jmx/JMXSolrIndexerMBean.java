@@ -0,0 +1,64 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.jmx;
+
+/**
+ * Interface of the Solr indexer JMX MBean.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+public interface JMXSolrIndexerMBean
+{
+    /**
+     * @return the number of index operations waiting to be processed or committed
+     */
+    int getQueueSize();
+
+    /**
+     * @return the number of soft commits performed since the indexer was started
+     */
+    long getSoftCommitCount();
+
+    /**
+     * @return the number of hard commits performed since the indexer was started
+     */
+    long getHardCommitCount();
+
+    /**
+     * @return the duration (in milliseconds) of the last soft commit, including the warm-up of the new searcher
+     */
+    long getLastSoftCommitTime();
+
+    /**
+     * @return the duration (in milliseconds) of the last hard commit, including the warm-up of the new searcher
+     */
+    long getLastHardCommitTime();
+
+    /**
+     * @return the average duration (in milliseconds) of the soft commits, including the warm-up of the new searcher
+     */
+    long getAverageSoftCommitTime();
+
+    /**
+     * @return the average duration (in milliseconds) of the hard commits, including the warm-up of the new searcher
+     */
+    long getAverageHardCommitTime();
+}
@@ -19,6 +19,7 @@
  */
 package org.xwiki.search.solr.internal.job;
 
+import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReference;
 
 /**
@@ -40,6 +41,12 @@
      */
     protected EntityReference rootReference;
 
+    /**
+     * Specifies the document after which the iteration starts. If {@code null} then the iteration starts from the
+     * first document.
+     */
+    protected DocumentReference checkpoint;
+
     @Override
     public void remove()
     {
@@ -51,4 +58,10 @@ public void setRootReference(EntityReference rootReference)
     {
         this.rootReference = rootReference;
     }
+
+    @Override
+    public void setCheckpoint(DocumentReference checkpoint)
+    {
+        this.checkpoint = checkpoint;
+    }
 }
@@ -61,6 +61,20 @@
 @Named("database")
 public class DatabaseDocumentIterator extends AbstractDocumentIterator<String>
 {
+    // This iterator must have the same order as the SolrDocumentIterator, otherwise the synchronization fails.
+    private static final String SELECT = "select doc.space, doc.name, doc.language, doc.version from XWikiDocument doc";
+
+    private static final String ORDER_BY = " order by doc.space, doc.name, doc.language";
+
+    // Matches the documents that come after the last document of the previous 'page', in the order specified above.
+    private static final String KEYSET_CONDITION = "(doc.space > :lastSpace or (doc.space = :lastSpace"
+        + " and (doc.name > :lastName or (doc.name = :lastName and doc.language > :lastLocale))))";
+
+    // Same as above when the last document has the default locale. The empty locale is not bound as a parameter because
+    // some databases (e.g. Oracle) store it as NULL, and comparing with NULL never matches.
+    private static final String DEFAULT_LOCALE_KEYSET_CONDITION = "(doc.space > :lastSpace or (doc.space = :lastSpace"
+        + " and (doc.name > :lastName or (doc.name = :lastName and length(doc.language) > 0))))";
+
     /**
      * The current index in the list of {@link #results}.
      */
@@ -88,9 +102,10 @@ public class DatabaseDocumentIterator extends AbstractDocumentIterator<String>
     private String wiki;
 
     /**
-     * The offset in the current wiki.
+     * The values of the sort columns (space, name and locale) of the last document taken from the current wiki, used to
+     * fetch the next 'page' of results. {@code null} if the next 'page' is the first one of the current wiki.
      */
-    private int offset;
+    private Object[] lastResult;
 
     /**
      * Used to query the underlying storage.
@@ -111,11 +126,27 @@ public class DatabaseDocumentIterator extends AbstractDocumentIterator<String>
      */
     private Query query;
 
+    /**
+     * The query used to fetch the documents that come after {@link #lastResult} from the database.
+     */
+    private Query keysetQuery;
+
+    /**
+     * The query used to fetch the documents that come after {@link #lastResult} from the database, when the last
+     * document has the default locale.
+     */
+    private Query defaultLocaleKeysetQuery;
+
     /**
      * The query used to count the documents from the database.
      */
     private Query countQuery;
 
+    /**
+     * The where clause corresponding to the root entity.
+     */
+    private String whereClause;
+
     /**
      * The query filter used to count the documents from the database.
      */
@@ -182,7 +213,6 @@ private List<Object[]> getResults()
                     break;
                 }
                 wiki = getNextWiki();
-                offset = 0;
             }
             index = 0;
         }
@@ -195,11 +225,28 @@ private List<Object[]> getResults()
     private void fetchNextResults()
     {
         try {
-            // We use basic pagination (absolute offset) because we don't expect the database to change too much while
-            // the synchronization takes place. Also, the database is used as the reference store, meaning that we
-            // update the Solr index to match the database, not the other way around.
-            results = getQuery().setWiki(wiki).setOffset(offset).execute();
-            offset += LIMIT;
+            // We use keyset pagination: each 'page' starts right after the last document of the previous page. Unlike
+            // basic pagination (absolute offset) the database doesn't have to skip all the previous rows, so the cost
+            // of fetching a page doesn't grow with the position in the wiki. It also means that documents created or
+            // deleted during the synchronization don't shift the pages that follow.
+            Query pageQuery;
+            if (lastResult == null) {
+                pageQuery = getQuery();
+            } else {
+                String lastLocale = (String) lastResult[2];
+                if (StringUtils.isEmpty(lastLocale)) {
+                    pageQuery = getDefaultLocaleKeysetQuery();
+                } else {
+                    pageQuery = getKeysetQuery();
+                    pageQuery.bindValue("lastLocale", lastLocale);
+                }
+                pageQuery.bindValue("lastSpace", lastResult[0]);
+                pageQuery.bindValue("lastName", lastResult[1]);
+            }
+            results = pageQuery.setWiki(wiki).execute();
+            if (!results.isEmpty()) {
+                lastResult = results.get(results.size() - 1);
+            }
         } catch (QueryException e) {
             throw new IllegalStateException("Failed to query the database.", e);
         }
@@ -212,10 +259,6 @@ private void fetchNextResults()
     private Query getQuery() throws QueryException
     {
         if (query == null) {
-            // This iterator must have the same order as the SolrDocumentIterator, otherwise the synchronization fails.
-            String select = "select doc.space, doc.name, doc.language, doc.version from XWikiDocument doc";
-            String orderBy = " order by doc.space, doc.name, doc.language";
-
             EntityReference spaceReference = null;
             EntityReference documentReference = null;
             if (rootReference != null) {
@@ -223,7 +266,7 @@ private Query getQuery() throws QueryException
                 documentReference = rootReference.extractReference(EntityType.DOCUMENT);
             }
 
-            String whereClause = "";
+            whereClause = "";
             if (spaceReference != null) {
                 whereClause += " where doc.space = :space";
                 if (documentReference != null) {
@@ -231,7 +274,7 @@ private Query getQuery() throws QueryException
                 }
             }
 
-            query = queryManager.createQuery(select + whereClause + orderBy, Query.HQL).setLimit(LIMIT);
+            query = queryManager.createQuery(SELECT + whereClause + ORDER_BY, Query.HQL).setLimit(LIMIT);
             countQuery = queryManager.createQuery(whereClause, Query.HQL).addFilter(countFilter);
 
             if (spaceReference != null) {
@@ -248,17 +291,74 @@ private Query getQuery() throws QueryException
         return query;
     }
 
+    /**
+     * @return the query used to fetch the documents that come after {@link #lastResult} from the database
+     * @throws QueryException if creating the query fails
+     */
+    private Query getKeysetQuery() throws QueryException
+    {
+        if (keysetQuery == null) {
+            keysetQuery = createKeysetQuery(KEYSET_CONDITION);
+        }
+        return keysetQuery;
+    }
+
+    /**
+     * @return the query used to fetch the documents that come after {@link #lastResult} from the database, when the
+     *         last document has the default locale
+     * @throws QueryException if creating the query fails
+     */
+    private Query getDefaultLocaleKeysetQuery() throws QueryException
+    {
+        if (defaultLocaleKeysetQuery == null) {
+            defaultLocaleKeysetQuery = createKeysetQuery(DEFAULT_LOCALE_KEYSET_CONDITION);
+        }
+        return defaultLocaleKeysetQuery;
+    }
+
+    private Query createKeysetQuery(String keysetCondition) throws QueryException
+    {
+        Map<String, Object> namedParameters = getQuery().getNamedParameters();
+
+        String statement =
+            SELECT + (whereClause.isEmpty() ? " where " : whereClause + " and ") + keysetCondition + ORDER_BY;
+        Query keyset = queryManager.createQuery(statement, Query.HQL).setLimit(LIMIT);
+
+        for (Map.Entry<String, Object> parameter : namedParameters.entrySet()) {
+            keyset.bindValue(parameter.getKey(), parameter.getValue());
+        }
+
+        return keyset;
+    }
+
     /**
      * @return the next wiki, in alphabetical order
      */
     private String getNextWiki()
     {
         if (wikisIterator == null) {
-            List<String> wikis = getWikis();
+            List<String> wikis = new ArrayList<>(getWikis());
             Collections.sort(wikis);
+            if (checkpoint != null) {
+                // Skip the wikis that have been fully iterated before the checkpoint.
+                String checkpointWiki = checkpoint.getWikiReference().getName();
+                wikis.removeIf(wikiId -> wikiId.compareTo(checkpointWiki) < 0);
+            }
             wikisIterator = wikis.iterator();
         }
-        return wikisIterator.hasNext() ? wikisIterator.next() : null;
+
+        String nextWiki = wikisIterator.hasNext() ? wikisIterator.next() : null;
+
+        lastResult = null;
+        if (checkpoint != null && checkpoint.getWikiReference().getName().equals(nextWiki)) {
+            // Start right after the checkpoint, as if it was the last document of the previous 'page'.
+            String localSpaceReference =
+                this.localEntityReferenceSerializer.serialize(checkpoint.getLastSpaceReference());
+            String locale = checkpoint.getLocale() != null ? checkpoint.getLocale().toString() : "";
+            lastResult = new Object[] {localSpaceReference, checkpoint.getName(), locale};
+        }
+
+        return nextWiki;
     }
 
     /**
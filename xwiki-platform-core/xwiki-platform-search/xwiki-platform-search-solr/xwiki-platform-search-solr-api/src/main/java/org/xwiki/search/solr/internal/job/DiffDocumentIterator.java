@@ -101,6 +101,13 @@ public void setRootReference(EntityReference rootReference)
         next.setRootReference(rootReference);
     }
 
+    @Override
+    public void setCheckpoint(DocumentReference checkpoint)
+    {
+        previous.setCheckpoint(checkpoint);
+        next.setCheckpoint(checkpoint);
+    }
+
     @Override
     public boolean hasNext()
     {
@@ -45,6 +45,16 @@
      */
     void setRootReference(EntityReference rootReference);
 
+    /**
+     * Resume the iteration after the specified document. The documents that come before the checkpoint, or the
+     * checkpoint itself, in the iteration order (see {@link DocumentReferenceComparator}) are skipped. If the passed
+     * reference is {@code null} (or if you don't call this method) then the iteration starts from the first document.
+     * 
+     * @param checkpoint the last document that was handled by a previous (interrupted) iteration
+     * @since 13.3RC1
+     */
+    void setCheckpoint(DocumentReference checkpoint);
+
     /**
      * @return estimate the size of the iterated store for showing progress information
      */
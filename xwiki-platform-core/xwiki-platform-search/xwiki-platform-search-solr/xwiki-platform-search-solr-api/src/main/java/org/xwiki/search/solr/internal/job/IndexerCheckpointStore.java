@@ -0,0 +1,177 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.job;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.LocaleUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.environment.Environment;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+
+/**
+ * Persists the progress of the Solr index synchronization so that an interrupted {@link IndexerJob} can resume where it
+ * stopped instead of iterating again all the documents.
+ * <p>
+ * The checkpoints are kept in a properties file located in the permanent directory. Losing this file is harmless: the
+ * next synchronization simply starts from the first document.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component(roles = IndexerCheckpointStore.class)
+@Singleton
+public class IndexerCheckpointStore
+{
+    private static final String FILE_PATH = "cache/solr-indexer-checkpoints.properties";
+
+    private static final String ALL = "all";
+
+    private static final String REFERENCE_SUFFIX = ".reference";
+
+    private static final String LOCALE_SUFFIX = ".locale";
+
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    @Inject
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * @param rootReference the root entity whose documents are synchronized, {@code null} for all the documents
+     * @return the last document handled by the previous (interrupted) synchronization of the specified root entity, or
+     *         {@code null} if there's nothing to resume
+     */
+    public synchronized DocumentReference get(EntityReference rootReference)
+    {
+        Properties checkpoints = load();
+
+        String key = getKey(rootReference);
+        String reference = checkpoints.getProperty(key + REFERENCE_SUFFIX);
+        if (reference == null) {
+            return null;
+        }
+
+        DocumentReference checkpoint = this.documentReferenceResolver.resolve(reference);
+        String locale = checkpoints.getProperty(key + LOCALE_SUFFIX);
+        if (StringUtils.isNotEmpty(locale)) {
+            checkpoint = new DocumentReference(checkpoint, LocaleUtils.toLocale(locale));
+        }
+
+        return checkpoint;
+    }
+
+    /**
+     * @param rootReference the root entity whose documents are synchronized, {@code null} for all the documents
+     * @param checkpoint the last document handled by the synchronization
+     */
+    public synchronized void set(EntityReference rootReference, DocumentReference checkpoint)
+    {
+        Properties checkpoints = load();
+
+        String key = getKey(rootReference);
+        checkpoints.setProperty(key + REFERENCE_SUFFIX, this.entityReferenceSerializer.serialize(checkpoint));
+        checkpoints.setProperty(key + LOCALE_SUFFIX,
+            checkpoint.getLocale() != null ? checkpoint.getLocale().toString() : "");
+
+        save(checkpoints);
+    }
+
+    /**
+     * Forget the checkpoint of the specified root entity, usually because its synchronization has been completed.
+     *
+     * @param rootReference the root entity whose documents are synchronized, {@code null} for all the documents
+     */
+    public synchronized void remove(EntityReference rootReference)
+    {
+        Properties checkpoints = load();
+
+        String key = getKey(rootReference);
+        if (checkpoints.remove(key + REFERENCE_SUFFIX) != null) {
+            checkpoints.remove(key + LOCALE_SUFFIX);
+
+            save(checkpoints);
+        }
+    }
+
+    private String getKey(EntityReference rootReference)
+    {
+        if (rootReference == null) {
+            return ALL;
+        }
+
+        return rootReference.getType().getLowerCase() + ':' + this.entityReferenceSerializer.serialize(rootReference);
+    }
+
+    private File getFile()
+    {
+        return new File(this.environment.getPermanentDirectory(), FILE_PATH);
+    }
+
+    private Properties load()
+    {
+        Properties checkpoints = new Properties();
+
+        File file = getFile();
+        if (file.exists()) {
+            try (InputStream stream = new FileInputStream(file)) {
+                checkpoints.load(stream);
+            } catch (IOException e) {
+                this.logger.warn("Failed to load the Solr indexer checkpoints from [{}]. Root cause: [{}].", file,
+                    ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+
+        return checkpoints;
+    }
+
+    private void save(Properties checkpoints)
+    {
+        File file = getFile();
+        file.getParentFile().mkdirs();
+        try (OutputStream stream = new FileOutputStream(file)) {
+            checkpoints.store(stream, null);
+        } catch (IOException e) {
+            this.logger.warn("Failed to save the Solr indexer checkpoints in [{}]. Root cause: [{}].", file,
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+}
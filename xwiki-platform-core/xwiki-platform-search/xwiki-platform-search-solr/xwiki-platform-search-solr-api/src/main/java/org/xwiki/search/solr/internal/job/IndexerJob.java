@@ -60,6 +60,11 @@ public class IndexerJob extends AbstractJob<IndexerRequest, DefaultJobStatus<Ind
      */
     private static final JobGroupPath GROUP = new JobGroupPath(Arrays.asList("solr", "indexer"));
 
+    /**
+     * The number of documents handled between two saves of the synchronization checkpoint.
+     */
+    private static final int CHECKPOINT_INTERVAL = 1000;
+
     /**
      * Used to send documents to index or delete to/from Solr index.
      */
@@ -77,6 +82,9 @@ public class IndexerJob extends AbstractJob<IndexerRequest, DefaultJobStatus<Ind
     @Inject
     private EntityReferenceSerializer<String> entityReferenceSerializer;
 
+    @Inject
+    private transient IndexerCheckpointStore checkpointStore;
+
     @Override
     public String getType()
     {
@@ -123,8 +131,17 @@ protected void runInternal() throws Exception
      */
     private void updateSolrIndex()
     {
+        EntityReference rootReference = getRequest().getRootReference();
+
         DiffDocumentIterator<String> iterator = new DiffDocumentIterator<>(this.solrIterator, this.databaseIterator);
-        iterator.setRootReference(getRequest().getRootReference());
+        iterator.setRootReference(rootReference);
+
+        // Resume the previous synchronization if it has been interrupted.
+        DocumentReference checkpoint = this.checkpointStore.get(rootReference);
+        if (checkpoint != null) {
+            this.logger.info("Resume the synchronization of the Solr index after [{}].", checkpoint);
+            iterator.setCheckpoint(checkpoint);
+        }
 
         this.progressManager.pushLevelProgress(2, this);
 
@@ -140,6 +157,10 @@ private void updateSolrIndex()
             this.progressManager.startStep(this);
             updateSolrIndex(progressSize, iterator);
             this.progressManager.endStep(this);
+
+            // The synchronization is complete so there's nothing to resume anymore, once the queued changes are
+            // committed.
+            this.indexer.whenCommitted(() -> this.checkpointStore.remove(rootReference));
         } finally {
             this.progressManager.popLevelProgress(this);
         }
@@ -151,6 +172,7 @@ private void updateSolrIndex(int progressSize, DiffDocumentIterator<String> iter
 
         try {
             long[] counter = new long[Action.values().length];
+            long handled = 0;
 
             while (iterator.hasNext()) {
                 this.progressManager.startStep(this);
@@ -168,6 +190,14 @@ private void updateSolrIndex(int progressSize, DiffDocumentIterator<String> iter
 
                 counter[entry.getValue().ordinal()]++;
 
+                // Remember where we are in case the synchronization is interrupted. The documents sent to the indexer
+                // are only queued so the checkpoint is saved only once they have been committed.
+                if (++handled % CHECKPOINT_INTERVAL == 0) {
+                    EntityReference rootReference = getRequest().getRootReference();
+                    DocumentReference checkpoint = entry.getKey();
+                    this.indexer.whenCommitted(() -> this.checkpointStore.set(rootReference, checkpoint));
+                }
+
                 this.progressManager.endStep(this);
             }
 
@@ -30,6 +30,7 @@
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrQuery.ORDER;
 import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.util.ClientUtils;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.params.CursorMarkParams;
@@ -39,6 +40,7 @@
 import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.search.solr.internal.api.FieldUtils;
 import org.xwiki.search.solr.internal.api.SolrIndexerException;
 import org.xwiki.search.solr.internal.api.SolrInstance;
@@ -85,6 +87,10 @@ public class SolrDocumentIterator extends AbstractDocumentIterator<String>
     @Inject
     private DocumentReferenceResolver<SolrDocument> solrDocumentReferenceResolver;
 
+    @Inject
+    @Named("local")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
     @Override
     public boolean hasNext()
     {
@@ -144,6 +150,9 @@ private SolrQuery getQuery() throws SolrIndexerException
             query.setFields(FieldUtils.WIKI, FieldUtils.SPACES, FieldUtils.NAME, FieldUtils.DOCUMENT_LOCALE,
                 FieldUtils.VERSION);
             query.addFilterQuery(FieldUtils.TYPE + ':' + EntityType.DOCUMENT.name());
+            if (checkpoint != null) {
+                query.addFilterQuery(getCheckpointFilterQuery());
+            }
             // This iterator must have the same order as the database iterator, otherwise the synchronization fails.
             // Note that we had two options:
             // (A) Sort the Solr index only by id and enable docValues on the id field to improve the speed. But then we
@@ -169,4 +178,30 @@ private SolrQuery getQuery() throws SolrIndexerException
         }
         return query;
     }
+
+    /**
+     * @return a filter query that matches the documents that come after the {@link #checkpoint}, in the order used to
+     *         sort the results
+     */
+    private String getCheckpointFilterQuery()
+    {
+        String wiki = ClientUtils.escapeQueryChars(checkpoint.getWikiReference().getName());
+        String space = ClientUtils
+            .escapeQueryChars(this.localEntityReferenceSerializer.serialize(checkpoint.getLastSpaceReference()));
+        String name = ClientUtils.escapeQueryChars(checkpoint.getName());
+        // The default locale is indexed as an empty string so it has to be quoted.
+        String locale = checkpoint.getLocale() != null ? checkpoint.getLocale().toString() : "";
+
+        // Equivalent of the keyset condition used by the database iterator.
+        StringBuilder filter = new StringBuilder();
+        filter.append(String.format("%s:{%s TO *]", FieldUtils.WIKI, wiki));
+        filter.append(String.format(" OR (%s:%s AND %s:{%s TO *])", FieldUtils.WIKI, wiki, FieldUtils.SPACE_EXACT,
+            space));
+        filter.append(String.format(" OR (%s:%s AND %s:%s AND %s:{%s TO *])", FieldUtils.WIKI, wiki,
+            FieldUtils.SPACE_EXACT, space, FieldUtils.NAME_EXACT, name));
+        filter.append(String.format(" OR (%s:%s AND %s:%s AND %s:%s AND %s:{\"%s\" TO *])", FieldUtils.WIKI, wiki,
+            FieldUtils.SPACE_EXACT, space, FieldUtils.NAME_EXACT, name, FieldUtils.DOCUMENT_LOCALE, locale));
+
+        return filter.toString();
+    }
 }
@@ -32,7 +32,9 @@
 import javax.inject.Named;
 import javax.inject.Provider;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.tika.exception.TikaException;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaMetadataKeys;
 import org.slf4j.Logger;
@@ -44,9 +46,9 @@
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.search.solr.internal.api.FieldUtils;
+import org.xwiki.search.solr.internal.api.SolrConfiguration;
 import org.xwiki.search.solr.internal.api.SolrIndexerException;
 import org.xwiki.search.solr.internal.reference.SolrReferenceResolver;
-import org.xwiki.tika.internal.TikaUtils;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
@@ -109,6 +111,15 @@ public abstract class AbstractSolrMetadataExtractor implements SolrMetadataExtra
     @Inject
     protected ComponentManager componentManager;
 
+    @Inject
+    private AttachmentTextCache attachmentTextCache;
+
+    @Inject
+    private AttachmentTextExtractor attachmentTextExtractor;
+
+    @Inject
+    private SolrConfiguration solrConfiguration;
+
     private int shortTextLimit = -1;
 
     /**
@@ -511,7 +522,8 @@ protected void addFieldValueOnce(SolrInputDocument solrDocument, String fieldNam
     }
 
     /**
-     * Tries to extract text indexable content from a generic attachment.
+     * Tries to extract text indexable content from a generic attachment. The extracted text is cached using the hash of
+     * the attachment content so that an attachment is parsed again only when its content is modified.
      * 
      * @param attachment the attachment to extract the content from
      * @return the text representation of the attachment's content
@@ -519,17 +531,42 @@ protected void addFieldValueOnce(SolrInputDocument solrDocument, String fieldNam
      */
     protected String getContentAsText(XWikiAttachment attachment)
     {
+        if (this.attachmentTextCache.isFailed(attachment.getReference(), attachment.getVersion())) {
+            // Don't waste time parsing again an attachment that failed or took too long to parse.
+            this.logger.debug("Skipping the content of attachment [{}] which failed to be extracted before",
+                attachment.getReference());
+            return null;
+        }
+
         try {
-            Metadata metadata = new Metadata();
-            metadata.set(TikaMetadataKeys.RESOURCE_NAME_KEY, attachment.getFilename());
+            XWikiContext xcontext = this.xcontextProvider.get();
+
+            // Hashing the content is much cheaper than parsing it.
+            String contentHash;
+            try (InputStream in = attachment.getContentInputStream(xcontext)) {
+                contentHash = DigestUtils.sha256Hex(in);
+            }
 
-            InputStream in = attachment.getContentInputStream(this.xcontextProvider.get());
+            String text = this.attachmentTextCache.get(contentHash, attachment.getFilename());
+            if (text == null) {
+                Metadata metadata = new Metadata();
+                metadata.set(TikaMetadataKeys.RESOURCE_NAME_KEY, attachment.getFilename());
 
-            try {
-                return TikaUtils.parseToString(in, metadata);
-            } finally {
-                in.close();
+                try (InputStream in = attachment.getContentInputStream(xcontext)) {
+                    // Don't let a pathological attachment block the indexer.
+                    text = this.attachmentTextExtractor.parseToString(in, metadata,
+                        this.solrConfiguration.getIndexerAttachmentParseTimeout());
+                } catch (TikaException e) {
+                    // The attachment can't be parsed (or took too long): don't try again until it's modified.
+                    this.attachmentTextCache.setFailed(attachment.getReference(), attachment.getVersion());
+
+                    throw e;
+                }
+
+                this.attachmentTextCache.set(contentHash, attachment.getFilename(), text);
             }
+
+            return text;
         } catch (Exception e) {
             this.logger.error("Failed to retrieve the content of attachment [{}]", attachment.getReference(), e);
             return null;
@@ -0,0 +1,328 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.metadata;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.environment.Environment;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.search.solr.internal.api.SolrConfiguration;
+import org.xwiki.tika.internal.TikaUtils;
+
+/**
+ * Caches the text extracted from the attachments, so that an attachment whose content didn't change is not parsed again
+ * each time one of the Solr documents that include its text (the attachment itself and each translation of its
+ * document) is indexed. The cached text is identified by the hash of the attachment content and the file name (used to
+ * detect the media type), which means the cached text can also be shared by copies of the same file.
+ * <p>
+ * The most recently used texts are kept in memory and all the texts are also stored (compressed) on disk, in the
+ * permanent directory, so that they survive a restart and a full reindex doesn't need to parse all the attachments
+ * again. The disk cache is bound to the Tika version and configuration (the texts extracted with a different one are
+ * discarded) and its size is limited: the least recently used texts are removed when the limit is exceeded.
+ * <p>
+ * The attachment versions whose text failed to be extracted (e.g. because parsing them took too long) are also
+ * remembered in memory, so that they are not parsed again each time their document is indexed.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component(roles = AttachmentTextCache.class)
+@Singleton
+public class AttachmentTextCache implements Initializable, Disposable
+{
+    private static final int DEFAULT_CAPACITY = 200;
+
+    private static final int FAILURES_CAPACITY = 1000;
+
+    private static final String DIRECTORY_PATH = "cache/solr/attachments";
+
+    private static final String FILE_EXTENSION = ".txt.gz";
+
+    /**
+     * The proportion of the maximum size to free when the disk cache is full, in order to not have to clean it after
+     * each new entry.
+     */
+    private static final double EVICTION_RATIO = 0.2;
+
+    @Inject
+    private CacheManager cacheManager;
+
+    @Inject
+    private SolrConfiguration configuration;
+
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    @Inject
+    private Logger logger;
+
+    private Cache<String> cache;
+
+    /**
+     * The attachment versions whose text failed to be extracted.
+     */
+    private Cache<Boolean> failures;
+
+    /**
+     * The directory of the disk cache, {@code null} if it's disabled.
+     */
+    private File directory;
+
+    private long maxSize;
+
+    /**
+     * The current size of the disk cache, {@code -1} if not computed yet.
+     */
+    private long size = -1;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            this.cache =
+                this.cacheManager.createNewCache(new LRUCacheConfiguration("solr.attachment.text", DEFAULT_CAPACITY));
+            this.failures = this.cacheManager
+                .createNewCache(new LRUCacheConfiguration("solr.attachment.text.failures", FAILURES_CAPACITY));
+        } catch (CacheException e) {
+            throw new InitializationException("Failed to create the attachment text cache.", e);
+        }
+
+        this.maxSize = this.configuration.getIndexerAttachmentTextCacheMaxSize();
+        File rootDirectory = new File(this.environment.getPermanentDirectory(), DIRECTORY_PATH);
+        if (this.maxSize > 0) {
+            this.directory = new File(rootDirectory, TikaUtils.getVersion());
+        }
+
+        // Remove the texts extracted with a different Tika version or configuration (or all of them if the disk cache
+        // has been disabled).
+        File[] directories = rootDirectory.listFiles();
+        if (directories != null) {
+            for (File child : directories) {
+                if (!child.equals(this.directory)) {
+                    FileUtils.deleteQuietly(child);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.cache.dispose();
+        this.failures.dispose();
+    }
+
+    /**
+     * @param contentHash the hash of the attachment content
+     * @param fileName the name of the attachment file
+     * @return the cached text, or {@code null} if the text of this content was not extracted yet
+     */
+    public String get(String contentHash, String fileName)
+    {
+        String key = getKey(contentHash, fileName);
+
+        String text = this.cache.get(key);
+        if (text == null && this.directory != null) {
+            text = load(key);
+            if (text != null) {
+                this.cache.set(key, text);
+            }
+        }
+
+        return text;
+    }
+
+    /**
+     * @param contentHash the hash of the attachment content
+     * @param fileName the name of the attachment file
+     * @param text the text extracted from the attachment content
+     */
+    public void set(String contentHash, String fileName, String text)
+    {
+        String key = getKey(contentHash, fileName);
+
+        this.cache.set(key, text);
+
+        if (this.directory != null) {
+            save(key, text);
+        }
+    }
+
+    /**
+     * @param reference the reference of the attachment
+     * @param version the version of the attachment
+     * @return {@code true} if the text of this attachment version failed to be extracted before
+     */
+    public boolean isFailed(AttachmentReference reference, String version)
+    {
+        return this.failures.get(getFailureKey(reference, version)) != null;
+    }
+
+    /**
+     * Remember that the text of the specified attachment version failed to be extracted.
+     * 
+     * @param reference the reference of the attachment
+     * @param version the version of the attachment
+     */
+    public void setFailed(AttachmentReference reference, String version)
+    {
+        this.failures.set(getFailureKey(reference, version), Boolean.TRUE);
+    }
+
+    private String getFailureKey(AttachmentReference reference, String version)
+    {
+        return this.serializer.serialize(reference) + '@' + version;
+    }
+
+    private String getKey(String contentHash, String fileName)
+    {
+        return contentHash + '/' + fileName;
+    }
+
+    private File getFile(String key)
+    {
+        // The file name can contain characters that are not allowed in a path so we hash the key.
+        String fileName = DigestUtils.sha256Hex(key);
+
+        return new File(new File(this.directory, fileName.substring(0, 2)), fileName + FILE_EXTENSION);
+    }
+
+    private String load(String key)
+    {
+        File file = getFile(key);
+        if (file.exists()) {
+            try (InputStream stream = new GZIPInputStream(new FileInputStream(file))) {
+                String text = IOUtils.toString(stream, StandardCharsets.UTF_8);
+
+                // Remember that the text was used recently.
+                file.setLastModified(System.currentTimeMillis());
+
+                return text;
+            } catch (IOException e) {
+                this.logger.warn("Failed to read the cached attachment text from [{}]. Root cause: [{}].", file,
+                    ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+
+        return null;
+    }
+
+    private void save(String key, String text)
+    {
+        File file = getFile(key);
+        try {
+            file.getParentFile().mkdirs();
+
+            // Write a temporary file first so that the cache never contains partial texts.
+            File temporaryFile = File.createTempFile(file.getName(), null, file.getParentFile());
+            try (OutputStream stream = new GZIPOutputStream(new FileOutputStream(temporaryFile))) {
+                stream.write(text.getBytes(StandardCharsets.UTF_8));
+            }
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+            addSize(file.length());
+        } catch (IOException e) {
+            this.logger.warn("Failed to cache the attachment text in [{}]. Root cause: [{}].", file,
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+
+    private synchronized void addSize(long length)
+    {
+        if (this.size < 0) {
+            // The files are only listed when the first text is saved to not slow down the initialization.
+            this.size = listFiles().stream().mapToLong(File::length).sum();
+        } else {
+            this.size += length;
+        }
+
+        if (this.size > this.maxSize) {
+            evict();
+        }
+    }
+
+    private void evict()
+    {
+        List<File> files = listFiles().stream().sorted(Comparator.comparingLong(File::lastModified))
+            .collect(Collectors.toList());
+
+        long targetSize = (long) (this.maxSize * (1 - EVICTION_RATIO));
+        this.size = files.stream().mapToLong(File::length).sum();
+        for (File file : files) {
+            if (this.size <= targetSize) {
+                break;
+            }
+
+            long length = file.length();
+            if (file.delete()) {
+                this.size -= length;
+            }
+        }
+    }
+
+    private Collection<File> listFiles()
+    {
+        File[] directories = this.directory.listFiles(File::isDirectory);
+        if (directories == null) {
+            return Collections.emptyList();
+        }
+
+        return Arrays.stream(directories).map(child -> child.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION)))
+            .filter(children -> children != null).flatMap(Arrays::stream).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.metadata;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaMetadataKeys;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.tika.internal.TikaUtils;
+
+/**
+ * Extracts the text of the attachments with a time limit, so that a pathological attachment cannot block the indexer.
+ * The attachments are parsed by a bounded pool of threads. When an attachment takes too long its parse thread is
+ * interrupted and the stream is closed, but some parsers ignore both so the thread may remain busy until the parser
+ * gives up. When all the parse threads are busy and too many attachments are waiting for them, the attachment is parsed
+ * in the calling thread (without time limit) rather than being indexed without its content.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component(roles = AttachmentTextExtractor.class)
+@Singleton
+public class AttachmentTextExtractor implements Initializable, Disposable
+{
+    /**
+     * The number of threads used to parse the attachments.
+     */
+    private static final int PARSE_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
+    /**
+     * The number of attachments waiting for a free parse thread. The queue is bounded so that the attachments don't
+     * pile up when the parse threads are stuck on attachments whose parser ignores the interruption.
+     */
+    private static final int PARSE_QUEUE_CAPACITY = PARSE_THREADS * 2;
+
+    @Inject
+    private Logger logger;
+
+    private ThreadPoolExecutor executor;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        this.executor = new ThreadPoolExecutor(PARSE_THREADS, PARSE_THREADS, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(PARSE_QUEUE_CAPACITY), runnable -> {
+                Thread thread = new Thread(runnable, "XWiki Solr attachment parse thread");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        // Interrupt the attachments being parsed
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * @param stream the attachment content
+     * @param metadata the attachment metadata
+     * @param timeout the maximum number of milliseconds to wait for the extracted text, 0 (or less) to parse the
+     *            attachment in the current thread without time limit
+     * @return the extracted text
+     * @throws IOException if the attachment content can not be read
+     * @throws TikaException if the attachment can not be parsed or if parsing it takes too long
+     */
+    public String parseToString(InputStream stream, Metadata metadata, long timeout) throws IOException, TikaException
+    {
+        if (timeout <= 0) {
+            return TikaUtils.parseToString(stream, metadata);
+        }
+
+        Future<String> future;
+        try {
+            future = this.executor.submit(() -> TikaUtils.parseToString(stream, metadata));
+        } catch (RejectedExecutionException e) {
+            this.logger.debug("Too many attachments are being parsed, parsing [{}] in the current thread",
+                metadata.get(TikaMetadataKeys.RESOURCE_NAME_KEY));
+
+            return TikaUtils.parseToString(stream, metadata);
+        }
+
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            // Closing the stream unblocks the parsers that don't check the interruption but are waiting for data.
+            IOUtils.closeQuietly(stream);
+
+            throw new TikaException(String.format("Parsing the attachment took more than [%s] ms", timeout), e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+
+            throw new TikaException("Interrupted while waiting for the attachment to be parsed", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof TikaException) {
+                throw (TikaException) cause;
+            }
+
+            throw new TikaException("Failed to parse the attachment", cause);
+        }
+    }
+}
@@ -85,6 +85,34 @@ public void getIndexerQueueCapacity()
 
     }
 
+    @Test
+    public void getIndexerCommitThresholds()
+    {
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_INDEXER_COMMIT_SOFTINTERVAL_PROPERTY,
+            DefaultSolrConfiguration.SOLR_INDEXER_COMMIT_SOFTINTERVAL_DEFAULT)).thenReturn(500L);
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_INDEXER_COMMIT_HARDINTERVAL_PROPERTY,
+            DefaultSolrConfiguration.SOLR_INDEXER_COMMIT_HARDINTERVAL_DEFAULT)).thenReturn(30000L);
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_INDEXER_COMMIT_HARDMAXDOCS_PROPERTY,
+            DefaultSolrConfiguration.SOLR_INDEXER_COMMIT_HARDMAXDOCS_DEFAULT)).thenReturn(42);
+
+        assertEquals(500L, this.configuration.getIndexerSoftCommitInterval());
+        assertEquals(30000L, this.configuration.getIndexerHardCommitInterval());
+        assertEquals(42, this.configuration.getIndexerHardCommitMaxDocs());
+    }
+
+    @Test
+    public void getIndexerAttachmentSettings()
+    {
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_INDEXER_ATTACHMENT_PARSETIMEOUT_PROPERTY,
+            DefaultSolrConfiguration.SOLR_INDEXER_ATTACHMENT_PARSETIMEOUT_DEFAULT)).thenReturn(5000L);
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_INDEXER_ATTACHMENT_TEXTCACHEMAXSIZE_PROPERTY,
+            DefaultSolrConfiguration.SOLR_INDEXER_ATTACHMENT_TEXTCACHEMAXSIZE_DEFAULT)).thenReturn(2L);
+
+        assertEquals(5000L, this.configuration.getIndexerAttachmentParseTimeout());
+        // The size is configured in megabytes.
+        assertEquals(2L * 1024 * 1024, this.configuration.getIndexerAttachmentTextCacheMaxSize());
+    }
+
     @Test
     public void synchronizeAtStartup()
     {
@@ -0,0 +1,138 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal;
+
+import javax.inject.Named;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.search.solr.internal.api.SolrConfiguration;
+import org.xwiki.search.solr.internal.api.SolrInstance;
+import org.xwiki.search.solr.internal.metadata.LengthSolrInputDocument;
+import org.xwiki.search.solr.internal.metadata.SolrMetadataExtractor;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DefaultSolrIndexer}.
+ * 
+ * @version $Id$
+ */
+@ComponentTest
+class DefaultSolrIndexerTest
+{
+    private static final long HOUR = 3600000L;
+
+    private static final int WAIT = 5000;
+
+    @MockComponent
+    private SolrConfiguration configuration;
+
+    @MockComponent
+    private SolrInstance solrInstance;
+
+    @MockComponent
+    @Named("document")
+    private SolrMetadataExtractor documentExtractor;
+
+    @InjectMockComponents
+    private DefaultSolrIndexer indexer;
+
+    private final DocumentReference firstReference = new DocumentReference("wiki", "Space", "First");
+
+    private final DocumentReference secondReference = new DocumentReference("wiki", "Space", "Second");
+
+    @BeforeComponent
+    void configure() throws Exception
+    {
+        when(this.configuration.getIndexerQueueCapacity()).thenReturn(100);
+        when(this.configuration.getIndexerBatchSize()).thenReturn(1);
+        when(this.configuration.getIndexerBatchMaxLengh()).thenReturn(100000);
+        when(this.configuration.getIndexerSoftCommitInterval()).thenReturn(HOUR);
+        when(this.configuration.getIndexerHardCommitInterval()).thenReturn(HOUR);
+        when(this.configuration.getIndexerHardCommitMaxDocs()).thenReturn(1000);
+
+        when(this.documentExtractor.getSolrDocument(any())).then(invocation -> new LengthSolrInputDocument());
+    }
+
+    @AfterEach
+    void afterEach() throws Exception
+    {
+        this.indexer.dispose();
+    }
+
+    @Test
+    void softCommitAtInterval() throws Exception
+    {
+        when(this.configuration.getIndexerSoftCommitInterval()).thenReturn(100L);
+
+        this.indexer.index(this.firstReference, false);
+
+        // The change is made visible once the soft commit interval is reached, without being flushed.
+        verify(this.solrInstance, timeout(WAIT)).add(any(LengthSolrInputDocument.class));
+        verify(this.solrInstance, timeout(WAIT)).commit(true);
+        verify(this.solrInstance, never()).commit(false);
+    }
+
+    @Test
+    void hardCommitAtThreshold() throws Exception
+    {
+        when(this.configuration.getIndexerHardCommitMaxDocs()).thenReturn(2);
+
+        Runnable callback = mock(Runnable.class);
+
+        this.indexer.index(this.firstReference, false);
+        this.indexer.whenCommitted(callback);
+        this.indexer.index(this.secondReference, false);
+
+        // The callback waits for the first change to be hard committed.
+        InOrder order = inOrder(this.solrInstance, callback);
+        order.verify(this.solrInstance, timeout(WAIT)).commit(false);
+        order.verify(callback, timeout(WAIT)).run();
+        verify(this.solrInstance, never()).commit(true);
+    }
+
+    @Test
+    void hardCommitOnStop() throws Exception
+    {
+        this.indexer.index(this.firstReference, false);
+
+        verify(this.solrInstance, timeout(WAIT)).add(any(LengthSolrInputDocument.class));
+        verify(this.solrInstance, never()).commit(anyBoolean());
+
+        this.indexer.dispose();
+
+        // The pending changes are flushed before the index thread stops.
+        verify(this.solrInstance, timeout(WAIT)).commit(false);
+    }
+}
@@ -107,4 +107,27 @@ public void onDocumentDefaultTranslationUpdated() throws Exception
         verify(this.indexer).index(new DocumentReference(documentReference, Locale.FRENCH), false);
         verify(this.indexer).index(new DocumentReference(documentReference, Locale.GERMAN), false);
     }
+
+    @Test
+    public void onDocumentDefaultTranslationContentUpdated() throws Exception
+    {
+        XWikiContext xcontext = mock(XWikiContext.class);
+
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getLocale()).thenReturn(Locale.ROOT);
+        when(document.getTranslationLocales(xcontext)).thenReturn(Arrays.asList(Locale.FRENCH, Locale.GERMAN));
+
+        DocumentReference documentReference = new DocumentReference("wiki", "Path", "Page");
+        when(document.getDocumentReferenceWithLocale()).thenReturn(documentReference);
+
+        // Same (no) objects and attachments.
+        XWikiDocument originalDocument = mock(XWikiDocument.class);
+        when(document.getOriginalDocument()).thenReturn(originalDocument);
+
+        this.mocker.getComponentUnderTest().onEvent(new DocumentUpdatedEvent(), document, xcontext);
+
+        // The other translations don't need to be indexed again since the shared meta data didn't change.
+        verify(this.indexer).index(documentReference, false);
+        verify(this.indexer, times(1)).index(any(EntityReference.class), any(Boolean.class));
+    }
 }
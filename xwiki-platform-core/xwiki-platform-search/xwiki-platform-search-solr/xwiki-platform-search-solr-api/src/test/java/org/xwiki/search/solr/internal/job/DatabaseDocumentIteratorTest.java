@@ -49,10 +49,14 @@
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -65,6 +69,12 @@
 @ComponentTest
 class DatabaseDocumentIteratorTest
 {
+    private static final String KEYSET_CONDITION = "(doc.space > :lastSpace or (doc.space = :lastSpace"
+        + " and (doc.name > :lastName or (doc.name = :lastName and doc.language > :lastLocale))))";
+
+    private static final String DEFAULT_LOCALE_KEYSET_CONDITION = "(doc.space > :lastSpace or (doc.space = :lastSpace"
+        + " and (doc.name > :lastName or (doc.name = :lastName and length(doc.language) > 0))))";
+
     @MockComponent
     private WikiDescriptorManager wikiDescriptorManager;
 
@@ -109,8 +119,6 @@ void iterateAllWikis() throws Exception
         when(emptyQuery.execute()).thenReturn(Collections.emptyList());
 
         Query chessQuery = mock(Query.class);
-        when(chessQuery.setOffset(0)).thenReturn(chessQuery);
-        when(chessQuery.setOffset(100)).thenReturn(emptyQuery);
         when(chessQuery.execute()).thenReturn(Arrays.asList(new Object[] { "Blog.Code", "WebHome", "", "3.2" },
             new Object[] { "Main", "Welcome", "en", "1.1" }, new Object[] { "XWiki.Syntax", "Links", "fr", "2.5" }));
 
@@ -122,8 +130,6 @@ void iterateAllWikis() throws Exception
             createDocumentReference("chess", Arrays.asList("XWiki", "Syntax"), "Links", Locale.FRENCH);
 
         Query tennisQuery = mock(Query.class);
-        when(tennisQuery.setOffset(0)).thenReturn(tennisQuery);
-        when(tennisQuery.setOffset(100)).thenReturn(emptyQuery);
         when(tennisQuery.execute()).thenReturn(Arrays.asList(new Object[] { "Main", "Welcome", "en", "2.1" },
             new Object[] { "XWiki.Syntax", "Links", "fr", "1.3" }));
 
@@ -138,6 +144,10 @@ void iterateAllWikis() throws Exception
         when(query.setWiki("chess")).thenReturn(chessQuery);
         when(query.setWiki("tennis")).thenReturn(tennisQuery);
 
+        Query keysetQuery = mock(Query.class);
+        when(keysetQuery.setLimit(anyInt())).thenReturn(keysetQuery);
+        when(keysetQuery.setWiki(anyString())).thenReturn(emptyQuery);
+
         Query chessCountQuery = mock(Query.class);
         when(chessCountQuery.execute()).thenReturn(Collections.singletonList(3L));
 
@@ -152,6 +162,9 @@ void iterateAllWikis() throws Exception
         when(
             this.queryManager.createQuery("select doc.space, doc.name, doc.language, doc.version from XWikiDocument doc"
                 + " order by doc.space, doc.name, doc.language", Query.HQL)).thenReturn(query);
+        when(this.queryManager.createQuery("select doc.space, doc.name, doc.language, doc.version from XWikiDocument doc"
+            + " where " + KEYSET_CONDITION + " order by doc.space, doc.name, doc.language", Query.HQL))
+                .thenReturn(keysetQuery);
         when(this.queryManager.createQuery("", Query.HQL)).thenReturn(countQuery);
 
         DocumentIterator<String> iterator = this.databaseIterator;
@@ -171,6 +184,11 @@ void iterateAllWikis() throws Exception
         expectedResults.add(new ImmutablePair<>(tennisXWikiSyntaxLinks, "1.3"));
 
         assertEquals(expectedResults, actualResults);
+
+        // The next 'page' starts after the last document of the previous 'page' (the same in both wikis).
+        verify(keysetQuery, times(2)).bindValue("lastSpace", "XWiki.Syntax");
+        verify(keysetQuery, times(2)).bindValue("lastName", "Links");
+        verify(keysetQuery, times(2)).bindValue("lastLocale", "fr");
     }
 
     @Test
@@ -184,8 +202,6 @@ void iterateOneWiki() throws Exception
         Query query = mock(Query.class);
         when(query.setLimit(anyInt())).thenReturn(query);
         when(query.setWiki(rootReference.getWikiReference().getName())).thenReturn(query);
-        when(query.setOffset(0)).thenReturn(query);
-        when(query.setOffset(100)).thenReturn(emptyQuery);
         when(query.execute()).thenReturn(Collections.singletonList(new Object[] { "A.B", "C", "de", "3.1" }));
 
         Map<String, Object> namedParameters = new HashMap();
@@ -196,10 +212,17 @@ void iterateOneWiki() throws Exception
         Query countQuery = mock(Query.class);
         when(countQuery.addFilter(this.countQueryFilter)).thenReturn(countQuery);
 
+        Query keysetQuery = mock(Query.class);
+        when(keysetQuery.setLimit(anyInt())).thenReturn(keysetQuery);
+        when(keysetQuery.setWiki(rootReference.getWikiReference().getName())).thenReturn(emptyQuery);
+
         String whereClause = " where doc.space = :space and doc.name = :name";
         when(
             this.queryManager.createQuery("select doc.space, doc.name, doc.language, doc.version from XWikiDocument doc"
                 + whereClause + " order by doc.space, doc.name, doc.language", Query.HQL)).thenReturn(query);
+        when(this.queryManager.createQuery("select doc.space, doc.name, doc.language, doc.version from XWikiDocument doc"
+            + whereClause + " and " + KEYSET_CONDITION + " order by doc.space, doc.name, doc.language", Query.HQL))
+                .thenReturn(keysetQuery);
         when(this.queryManager.createQuery(whereClause, Query.HQL)).thenReturn(countQuery);
 
         DocumentIterator<String> iterator = this.databaseIterator;
@@ -220,6 +243,108 @@ void iterateOneWiki() throws Exception
 
         verify(countQuery).bindValue("space", "A.B");
         verify(countQuery).bindValue("name", "C");
+
+        verify(keysetQuery).bindValue("space", "A.B");
+        verify(keysetQuery).bindValue("name", "C");
+        verify(keysetQuery).bindValue("lastLocale", "de");
+    }
+
+    @Test
+    void iterateAfterDefaultLocale() throws Exception
+    {
+        when(this.wikiDescriptorManager.getAllIds()).thenReturn(Arrays.asList("chess"));
+
+        Query emptyQuery = mock(Query.class);
+        when(emptyQuery.execute()).thenReturn(Collections.emptyList());
+
+        // Some databases (e.g. Oracle) return NULL for the empty default locale.
+        Query chessQuery = mock(Query.class);
+        when(chessQuery.execute())
+            .thenReturn(Collections.singletonList(new Object[] { "Main", "WebHome", null, "1.1" }));
+
+        Query query = mock(Query.class);
+        when(query.setLimit(anyInt())).thenReturn(query);
+        when(query.getNamedParameters()).thenReturn(Collections.emptyMap());
+        when(query.setWiki("chess")).thenReturn(chessQuery);
+
+        Query keysetQuery = mock(Query.class);
+        when(keysetQuery.setLimit(anyInt())).thenReturn(keysetQuery);
+        when(keysetQuery.setWiki("chess")).thenReturn(emptyQuery);
+
+        when(
+            this.queryManager.createQuery("select doc.space, doc.name, doc.language, doc.version from XWikiDocument doc"
+                + " order by doc.space, doc.name, doc.language", Query.HQL)).thenReturn(query);
+        when(this.queryManager.createQuery(
+            "select doc.space, doc.name, doc.language, doc.version from XWikiDocument doc"
+            + " where " + DEFAULT_LOCALE_KEYSET_CONDITION + " order by doc.space, doc.name, doc.language", Query.HQL))
+                .thenReturn(keysetQuery);
+
+        DocumentIterator<String> iterator = this.databaseIterator;
+
+        List<Pair<DocumentReference, String>> actualResults = new ArrayList<>();
+        while (iterator.hasNext()) {
+            actualResults.add(iterator.next());
+        }
+
+        assertEquals(Collections.singletonList(new ImmutablePair<>(
+            createDocumentReference("chess", Arrays.asList("Main"), "WebHome", null), "1.1")), actualResults);
+
+        // The empty locale is never bound because it would be converted to NULL by some databases.
+        verify(keysetQuery).bindValue("lastSpace", "Main");
+        verify(keysetQuery).bindValue("lastName", "WebHome");
+        verify(keysetQuery, never()).bindValue(eq("lastLocale"), any());
+    }
+
+    @Test
+    void iterateFromCheckpoint() throws Exception
+    {
+        DocumentReference checkpoint =
+            createDocumentReference("tennis", Arrays.asList("Main"), "Welcome", Locale.ENGLISH);
+
+        Query emptyQuery = mock(Query.class);
+        when(emptyQuery.execute()).thenReturn(Collections.emptyList());
+
+        Query tennisQuery = mock(Query.class);
+        when(tennisQuery.execute())
+            .thenReturn(Collections.singletonList(new Object[] { "XWiki.Syntax", "Links", "fr", "1.3" }));
+
+        DocumentReference tennisXWikiSyntaxLinks =
+            createDocumentReference("tennis", Arrays.asList("XWiki", "Syntax"), "Links", Locale.FRENCH);
+
+        Query query = mock(Query.class);
+        when(query.setLimit(anyInt())).thenReturn(query);
+        when(query.getNamedParameters()).thenReturn(Collections.emptyMap());
+
+        Query keysetQuery = mock(Query.class);
+        when(keysetQuery.setLimit(anyInt())).thenReturn(keysetQuery);
+        when(keysetQuery.setWiki("tennis")).thenReturn(tennisQuery, emptyQuery);
+
+        Query countQuery = mock(Query.class);
+        when(countQuery.addFilter(this.countQueryFilter)).thenReturn(countQuery);
+
+        when(
+            this.queryManager.createQuery("select doc.space, doc.name, doc.language, doc.version from XWikiDocument doc"
+                + " order by doc.space, doc.name, doc.language", Query.HQL)).thenReturn(query);
+        when(this.queryManager.createQuery("select doc.space, doc.name, doc.language, doc.version from XWikiDocument doc"
+            + " where " + KEYSET_CONDITION + " order by doc.space, doc.name, doc.language", Query.HQL))
+                .thenReturn(keysetQuery);
+        when(this.queryManager.createQuery("", Query.HQL)).thenReturn(countQuery);
+
+        DocumentIterator<String> iterator = this.databaseIterator;
+        iterator.setCheckpoint(checkpoint);
+
+        List<Pair<DocumentReference, String>> actualResults = new ArrayList<>();
+        while (iterator.hasNext()) {
+            actualResults.add(iterator.next());
+        }
+
+        // The "chess" wiki comes before the checkpoint so it's skipped.
+        assertEquals(Collections.singletonList(new ImmutablePair<>(tennisXWikiSyntaxLinks, "1.3")), actualResults);
+
+        verify(query, never()).setWiki(anyString());
+        verify(keysetQuery).bindValue("lastSpace", "Main");
+        verify(keysetQuery).bindValue("lastName", "Welcome");
+        verify(keysetQuery).bindValue("lastLocale", "en");
     }
 
     private DocumentReference createDocumentReference(String wiki, List<String> spaces, String name, Locale locale)
@@ -78,6 +78,11 @@ public void setRootReference(EntityReference rootReference)
         {
         }
 
+        @Override
+        public void setCheckpoint(DocumentReference checkpoint)
+        {
+        }
+
         @Override
         public long size()
         {
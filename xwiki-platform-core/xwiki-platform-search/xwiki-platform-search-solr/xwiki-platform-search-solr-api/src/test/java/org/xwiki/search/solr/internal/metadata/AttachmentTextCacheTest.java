@@ -0,0 +1,150 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.metadata;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.environment.Environment;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.search.solr.internal.api.SolrConfiguration;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.tika.internal.TikaUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link AttachmentTextCache}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class AttachmentTextCacheTest
+{
+    private File permanentDirectory = new File("target/test-attachmentTextCache");
+
+    @InjectMockComponents
+    private AttachmentTextCache attachmentTextCache;
+
+    @MockComponent
+    private CacheManager cacheManager;
+
+    @MockComponent
+    private SolrConfiguration configuration;
+
+    @MockComponent
+    private Environment environment;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    private Map<String, String> entries = new HashMap<>();
+
+    private Map<String, Boolean> failures = new HashMap<>();
+
+    private File oldVersionDirectory;
+
+    @BeforeComponent
+    void configure() throws Exception
+    {
+        Cache<String> cache = mock(Cache.class);
+        when(cache.get(anyString())).then(invocation -> this.entries.get(invocation.getArgument(0)));
+        doAnswer(invocation -> this.entries.put(invocation.getArgument(0), invocation.getArgument(1))).when(cache)
+            .set(anyString(), any());
+        Cache<Boolean> failuresCache = mock(Cache.class);
+        when(failuresCache.get(anyString())).then(invocation -> this.failures.get(invocation.getArgument(0)));
+        doAnswer(invocation -> this.failures.put(invocation.getArgument(0), invocation.getArgument(1)))
+            .when(failuresCache).set(anyString(), any());
+        when(this.cacheManager.createNewCache(any())).thenReturn(cache, failuresCache);
+
+        FileUtils.deleteDirectory(this.permanentDirectory);
+        when(this.environment.getPermanentDirectory()).thenReturn(this.permanentDirectory);
+        when(this.configuration.getIndexerAttachmentTextCacheMaxSize()).thenReturn(1024L * 1024);
+
+        this.oldVersionDirectory = new File(this.permanentDirectory, "cache/solr/attachments/old");
+        this.oldVersionDirectory.mkdirs();
+    }
+
+    @Test
+    void initialize()
+    {
+        // The texts extracted with another version of Tika are removed.
+        assertFalse(this.oldVersionDirectory.exists());
+    }
+
+    @Test
+    void getAndSet()
+    {
+        assertNull(this.attachmentTextCache.get("hash", "file.pdf"));
+
+        this.attachmentTextCache.set("hash", "file.pdf", "text");
+
+        assertEquals("text", this.attachmentTextCache.get("hash", "file.pdf"));
+        assertNull(this.attachmentTextCache.get("hash", "file.doc"));
+        assertNull(this.attachmentTextCache.get("otherHash", "file.pdf"));
+    }
+
+    @Test
+    void getFromDisk()
+    {
+        this.attachmentTextCache.set("hash", "file.pdf", "text");
+
+        // Simulate a restart.
+        this.entries.clear();
+
+        assertEquals("text", this.attachmentTextCache.get("hash", "file.pdf"));
+        assertEquals(1, new File(this.permanentDirectory, "cache/solr/attachments/" + TikaUtils.getVersion())
+            .listFiles().length);
+    }
+
+    @Test
+    void isAndSetFailed()
+    {
+        AttachmentReference reference =
+            new AttachmentReference("file.pdf", new DocumentReference("wiki", "Space", "Page"));
+        when(this.serializer.serialize(reference)).thenReturn("wiki:Space.Page@file.pdf");
+
+        assertFalse(this.attachmentTextCache.isFailed(reference, "1.1"));
+
+        this.attachmentTextCache.setFailed(reference, "1.1");
+
+        assertTrue(this.attachmentTextCache.isFailed(reference, "1.1"));
+        // A new version of the attachment is parsed again.
+        assertFalse(this.attachmentTextCache.isFailed(reference, "1.2"));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.metadata;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaMetadataKeys;
+import org.junit.jupiter.api.Test;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link AttachmentTextExtractor}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class AttachmentTextExtractorTest
+{
+    @InjectMockComponents
+    private AttachmentTextExtractor extractor;
+
+    /**
+     * A stream whose content is never available, until it's closed.
+     */
+    private static final class BlockingInputStream extends InputStream
+    {
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public int read() throws IOException
+        {
+            try {
+                this.closed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            throw new IOException("Closed");
+        }
+
+        @Override
+        public void close()
+        {
+            this.closed.countDown();
+        }
+    }
+
+    private Metadata getMetadata(String fileName)
+    {
+        Metadata metadata = new Metadata();
+        metadata.set(TikaMetadataKeys.RESOURCE_NAME_KEY, fileName);
+        return metadata;
+    }
+
+    private InputStream getStream(String content)
+    {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void parseToString() throws Exception
+    {
+        assertEquals("text content",
+            this.extractor.parseToString(getStream("text content"), getMetadata("txt.txt"), 60000).trim());
+        assertEquals("text content",
+            this.extractor.parseToString(getStream("text content"), getMetadata("txt.txt"), 0).trim());
+    }
+
+    @Test
+    void parseToStringTooLong()
+    {
+        BlockingInputStream stream = new BlockingInputStream();
+
+        TikaException exception = assertThrows(TikaException.class,
+            () -> this.extractor.parseToString(stream, getMetadata("txt.txt"), 100));
+
+        assertEquals("Parsing the attachment took more than [100] ms", exception.getMessage());
+        // The stream is closed to unblock the parse thread
+        assertEquals(0, stream.closed.getCount());
+    }
+
+    @Test
+    void parseToStringWhenRejected() throws Exception
+    {
+        // The parse threads don't accept any new attachment once disposed
+        this.extractor.dispose();
+
+        // The attachment is parsed in the current thread rather than ignored
+        String text = this.extractor.parseToString(getStream("text content"), getMetadata("txt.txt"), 60000);
+
+        assertEquals("text content", text.trim());
+    }
+}
@@ -31,6 +31,7 @@
 
 import javax.inject.Provider;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.solr.common.SolrInputDocument;
 import org.hamcrest.MatcherAssert;
@@ -56,6 +57,7 @@
 import org.xwiki.search.solr.internal.api.SolrIndexerException;
 import org.xwiki.search.solr.internal.reference.SolrReferenceResolver;
 import org.xwiki.test.mockito.MockitoComponentMockingRule;
+import org.xwiki.tika.internal.TikaUtils;
 
 import com.xpn.xwiki.XWiki;
 import com.xpn.xwiki.XWikiContext;
@@ -78,9 +80,12 @@
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -113,6 +118,11 @@ public void setUp() throws Exception
     {
         this.mocker.registerMockComponent(SolrReferenceResolver.class, "document");
 
+        // Parse the attachments in the current thread
+        AttachmentTextExtractor attachmentTextExtractor = this.mocker.getInstance(AttachmentTextExtractor.class);
+        when(attachmentTextExtractor.parseToString(any(), any(), anyLong())).then(
+            invocation -> TikaUtils.parseToString(invocation.<InputStream>getArgument(0), invocation.getArgument(1)));
+
         // XWikiContext Provider
         Provider<XWikiContext> xcontextProvider = this.mocker.registerMockComponent(XWikiContext.TYPE_PROVIDER);
         when(xcontextProvider.get()).thenReturn(this.xcontext);
@@ -526,7 +536,8 @@ private XWikiAttachment createMockAttachment(String fileName, String mimeType, D
         when(attachment.getMimeType(this.xcontext)).thenReturn(mimeType);
         when(attachment.getDate()).thenReturn(date);
         when(attachment.getLongSize()).thenReturn((long)content.length);
-        when(attachment.getContentInputStream(this.xcontext)).thenReturn(new ByteArrayInputStream(content));
+        // The content is read twice: once to compute its hash and once to extract its text.
+        when(attachment.getContentInputStream(this.xcontext)).then(invocation -> new ByteArrayInputStream(content));
 
         String authorFullName = "XWiki." + authorAlias;
         DocumentReference authorReference = new DocumentReference("wiki", "XWiki", authorAlias);
@@ -580,6 +591,24 @@ public void getDocumentWithAttachments() throws Exception
             solrDocument.getFieldValues(FieldUtils.ATTACHMENT_AUTHOR_DISPLAY));
     }
 
+    @Test
+    public void getDocumentWithCachedAttachmentText() throws Exception
+    {
+        XWikiAttachment logo = createMockAttachment("logo.png", "image/png", new Date(), "foo", "Alice", "Shy Alice");
+        when(this.document.getAttachmentList()).thenReturn(Arrays.<XWikiAttachment>asList(logo));
+
+        AttachmentTextCache attachmentTextCache = this.mocker.getInstance(AttachmentTextCache.class);
+        when(attachmentTextCache.get(DigestUtils.sha256Hex("foo"), "logo.png")).thenReturn("cached text");
+
+        SolrInputDocument solrDocument =
+            this.mocker.getComponentUnderTest().getSolrDocument(this.frenchDocumentReference);
+
+        assertEquals(Collections.singletonList("cached text"), solrDocument.getFieldValues("attcontent_fr"));
+        // The content is read only once, to compute its hash, and is not parsed.
+        verify(logo).getContentInputStream(this.xcontext);
+        verify(attachmentTextCache, never()).set(any(), any(), any());
+    }
+
     @Test
     public void testAttachmentExtractFromTxt() throws Exception
     {
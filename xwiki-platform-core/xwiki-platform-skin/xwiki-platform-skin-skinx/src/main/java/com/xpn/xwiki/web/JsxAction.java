@@ -32,6 +32,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.skinx.SkinExtensionConfiguration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -122,26 +123,35 @@ public String getContentType()
     }
 
     @Override
-    protected String compress(String source, SxCompressor compressor, XWikiContext context)
+    protected String getCompressionCacheKey(String source, Extension sxType, XWikiContext context)
     {
-        String output = super.compress(source, compressor, context);
+        // The minified code depends on the strict mode configuration.
+        return super.getCompressionCacheKey(source, sxType, context) + '\n'
+            + Utils.getComponent(SkinExtensionConfiguration.class).shouldRunJavaScriptInStrictMode();
+    }
 
-        // Save the source map generated by the compressor so that we can return it later when the source map is
+    @Override
+    protected String getSourceMap(SxCompressor compressor)
+    {
+        // Keep the source map generated by the compressor so that we can return it later when the source map is
         // requested by the browser's developer tools.
         if (compressor instanceof JsCompressor) {
-            String sourceMap = ((JsCompressor) compressor).getSourceMap();
-            if (sourceMap != null) {
-                // The browser's developer tools will attempt to load the source code when debugging the compressed
-                // code. The source code URL is specified in the source map.
-                sourceMap = fixSourceURL(sourceMap, context);
-                // Indicate the URL to the source map using the dedicated HTTP header. This is how the browser's
-                // developer tools will know how to download the source map.
-                // See https://developer.mozilla.org/en-US/docs/Tools/Debugger/How_to/Use_a_source_map
-                context.getResponse().setHeader("X-SourceMap", saveSourceMap(sourceMap, context));
-            }
+            return ((JsCompressor) compressor).getSourceMap();
         }
 
-        return output;
+        return null;
+    }
+
+    @Override
+    protected void handleSourceMap(String sourceMap, XWikiContext context)
+    {
+        // The browser's developer tools will attempt to load the source code when debugging the compressed code. The
+        // source code URL is specified in the source map.
+        String fixedSourceMap = fixSourceURL(sourceMap, context);
+        // Indicate the URL to the source map using the dedicated HTTP header. This is how the browser's developer tools
+        // will know how to download the source map.
+        // See https://developer.mozilla.org/en-US/docs/Tools/Debugger/How_to/Use_a_source_map
+        context.getResponse().setHeader("X-SourceMap", saveSourceMap(fixedSourceMap, context));
     }
 
     /**
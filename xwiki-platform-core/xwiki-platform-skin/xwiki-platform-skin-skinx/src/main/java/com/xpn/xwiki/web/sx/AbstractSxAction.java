@@ -24,7 +24,10 @@
 
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
+import org.xwiki.skinx.internal.CompressedSkinExtension;
+import org.xwiki.skinx.internal.SkinExtensionCompressionCache;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
@@ -64,8 +67,19 @@ public abstract class AbstractSxAction extends XWikiAction
     /** If the user passes this parameter in the URL, we will look for the script in the jar files. */
     private static final String JAR_RESOURCE_REQUEST_PARAMETER = "resource";
 
+    /** The request header used by the client to indicate the content encodings it accepts. */
+    private static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+
+    /** The content encoding used to send the minified extensions to the clients that accept it. */
+    private static final String GZIP_ENCODING = "gzip";
+
+    /** The parameter used in the {@code Accept-Encoding} header to indicate the preference for a content encoding. */
+    private static final String QUALITY_PARAMETER = "q=";
+
     private DebugConfiguration debugConfiguration;
 
+    private SkinExtensionCompressionCache compressionCache;
+
     /** @return the logging object of the concrete subclass. */
     protected abstract Logger getLogger();
 
@@ -106,23 +120,144 @@ public void renderExtension(SxSource sxSource, Extension sxType, XWikiContext co
             response.setHeader(CACHE_CONTROL_HEADER, "no-cache, no-store, must-revalidate");
         }
 
+        byte[] responseContent = null;
         if (getDebugConfiguration().isMinify()) {
-            extensionContent = compress(extensionContent, sxType.getCompressor(), context);
+            CompressedSkinExtension compressedExtension =
+                compress(extensionContent, sxSource.isParsed(), sxType, context);
+            extensionContent = compressedExtension.getContent();
+            if (compressedExtension.getSourceMap() != null) {
+                handleSourceMap(compressedExtension.getSourceMap(), context);
+            }
+
+            // The minified content is cached already gzip compressed so we send it as is to the clients that accept it.
+            response.addHeader("Vary", ACCEPT_ENCODING_HEADER);
+            if (acceptsGzip(context.getRequest().getHeader(ACCEPT_ENCODING_HEADER))) {
+                response.setHeader("Content-Encoding", GZIP_ENCODING);
+                responseContent = compressedExtension.getGzippedContent();
+            }
         }
 
         try {
-            response.setContentLength(extensionContent.getBytes(RESPONSE_CHARACTER_SET).length);
-            response.getOutputStream().write(extensionContent.getBytes(RESPONSE_CHARACTER_SET));
+            if (responseContent == null) {
+                responseContent = extensionContent.getBytes(RESPONSE_CHARACTER_SET);
+            }
+            response.setContentLength(responseContent.length);
+            response.getOutputStream().write(responseContent);
         } catch (IOException ex) {
             getLogger().warn("Failed to send SX content: [{}]", ex.getMessage());
         }
     }
 
+    /**
+     * @param acceptEncoding the value of the {@code Accept-Encoding} request header
+     * @return {@code true} if the client accepts the gzip content encoding, {@code false} otherwise (including when
+     *         gzip is explicitly refused with {@code gzip;q=0})
+     */
+    private boolean acceptsGzip(String acceptEncoding)
+    {
+        Float gzipQuality = null;
+        Float anyQuality = null;
+        for (String coding : StringUtils.split(StringUtils.defaultString(acceptEncoding), ',')) {
+            String[] parts = StringUtils.split(coding, ';');
+            if (parts.length == 0) {
+                continue;
+            }
+
+            String name = parts[0].trim();
+            if (GZIP_ENCODING.equalsIgnoreCase(name)) {
+                gzipQuality = getQuality(parts);
+            } else if ("*".equals(name)) {
+                anyQuality = getQuality(parts);
+            }
+        }
+
+        // An explicit gzip quality takes precedence over the wildcard.
+        Float quality = gzipQuality != null ? gzipQuality : anyQuality;
+        return quality != null && quality > 0;
+    }
+
+    /**
+     * @param parts the content coding followed by its parameters
+     * @return the quality value of the content coding
+     */
+    private float getQuality(String[] parts)
+    {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (StringUtils.startsWithIgnoreCase(parameter, QUALITY_PARAMETER)) {
+                try {
+                    return Float.parseFloat(parameter.substring(QUALITY_PARAMETER.length()).trim());
+                } catch (NumberFormatException e) {
+                    // Consider that the content coding is not acceptable.
+                    return 0;
+                }
+            }
+        }
+
+        return 1;
+    }
+
+    /**
+     * Minify the given extension code, reusing the result of a previous minification of the same code if possible.
+     *
+     * @param source the extension code to minify
+     * @param parsed {@code true} if the extension code is parsed, in which case it may be different for each request
+     * @param sxType the type of extension
+     * @param context the XWiki context when rendering the skin extension
+     * @return the minified extension code
+     * @since 13.3RC1
+     */
+    protected CompressedSkinExtension compress(String source, boolean parsed, Extension sxType, XWikiContext context)
+    {
+        // Only the code that is the same for all requests is worth storing on disk.
+        return getCompressionCache().get(context.getDoc().getDocumentReference(),
+            getCompressionCacheKey(source, sxType, context), !parsed, () -> {
+                SxCompressor compressor = sxType.getCompressor();
+                String output = compress(source, compressor, context);
+                return new CompressedSkinExtension(output, getSourceMap(compressor));
+            });
+    }
+
+    /**
+     * @param source the extension code to minify
+     * @param sxType the type of extension
+     * @param context the XWiki context when rendering the skin extension
+     * @return a string that includes everything the minified code depends on, starting with the code to minify
+     * @since 13.3RC1
+     */
+    protected String getCompressionCacheKey(String source, Extension sxType, XWikiContext context)
+    {
+        // The document reference is used as source file name in the warnings and the source map.
+        return source + '\n' + sxType.getClassName() + '\n' + context.getDoc().getDocumentReference();
+    }
+
     protected String compress(String source, SxCompressor compressor, XWikiContext context)
     {
         return compressor.compress(source);
     }
 
+    /**
+     * @param compressor the compressor that has just minified the extension code
+     * @return the source map generated by the compressor, {@code null} if there's none
+     * @since 13.3RC1
+     */
+    protected String getSourceMap(SxCompressor compressor)
+    {
+        return null;
+    }
+
+    /**
+     * Called on each request for a minified extension code that has a source map.
+     *
+     * @param sourceMap the source map of the minified extension code
+     * @param context the XWiki context when rendering the skin extension
+     * @since 13.3RC1
+     */
+    protected void handleSourceMap(String sourceMap, XWikiContext context)
+    {
+        // Do nothing by default.
+    }
+
     @Override
     public String render(XWikiContext context) throws XWikiException
     {
@@ -156,6 +291,15 @@ protected DebugConfiguration getDebugConfiguration()
         return this.debugConfiguration;
     }
 
+    private SkinExtensionCompressionCache getCompressionCache()
+    {
+        if (this.compressionCache == null) {
+            this.compressionCache = Utils.getComponent(SkinExtensionCompressionCache.class);
+        }
+
+        return this.compressionCache;
+    }
+
     /**
      * Get the type of extension, depends on the type of action.
      *
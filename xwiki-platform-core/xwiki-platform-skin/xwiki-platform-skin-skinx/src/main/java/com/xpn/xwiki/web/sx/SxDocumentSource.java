@@ -167,6 +167,21 @@ public String getContent()
         return resultBuilder.toString();
     }
 
+    @Override
+    public boolean isParsed()
+    {
+        List<BaseObject> objects = this.document.getObjects(this.extension.getClassName());
+        if (objects != null) {
+            for (BaseObject sxObj : objects) {
+                if (sxObj != null && sxObj.getIntValue(PARSE_CONTENT_PROPERTY_NAME) == 1) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
     @Override
     public long getLastModifiedDate()
     {
@@ -68,4 +68,14 @@
      * @return the cache policy associated with this extension source.
      */
     CachePolicy getCachePolicy();
+
+    /**
+     * @return {@code true} if the content of the extension source is parsed (e.g. with Velocity), in which case it may
+     *         be different for each request
+     * @since 13.3RC1
+     */
+    default boolean isParsed()
+    {
+        return false;
+    }
 }
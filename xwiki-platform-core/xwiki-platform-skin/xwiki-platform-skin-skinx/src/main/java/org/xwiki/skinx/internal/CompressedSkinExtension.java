@@ -0,0 +1,96 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.skinx.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The minified content of a skin extension, along with its gzip compressed version (sent to the clients that accept
+ * it) and its source map.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+public class CompressedSkinExtension
+{
+    private final String content;
+
+    private final byte[] gzippedContent;
+
+    private final String sourceMap;
+
+    /**
+     * @param content the minified content
+     * @param sourceMap the source map generated by the minifier, {@code null} if there's none
+     */
+    public CompressedSkinExtension(String content, String sourceMap)
+    {
+        this(content, gzip(content), sourceMap);
+    }
+
+    CompressedSkinExtension(String content, byte[] gzippedContent, String sourceMap)
+    {
+        this.content = content;
+        this.gzippedContent = gzippedContent;
+        this.sourceMap = sourceMap;
+    }
+
+    /**
+     * @return the minified content
+     */
+    public String getContent()
+    {
+        return this.content;
+    }
+
+    /**
+     * @return the minified content, compressed with gzip
+     */
+    public byte[] getGzippedContent()
+    {
+        return this.gzippedContent;
+    }
+
+    /**
+     * @return the source map generated by the minifier, {@code null} if there's none
+     */
+    public String getSourceMap()
+    {
+        return this.sourceMap;
+    }
+
+    private static byte[] gzip(String content)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream stream = new GZIPOutputStream(bytes)) {
+            stream.write(content.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // Cannot happen since we write in memory.
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.skinx.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.environment.Environment;
+import org.xwiki.model.reference.DocumentReference;
+
+/**
+ * Caches the minified (and gzip compressed) skin extensions so that the same code is not minified again each time a
+ * client misses its browser cache (e.g. after a restart or when the skin extension URLs change).
+ * <p>
+ * The cached values are identified by the hash of the code to minify (along with everything else the minified code
+ * depends on), which means they can't become outdated. The most recently used values are kept in memory and the
+ * persistent ones are also stored on disk, in the permanent directory, so that they survive a restart and can be shared
+ * by the cluster members that have a common permanent directory. The persistent values generated for a document are
+ * removed by {@link SkinExtensionCompressionCacheListener} when the document is modified, to not keep on disk the
+ * values that are not going to be used anymore, and only the ones most recently used for each document are kept.
+ * <p>
+ * The code of a parsed extension can be different for each request (e.g. when it depends on the current user or on the
+ * request parameters) so its values are only kept in memory: storing them on disk would cost more than it saves.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component(roles = SkinExtensionCompressionCache.class)
+@Singleton
+public class SkinExtensionCompressionCache implements Initializable, Disposable
+{
+    private static final int DEFAULT_CAPACITY = 100;
+
+    /**
+     * The maximum number of values kept for a document.
+     */
+    private static final int MAX_DOCUMENT_VALUES = 10;
+
+    private static final String DIRECTORY_PATH = "cache/skinx";
+
+    private static final String CONTENT_FILE_EXTENSION = ".gz";
+
+    private static final String SOURCE_MAP_FILE_EXTENSION = ".map.gz";
+
+    /**
+     * The values that were not used for 30 days (the duration of the long cache policy) are removed from the disk at
+     * startup.
+     */
+    private static final long MAX_AGE = 30 * 24 * 3600 * 1000L;
+
+    @Inject
+    private CacheManager cacheManager;
+
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private Logger logger;
+
+    private Cache<CompressedSkinExtension> cache;
+
+    private File directory;
+
+    /**
+     * The values that are being generated, so that concurrent requests for the same code minify it only once.
+     */
+    private final Map<String, CompletableFuture<CompressedSkinExtension>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * The keys of the persistent values generated (or used) for each document since the document was last modified,
+     * from the least recently used to the most recently used.
+     */
+    private final Map<DocumentReference, Set<String>> documentKeys = new ConcurrentHashMap<>();
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            this.cache = this.cacheManager
+                .createNewCache(new LRUCacheConfiguration("skinx.compressed", DEFAULT_CAPACITY));
+        } catch (CacheException e) {
+            throw new InitializationException("Failed to create the compressed skin extension cache.", e);
+        }
+
+        this.directory = new File(this.environment.getPermanentDirectory(), DIRECTORY_PATH);
+
+        File[] files = this.directory.listFiles();
+        if (files != null) {
+            long now = System.currentTimeMillis();
+            for (File file : files) {
+                if (now - file.lastModified() > MAX_AGE) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.cache.dispose();
+    }
+
+    /**
+     * @param documentReference the document that provides the skin extension
+     * @param source everything the minified code depends on, starting with the code to minify
+     * @param persistent {@code true} if the minified code should also be stored on disk, {@code false} to keep it only
+     *            in memory (e.g. when the code is parsed and thus may be different for each request)
+     * @param compressor minifies the code if it's not found in the cache
+     * @return the minified code
+     */
+    public CompressedSkinExtension get(DocumentReference documentReference, String source, boolean persistent,
+        Supplier<CompressedSkinExtension> compressor)
+    {
+        String key = DigestUtils.sha256Hex(source);
+
+        if (persistent) {
+            for (String evictedKey : use(documentReference, key)) {
+                remove(evictedKey);
+            }
+        }
+
+        CompressedSkinExtension value = this.cache.get(key);
+        if (value != null) {
+            return value;
+        }
+
+        CompletableFuture<CompressedSkinExtension> future = new CompletableFuture<>();
+        CompletableFuture<CompressedSkinExtension> existingFuture = this.pending.putIfAbsent(key, future);
+        if (existingFuture != null) {
+            // The same code is being minified by another thread.
+            return existingFuture.join();
+        }
+
+        try {
+            value = persistent ? load(key) : null;
+            if (value == null) {
+                value = compressor.get();
+                if (persistent) {
+                    save(key, value);
+                }
+            }
+            this.cache.set(key, value);
+            future.complete(value);
+
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+
+            throw e;
+        } finally {
+            this.pending.remove(key);
+        }
+    }
+
+    /**
+     * Remove the values generated for the specified document.
+     *
+     * @param documentReference the reference of the modified document
+     */
+    public void invalidate(DocumentReference documentReference)
+    {
+        Set<String> keys = this.documentKeys.remove(documentReference);
+        if (keys != null) {
+            for (String key : keys) {
+                remove(key);
+            }
+        }
+    }
+
+    /**
+     * Remember that the specified value has been used for the given document.
+     *
+     * @return the keys of the values that should be removed in order to not exceed the number of values kept for the
+     *         document
+     */
+    private List<String> use(DocumentReference documentReference, String key)
+    {
+        List<String> evictedKeys = new ArrayList<>();
+        // The keys of a document are modified only from the (atomic) compute function.
+        this.documentKeys.compute(documentReference, (reference, keys) -> {
+            Set<String> documentValueKeys = keys != null ? keys : new LinkedHashSet<>();
+            documentValueKeys.remove(key);
+            documentValueKeys.add(key);
+            Iterator<String> iterator = documentValueKeys.iterator();
+            while (documentValueKeys.size() > MAX_DOCUMENT_VALUES) {
+                evictedKeys.add(iterator.next());
+                iterator.remove();
+            }
+            return documentValueKeys;
+        });
+
+        return evictedKeys;
+    }
+
+    private void remove(String key)
+    {
+        this.cache.remove(key);
+        getFile(key, CONTENT_FILE_EXTENSION).delete();
+        getFile(key, SOURCE_MAP_FILE_EXTENSION).delete();
+    }
+
+    private File getFile(String key, String extension)
+    {
+        return new File(this.directory, key + extension);
+    }
+
+    private CompressedSkinExtension load(String key)
+    {
+        File file = getFile(key, CONTENT_FILE_EXTENSION);
+        if (file.exists()) {
+            try {
+                byte[] gzippedContent = Files.readAllBytes(file.toPath());
+                String content = gunzip(gzippedContent);
+
+                String sourceMap = null;
+                File sourceMapFile = getFile(key, SOURCE_MAP_FILE_EXTENSION);
+                if (sourceMapFile.exists()) {
+                    sourceMap = gunzip(Files.readAllBytes(sourceMapFile.toPath()));
+                }
+
+                // Remember that the value was used recently.
+                file.setLastModified(System.currentTimeMillis());
+
+                return new CompressedSkinExtension(content, gzippedContent, sourceMap);
+            } catch (IOException e) {
+                this.logger.warn("Failed to read the compressed skin extension from [{}]. Root cause: [{}].", file,
+                    ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+
+        return null;
+    }
+
+    private String gunzip(byte[] bytes) throws IOException
+    {
+        try (InputStream stream = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return IOUtils.toString(stream, StandardCharsets.UTF_8);
+        }
+    }
+
+    private void save(String key, CompressedSkinExtension value)
+    {
+        File file = getFile(key, CONTENT_FILE_EXTENSION);
+        try {
+            this.directory.mkdirs();
+
+            // Write the source map first since the content file indicates that the value is complete.
+            if (value.getSourceMap() != null) {
+                File sourceMapFile = getFile(key, SOURCE_MAP_FILE_EXTENSION);
+                File temporaryFile = File.createTempFile(sourceMapFile.getName(), null, this.directory);
+                try (OutputStream stream = new GZIPOutputStream(new FileOutputStream(temporaryFile))) {
+                    stream.write(value.getSourceMap().getBytes(StandardCharsets.UTF_8));
+                }
+                move(temporaryFile, sourceMapFile);
+            }
+
+            // Write a temporary file first so that another cluster member never reads a partial value.
+            File temporaryFile = File.createTempFile(file.getName(), null, this.directory);
+            Files.write(temporaryFile.toPath(), value.getGzippedContent());
+            move(temporaryFile, file);
+        } catch (IOException e) {
+            this.logger.warn("Failed to store the compressed skin extension in [{}]. Root cause: [{}].", file,
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+
+    private void move(File source, File target) throws IOException
+    {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(source.toPath());
+        }
+    }
+}
@@ -19,6 +19,7 @@
  */
 package org.xwiki.skinx.internal.async;
 
+import java.io.Serializable;
 import java.util.Map;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
@@ -30,8 +31,10 @@
  * @version $Id$
  * @since 10.10RC1
  */
-public class SkinExtensionInfo
+public class SkinExtensionInfo implements Serializable
 {
+    private static final long serialVersionUID = 1L;
+
     private String type;
 
     private String resource;
@@ -0,0 +1,157 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.web;
+
+import java.net.URL;
+import java.util.Map;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpSession;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.skinx.SkinExtensionConfiguration;
+import org.xwiki.skinx.internal.CompressedSkinExtension;
+import org.xwiki.skinx.internal.SkinExtensionCompressionCache;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectComponentManager;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.debug.DebugConfiguration;
+import com.xpn.xwiki.web.sx.SxSource;
+import com.xpn.xwiki.web.sx.SxSource.CachePolicy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link JsxAction}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class JsxActionTest
+{
+    private static final DocumentReference DOCUMENT_REFERENCE = new DocumentReference("wiki", "Space", "Page");
+
+    private static final String CURRENT_URL = "http://localhost/xwiki/bin/jsx/Space/Page?language=en";
+
+    @InjectComponentManager
+    private MockitoComponentManager componentManager;
+
+    @MockComponent
+    private DebugConfiguration debugConfiguration;
+
+    @MockComponent
+    private SkinExtensionCompressionCache compressionCache;
+
+    @MockComponent
+    private SkinExtensionConfiguration skinExtensionConfiguration;
+
+    private XWikiContext context;
+
+    private XWikiResponse response;
+
+    private HttpSession session;
+
+    private SxSource source;
+
+    private final JsxAction action = new JsxAction();
+
+    @BeforeEach
+    void configure() throws Exception
+    {
+        Utils.setComponentManager(this.componentManager);
+
+        this.context = mock(XWikiContext.class);
+        XWikiRequest request = mock(XWikiRequest.class);
+        when(this.context.getRequest()).thenReturn(request);
+        this.session = mock(HttpSession.class);
+        when(request.getSession()).thenReturn(this.session);
+        this.response = mock(XWikiResponse.class);
+        when(this.context.getResponse()).thenReturn(this.response);
+        when(this.response.getOutputStream()).thenReturn(mock(ServletOutputStream.class));
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getDocumentReference()).thenReturn(DOCUMENT_REFERENCE);
+        when(this.context.getDoc()).thenReturn(document);
+        when(this.context.getURL()).thenReturn(new URL(CURRENT_URL));
+        XWikiURLFactory urlFactory = mock(XWikiURLFactory.class);
+        when(this.context.getURLFactory()).thenReturn(urlFactory);
+        when(urlFactory.getRequestURL(this.context)).thenReturn(new URL(CURRENT_URL));
+        when(urlFactory.getURL(new URL("http://localhost/xwiki/bin/jsx/Space/Page?minify=false&language=en"),
+            this.context)).thenReturn("/xwiki/bin/jsx/Space/Page?minify=false&language=en");
+
+        this.source = mock(SxSource.class);
+        when(this.source.getContent()).thenReturn("source");
+        when(this.source.getCachePolicy()).thenReturn(CachePolicy.LONG);
+
+        when(this.debugConfiguration.isMinify()).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        Utils.setComponentManager(null);
+    }
+
+    @Test
+    void renderExtensionWithStrictMode() throws Exception
+    {
+        when(this.skinExtensionConfiguration.shouldRunJavaScriptInStrictMode()).thenReturn(true);
+        when(this.compressionCache.get(eq(DOCUMENT_REFERENCE), any(), anyBoolean(), any()))
+            .thenReturn(new CompressedSkinExtension("minified", null));
+
+        this.action.renderExtension(this.source, JsxAction.JSX, this.context);
+
+        // The minified code depends on the strict mode.
+        verify(this.compressionCache).get(eq(DOCUMENT_REFERENCE),
+            eq("source\n" + JsxAction.JSX.getClassName() + '\n' + DOCUMENT_REFERENCE + "\ntrue"), anyBoolean(), any());
+    }
+
+    @Test
+    void renderExtensionWithSourceMap() throws Exception
+    {
+        when(this.compressionCache.get(eq(DOCUMENT_REFERENCE), any(), anyBoolean(), any()))
+            .thenReturn(new CompressedSkinExtension("minified", "{\"version\":3,\"sources\":[\"Space.Page\"]}"));
+
+        this.action.renderExtension(this.source, JsxAction.JSX, this.context);
+
+        // The cached source map is saved in the session for each request, with the source URL of the current request.
+        verify(this.response).setHeader("X-SourceMap",
+            "http://localhost/xwiki/bin/jsx/Space/Page?sourceMap=true&minify=false&language=en");
+        ArgumentCaptor<Map<String, String>> sourceMaps = ArgumentCaptor.forClass(Map.class);
+        verify(this.session).setAttribute(eq(JsxAction.class.getName() + ".sourceMaps"), sourceMaps.capture());
+        String sourceMap = sourceMaps.getValue().get(CURRENT_URL);
+        assertTrue(sourceMap.contains("/xwiki/bin/jsx/Space/Page?minify=false&language=en"), sourceMap);
+        assertEquals(1, sourceMaps.getValue().size());
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.web.sx;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.ServletOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.Logger;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.skinx.internal.CompressedSkinExtension;
+import org.xwiki.skinx.internal.SkinExtensionCompressionCache;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectComponentManager;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.debug.DebugConfiguration;
+import com.xpn.xwiki.web.Utils;
+import com.xpn.xwiki.web.XWikiRequest;
+import com.xpn.xwiki.web.XWikiResponse;
+import com.xpn.xwiki.web.sx.SxSource.CachePolicy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link AbstractSxAction}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class AbstractSxActionTest
+{
+    private static final DocumentReference DOCUMENT_REFERENCE = new DocumentReference("wiki", "Space", "Page");
+
+    @InjectComponentManager
+    private MockitoComponentManager componentManager;
+
+    @MockComponent
+    private DebugConfiguration debugConfiguration;
+
+    @MockComponent
+    private SkinExtensionCompressionCache compressionCache;
+
+    private XWikiContext context;
+
+    private XWikiRequest request;
+
+    private XWikiResponse response;
+
+    private ServletOutputStream outputStream;
+
+    private Extension extension;
+
+    private SxSource source;
+
+    private final AbstractSxAction action = new AbstractSxAction()
+    {
+        @Override
+        protected Logger getLogger()
+        {
+            return mock(Logger.class);
+        }
+
+        @Override
+        public Extension getExtensionType()
+        {
+            return extension;
+        }
+    };
+
+    @BeforeEach
+    void configure() throws IOException
+    {
+        Utils.setComponentManager(this.componentManager);
+
+        this.context = mock(XWikiContext.class);
+        this.request = mock(XWikiRequest.class);
+        when(this.context.getRequest()).thenReturn(this.request);
+        this.response = mock(XWikiResponse.class);
+        when(this.context.getResponse()).thenReturn(this.response);
+        this.outputStream = mock(ServletOutputStream.class);
+        when(this.response.getOutputStream()).thenReturn(this.outputStream);
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getDocumentReference()).thenReturn(DOCUMENT_REFERENCE);
+        when(this.context.getDoc()).thenReturn(document);
+
+        SxCompressor compressor = mock(SxCompressor.class);
+        when(compressor.compress("source")).thenReturn("minified");
+        this.extension = mock(Extension.class);
+        when(this.extension.getClassName()).thenReturn("XWiki.TestExtension");
+        when(this.extension.getContentType()).thenReturn("text/test");
+        when(this.extension.getCompressor()).thenReturn(compressor);
+
+        this.source = mock(SxSource.class);
+        when(this.source.getContent()).thenReturn("source");
+        when(this.source.getCachePolicy()).thenReturn(CachePolicy.LONG);
+
+        when(this.debugConfiguration.isMinify()).thenReturn(true);
+        when(this.compressionCache.get(eq(DOCUMENT_REFERENCE), anyString(), anyBoolean(), any()))
+            .then(invocation -> ((Supplier<CompressedSkinExtension>) invocation.getArgument(3)).get());
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        Utils.setComponentManager(null);
+    }
+
+    private String getGzippedResponse() throws IOException
+    {
+        ArgumentCaptor<byte[]> content = ArgumentCaptor.forClass(byte[].class);
+        verify(this.outputStream).write(content.capture());
+        try (InputStream stream = new GZIPInputStream(new ByteArrayInputStream(content.getValue()))) {
+            return IOUtils.toString(stream, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void renderExtensionMinified() throws Exception
+    {
+        this.action.renderExtension(this.source, this.extension, this.context);
+
+        verify(this.response).setContentType("text/test");
+        verify(this.response).addHeader("Vary", "Accept-Encoding");
+        verify(this.response, never()).setHeader(eq("Content-Encoding"), anyString());
+        verify(this.outputStream).write("minified".getBytes(StandardCharsets.UTF_8));
+
+        // The minified code is cached per document, along with everything it depends on.
+        verify(this.compressionCache).get(eq(DOCUMENT_REFERENCE),
+            eq("source\nXWiki.TestExtension\n" + DOCUMENT_REFERENCE), eq(true), any());
+    }
+
+    @Test
+    void renderParsedExtensionMinified() throws Exception
+    {
+        when(this.source.isParsed()).thenReturn(true);
+
+        this.action.renderExtension(this.source, this.extension, this.context);
+
+        verify(this.outputStream).write("minified".getBytes(StandardCharsets.UTF_8));
+        // The parsed code may be different for each request so it's not stored on disk.
+        verify(this.compressionCache).get(eq(DOCUMENT_REFERENCE),
+            eq("source\nXWiki.TestExtension\n" + DOCUMENT_REFERENCE), eq(false), any());
+    }
+
+    @Test
+    void renderExtensionNotMinified() throws Exception
+    {
+        when(this.debugConfiguration.isMinify()).thenReturn(false);
+        when(this.request.getHeader("Accept-Encoding")).thenReturn("gzip");
+
+        this.action.renderExtension(this.source, this.extension, this.context);
+
+        verify(this.outputStream).write("source".getBytes(StandardCharsets.UTF_8));
+        verify(this.compressionCache, never()).get(any(), anyString(), anyBoolean(), any());
+        verify(this.response, never()).setHeader(eq("Content-Encoding"), anyString());
+    }
+
+    @Test
+    void renderExtensionGzipped() throws Exception
+    {
+        when(this.request.getHeader("Accept-Encoding")).thenReturn("deflate, gzip;q=0.5, br");
+
+        this.action.renderExtension(this.source, this.extension, this.context);
+
+        verify(this.response).setHeader("Content-Encoding", "gzip");
+        assertEquals("minified", getGzippedResponse());
+    }
+
+    @Test
+    void renderExtensionWithGzipRefused() throws Exception
+    {
+        when(this.request.getHeader("Accept-Encoding")).thenReturn("gzip;q=0, deflate");
+
+        this.action.renderExtension(this.source, this.extension, this.context);
+
+        verify(this.response, never()).setHeader(eq("Content-Encoding"), anyString());
+        verify(this.outputStream).write("minified".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void renderExtensionWithAnyEncoding() throws Exception
+    {
+        when(this.request.getHeader("Accept-Encoding")).thenReturn("*");
+
+        this.action.renderExtension(this.source, this.extension, this.context);
+
+        verify(this.response).setHeader("Content-Encoding", "gzip");
+        assertEquals("minified", getGzippedResponse());
+    }
+
+    @Test
+    void renderExtensionWithAnyEncodingButGzip() throws Exception
+    {
+        when(this.request.getHeader("Accept-Encoding")).thenReturn("*, GZIP; q=0.0");
+
+        this.action.renderExtension(this.source, this.extension, this.context);
+
+        verify(this.response, never()).setHeader(eq("Content-Encoding"), anyString());
+        verify(this.outputStream).write("minified".getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.skinx.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Unit tests for {@link CompressedSkinExtension}.
+ *
+ * @version $Id$
+ */
+class CompressedSkinExtensionTest
+{
+    @Test
+    void getGzippedContent() throws IOException
+    {
+        CompressedSkinExtension extension = new CompressedSkinExtension("var x = 1;", "{\"version\":3}");
+
+        assertEquals("var x = 1;", extension.getContent());
+        assertEquals("{\"version\":3}", extension.getSourceMap());
+        try (InputStream stream = new GZIPInputStream(new ByteArrayInputStream(extension.getGzippedContent()))) {
+            assertEquals("var x = 1;", IOUtils.toString(stream, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void withoutSourceMap()
+    {
+        assertNull(new CompressedSkinExtension(".a{color:red}", null).getSourceMap());
+    }
+}
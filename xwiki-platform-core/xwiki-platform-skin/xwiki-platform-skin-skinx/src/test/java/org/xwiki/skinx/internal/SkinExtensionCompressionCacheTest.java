@@ -0,0 +1,185 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.skinx.internal;
+
+import java.io.File;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.environment.Environment;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link SkinExtensionCompressionCache}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class SkinExtensionCompressionCacheTest
+{
+    private static final DocumentReference DOCUMENT_REFERENCE = new DocumentReference("wiki", "Space", "Page");
+
+    @InjectMockComponents
+    private SkinExtensionCompressionCache compressionCache;
+
+    @MockComponent
+    private CacheManager cacheManager;
+
+    @MockComponent
+    private Environment environment;
+
+    @XWikiTempDir
+    private File permanentDirectory;
+
+    private Cache<CompressedSkinExtension> cache;
+
+    @BeforeComponent
+    void beforeComponent() throws CacheException
+    {
+        this.cache = mock(Cache.class);
+        when(this.cacheManager.<CompressedSkinExtension>createNewCache(any(CacheConfiguration.class)))
+            .thenReturn(this.cache);
+        when(this.environment.getPermanentDirectory()).thenReturn(this.permanentDirectory);
+    }
+
+    private File getDirectory()
+    {
+        return new File(this.permanentDirectory, "cache/skinx");
+    }
+
+    private int countFiles()
+    {
+        String[] files = getDirectory().list();
+        return files != null ? files.length : 0;
+    }
+
+    @Test
+    void get()
+    {
+        Supplier<CompressedSkinExtension> compressor = mock(Supplier.class);
+        when(compressor.get()).thenReturn(new CompressedSkinExtension("minified", "sourceMap"));
+
+        CompressedSkinExtension value = this.compressionCache.get(DOCUMENT_REFERENCE, "source", true, compressor);
+        assertEquals("minified", value.getContent());
+        verify(this.cache).set(anyString(), any(CompressedSkinExtension.class));
+        // The content and the source map are stored on disk.
+        assertEquals(2, countFiles());
+
+        // The value is not in memory anymore so it's read from the disk.
+        value = this.compressionCache.get(DOCUMENT_REFERENCE, "source", true, compressor);
+        assertEquals("minified", value.getContent());
+        assertEquals("sourceMap", value.getSourceMap());
+        verify(compressor, times(1)).get();
+    }
+
+    @Test
+    void getFromMemory()
+    {
+        CompressedSkinExtension value = new CompressedSkinExtension("minified", null);
+        when(this.cache.get(anyString())).thenReturn(value);
+        Supplier<CompressedSkinExtension> compressor = mock(Supplier.class);
+
+        assertSame(value, this.compressionCache.get(DOCUMENT_REFERENCE, "source", true, compressor));
+
+        verify(compressor, never()).get();
+    }
+
+    @Test
+    void invalidate()
+    {
+        this.compressionCache.get(DOCUMENT_REFERENCE, "source", true,
+            () -> new CompressedSkinExtension("minified", null));
+        assertEquals(1, countFiles());
+
+        this.compressionCache.invalidate(DOCUMENT_REFERENCE);
+
+        assertEquals(0, countFiles());
+        verify(this.cache).remove(anyString());
+
+        // Invalidating a document without values doesn't fail.
+        this.compressionCache.invalidate(new DocumentReference("wiki", "Space", "Other"));
+    }
+
+    @Test
+    void getKeepsTheMostRecentlyUsedValuesOfADocument()
+    {
+        for (int i = 0; i < 10; i++) {
+            String content = "minified" + i;
+            this.compressionCache.get(DOCUMENT_REFERENCE, "source" + i, true,
+                () -> new CompressedSkinExtension(content, null));
+        }
+        assertEquals(10, countFiles());
+        verify(this.cache, never()).remove(anyString());
+
+        // Use again the first value so that it's not the least recently used anymore.
+        this.compressionCache.get(DOCUMENT_REFERENCE, "source0", true, () -> null);
+
+        this.compressionCache.get(DOCUMENT_REFERENCE, "source10", true,
+            () -> new CompressedSkinExtension("minified10", null));
+
+        // The least recently used value of the document is removed from memory and from the disk.
+        assertEquals(10, countFiles());
+        verify(this.cache, times(1)).remove(anyString());
+        assertEquals("minified0",
+            this.compressionCache.get(DOCUMENT_REFERENCE, "source0", true, () -> null).getContent());
+        Supplier<CompressedSkinExtension> compressor = mock(Supplier.class);
+        when(compressor.get()).thenReturn(new CompressedSkinExtension("minified1", null));
+        assertEquals("minified1",
+            this.compressionCache.get(DOCUMENT_REFERENCE, "source1", true, compressor).getContent());
+        verify(compressor).get();
+    }
+
+    @Test
+    void getNotPersistent()
+    {
+        Supplier<CompressedSkinExtension> compressor = mock(Supplier.class);
+        when(compressor.get()).thenReturn(new CompressedSkinExtension("minified", "sourceMap"));
+
+        CompressedSkinExtension value = this.compressionCache.get(DOCUMENT_REFERENCE, "source", false, compressor);
+        assertEquals("minified", value.getContent());
+        // The value is kept only in memory.
+        verify(this.cache).set(anyString(), same(value));
+        assertEquals(0, countFiles());
+
+        // Invalidating the document doesn't touch the values that are not persistent.
+        this.compressionCache.invalidate(DOCUMENT_REFERENCE);
+        verify(this.cache, never()).remove(anyString());
+    }
+}
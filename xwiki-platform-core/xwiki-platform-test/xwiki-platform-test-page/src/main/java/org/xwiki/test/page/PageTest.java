@@ -129,7 +129,9 @@ public void setUpComponentsForPageTest(MockitoComponentManager componentManager)
         componentManager.registerMockComponent(JMXBeanRegistration.class);
         componentManager.registerMockComponent(Environment.class);
         componentManager.registerMockComponent(JobProgressManager.class);
-        componentManager.registerMockComponent(RenderingCache.class);
+        RenderingCache renderingCache = componentManager.registerMockComponent(RenderingCache.class);
+        when(renderingCache.getRenderedContent(any(), any(), any(RenderingCache.Renderer.class), any()))
+            .then(invocation -> invocation.<RenderingCache.Renderer>getArgument(2).render());
         componentManager.registerMockComponent(EntityResourceActionLister.class);
 
         CacheManager cacheManager = componentManager.registerMockComponent(CacheManager.class);
@@ -24,8 +24,11 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.zip.CRC32;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.AutoCloseInputStream;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.tika.Tika;
@@ -48,15 +51,22 @@
 
     private static Tika tika;
 
+    private static String version;
+
     static {
+        URL configuration = TikaUtils.class.getResource("/tika-config.xml");
+
         try {
-            tika = new Tika(new TikaConfig(TikaUtils.class.getResource("/tika-config.xml")));
+            tika = new Tika(new TikaConfig(configuration));
         } catch (Exception e) {
             LOGGER.warn("Failed to load tika configuration (default configuration will be used): {}",
                 ExceptionUtils.getRootCauseMessage(e));
 
             tika = new Tika();
+            configuration = null;
         }
+
+        version = computeVersion(configuration);
     }
 
     private TikaUtils()
@@ -72,6 +82,32 @@ public static Tika getTika()
         return tika;
     }
 
+    /**
+     * @return an identifier of the Tika version and configuration, which changes when the text extracted from a given
+     *         document may change (useful to invalidate cached extracted texts)
+     * @since 13.3RC1
+     */
+    public static String getVersion()
+    {
+        return version;
+    }
+
+    private static String computeVersion(URL configuration)
+    {
+        CRC32 checksum = new CRC32();
+        checksum.update(Tika.getString().getBytes(StandardCharsets.UTF_8));
+
+        if (configuration != null) {
+            try (InputStream stream = configuration.openStream()) {
+                checksum.update(IOUtils.toByteArray(stream));
+            } catch (IOException e) {
+                LOGGER.warn("Failed to read the tika configuration: {}", ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+
+        return Long.toHexString(checksum.getValue());
+    }
+
     // TODO: Remove when https://issues.apache.org/jira/browse/IO-568 is fixed (AutoCloseInputStream does not properly
     // support mark/reset)
     private static InputStream safeInputStream(InputStream stream)
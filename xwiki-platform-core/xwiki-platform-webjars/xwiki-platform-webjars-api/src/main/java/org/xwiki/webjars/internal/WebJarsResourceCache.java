@@ -0,0 +1,277 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.webjars.internal;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.environment.Environment;
+import org.xwiki.tika.internal.TikaUtils;
+
+/**
+ * Extracts the static WebJar resources from their JAR on first access, so that they can be served directly from the
+ * file system afterwards, along with their gzip compressed version (for text resources) and their hash (used as entity
+ * tag).
+ * <p>
+ * The extracted resources are identified by the URL of the resource in the class loader, which contains the path of
+ * the JAR file and thus its version. The cache is kept in the temporary directory and is emptied at startup.
+ *
+ * @version $Id$
+ * @since 13.3RC1
+ */
+@Component(roles = WebJarsResourceCache.class)
+@Singleton
+public class WebJarsResourceCache implements Initializable
+{
+    /**
+     * A resource extracted from its WebJar.
+     *
+     * @version $Id$
+     */
+    public static final class CachedResource
+    {
+        private final File file;
+
+        private final File gzippedFile;
+
+        private final String contentType;
+
+        private final String hash;
+
+        private final long lastModified;
+
+        CachedResource(File file, File gzippedFile, String contentType, String hash, long lastModified)
+        {
+            this.file = file;
+            this.gzippedFile = gzippedFile;
+            this.contentType = contentType;
+            this.hash = hash;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * @return the extracted resource
+         */
+        public File getFile()
+        {
+            return this.file;
+        }
+
+        /**
+         * @return the gzip compressed resource, {@code null} if the resource is not worth compressing
+         */
+        public File getGzippedFile()
+        {
+            return this.gzippedFile;
+        }
+
+        /**
+         * @return the content type of the resource
+         */
+        public String getContentType()
+        {
+            return this.contentType;
+        }
+
+        /**
+         * @return the hash of the resource content
+         */
+        public String getHash()
+        {
+            return this.hash;
+        }
+
+        /**
+         * @return the date when the resource was last modified, in milliseconds
+         */
+        public long getLastModified()
+        {
+            return this.lastModified;
+        }
+    }
+
+    private static final String DIRECTORY_PATH = "cache/webjars";
+
+    private static final String[] COMPRESSIBLE_CONTENT_TYPES = {"text/", "javascript", "json", "xml", "svg"};
+
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private Logger logger;
+
+    private File directory;
+
+    private final Map<String, CompletableFuture<CachedResource>> resources = new ConcurrentHashMap<>();
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        this.directory = new File(this.environment.getTemporaryDirectory(), DIRECTORY_PATH);
+
+        // Start with an empty cache since the WebJars may have been replaced while the application was stopped.
+        FileUtils.deleteQuietly(this.directory);
+    }
+
+    /**
+     * @param resourceURL the URL of the resource in the class loader
+     * @param resourceName the name of the resource (used to detect its content type)
+     * @return the extracted resource, or {@code null} if the resource couldn't be extracted
+     */
+    public CachedResource get(URL resourceURL, String resourceName)
+    {
+        String key = resourceURL.toString();
+
+        CompletableFuture<CachedResource> future = new CompletableFuture<>();
+        CompletableFuture<CachedResource> existingFuture = this.resources.putIfAbsent(key, future);
+        if (existingFuture != null) {
+            // The resource is already extracted or is being extracted by another thread.
+            return existingFuture.join();
+        }
+
+        CachedResource resource = null;
+        try {
+            resource = extract(resourceURL, resourceName);
+        } finally {
+            if (resource == null) {
+                // Try again next time.
+                this.resources.remove(key);
+            }
+            future.complete(resource);
+        }
+
+        return resource;
+    }
+
+    /**
+     * Forget the specified resource, so that it's extracted again on the next access. This is needed when the extracted
+     * files have been deleted.
+     *
+     * @param resourceURL the URL of the resource in the class loader
+     */
+    public void evict(URL resourceURL)
+    {
+        CompletableFuture<CachedResource> future = this.resources.get(resourceURL.toString());
+        // Don't remove a resource that is being extracted.
+        if (future != null && future.isDone()) {
+            this.resources.remove(resourceURL.toString(), future);
+        }
+    }
+
+    private CachedResource extract(URL resourceURL, String resourceName)
+    {
+        String fileName = DigestUtils.sha256Hex(resourceURL.toString());
+        File file = new File(this.directory, fileName);
+        try {
+            this.directory.mkdirs();
+
+            URLConnection connection = resourceURL.openConnection();
+            long lastModified = connection.getLastModified();
+
+            // Write a temporary file first so that a partially extracted resource is never served.
+            MessageDigest digest = DigestUtils.getSha256Digest();
+            File temporaryFile = File.createTempFile(fileName, null, this.directory);
+            try (InputStream stream = connection.getInputStream();
+                OutputStream out = new FileOutputStream(temporaryFile)) {
+                byte[] buffer = new byte[IOUtils.DEFAULT_BUFFER_SIZE];
+                for (int length = stream.read(buffer); length >= 0; length = stream.read(buffer)) {
+                    digest.update(buffer, 0, length);
+                    out.write(buffer, 0, length);
+                }
+            }
+            move(temporaryFile, file);
+
+            String contentType;
+            try (InputStream stream = new BufferedInputStream(new FileInputStream(file))) {
+                contentType = TikaUtils.detect(stream, resourceName);
+            }
+
+            File gzippedFile = null;
+            if (StringUtils.containsAny(contentType, COMPRESSIBLE_CONTENT_TYPES)) {
+                gzippedFile = compress(file);
+            }
+
+            return new CachedResource(file, gzippedFile, contentType, Hex.encodeHexString(digest.digest()),
+                lastModified > 0 ? lastModified : System.currentTimeMillis());
+        } catch (IOException e) {
+            this.logger.warn("Failed to extract the WebJar resource [{}] to [{}]. Root cause: [{}].", resourceURL,
+                file, ExceptionUtils.getRootCauseMessage(e));
+        }
+
+        return null;
+    }
+
+    private File compress(File file) throws IOException
+    {
+        File gzippedFile = new File(file.getPath() + ".gz");
+
+        File temporaryFile = File.createTempFile(gzippedFile.getName(), null, this.directory);
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(temporaryFile))) {
+            FileUtils.copyFile(file, out);
+        }
+
+        // Keep the compressed version only if it's worth it.
+        if (temporaryFile.length() >= file.length()) {
+            Files.deleteIfExists(temporaryFile.toPath());
+            return null;
+        }
+
+        move(temporaryFile, gzippedFile);
+
+        return gzippedFile;
+    }
+
+    private void move(File source, File target) throws IOException
+    {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(source.toPath());
+        }
+    }
+}
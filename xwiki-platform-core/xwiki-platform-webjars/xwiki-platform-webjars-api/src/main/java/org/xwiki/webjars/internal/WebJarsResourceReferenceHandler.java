@@ -19,20 +19,42 @@
  */
 package org.xwiki.webjars.internal;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.http.HttpHeaders;
+import org.slf4j.Logger;
 import org.xwiki.classloader.ClassLoaderManager;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.container.Container;
+import org.xwiki.container.Request;
+import org.xwiki.container.Response;
+import org.xwiki.container.servlet.ServletRequest;
+import org.xwiki.container.servlet.ServletResponse;
+import org.xwiki.resource.ResourceReference;
+import org.xwiki.resource.ResourceReferenceHandlerChain;
 import org.xwiki.resource.ResourceReferenceHandlerException;
 import org.xwiki.resource.ResourceType;
 import org.xwiki.resource.servlet.AbstractServletResourceReferenceHandler;
+import org.xwiki.webjars.internal.WebJarsResourceCache.CachedResource;
 import org.xwiki.webjars.internal.filter.WebJarsResourceFilter;
 
 /**
@@ -54,6 +76,15 @@ public class WebJarsResourceReferenceHandler extends AbstractServletResourceRefe
 
     private static final String LESS_FILE_EXTENSION = ".less";
 
+    /**
+     * One year duration can be considered as permanent caching.
+     */
+    private static final long CACHE_DURATION = 365 * 24 * 3600 * 1000L;
+
+    private static final String GZIP_ENCODING = "gzip";
+
+    private static final String GZIP_ENTITY_TAG_SUFFIX = "-gzip";
+
     @Inject
     private ClassLoaderManager classLoaderManager;
 
@@ -65,17 +96,132 @@ public class WebJarsResourceReferenceHandler extends AbstractServletResourceRefe
     @Named("velocity")
     private WebJarsResourceFilter velocityFilter;
 
+    @Inject
+    private WebJarsResourceCache resourceCache;
+
+    @Inject
+    private Container container;
+
+    @Inject
+    private Logger logger;
+
     @Override
     public List<ResourceType> getSupportedResourceReferences()
     {
         return Arrays.asList(WebJarsResourceReference.TYPE);
     }
 
+    @Override
+    public void handle(ResourceReference resourceReference, ResourceReferenceHandlerChain chain)
+        throws ResourceReferenceHandlerException
+    {
+        WebJarsResourceReference webJarsResourceReference = (WebJarsResourceReference) resourceReference;
+
+        // Serve the static resources from the file system, where they are extracted on first access, instead of reading
+        // them from their JAR each time.
+        URL resourceURL = getCacheableResourceURL(webJarsResourceReference);
+        CachedResource cachedResource = resourceURL != null
+            ? this.resourceCache.get(resourceURL, getResourceName(webJarsResourceReference)) : null;
+        if (cachedResource != null && this.container.getRequest() instanceof ServletRequest
+            && this.container.getResponse() instanceof ServletResponse) {
+            if (serveCachedResource(cachedResource, webJarsResourceReference)) {
+                chain.handleNext(resourceReference);
+                return;
+            }
+
+            // The extracted resource has been deleted (e.g. when the temporary directory is cleaned) so we serve it
+            // from its JAR this time and extract it again on the next request.
+            this.resourceCache.evict(resourceURL);
+        }
+
+        super.handle(resourceReference, chain);
+    }
+
+    private URL getCacheableResourceURL(WebJarsResourceReference resourceReference)
+    {
+        if (isResourceCacheable(resourceReference)) {
+            return getClassLoader(resourceReference.getNamespace()).getResource(getResourcePath(resourceReference));
+        }
+
+        return null;
+    }
+
+    /**
+     * @return {@code true} if the resource has been served, {@code false} if the extracted file couldn't be opened, in
+     *         which case the response is left untouched
+     */
+    private boolean serveCachedResource(CachedResource resource, WebJarsResourceReference resourceReference)
+    {
+        Request request = this.container.getRequest();
+        HttpServletRequest httpRequest = ((ServletRequest) request).getHttpServletRequest();
+        Response response = this.container.getResponse();
+        HttpServletResponse httpResponse = ((ServletResponse) response).getHttpServletResponse();
+
+        boolean gzipped = resource.getGzippedFile() != null
+            && StringUtils.contains(httpRequest.getHeader(HttpHeaders.ACCEPT_ENCODING), GZIP_ENCODING);
+        File file = gzipped ? resource.getGzippedFile() : resource.getFile();
+
+        FileChannel fileChannel;
+        try {
+            fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        } catch (IOException e) {
+            this.logger.debug("Failed to open the extracted WebJar resource [{}]. Root cause: [{}].", file,
+                ExceptionUtils.getRootCauseMessage(e));
+            return false;
+        }
+
+        try (FileChannel channel = fileChannel) {
+            // The gzip compressed and the identity representations are not byte-for-byte identical so they must have
+            // different (strong) entity tags.
+            String entityTag = '"' + resource.getHash() + (gzipped ? GZIP_ENTITY_TAG_SUFFIX : "") + '"';
+            httpResponse.setHeader(HttpHeaders.CACHE_CONTROL, "public");
+            httpResponse.setDateHeader(HttpHeaders.EXPIRES, new Date().getTime() + CACHE_DURATION);
+            httpResponse.setDateHeader(HttpHeaders.LAST_MODIFIED, resource.getLastModified());
+            httpResponse.setHeader(HttpHeaders.ETAG, entityTag);
+            if (resource.getGzippedFile() != null) {
+                // Also on the 304 (Not Modified) response, since it would have been sent on a 200 (OK) response.
+                httpResponse.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+
+            // The resource is static so the browser can use its cached version, unless it has an outdated entity tag.
+            String ifNoneMatch = httpRequest.getHeader(HttpHeaders.IF_NONE_MATCH);
+            if (ifNoneMatch != null ? ifNoneMatch.contains(entityTag)
+                : httpRequest.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null) {
+                httpResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return true;
+            }
+
+            if (gzipped) {
+                httpResponse.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP_ENCODING);
+            }
+
+            response.setContentType(resource.getContentType());
+            long size = channel.size();
+            httpResponse.setContentLengthLong(size);
+
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            for (long position = 0; position < size;) {
+                position += channel.transferTo(position, size - position, target);
+            }
+            out.flush();
+        } catch (IOException e) {
+            // Most probably the client has closed the connection.
+            this.logger.debug("Failed to send the WebJar resource [{}].", getResourceName(resourceReference), e);
+        }
+
+        return true;
+    }
+
     @Override
     protected InputStream getResourceStream(WebJarsResourceReference resourceReference)
     {
-        String resourcePath = String.format("%s%s", WEBJARS_RESOURCE_PREFIX, getResourceName(resourceReference));
-        return getClassLoader(resourceReference.getNamespace()).getResourceAsStream(resourcePath);
+        return getClassLoader(resourceReference.getNamespace()).getResourceAsStream(getResourcePath(resourceReference));
+    }
+
+    private String getResourcePath(WebJarsResourceReference resourceReference)
+    {
+        return String.format("%s%s", WEBJARS_RESOURCE_PREFIX, getResourceName(resourceReference));
     }
 
     @Override
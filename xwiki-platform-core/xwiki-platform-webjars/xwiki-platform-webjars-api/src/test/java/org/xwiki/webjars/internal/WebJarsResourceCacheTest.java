@@ -0,0 +1,121 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.webjars.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+import org.xwiki.environment.Environment;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.webjars.internal.WebJarsResourceCache.CachedResource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link WebJarsResourceCache}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class WebJarsResourceCacheTest
+{
+    @XWikiTempDir
+    private File temporaryDirectory;
+
+    @InjectMockComponents
+    private WebJarsResourceCache resourceCache;
+
+    @MockComponent
+    private Environment environment;
+
+    @BeforeComponent
+    void configure()
+    {
+        when(this.environment.getTemporaryDirectory()).thenReturn(this.temporaryDirectory);
+    }
+
+    @Test
+    void get() throws Exception
+    {
+        String content = StringUtils.repeat("var answer = 42;\n", 100);
+        File resource = new File(this.temporaryDirectory, "test.js");
+        FileUtils.write(resource, content, StandardCharsets.UTF_8);
+        URL resourceURL = resource.toURI().toURL();
+
+        CachedResource cachedResource = this.resourceCache.get(resourceURL, "test/1.0/test.js");
+
+        assertEquals(content, FileUtils.readFileToString(cachedResource.getFile(), StandardCharsets.UTF_8));
+        assertEquals("application/javascript", cachedResource.getContentType());
+        assertEquals(DigestUtils.sha256Hex(content), cachedResource.getHash());
+        try (InputStream stream = new GZIPInputStream(new FileInputStream(cachedResource.getGzippedFile()))) {
+            assertEquals(content, IOUtils.toString(stream, StandardCharsets.UTF_8));
+        }
+
+        // The resource is extracted only once.
+        assertSame(cachedResource, this.resourceCache.get(resourceURL, "test/1.0/test.js"));
+    }
+
+    @Test
+    void evict() throws Exception
+    {
+        File resource = new File(this.temporaryDirectory, "test.css");
+        FileUtils.write(resource, "a{}", StandardCharsets.UTF_8);
+        URL resourceURL = resource.toURI().toURL();
+
+        CachedResource cachedResource = this.resourceCache.get(resourceURL, "test/1.0/test.css");
+        FileUtils.deleteQuietly(cachedResource.getFile());
+
+        this.resourceCache.evict(resourceURL);
+
+        // The resource is extracted again.
+        CachedResource extractedAgain = this.resourceCache.get(resourceURL, "test/1.0/test.css");
+        assertNotSame(cachedResource, extractedAgain);
+        assertEquals("a{}", FileUtils.readFileToString(extractedAgain.getFile(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void getWhenNotWorthCompressing() throws Exception
+    {
+        File resource = new File(this.temporaryDirectory, "test.css");
+        FileUtils.write(resource, "a{}", StandardCharsets.UTF_8);
+
+        CachedResource cachedResource = this.resourceCache.get(resource.toURI().toURL(), "test/1.0/test.css");
+
+        assertEquals("a{}", FileUtils.readFileToString(cachedResource.getFile(), StandardCharsets.UTF_8));
+        assertNull(cachedResource.getGzippedFile());
+    }
+}
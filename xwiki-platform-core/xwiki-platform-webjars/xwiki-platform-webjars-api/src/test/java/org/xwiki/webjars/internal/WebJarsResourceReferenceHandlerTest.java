@@ -21,7 +21,9 @@
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.InputStream;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
 
@@ -29,6 +31,7 @@
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.input.CharSequenceInputStream;
 import org.apache.velocity.exception.VelocityException;
 import org.junit.jupiter.api.BeforeEach;
@@ -44,9 +47,11 @@
 import org.xwiki.resource.ResourceReferenceHandlerChain;
 import org.xwiki.resource.ResourceReferenceHandlerException;
 import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.XWikiTempDir;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.webjars.internal.WebJarsResourceCache.CachedResource;
 import org.xwiki.webjars.internal.filter.WebJarsResourceFilter;
 
 import static ch.qos.logback.classic.Level.ERROR;
@@ -92,6 +97,12 @@
     @MockComponent
     private Container container;
 
+    @MockComponent
+    private WebJarsResourceCache resourceCache;
+
+    @XWikiTempDir
+    private File temporaryDirectory;
+
     @Mock
     private ServletRequest request;
 
@@ -189,6 +200,125 @@ void return304WhenIfModifiedSinceHeader() throws Exception
         verify(this.chain).handleNext(reference);
     }
 
+    @Test
+    void executeWhenResourceIsCached() throws Exception
+    {
+        WebJarsResourceReference reference =
+            new WebJarsResourceReference("wiki:wiki", asList("angular", "2.1.11", "angular.js"));
+
+        URL resourceURL = new URL("file:/angular.js");
+        when(this.classLoader.getResource("META-INF/resources/webjars/angular/2.1.11/angular.js"))
+            .thenReturn(resourceURL);
+        File file = new File(this.temporaryDirectory, "angular.js");
+        FileUtils.write(file, "content", StandardCharsets.UTF_8);
+        File gzippedFile = new File(this.temporaryDirectory, "angular.js.gz");
+        FileUtils.write(gzippedFile, "gzipped content", StandardCharsets.UTF_8);
+        when(this.resourceCache.get(resourceURL, "angular/2.1.11/angular.js"))
+            .thenReturn(new CachedResource(file, gzippedFile, "application/javascript", "hash", 42));
+        when(this.request.getHttpServletRequest().getHeader("Accept-Encoding")).thenReturn("gzip, deflate");
+
+        this.handler.handle(reference, this.chain);
+
+        // Verify that the compressed resource has been copied to the Response output stream.
+        assertEquals("gzipped content", this.response.getOutputStream().toString());
+        verify(this.response).setContentType("application/javascript");
+        HttpServletResponse httpResponse = this.response.getHttpServletResponse();
+        verify(httpResponse).setHeader("Content-Encoding", "gzip");
+        // The compressed representation has its own entity tag.
+        verify(httpResponse).setHeader("ETag", "\"hash-gzip\"");
+        verify(httpResponse).addHeader("Vary", "Accept-Encoding");
+        verify(httpResponse).setDateHeader("Last-Modified", 42);
+        verify(httpResponse).setHeader("Cache-Control", "public");
+
+        // The resource is not read from the class loader.
+        verify(this.classLoader, never()).getResourceAsStream(any());
+
+        verify(this.chain).handleNext(reference);
+    }
+
+    @Test
+    void return304WhenEntityTagMatches() throws Exception
+    {
+        WebJarsResourceReference reference =
+            new WebJarsResourceReference("wiki:wiki", asList("angular", "2.1.11", "angular.js"));
+
+        URL resourceURL = new URL("file:/angular.js");
+        when(this.classLoader.getResource("META-INF/resources/webjars/angular/2.1.11/angular.js"))
+            .thenReturn(resourceURL);
+        File file = new File(this.temporaryDirectory, "angular.js");
+        FileUtils.write(file, "content", StandardCharsets.UTF_8);
+        when(this.resourceCache.get(resourceURL, "angular/2.1.11/angular.js"))
+            .thenReturn(new CachedResource(file, null, "application/javascript", "hash", 42));
+        when(this.request.getHttpServletRequest().getHeader("If-None-Match")).thenReturn("\"hash\"");
+
+        this.handler.handle(reference, this.chain);
+
+        verify(this.response.getHttpServletResponse()).setStatus(304);
+        assertEquals("", this.response.getOutputStream().toString());
+
+        verify(this.chain).handleNext(reference);
+    }
+
+    @Test
+    void return304WhenGzippedEntityTagMatches() throws Exception
+    {
+        WebJarsResourceReference reference =
+            new WebJarsResourceReference("wiki:wiki", asList("angular", "2.1.11", "angular.js"));
+
+        URL resourceURL = new URL("file:/angular.js");
+        when(this.classLoader.getResource("META-INF/resources/webjars/angular/2.1.11/angular.js"))
+            .thenReturn(resourceURL);
+        File file = new File(this.temporaryDirectory, "angular.js");
+        FileUtils.write(file, "content", StandardCharsets.UTF_8);
+        File gzippedFile = new File(this.temporaryDirectory, "angular.js.gz");
+        FileUtils.write(gzippedFile, "gzipped content", StandardCharsets.UTF_8);
+        when(this.resourceCache.get(resourceURL, "angular/2.1.11/angular.js"))
+            .thenReturn(new CachedResource(file, gzippedFile, "application/javascript", "hash", 42));
+        when(this.request.getHttpServletRequest().getHeader("Accept-Encoding")).thenReturn("gzip");
+        when(this.request.getHttpServletRequest().getHeader("If-None-Match")).thenReturn("\"hash-gzip\"");
+
+        this.handler.handle(reference, this.chain);
+
+        HttpServletResponse httpResponse = this.response.getHttpServletResponse();
+        verify(httpResponse).setStatus(304);
+        verify(httpResponse).addHeader("Vary", "Accept-Encoding");
+        assertEquals("", this.response.getOutputStream().toString());
+
+        // The identity representation doesn't match the entity tag of the compressed one.
+        when(this.request.getHttpServletRequest().getHeader("Accept-Encoding")).thenReturn(null);
+
+        this.handler.handle(reference, this.chain);
+
+        verify(httpResponse).setHeader("ETag", "\"hash\"");
+        verify(httpResponse, times(1)).setStatus(304);
+        assertEquals("content", this.response.getOutputStream().toString());
+    }
+
+    @Test
+    void executeWhenCachedResourceIsMissing() throws Exception
+    {
+        WebJarsResourceReference reference =
+            new WebJarsResourceReference("wiki:wiki", asList("angular", "2.1.11", "angular.js"));
+
+        URL resourceURL = new URL("file:/angular.js");
+        when(this.classLoader.getResource("META-INF/resources/webjars/angular/2.1.11/angular.js"))
+            .thenReturn(resourceURL);
+        // The extracted file has been deleted.
+        when(this.resourceCache.get(resourceURL, "angular/2.1.11/angular.js")).thenReturn(new CachedResource(
+            new File(this.temporaryDirectory, "missing.js"), null, "application/javascript", "hash", 42));
+        when(this.classLoader.getResourceAsStream("META-INF/resources/webjars/angular/2.1.11/angular.js"))
+            .thenReturn(new ByteArrayInputStream("content".getBytes()));
+
+        this.handler.handle(reference, this.chain);
+
+        // The resource is served from its JAR and extracted again next time.
+        assertEquals("content", this.response.getOutputStream().toString());
+        verify(this.resourceCache).evict(resourceURL);
+        verify(this.response.getHttpServletResponse(), never()).setHeader("ETag", "\"hash\"");
+
+        verify(this.chain).handleNext(reference);
+    }
+
     @Test
     void evaluateResource() throws Exception
     {